@@ -1,22 +1,145 @@
 package com.demo;
 
+import com.demo.currency.ExchangeRates;
 import com.demo.datatypes.Agreement;
+import com.demo.datatypes.AgreementResult;
 import com.demo.datatypes.Application;
+import com.demo.datatypes.CartAgreement;
+import com.demo.datatypes.ChargeResult;
+import com.demo.datatypes.CheckoutWindow;
+import com.demo.datatypes.RentalAgreement;
+import com.demo.datatypes.RentalApplication;
+import com.demo.datatypes.RentalCart;
+import com.demo.datatypes.Reservation;
+import com.demo.datatypes.Tool;
 import com.demo.datatypes.ToolType;
+import com.demo.demand.DemandPricing;
+import com.demo.pricing.PricingEngine;
+import com.demo.pricing.PricingPlan;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.text.NumberFormat;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Currency;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
 
 /**
  * Class containing all the functionality for generating a new rental agreement
- * when provided an existing application
+ * when provided an existing application.
+ * Instances hold no per-agreement state, so one manager can be shared by any number of threads.
  */
 public class AgreementManager {
-    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("MM/dd/yy");
-    private static final NumberFormat CURRENCY_FORMAT = NumberFormat.getCurrencyInstance();
+    private static final AgreementRenderer RENDERER = new AgreementRenderer();
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final int CHARGE_PROFILES = 4;
+
+    private final ExclusionManager exclusionManager;
+    private final QuoteCache quoteCache;
+    private final FleetIndex fleetIndex;
+    private final PricingEngine pricingEngine;
+    private final DemandPricing demandPricing;
+    private final QuoteMetrics metrics = new QuoteMetrics();
+
+    /**
+     * Creates an agreement manager that uses the default holiday rules
+     */
+    public AgreementManager() {
+        this(new ExclusionManager());
+    }
+
+    /**
+     * Creates an agreement manager that checks rental days with the given exclusion manager
+     * @param exclusionManager Exclusion manager holding the holiday calendar to charge against
+     */
+    public AgreementManager(ExclusionManager exclusionManager) {
+        this(exclusionManager, null);
+    }
+
+    /**
+     * Creates an agreement manager that reuses earlier pricing results from the given cache
+     * @param exclusionManager Exclusion manager holding the holiday calendar to charge against
+     * @param quoteCache Cache of quote charges and charge day counts, or NULL to calculate every quote
+     */
+    public AgreementManager(ExclusionManager exclusionManager, QuoteCache quoteCache) {
+        this(exclusionManager, quoteCache, null);
+    }
+
+    /**
+     * Creates an agreement manager that can also book physical units for its agreements
+     * @param exclusionManager Exclusion manager holding the holiday calendar to charge against
+     * @param quoteCache Cache of quote charges and charge day counts, or NULL to calculate every quote
+     * @param fleetIndex Availability index used by reserveAgreement(), or NULL if agreements are only quoted
+     */
+    public AgreementManager(ExclusionManager exclusionManager, QuoteCache quoteCache, FleetIndex fleetIndex) {
+        this(exclusionManager, quoteCache, fleetIndex, null);
+    }
+
+    /**
+     * Creates an agreement manager that prices quotes with configured tiers, caps, surcharges and promotions.
+     * Quote results depend on the tool brand and the rules as well as the quote inputs, so when a pricing engine is
+     * given the quote cache only reuses charge day counts.
+     * @param exclusionManager Exclusion manager holding the holiday calendar to charge against
+     * @param quoteCache Cache of quote charges and charge day counts, or NULL to calculate every quote
+     * @param fleetIndex Availability index used by reserveAgreement(), or NULL if agreements are only quoted
+     * @param pricingEngine Compiled pricing rules, or NULL to charge the daily charge for every charge day
+     */
+    public AgreementManager(ExclusionManager exclusionManager, QuoteCache quoteCache, FleetIndex fleetIndex,
+                            PricingEngine pricingEngine) {
+        this(exclusionManager, quoteCache, fleetIndex, pricingEngine, null);
+    }
+
+    /**
+     * Creates an agreement manager that also scales base charges by current fleet utilization.  Quotes and generated
+     * agreements only read utilization; an agreement is counted towards the utilization of its tool type when
+     * reserveAgreement() books it, and taken off again by cancelReservation().  As with a pricing engine, the quote
+     * cache only reuses charge day counts when demand pricing is given.
+     * @param exclusionManager Exclusion manager holding the holiday calendar to charge against
+     * @param quoteCache Cache of quote charges and charge day counts, or NULL to calculate every quote
+     * @param fleetIndex Availability index used by reserveAgreement(), or NULL if agreements are only quoted
+     * @param pricingEngine Compiled pricing rules, or NULL to charge the daily charge for every charge day
+     * @param demandPricing Utilization based multiplier applied after the pricing rules, or NULL for fixed prices
+     */
+    public AgreementManager(ExclusionManager exclusionManager, QuoteCache quoteCache, FleetIndex fleetIndex,
+                            PricingEngine pricingEngine, DemandPricing demandPricing) {
+        this.exclusionManager = exclusionManager;
+        this.quoteCache = quoteCache;
+        this.fleetIndex = fleetIndex;
+        this.pricingEngine = pricingEngine;
+        this.demandPricing = demandPricing;
+    }
+
+    /**
+     * @return Exclusion manager holding the holiday calendar this manager charges against
+     */
+    public ExclusionManager getExclusionManager() {
+        return this.exclusionManager;
+    }
+
+    /**
+     * @return Cache of quote charges and charge day counts, or NULL if every quote is calculated
+     */
+    public QuoteCache getQuoteCache() {
+        return this.quoteCache;
+    }
+
+    /**
+     * @return Utilization based multiplier applied after the pricing rules, or NULL if prices are fixed
+     */
+    public DemandPricing getDemandPricing() {
+        return this.demandPricing;
+    }
+
+    /**
+     * @return Pricing metrics for this manager, which are disabled until setEnabled(true) is called on them
+     */
+    public QuoteMetrics getMetrics() {
+        return this.metrics;
+    }
 
     /**
      * Generate a new rental agreement based on the information provided in a rental application
@@ -24,109 +147,542 @@ public class AgreementManager {
      * @return Full rental agreement object
      */
     public Agreement generateAgreement(Application application) {
-        var toolData = new ToolData();
-        var agreement = new Agreement();
+        return this.priceAgreement(application.getToolCode(), application.getCheckoutDate(),
+                application.getRentalDays(), application.getDiscountPercentage(), ExchangeRates.getInstance(),
+                application.getCurrency()).toAgreement();
+    }
+
+    /**
+     * Generate a new immutable rental agreement.  The result is built and validated in one step, so it can be
+     * cached or shared between threads without copying.
+     * @param application Immutable application that provides tool and rental details for this rental agreement
+     * @return Full rental agreement record
+     */
+    public RentalAgreement generateRentalAgreement(RentalApplication application) {
+        return this.generateRentalAgreement(application, ExchangeRates.getInstance());
+    }
+
+    /**
+     * Generate a new immutable rental agreement, converting with the given exchange rates rather than the shared
+     * table, such as the rates an earlier agreement was priced with
+     * @param application Immutable application that provides tool and rental details for this rental agreement
+     * @param rates Exchange rates to convert with
+     * @return Full rental agreement record
+     */
+    public RentalAgreement generateRentalAgreement(RentalApplication application, ExchangeRates rates) {
+        return this.priceAgreement(application.toolCode(), application.checkoutDate(),
+                application.rentalDays(), application.discountPercentage(), rates, application.currency());
+    }
+
+    /**
+     * Generate a new rental agreement and book a physical unit of the tool for it.  The application is priced
+     * first, so an invalid application is rejected without touching the fleet.  With demand pricing, the booked
+     * agreement is counted towards its tool type's utilization.
+     * @param application Immutable application that provides tool and rental details for this rental agreement
+     * @return Completed agreement along with the unit booked from its checkout date to its due date
+     * @throws IllegalStateException if no fleet index is configured or no unit is free for the whole rental period
+     * @throws IllegalArgumentException if the rental runs past the days counted by demand pricing, in which case the
+     * unit is released again
+     */
+    public Reservation reserveAgreement(RentalApplication application) {
+        if (this.fleetIndex == null) {
+            throw new IllegalStateException("No fleet index is configured for reservations.");
+        }
 
-        agreement.setSelectedTool(toolData.getTool(application.getToolCode()));
-        agreement.setRentalDays(application.getRentalDays());
-        agreement.setCheckoutDate(application.getCheckoutDate());
-        agreement.setDueDate(this.calculateDueDate(agreement.getCheckoutDate(), agreement.getRentalDays()));
-        agreement.setChargeDays(this.calculateChargeDays(agreement.getSelectedTool().type(),
-                agreement.getCheckoutDate().plusDays(1), agreement.getRentalDays()));
-        agreement.setBaseCharge(this.calculateBaseCharge(agreement.getChargeDays(), agreement.getSelectedTool().type().dailyCharge()));
-        agreement.setDiscountPercentage(application.getDiscountPercentage());
-        agreement.setDiscountAmount(this.calculateDiscountAmount(agreement.getBaseCharge(), agreement.getDiscountPercentage()));
-        agreement.setFinalCharge(this.calculateFinalCharge(agreement.getBaseCharge(), agreement.getDiscountAmount()));
+        var agreement = this.generateRentalAgreement(application);
+        var unit = this.fleetIndex.reserve(agreement.selectedTool().code(), agreement.checkoutDate(), agreement.rentalDays());
+        if (this.demandPricing != null) {
+            try {
+                this.demandPricing.recordRental(agreement.selectedTool().type(), agreement.checkoutDate().toEpochDay() + 1,
+                        agreement.rentalDays());
+            } catch (RuntimeException e) {
+                this.fleetIndex.release(agreement.selectedTool().code(), unit, agreement.checkoutDate(), agreement.rentalDays());
+                throw e;
+            }
+        }
+        return new Reservation(agreement, unit);
+    }
 
-        return agreement;
+    /**
+     * Frees the unit booked by reserveAgreement(), for example when a rental is cancelled, and takes the agreement
+     * off its tool type's utilization
+     * @param reservation Reservation to cancel
+     * @throws IllegalStateException if no fleet index is configured or the reservation was already cancelled
+     */
+    public void cancelReservation(Reservation reservation) {
+        if (this.fleetIndex == null) {
+            throw new IllegalStateException("No fleet index is configured for reservations.");
+        }
+
+        var agreement = reservation.agreement();
+        this.fleetIndex.release(agreement.selectedTool().code(), reservation.unit(), agreement.checkoutDate(),
+                agreement.rentalDays());
+        if (this.demandPricing != null) {
+            this.demandPricing.removeRental(agreement.selectedTool().type(), agreement.checkoutDate().toEpochDay() + 1,
+                    agreement.rentalDays());
+        }
+    }
+
+    /**
+     * Generate agreements for every line of a rental cart.  All lines share one rental period, and a tool type's
+     * chargeable days depend only on whether it charges for weekends and holidays, so the calendar is counted once for
+     * each distinct combination of those flags in the cart and reused by every line with the same flags.  The rest of
+     * the work per line is the charge arithmetic, so a cart costs about as much as one quote per charge profile.
+     * @param cart Immutable cart listing the tools rented together and the rental period they share
+     * @return Agreement for each line, in line order, along with the combined charges
+     */
+    public CartAgreement generateCartAgreement(RentalCart cart) {
+        var catalog = ToolCatalog.getInstance();
+        var tools = new Tool[cart.toolCodes().size()];
+
+        for (int line = 0; line < tools.length; line++) {
+            tools[line] = catalog.getTool(cart.toolCodes().get(line));
+            if (tools[line] == null) {
+                this.metrics.recordRejected();
+                throw new IllegalArgumentException("Tool code " + cart.toolCodes().get(line) + " was not found.");
+            }
+        }
+
+        var checkoutEpochDay = cart.checkoutDate().toEpochDay();
+        var rates = ExchangeRates.getInstance();
+        var chargeDaysByProfile = new int[CHARGE_PROFILES];
+        var charges = new ChargeResult();
+        var lines = new ArrayList<RentalAgreement>(tools.length);
+        Arrays.fill(chargeDaysByProfile, -1);
+
+        for (var tool : tools) {
+            var profile = chargeProfileOf(tool.type());
+            if (chargeDaysByProfile[profile] < 0) {
+                chargeDaysByProfile[profile] = this.calculateChargeDays(tool.type(), checkoutEpochDay + 1, cart.rentalDays());
+            }
+
+            var chargeDays = chargeDaysByProfile[profile];
+            var dailyCharge = rates.fromBaseCents(tool.type().dailyChargeCents(), cart.currency());
+            var plan = this.pricingEngine == null ? null : this.pricingEngine.getPlan(tool);
+            var baseCharge = this.calculatePlanBaseCharge(tool, plan, chargeDays, checkoutEpochDay, cart.rentalDays(),
+                    dailyCharge, rates, cart.currency());
+            var discountAmount = plan == null
+                    ? this.calculateDiscountAmount(baseCharge, cart.discountPercentage())
+                    : plan.getDiscountAmount(baseCharge, cart.discountPercentage(), checkoutEpochDay);
+
+            this.setCharges(tool, checkoutEpochDay, cart.rentalDays(), dailyCharge, chargeDays, baseCharge,
+                    cart.discountPercentage(), discountAmount, cart.currency(), charges);
+            lines.add(charges.toRentalAgreement());
+            if (this.metrics.isEnabled()) {
+                this.metrics.countQuote();
+            }
+        }
+
+        return new CartAgreement(lines);
+    }
+
+    /**
+     * Allocation-free pricing path used by generateAgreement().  All money is calculated in whole cents using
+     * the same half up rounding as the decimal amounts on an Agreement, and written into the caller's result holder.
+     * Once the calendar years involved have been cached, this method doesn't allocate anything unless the
+     * input is invalid or a QuoteCache is in use.  When the manager's QuoteMetrics are enabled, each stage is timed.
+     * Charges are in the base currency, US dollars.  Demand pricing, when configured, is read here but the quote isn't
+     * counted towards utilization; only reserveAgreement() counts it.
+     * @param toolCode Code of the tool being rented
+     * @param checkoutDate Date the rental begins
+     * @param rentalDays Total number of rental days, which must be at least 1
+     * @param discountPercentage Discount percentage as a whole number between 0-100
+     * @param result Holder that receives the calculated charges, which may be reused between calls
+     */
+    public void calculateCharges(String toolCode, LocalDate checkoutDate, int rentalDays, int discountPercentage,
+                                 ChargeResult result) {
+        this.calculateCharges(toolCode, checkoutDate, rentalDays, discountPercentage, null, ExchangeRates.BASE_CURRENCY,
+                result);
+    }
+
+    /**
+     * Prices a quote in the given currency on the same allocation-free path.  The tool's daily charge is converted
+     * once, rounding half up to the nearest cent, and the charges are then worked out in that currency just as they
+     * are in US dollars: the base charge is the converted daily charge times the charge days, and the discount is
+     * rounded half up from it.  With a pricing plan, the plan's base charge is converted instead, before demand
+     * pricing and the plan's discounts are applied.  A QuoteCache is only used for the base currency.
+     * @param toolCode Code of the tool being rented
+     * @param checkoutDate Date the rental begins
+     * @param rentalDays Total number of rental days, which must be at least 1
+     * @param discountPercentage Discount percentage as a whole number between 0-100
+     * @param rates Exchange rates to convert with, which may be NULL for the base currency
+     * @param currency Currency to price in
+     * @param result Holder that receives the calculated charges, which may be reused between calls
+     */
+    public void calculateCharges(String toolCode, LocalDate checkoutDate, int rentalDays, int discountPercentage,
+                                 ExchangeRates rates, Currency currency, ChargeResult result) {
+        var timed = this.metrics.shouldTime();
+        var started = timed ? System.nanoTime() : 0L;
+        var tool = ToolCatalog.getInstance().getTool(toolCode);
+
+        if (tool == null) {
+            this.metrics.recordRejected();
+            throw new IllegalArgumentException("Tool code " + toolCode + " was not found.");
+        }
+        if (rentalDays < 1) {
+            this.metrics.recordRejected();
+            throw new IllegalArgumentException("All rental agreements must be for at least 1 day.");
+        }
+        if (discountPercentage < 0 || discountPercentage > 100) {
+            this.metrics.recordRejected();
+            throw new IllegalArgumentException("Please enter a valid discount percentage amount between 0-100 and try again.");
+        }
+
+        var toolFound = timed ? System.nanoTime() : 0L;
+        var chargeDaysCounted = 0L;
+        var checkoutEpochDay = checkoutDate.toEpochDay();
+        var converted = !currency.equals(ExchangeRates.BASE_CURRENCY);
+        var dailyCharge = converted
+                ? rates.fromBaseCents(tool.type().dailyChargeCents(), currency)
+                : tool.type().dailyChargeCents();
+        int chargeDays;
+        long baseCharge;
+        long discountAmount;
+
+        if (this.pricingEngine != null || this.demandPricing != null) {
+            chargeDays = this.countChargeDays(tool.type(), checkoutEpochDay, rentalDays);
+            chargeDaysCounted = timed ? System.nanoTime() : 0L;
+            var plan = this.pricingEngine == null ? null : this.pricingEngine.getPlan(tool);
+            baseCharge = this.calculatePlanBaseCharge(tool, plan, chargeDays, checkoutEpochDay, rentalDays, dailyCharge,
+                    rates, currency);
+            discountAmount = plan == null
+                    ? this.calculateDiscountAmount(baseCharge, discountPercentage)
+                    : plan.getDiscountAmount(baseCharge, discountPercentage, checkoutEpochDay);
+        } else if (this.quoteCache == null || converted) {
+            chargeDays = this.countChargeDays(tool.type(), checkoutEpochDay, rentalDays);
+            chargeDaysCounted = timed ? System.nanoTime() : 0L;
+            baseCharge = this.calculateBaseCharge(chargeDays, dailyCharge);
+            discountAmount = this.calculateDiscountAmount(baseCharge, discountPercentage);
+        } else {
+            var charges = this.quoteCache.getCharges(
+                    new QuoteCache.QuoteKey(tool.type(), checkoutEpochDay, rentalDays, discountPercentage),
+                    this::calculateCachedCharges);
+            chargeDays = charges.chargeDays();
+            baseCharge = charges.baseChargeCents();
+            discountAmount = charges.discountAmountCents();
+        }
+
+        this.setCharges(tool, checkoutEpochDay, rentalDays, dailyCharge, chargeDays, baseCharge, discountPercentage,
+                discountAmount, currency, result);
+
+        if (timed) {
+            this.metrics.recordQuote(tool.type(), started, toolFound, chargeDaysCounted, System.nanoTime());
+        } else if (this.metrics.isEnabled()) {
+            this.metrics.countQuote();
+        }
+    }
+
+    /**
+     * Generate rental agreements for a batch of applications, spreading the work across the common fork-join pool.
+     * An invalid application doesn't stop the batch; its result holds the reason it was rejected instead.
+     * @param applications Applications to generate agreements for
+     * @return One result per application, in the same order as the applications
+     */
+    public List<AgreementResult> generateAgreements(List<Application> applications) {
+        return applications.parallelStream().map(this::tryGenerateAgreement).toList();
+    }
+
+    /**
+     * Generate rental agreements for a batch of applications on the given executor.  The batch is split into
+     * contiguous chunks, a few per available processor, so each task is large enough to outweigh its scheduling cost.
+     * @param applications Applications to generate agreements for
+     * @param executor Executor that runs the chunks, such as a fixed size thread pool
+     * @return One result per application, in the same order as the applications
+     */
+    public List<AgreementResult> generateAgreements(List<Application> applications, Executor executor) {
+        var chunkCount = Math.max(1, Runtime.getRuntime().availableProcessors() * CHUNKS_PER_THREAD);
+        var chunkSize = Math.max(1, (applications.size() + chunkCount - 1) / chunkCount);
+        var chunks = new ArrayList<CompletableFuture<List<AgreementResult>>>();
+
+        for (int start = 0; start < applications.size(); start += chunkSize) {
+            var chunk = applications.subList(start, Math.min(start + chunkSize, applications.size()));
+            chunks.add(CompletableFuture.supplyAsync(() -> chunk.stream().map(this::tryGenerateAgreement).toList(), executor));
+        }
+
+        var results = new ArrayList<AgreementResult>(applications.size());
+        for (var chunk : chunks) {
+            results.addAll(chunk.join());
+        }
+        return results;
+    }
+
+    /**
+     * Generate rental agreements for a stream of applications.  The stream is processed in parallel while keeping
+     * its encounter order, so results can be consumed without holding the whole batch in memory.
+     * @param applications Applications to generate agreements for
+     * @return Stream with one result per application, in the same order as the applications
+     */
+    public Stream<AgreementResult> generateAgreements(Stream<Application> applications) {
+        return applications.parallel().map(this::tryGenerateAgreement);
+    }
+
+    /**
+     * Price every possible checkout date in a range for the same tool, rental length and discount.
+     * Each day from the day after the first checkout date to the last due date is classified once, then the charge
+     * day count slides across the range, adding the day entering the window and removing the day leaving it, so
+     * the cost doesn't depend on the rental length.
+     * @param toolCode Code of the tool being rented
+     * @param rentalDays Total number of rental days, which must be at least 1
+     * @param discountPercentage Discount percentage as a whole number between 0-100
+     * @param firstCheckoutDate Earliest checkout date to consider
+     * @param lastCheckoutDate Latest checkout date to consider, on or after the first
+     * @return One window per checkout date, in date order
+     */
+    public List<CheckoutWindow> findCheckoutWindows(String toolCode, int rentalDays, int discountPercentage,
+                                                    LocalDate firstCheckoutDate, LocalDate lastCheckoutDate) {
+        var tool = ToolCatalog.getInstance().getTool(toolCode);
+
+        if (tool == null) {
+            throw new IllegalArgumentException("Tool code " + toolCode + " was not found.");
+        }
+        if (rentalDays < 1) {
+            throw new IllegalArgumentException("All rental agreements must be for at least 1 day.");
+        }
+        if (discountPercentage < 0 || discountPercentage > 100) {
+            throw new IllegalArgumentException("Please enter a valid discount percentage amount between 0-100 and try again.");
+        }
+        if (lastCheckoutDate.isBefore(firstCheckoutDate)) {
+            throw new IllegalArgumentException("The last checkout date must not be before the first checkout date.");
+        }
+
+        var firstEpochDay = firstCheckoutDate.toEpochDay();
+        var windowCount = Math.toIntExact(lastCheckoutDate.toEpochDay() - firstEpochDay + 1);
+        var chargeable = new boolean[Math.addExact(windowCount - 1, rentalDays)];
+        var windows = new ArrayList<CheckoutWindow>(windowCount);
+
+        for (int day = 0; day < chargeable.length; day++) {
+            chargeable[day] = this.exclusionManager.isChargeDay(tool.type(), firstEpochDay + 1 + day);
+        }
+
+        var plan = this.pricingEngine == null ? null : this.pricingEngine.getPlan(tool);
+        var chargeDays = 0;
+        for (int day = 0; day < rentalDays; day++) {
+            chargeDays += chargeable[day] ? 1 : 0;
+        }
+
+        for (int window = 0; window < windowCount; window++) {
+            if (window > 0) {
+                chargeDays += (chargeable[window + rentalDays - 1] ? 1 : 0) - (chargeable[window - 1] ? 1 : 0);
+            }
+
+            var baseCharge = this.calculatePlanBaseCharge(tool, plan, chargeDays, firstEpochDay + window, rentalDays,
+                    tool.type().dailyChargeCents(), null, ExchangeRates.BASE_CURRENCY);
+            var discountAmount = plan == null
+                    ? this.calculateDiscountAmount(baseCharge, discountPercentage)
+                    : plan.getDiscountAmount(baseCharge, discountPercentage, firstEpochDay + window);
+            var checkoutDate = LocalDate.ofEpochDay(firstEpochDay + window);
+
+            windows.add(new CheckoutWindow(checkoutDate, checkoutDate.plusDays(rentalDays), chargeDays,
+                    BigDecimal.valueOf(baseCharge, 2), BigDecimal.valueOf(discountAmount, 2),
+                    BigDecimal.valueOf(this.calculateFinalCharge(baseCharge, discountAmount), 2)));
+        }
+
+        return windows;
+    }
+
+    /**
+     * Find the cheapest checkout dates in a range, as priced by findCheckoutWindows()
+     * @param toolCode Code of the tool being rented
+     * @param rentalDays Total number of rental days, which must be at least 1
+     * @param discountPercentage Discount percentage as a whole number between 0-100
+     * @param firstCheckoutDate Earliest checkout date to consider
+     * @param lastCheckoutDate Latest checkout date to consider, on or after the first
+     * @param limit Maximum number of windows to return
+     * @return Up to limit windows ordered by final charge, with ties going to the earlier checkout date
+     */
+    public List<CheckoutWindow> findCheapestCheckoutWindows(String toolCode, int rentalDays, int discountPercentage,
+                                                            LocalDate firstCheckoutDate, LocalDate lastCheckoutDate,
+                                                            int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("The number of windows to return must not be negative.");
+        }
+
+        return this.findCheckoutWindows(toolCode, rentalDays, discountPercentage, firstCheckoutDate, lastCheckoutDate)
+                .stream()
+                .sorted(Comparator.comparing(CheckoutWindow::finalCharge).thenComparing(CheckoutWindow::checkoutDate))
+                .limit(limit)
+                .toList();
     }
 
     /**
      * Method for displaying the completed agreement to the console.
+     * The whole agreement is rendered first and printed with a single write.
      * @param agreement Already completed rental agreement ready for user-facing display
      */
     public void displayAgreement(Agreement agreement) {
-        System.out.println("Tool code: " + agreement.getSelectedTool().code());
-        System.out.println("Tool type: " + agreement.getSelectedTool().type().label());
-        System.out.println("Tool brand: " + agreement.getSelectedTool().brand());
-        System.out.println("Rental days: " + agreement.getRentalDays());
-        System.out.println("Checkout date: " + agreement.getCheckoutDate().format(DATE_FORMAT));
-        System.out.println("Due date: " + agreement.getDueDate().format(DATE_FORMAT));
-        System.out.println("Daily rental charge: " + CURRENCY_FORMAT.format(agreement.getSelectedTool().type().dailyCharge()));
-        System.out.println("Charge days: " + agreement.getChargeDays());
-        System.out.println("Pre-discount charge: " + CURRENCY_FORMAT.format(agreement.getBaseCharge()));
-        System.out.println("Discount percent: " + agreement.getDiscountPercentage() + "%");
-        System.out.println("Discount amount: " + CURRENCY_FORMAT.format(agreement.getDiscountAmount()));
-        System.out.println("Final charge: " + CURRENCY_FORMAT.format(agreement.getFinalCharge()));
-    }
-
-    /**
-     * Private helper method used to calculate the rental due date based on the starting date and number of rental days
-     * @param startingDate Date the rental agreement will begin
-     * @param rentalDays Total number of rental days on this agreement
-     * @return Rental due date calculated using the provided starting date and rental days
+        RENDERER.write(agreement, AgreementRenderer.Format.TEXT, System.out);
+    }
+
+    /**
+     * Private helper function that prices a quote and builds the immutable agreement for it
+     * @param toolCode Code of the tool being rented
+     * @param checkoutDate Date the rental begins
+     * @param rentalDays Total number of rental days
+     * @param discountPercentage Discount percentage as a whole number between 0-100
+     * @param rates Exchange rates to convert with
+     * @param currency Currency to price in, or NULL for the base currency
+     * @return Completed rental agreement
+     */
+    private RentalAgreement priceAgreement(String toolCode, LocalDate checkoutDate, int rentalDays, int discountPercentage,
+                                           ExchangeRates rates, Currency currency) {
+        var charges = new ChargeResult();
+
+        this.calculateCharges(toolCode, checkoutDate, rentalDays, discountPercentage, rates,
+                currency == null ? ExchangeRates.BASE_CURRENCY : currency, charges);
+        return charges.toRentalAgreement();
+    }
+
+    /**
+     * Private helper method that generates an agreement for one application within a batch, recording any failure
+     * in the result rather than throwing it
+     * @param application Application to generate an agreement for
+     * @return Result holding either the agreement or the reason it couldn't be generated
+     */
+    private AgreementResult tryGenerateAgreement(Application application) {
+        try {
+            return new AgreementResult(application, this.generateAgreement(application), null);
+        } catch (RuntimeException e) {
+            return new AgreementResult(application, null, e.getMessage() != null ? e.getMessage() : e.toString());
+        }
+    }
+
+    /**
+     * Private helper function that calculates the charges for a quote that wasn't found in the quote cache
+     * @param key Pricing inputs for the quote
+     * @return Calculated charges to store in the cache
+     */
+    private QuoteCache.Charges calculateCachedCharges(QuoteCache.QuoteKey key) {
+        var chargeDays = this.quoteCache.getChargeDays(
+                new QuoteCache.ChargeDaysKey(key.toolType(), key.checkoutEpochDay() + 1, key.rentalDays()),
+                chargeDaysKey -> this.calculateChargeDays(key.toolType(), chargeDaysKey.startingChargeEpochDay(), key.rentalDays()));
+        var baseCharge = this.calculateBaseCharge(chargeDays, key.toolType().dailyChargeCents());
+        var discountAmount = this.calculateDiscountAmount(baseCharge, key.discountPercentage());
+
+        return new QuoteCache.Charges(chargeDays, baseCharge, discountAmount, this.calculateFinalCharge(baseCharge, discountAmount));
+    }
+
+    /**
+     * Private helper function that writes calculated charges into a result holder
+     * @param tool Tool being rented
+     * @param checkoutEpochDay Date the rental begins, as a count of days since 1970-01-01
+     * @param rentalDays Total number of rental days
+     * @param dailyCharge Daily charge in cents
+     * @param chargeDays Number of chargeable rental days
+     * @param baseCharge Base charge in cents
+     * @param discountPercentage Discount percentage as a whole number between 0-100
+     * @param discountAmount Discount amount in cents
+     * @param currency Currency every amount is in
+     * @param result Holder that receives the charges
      */
-    private LocalDate calculateDueDate(LocalDate startingDate, int rentalDays) {
-        return startingDate.plusDays(rentalDays);
+    private void setCharges(Tool tool, long checkoutEpochDay, int rentalDays, long dailyCharge, int chargeDays,
+                            long baseCharge, int discountPercentage, long discountAmount, Currency currency,
+                            ChargeResult result) {
+        result.setSelectedTool(tool);
+        result.setRentalDays(rentalDays);
+        result.setCheckoutEpochDay(checkoutEpochDay);
+        result.setDailyChargeCents(dailyCharge);
+        result.setChargeDays(chargeDays);
+        result.setBaseChargeCents(baseCharge);
+        result.setDiscountPercentage(discountPercentage);
+        result.setDiscountAmountCents(discountAmount);
+        result.setFinalChargeCents(this.calculateFinalCharge(baseCharge, discountAmount));
+        result.setCurrency(currency);
+    }
+
+    /**
+     * Private helper function that calculates a base charge with the pricing plan, if any, and then demand pricing,
+     * if configured
+     * @param tool Tool being rented
+     * @param plan Pricing plan for the tool, or NULL to charge the daily charge for every charge day
+     * @param chargeDays Number of chargeable rental days
+     * @param checkoutEpochDay Date the rental begins, as a count of days since 1970-01-01
+     * @param rentalDays Total number of rental days
+     * @param dailyCharge Tool's daily charge in cents of the currency being priced in
+     * @param rates Exchange rates the plan's US dollar charge is converted with, which may be NULL for the base currency
+     * @param currency Currency being priced in
+     * @return Base charge in cents
+     */
+    private long calculatePlanBaseCharge(Tool tool, PricingPlan plan, int chargeDays, long checkoutEpochDay, int rentalDays,
+                                         long dailyCharge, ExchangeRates rates, Currency currency) {
+        var baseCharge = plan == null
+                ? this.calculateBaseCharge(chargeDays, dailyCharge)
+                : currency.equals(ExchangeRates.BASE_CURRENCY)
+                        ? plan.getBaseCharge(chargeDays)
+                        : rates.fromBaseCents(plan.getBaseCharge(chargeDays), currency);
+        return this.demandPricing == null
+                ? baseCharge
+                : this.demandPricing.adjustBaseCharge(tool.type(), checkoutEpochDay + 1, rentalDays, baseCharge);
+    }
+
+    /**
+     * Private helper function that counts the charge days of a rental, through the QuoteCache if there is one
+     * @param toolType Tool type being rented
+     * @param checkoutEpochDay Date the rental begins, as a count of days since 1970-01-01
+     * @param rentalDays Total number of rental days
+     * @return Number of chargeable rental days
+     */
+    private int countChargeDays(ToolType toolType, long checkoutEpochDay, int rentalDays) {
+        return this.quoteCache == null
+                ? this.calculateChargeDays(toolType, checkoutEpochDay + 1, rentalDays)
+                : this.quoteCache.getChargeDays(new QuoteCache.ChargeDaysKey(toolType, checkoutEpochDay + 1, rentalDays),
+                        key -> this.calculateChargeDays(toolType, key.startingChargeEpochDay(), rentalDays));
+    }
+
+    /**
+     * Private helper function that numbers the combinations of charge flags that change which days are chargeable.
+     * Weekdays are always charged, so only the weekend and holiday flags are part of the profile.
+     * @param toolType Tool type to classify
+     * @return Charge profile between 0 and CHARGE_PROFILES - 1
+     */
+    private static int chargeProfileOf(ToolType toolType) {
+        return (toolType.weekendCharge() ? 1 : 0) | (toolType.holidayCharge() ? 2 : 0);
     }
 
     /**
      * Private helper function that returns the total number of days within the rental period that are chargeable for the given tool type
      * @param toolType Object that represents the type of tool on this agreement.  This includes charge and exclusion information.
-     * @param startingChargeDate Starting date within the rental period
+     * @param startingChargeEpochDay Starting date within the rental period, as a count of days since 1970-01-01
      * @param rentalDays Total number of rental days on this agreement
      * @return Total number of chargeable days calculated as the rental days minus the exclusion days
      */
-    private int calculateChargeDays(ToolType toolType, LocalDate startingChargeDate, int rentalDays) {
-        var exclusionManager = new ExclusionManager();
-        var rentalDaysCollection = exclusionManager.getRentalDays(startingChargeDate, rentalDays);
-        var exclusionDays = 0;
-
-        for (var day: rentalDaysCollection) {
-            if (!toolType.holidayCharge() && day.isHoliday()) {
-                exclusionDays++;
-            } else {
-                if (!toolType.weekendCharge() && day.isWeekend()) {
-                    exclusionDays++;
-                }
-            }
-        }
-
-        return rentalDays - exclusionDays;
+    private int calculateChargeDays(ToolType toolType, long startingChargeEpochDay, int rentalDays) {
+        return rentalDays - this.exclusionManager.countExclusionDays(toolType, startingChargeEpochDay, rentalDays);
     }
 
     /**
-     * Private helper function that calculates and returns the base charge for this tool.
+     * Helper function that calculates and returns the base charge for this tool.
+     * Daily charges are whole cents, so the product needs no rounding.
+     * Package-private so the charge math can be benchmarked on its own.
      * @param chargeDays Total chargeable rental days for this agreement
-     * @param dailyCharge The base daily rental charge for this tool, before discounts
-     * @return Base charge for tool rental calculated as daily charge multiplied by the number of chargeable rental days
+     * @param dailyChargeCents The base daily rental charge for this tool in cents, before discounts
+     * @return Base charge in cents for tool rental calculated as daily charge multiplied by the number of chargeable rental days
      */
-    private BigDecimal calculateBaseCharge(int chargeDays, BigDecimal dailyCharge) {
-        return dailyCharge.multiply(BigDecimal.valueOf(chargeDays)).setScale(2, RoundingMode.HALF_UP);
+    long calculateBaseCharge(int chargeDays, long dailyChargeCents) {
+        return dailyChargeCents * chargeDays;
     }
 
     /**
-     * Private helper function that calculates and returns the discount amount for this agreement.
+     * Helper function that calculates and returns the discount amount for this agreement.
      * Base charge should be calculated prior to calling this function by using the calculateBaseCharge() method.
-     * Discount amount is calculated by first dividing the whole number percentage amount by 100 to retrieve a decimal
-     * representation of the percentage value.  This decimal amount is multiplied by the base charge for this agreement.
-     * Rounding is done using the standard "half up" method.
-     * @param baseCharge Base charge for this agreement as calculated by the calculateBaseCharge() method
+     * Discount amount is calculated by multiplying the base charge by the whole number percentage amount and then
+     * dividing by 100.  Rounding is done to the nearest cent using the standard "half up" method, which for
+     * non-negative amounts means adding half of the divisor before the integer division.
+     * @param baseChargeCents Base charge in cents for this agreement as calculated by the calculateBaseCharge() method
      * @param discountPercentage Discount percentage as represented by a whole number
-     * @return Calculated discount amount for this agreement
+     * @return Calculated discount amount in cents for this agreement
      */
-    private BigDecimal calculateDiscountAmount(BigDecimal baseCharge, int discountPercentage) {
-        return baseCharge.multiply(BigDecimal.valueOf(discountPercentage)).divide(BigDecimal.valueOf(100), RoundingMode.HALF_UP);
+    long calculateDiscountAmount(long baseChargeCents, int discountPercentage) {
+        return (baseChargeCents * discountPercentage + 50) / 100;
     }
 
     /**
-     * Private helper function that calculates the final charge for the agreement.  This is the actual cost for this
+     * Helper function that calculates the final charge for the agreement.  This is the actual cost for this
      * rental that will be charged to the customer, after all exclusions and discounts are calculated and applied.
-     * @param baseCharge Base charge for this agreement as calculated by the calculateBaseCharge() method
-     * @param discountAmount Discount amount for this agreement as calculated by the calculateDiscountAmount() method
-     * @return Final charge amount calculated by subtracting the discount amount from the base charge amount
+     * @param baseChargeCents Base charge in cents for this agreement as calculated by the calculateBaseCharge() method
+     * @param discountAmountCents Discount amount in cents for this agreement as calculated by the calculateDiscountAmount() method
+     * @return Final charge amount in cents calculated by subtracting the discount amount from the base charge amount
      */
-    private BigDecimal calculateFinalCharge(BigDecimal baseCharge, BigDecimal discountAmount) {
-        return baseCharge.subtract(discountAmount);
+    long calculateFinalCharge(long baseChargeCents, long discountAmountCents) {
+        return baseChargeCents - discountAmountCents;
     }
 }
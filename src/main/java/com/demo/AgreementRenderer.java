@@ -0,0 +1,398 @@
+package com.demo;
+
+import com.demo.currency.ExchangeRates;
+import com.demo.currency.MoneyFormat;
+import com.demo.datatypes.Agreement;
+import com.demo.datatypes.RentalAgreement;
+import com.demo.datatypes.Tool;
+import com.demo.datatypes.ToolType;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.Currency;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Formats completed agreements for display or export.  A whole agreement, or a whole batch of agreements, is built
+ * in one reusable per-thread buffer and handed to the destination in a single write, rather than one write per line.
+ * Renderers hold no mutable shared state, so one instance can be used by any number of threads.
+ * <p>
+ * Amounts are shown in each agreement's own currency.  Text is formatted for the renderer's locale with shared,
+ * immutable MoneyFormat instances, so a renderer can format any mix of currencies without locking or creating a
+ * NumberFormat per agreement.  The daily charge is the one the agreement was priced with, not converted again.
+ * <p>
+ * Three formats are supported: the console text layout, one JSON object per line, and a compact binary record
+ * (see writeBinary()).
+ */
+public class AgreementRenderer {
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("MM/dd/yy");
+    private static final int MAX_RETAINED_BUFFER = 1 << 20;
+
+    /**
+     * Size in bytes of a binary agreement record, not counting the tool code, brand and type label characters
+     */
+    public static final int BINARY_FIXED_SIZE = 2 + 2 + 2 + 1 + 4 + 4 + 4 + 1 + 3 + 8 + 8 + 8 + 8 + 8;
+
+    private static final int WEEKDAY_CHARGE = 1;
+    private static final int WEEKEND_CHARGE = 2;
+    private static final int HOLIDAY_CHARGE = 4;
+
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(512));
+
+    private final Locale locale;
+
+    /**
+     * Creates a renderer that formats text for the default locale
+     */
+    public AgreementRenderer() {
+        this(Locale.getDefault(Locale.Category.FORMAT));
+    }
+
+    /**
+     * Creates a renderer that formats text for the given locale, such as Locale.CANADA_FRENCH
+     * @param locale Locale whose currency layout and separators are used for text
+     */
+    public AgreementRenderer(Locale locale) {
+        this.locale = locale;
+    }
+
+    public Locale getLocale() {
+        return this.locale;
+    }
+
+    /**
+     * Text formats an agreement can be rendered in
+     */
+    public enum Format {
+        TEXT,
+        JSON
+    }
+
+    /**
+     * Appends one agreement to a buffer
+     * @param agreement Completed rental agreement
+     * @param format Layout to render the agreement in
+     * @param output Buffer to append to
+     * @return The same buffer, for chaining
+     */
+    public StringBuilder render(Agreement agreement, Format format, StringBuilder output) {
+        return format == Format.TEXT ? this.renderText(agreement, output) : this.renderJson(agreement, output);
+    }
+
+    /**
+     * Renders one agreement and appends it to the destination in a single call
+     * @param agreement Completed rental agreement
+     * @param format Layout to render the agreement in
+     * @param destination Where the rendered agreement is written, such as System.out or a Writer
+     */
+    public void write(Agreement agreement, Format format, Appendable destination) {
+        this.write(List.of(agreement), format, destination);
+    }
+
+    /**
+     * Renders a batch of agreements and appends them to the destination in a single call
+     * @param agreements Completed rental agreements
+     * @param format Layout to render the agreements in
+     * @param destination Where the rendered agreements are written
+     */
+    public void write(Collection<Agreement> agreements, Format format, Appendable destination) {
+        var buffer = this.renderAll(agreements, format);
+        try {
+            destination.append(buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write agreements.", e);
+        } finally {
+            this.release(buffer);
+        }
+    }
+
+    /**
+     * Renders a batch of agreements and writes them to the channel as UTF-8 in a single encoded buffer
+     * @param agreements Completed rental agreements
+     * @param format Layout to render the agreements in
+     * @param channel Where the rendered agreements are written
+     */
+    public void write(Collection<Agreement> agreements, Format format, WritableByteChannel channel) {
+        var buffer = this.renderAll(agreements, format);
+        try {
+            writeFully(StandardCharsets.UTF_8.encode(CharBuffer.wrap(buffer)), channel);
+        } finally {
+            this.release(buffer);
+        }
+    }
+
+    /**
+     * Writes a batch of agreements to the channel as compact binary records, all big-endian:
+     * <pre>
+     * short   length of tool code in bytes, followed by the UTF-8 tool code
+     * short   length of tool brand in bytes, followed by the UTF-8 tool brand
+     * short   length of tool type label in bytes, followed by the UTF-8 tool type label
+     * byte    tool type charge flags: 1 for weekdays, 2 for weekends, 4 for holidays
+     * int     checkout date as days since 1970-01-01
+     * int     rental days
+     * int     charge days
+     * byte    discount percentage
+     * byte[3] ISO 4217 currency code of the charges, in ASCII
+     * long    tool type's daily charge in US cents
+     * long    daily charge in cents of the agreement's currency
+     * long    base charge in cents of the agreement's currency
+     * long    discount amount in cents of the agreement's currency
+     * long    final charge in cents of the agreement's currency
+     * </pre>
+     * The due date is the checkout date plus the rental days, so it isn't stored.  The whole tool is stored, so a
+     * record can be read back without the ToolCatalog, even after the tool's rate changes or it is removed.
+     * @param agreements Completed rental agreements
+     * @param channel Where the records are written
+     */
+    public void writeBinary(Collection<Agreement> agreements, WritableByteChannel channel) {
+        var buffer = ByteBuffer.allocate(agreements.size() * (BINARY_FIXED_SIZE + 32));
+
+        for (var agreement : agreements) {
+            var size = maxBinarySize(agreement.getSelectedTool());
+            if (buffer.remaining() < size) {
+                buffer = ByteBuffer.allocate(buffer.capacity() * 2 + size).put(buffer.flip());
+            }
+            this.encode(agreement, buffer);
+        }
+
+        writeFully(buffer.flip(), channel);
+    }
+
+    /**
+     * Appends one agreement to a buffer as a binary record, in the layout described by writeBinary()
+     * @param agreement Completed rental agreement
+     * @param buffer Buffer with enough space for the record
+     */
+    public void encode(Agreement agreement, ByteBuffer buffer) {
+        encode(agreement.getSelectedTool(), agreement.getCheckoutDate().toEpochDay(), agreement.getRentalDays(),
+                agreement.getChargeDays(), agreement.getDiscountPercentage(), agreement.getCurrency(),
+                dailyChargeCents(agreement), toCents(agreement.getBaseCharge()), toCents(agreement.getDiscountAmount()),
+                toCents(agreement.getFinalCharge()), buffer);
+    }
+
+    /**
+     * Appends one immutable agreement to a buffer as a binary record, in the layout described by writeBinary()
+     * @param agreement Completed rental agreement
+     * @param buffer Buffer with enough space for the record
+     */
+    public void encode(RentalAgreement agreement, ByteBuffer buffer) {
+        encode(agreement.selectedTool(), agreement.checkoutDate().toEpochDay(), agreement.rentalDays(),
+                agreement.chargeDays(), agreement.discountPercentage(), agreement.currency(),
+                toCents(agreement.dailyCharge()), toCents(agreement.baseCharge()), toCents(agreement.discountAmount()),
+                toCents(agreement.finalCharge()), buffer);
+    }
+
+    /**
+     * Appends a value as a quoted JSON string, escaping quotes, backslashes and control characters
+     * @param value Text to append
+     * @param output Buffer to append to
+     * @return The same buffer, for chaining
+     */
+    public static StringBuilder appendJsonString(String value, StringBuilder output) {
+        output.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            var c = value.charAt(i);
+            switch (c) {
+                case '"' -> output.append("\\\"");
+                case '\\' -> output.append("\\\\");
+                case '\n' -> output.append("\\n");
+                case '\r' -> output.append("\\r");
+                case '\t' -> output.append("\\t");
+                case '\b' -> output.append("\\b");
+                case '\f' -> output.append("\\f");
+                default -> {
+                    if (c < 0x20) {
+                        output.append("\\u00").append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 0xF, 16));
+                    } else {
+                        output.append(c);
+                    }
+                }
+            }
+        }
+        return output.append('"');
+    }
+
+    /**
+     * @param tool Tool on the agreement
+     * @return Largest number of bytes a binary record for an agreement on this tool can take
+     */
+    public static int maxBinarySize(Tool tool) {
+        return BINARY_FIXED_SIZE + 3 * (tool.code().length() + tool.brand().length() + tool.type().label().length());
+    }
+
+    /**
+     * Reads one binary record written by encode().  The tool is rebuilt from the record alone, so the current
+     * ToolCatalog doesn't need to hold it or agree with it.
+     * @param buffer Buffer positioned at the start of the record, which is left positioned after it
+     * @return Agreement held in the record
+     */
+    public RentalAgreement decode(ByteBuffer buffer) {
+        var code = getString(buffer);
+        var brand = getString(buffer);
+        var label = getString(buffer);
+        var chargeFlags = buffer.get();
+        var checkoutDate = LocalDate.ofEpochDay(buffer.getInt());
+        var rentalDays = buffer.getInt();
+        var chargeDays = buffer.getInt();
+        var discountPercentage = buffer.get();
+        var currencyCode = new byte[3];
+        buffer.get(currencyCode);
+        var currency = Currency.getInstance(new String(currencyCode, StandardCharsets.US_ASCII));
+        var type = new ToolType(label, BigDecimal.valueOf(buffer.getLong(), 2), (chargeFlags & WEEKDAY_CHARGE) != 0,
+                (chargeFlags & WEEKEND_CHARGE) != 0, (chargeFlags & HOLIDAY_CHARGE) != 0);
+
+        return RentalAgreement.builder()
+                .selectedTool(new Tool(code, brand, type))
+                .checkoutDate(checkoutDate)
+                .rentalDays(rentalDays)
+                .dailyCharge(BigDecimal.valueOf(buffer.getLong(), 2))
+                .chargeDays(chargeDays)
+                .discountPercentage(discountPercentage)
+                .baseCharge(BigDecimal.valueOf(buffer.getLong(), 2))
+                .discountAmount(BigDecimal.valueOf(buffer.getLong(), 2))
+                .finalCharge(BigDecimal.valueOf(buffer.getLong(), 2))
+                .currency(currency)
+                .build();
+    }
+
+    private static void encode(Tool tool, long checkoutEpochDay, int rentalDays, int chargeDays,
+                               int discountPercentage, Currency currency, long dailyChargeCents,
+                               long baseChargeCents, long discountAmountCents, long finalChargeCents,
+                               ByteBuffer buffer) {
+        var type = tool.type();
+        putString(tool.code(), buffer);
+        putString(tool.brand(), buffer);
+        putString(type.label(), buffer);
+        buffer.put((byte) ((Boolean.TRUE.equals(type.weekdayCharge()) ? WEEKDAY_CHARGE : 0)
+                        | (Boolean.TRUE.equals(type.weekendCharge()) ? WEEKEND_CHARGE : 0)
+                        | (Boolean.TRUE.equals(type.holidayCharge()) ? HOLIDAY_CHARGE : 0)))
+                .putInt((int) checkoutEpochDay)
+                .putInt(rentalDays)
+                .putInt(chargeDays)
+                .put((byte) discountPercentage)
+                .put(currency.getCurrencyCode().getBytes(StandardCharsets.US_ASCII))
+                .putLong(type.dailyChargeCents())
+                .putLong(dailyChargeCents)
+                .putLong(baseChargeCents)
+                .putLong(discountAmountCents)
+                .putLong(finalChargeCents);
+    }
+
+    private static void putString(String value, ByteBuffer buffer) {
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Tool field " + value.substring(0, 16) + "... is too long to record.");
+        }
+        buffer.putShort((short) bytes.length).put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        var bytes = new byte[buffer.getShort()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private StringBuilder renderText(Agreement agreement, StringBuilder output) {
+        var currency = agreement.getCurrency();
+        var money = MoneyFormat.of(this.locale, currency);
+        var tool = agreement.getSelectedTool();
+
+        output.append("Tool code: ").append(tool.code()).append('\n')
+                .append("Tool type: ").append(tool.type().label()).append('\n')
+                .append("Tool brand: ").append(tool.brand()).append('\n')
+                .append("Rental days: ").append(agreement.getRentalDays()).append('\n')
+                .append("Checkout date: ");
+        DATE_FORMAT.formatTo(agreement.getCheckoutDate(), output);
+        output.append('\n').append("Due date: ");
+        DATE_FORMAT.formatTo(agreement.getDueDate(), output);
+        output.append('\n').append("Daily rental charge: ");
+        money.formatCents(dailyChargeCents(agreement), output);
+        output.append('\n').append("Charge days: ").append(agreement.getChargeDays()).append('\n')
+                .append("Pre-discount charge: ");
+        money.format(agreement.getBaseCharge(), output);
+        output.append('\n').append("Discount percent: ").append(agreement.getDiscountPercentage()).append("%\n")
+                .append("Discount amount: ");
+        money.format(agreement.getDiscountAmount(), output);
+        output.append('\n').append("Final charge: ");
+        return money.format(agreement.getFinalCharge(), output).append('\n');
+    }
+
+    private StringBuilder renderJson(Agreement agreement, StringBuilder output) {
+        var tool = agreement.getSelectedTool();
+        var currency = agreement.getCurrency();
+        var dailyCharge = BigDecimal.valueOf(dailyChargeCents(agreement), 2);
+
+        output.append("{\"toolCode\":");
+        appendJsonString(tool.code(), output).append(",\"toolType\":");
+        appendJsonString(tool.type().label(), output).append(",\"toolBrand\":");
+        appendJsonString(tool.brand(), output)
+                .append(",\"rentalDays\":").append(agreement.getRentalDays())
+                .append(",\"checkoutDate\":\"").append(agreement.getCheckoutDate())
+                .append("\",\"dueDate\":\"").append(agreement.getDueDate())
+                .append("\",\"dailyCharge\":").append(dailyCharge.toPlainString())
+                .append(",\"chargeDays\":").append(agreement.getChargeDays())
+                .append(",\"currency\":\"").append(currency.getCurrencyCode()).append('"')
+                .append(",\"baseCharge\":").append(agreement.getBaseCharge().toPlainString())
+                .append(",\"discountPercentage\":").append(agreement.getDiscountPercentage())
+                .append(",\"discountAmount\":").append(agreement.getDiscountAmount().toPlainString())
+                .append(",\"finalCharge\":").append(agreement.getFinalCharge().toPlainString());
+        return output.append("}\n");
+    }
+
+    private StringBuilder renderAll(Collection<Agreement> agreements, Format format) {
+        var buffer = BUFFER.get();
+        BUFFER.remove();
+        buffer.setLength(0);
+
+        for (var agreement : agreements) {
+            this.render(agreement, format, buffer);
+        }
+        return buffer;
+    }
+
+    /**
+     * Hands a buffer back for reuse by this thread, unless a large batch grew it past the size worth keeping
+     */
+    private void release(StringBuilder buffer) {
+        if (buffer.capacity() <= MAX_RETAINED_BUFFER) {
+            BUFFER.set(buffer);
+        }
+    }
+
+    /**
+     * @return Daily charge the agreement was priced with, which is the tool's daily charge if the agreement doesn't
+     * give one and is in US dollars
+     */
+    private static long dailyChargeCents(Agreement agreement) {
+        if (agreement.getDailyCharge() != null) {
+            return toCents(agreement.getDailyCharge());
+        }
+        if (!agreement.getCurrency().equals(ExchangeRates.BASE_CURRENCY)) {
+            throw new IllegalArgumentException("The agreement has no daily charge in " + agreement.getCurrency() + ".");
+        }
+        return agreement.getSelectedTool().type().dailyChargeCents();
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount.movePointRight(2).longValueExact();
+    }
+
+    private static void writeFully(ByteBuffer buffer, WritableByteChannel channel) {
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write agreements.", e);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.demo;
+
+import com.demo.datatypes.Application;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Currency;
+import java.util.Locale;
+
+/**
+ * Parses rental applications from text records without reflection, one line at a time.
+ * CSV records hold the tool code, checkout date, rental days and discount percentage in that order, optionally
+ * followed by a currency code:
+ * <pre>
+ * JAKR,2015-07-02,9,0
+ * JAKR,2015-07-02,9,0,CAD
+ * </pre>
+ * JSON records are flat objects with the same fields named after the Application properties:
+ * <pre>
+ * {"toolCode":"JAKR","checkoutDate":"2015-07-02","rentalDays":9,"discountPercentage":0,"currency":"CAD"}
+ * </pre>
+ * Dates use the ISO yyyy-MM-dd format and currencies use ISO 4217 codes; without one the base currency is used.  Invalid records throw an IllegalArgumentException describing the problem.
+ */
+public class ApplicationParser {
+    private ApplicationParser() { }
+
+    /**
+     * Determine if a CSV line is a header row rather than an application
+     * @param line Line to check
+     * @return TRUE if the line starts with the toolCode column name, FALSE if not
+     */
+    public static boolean isCsvHeader(String line) {
+        return line.regionMatches(true, 0, "toolCode", 0, "toolCode".length());
+    }
+
+    /**
+     * Parses one CSV record
+     * @param line Comma separated tool code, checkout date, rental days, discount percentage and optional currency
+     * @return Application built from the record
+     */
+    public static Application parseCsv(String line) {
+        var fields = line.split(",", -1);
+
+        if (fields.length != 4 && fields.length != 5) {
+            throw new IllegalArgumentException("Expected 4 or 5 fields but found " + fields.length + ".");
+        }
+
+        return buildApplication(fields[0].strip(), fields[1].strip(), fields[2].strip(), fields[3].strip(),
+                fields.length == 5 ? fields[4].strip() : null);
+    }
+
+    /**
+     * Parses one JSON object.  Only string and number values are supported, which covers every Application field.
+     * @param json Flat JSON object holding the application fields
+     * @return Application built from the object
+     */
+    public static Application parseJson(CharSequence json) {
+        String toolCode = null;
+        String checkoutDate = null;
+        String rentalDays = null;
+        String discountPercentage = null;
+        String currency = null;
+        var position = skipWhitespace(json, 0);
+
+        position = expect(json, position, '{');
+        position = skipWhitespace(json, position);
+        if (position < json.length() && json.charAt(position) == '}') {
+            position++;
+        } else {
+            while (true) {
+                var nameEnd = findStringEnd(json, position);
+                var name = json.subSequence(position + 1, nameEnd).toString();
+                position = expect(json, skipWhitespace(json, nameEnd + 1), ':');
+                position = skipWhitespace(json, position);
+
+                int valueEnd;
+                String value;
+                if (position < json.length() && json.charAt(position) == '"') {
+                    valueEnd = findStringEnd(json, position);
+                    value = json.subSequence(position + 1, valueEnd).toString();
+                    valueEnd++;
+                } else {
+                    valueEnd = position;
+                    while (valueEnd < json.length() && ",} \t\r\n".indexOf(json.charAt(valueEnd)) < 0) {
+                        valueEnd++;
+                    }
+                    value = json.subSequence(position, valueEnd).toString();
+                }
+
+                switch (name) {
+                    case "toolCode" -> toolCode = value;
+                    case "checkoutDate" -> checkoutDate = value;
+                    case "rentalDays" -> rentalDays = value;
+                    case "discountPercentage" -> discountPercentage = value;
+                    case "currency" -> currency = value;
+                    default -> { }
+                }
+
+                position = skipWhitespace(json, valueEnd);
+                if (position < json.length() && json.charAt(position) == ',') {
+                    position = skipWhitespace(json, position + 1);
+                } else {
+                    position = expect(json, position, '}');
+                    break;
+                }
+            }
+        }
+
+        if (skipWhitespace(json, position) != json.length()) {
+            throw new IllegalArgumentException("Unexpected content after the end of the JSON object.");
+        }
+
+        return buildApplication(toolCode, checkoutDate, rentalDays, discountPercentage == null ? "0" : discountPercentage, currency);
+    }
+
+    private static Application buildApplication(String toolCode, String checkoutDate, String rentalDays, String discountPercentage,
+                                                String currency) {
+        var application = new Application();
+
+        if (toolCode == null || toolCode.isEmpty()) {
+            throw new IllegalArgumentException("Tool code is required.");
+        }
+        if (checkoutDate == null || rentalDays == null) {
+            throw new IllegalArgumentException("Checkout date and rental days are required.");
+        }
+
+        try {
+            application.setToolCode(toolCode.toUpperCase(Locale.ROOT));
+            application.setCheckoutDate(LocalDate.parse(checkoutDate));
+            application.setRentalDays(Integer.parseInt(rentalDays));
+            application.setDiscountPercentage(Integer.parseInt(discountPercentage));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Checkout date " + checkoutDate + " is not a valid yyyy-MM-dd date.", e);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Rental days and discount percentage must be whole numbers.", e);
+        }
+
+        if (currency != null && !currency.isEmpty()) {
+            try {
+                application.setCurrency(Currency.getInstance(currency.toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Currency " + currency + " is not a valid ISO 4217 currency code.", e);
+            }
+        }
+
+        return application;
+    }
+
+    private static int skipWhitespace(CharSequence json, int position) {
+        while (position < json.length() && Character.isWhitespace(json.charAt(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    private static int expect(CharSequence json, int position, char expected) {
+        if (position >= json.length() || json.charAt(position) != expected) {
+            throw new IllegalArgumentException("Expected '" + expected + "' at position " + position + " of the JSON object.");
+        }
+        return position + 1;
+    }
+
+    /**
+     * Finds the closing quote of a JSON string that starts at the given position.  Escaped characters aren't
+     * decoded, since no application field needs them.
+     */
+    private static int findStringEnd(CharSequence json, int position) {
+        expect(json, position, '"');
+        for (int i = position + 1; i < json.length(); i++) {
+            var character = json.charAt(i);
+            if (character == '\\') {
+                throw new IllegalArgumentException("Escaped characters are not supported in application fields.");
+            }
+            if (character == '"') {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unterminated string in the JSON object.");
+    }
+}
@@ -0,0 +1,182 @@
+package com.demo;
+
+import com.demo.datatypes.Agreement;
+import com.demo.datatypes.Application;
+import com.demo.datatypes.RentalAgreement;
+import com.demo.datatypes.RentalApplication;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Asynchronous quote API that coalesces identical requests.  While a quote is being priced, every other request
+ * for the same application joins the same computation instead of starting its own, so a burst of identical quotes
+ * costs one calculation.  Once the quote completes it is forgotten, and the next identical request prices it again
+ * (or finds it in the AgreementManager's QuoteCache, if it has one).
+ * <p>
+ * Quotes are priced on a virtual thread per quote by default, or on an executor supplied by the caller, so callers
+ * never block a platform thread waiting for a quote.  At most maxPendingQuotes distinct quotes can be in progress;
+ * beyond that new quotes fail straight away with a RejectedExecutionException rather than queueing without limit.
+ * Requests that join a quote already in progress are always accepted.
+ */
+public class AsyncQuoteService implements AutoCloseable {
+    private final AgreementManager agreementManager;
+    private final Executor executor;
+    private final ExecutorService ownedExecutor;
+    private final int maxPendingQuotes;
+    private final Semaphore permits;
+    private final ConcurrentHashMap<RentalApplication, CompletableFuture<RentalAgreement>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder calculated = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * Creates a service that prices each quote on its own virtual thread.  Call close() to stop the thread factory.
+     * @param agreementManager Agreement manager used to price every quote
+     * @param maxPendingQuotes Number of distinct quotes that may be in progress at once
+     */
+    public AsyncQuoteService(AgreementManager agreementManager, int maxPendingQuotes) {
+        this(agreementManager, maxPendingQuotes, Executors.newVirtualThreadPerTaskExecutor(), true);
+    }
+
+    /**
+     * Creates a service that prices quotes on the given executor, such as a bounded thread pool.  The executor is
+     * not shut down by close().
+     * @param agreementManager Agreement manager used to price every quote
+     * @param maxPendingQuotes Number of distinct quotes that may be in progress at once
+     * @param executor Executor that runs each calculation
+     */
+    public AsyncQuoteService(AgreementManager agreementManager, int maxPendingQuotes, Executor executor) {
+        this(agreementManager, maxPendingQuotes, executor, false);
+    }
+
+    private AsyncQuoteService(AgreementManager agreementManager, int maxPendingQuotes, Executor executor, boolean owned) {
+        if (maxPendingQuotes < 1) {
+            throw new IllegalArgumentException("At least one pending quote must be allowed.");
+        }
+
+        this.agreementManager = agreementManager;
+        this.executor = executor;
+        this.ownedExecutor = owned ? (ExecutorService) executor : null;
+        this.maxPendingQuotes = maxPendingQuotes;
+        this.permits = new Semaphore(maxPendingQuotes);
+    }
+
+    /**
+     * Quotes an application asynchronously.  Each caller gets its own copy of the agreement.
+     * @param application Application that provides tool and rental details for the quote
+     * @return Future that completes with the agreement, or exceptionally with an IllegalArgumentException if the
+     * application is invalid or a RejectedExecutionException if too many quotes are in progress
+     */
+    public CompletableFuture<Agreement> quoteAsync(Application application) {
+        RentalApplication key;
+        try {
+            key = RentalApplication.from(application);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return this.quoteAsync(key).thenApply(RentalAgreement::toAgreement);
+    }
+
+    /**
+     * Quotes an immutable application asynchronously.  Identical applications in progress at the same time share
+     * one calculation and one agreement.
+     * @param application Immutable application that provides tool and rental details for the quote
+     * @return Future that completes with the agreement.  Cancelling it doesn't affect other callers of the same quote.
+     */
+    public CompletableFuture<RentalAgreement> quoteAsync(RentalApplication application) {
+        var existing = this.inFlight.get(application);
+        if (existing != null) {
+            this.coalesced.increment();
+            return existing.copy();
+        }
+        if (!this.permits.tryAcquire()) {
+            this.rejected.increment();
+            return CompletableFuture.failedFuture(
+                    new RejectedExecutionException("Too many quotes in progress, please retry."));
+        }
+
+        var future = new CompletableFuture<RentalAgreement>();
+        existing = this.inFlight.putIfAbsent(application, future);
+        if (existing != null) {
+            this.permits.release();
+            this.coalesced.increment();
+            return existing.copy();
+        }
+
+        try {
+            this.executor.execute(() -> this.calculate(application, future));
+        } catch (RejectedExecutionException e) {
+            this.finish(application, future);
+            this.rejected.increment();
+            future.completeExceptionally(e);
+        }
+        return future.copy();
+    }
+
+    /**
+     * @return Number of quotes priced by this service
+     */
+    public long getCalculatedCount() {
+        return this.calculated.sum();
+    }
+
+    /**
+     * @return Number of requests that joined a quote already in progress
+     */
+    public long getCoalescedCount() {
+        return this.coalesced.sum();
+    }
+
+    /**
+     * @return Number of requests turned away because too many quotes were in progress
+     */
+    public long getRejectedCount() {
+        return this.rejected.sum();
+    }
+
+    /**
+     * @return Number of distinct quotes in progress
+     */
+    public int getPendingCount() {
+        return this.maxPendingQuotes - this.permits.availablePermits();
+    }
+
+    /**
+     * Stops the service's own virtual thread executor, letting quotes in progress finish
+     */
+    @Override
+    public void close() {
+        if (this.ownedExecutor != null) {
+            this.ownedExecutor.close();
+        }
+    }
+
+    /**
+     * Private helper function that prices one quote and completes it for every caller waiting on it.  The quote is
+     * removed from the in-flight map first, so a request arriving after completion starts a new calculation rather
+     * than joining a finished one.
+     */
+    private void calculate(RentalApplication application, CompletableFuture<RentalAgreement> future) {
+        try {
+            this.calculated.increment();
+            var agreement = this.agreementManager.generateRentalAgreement(application);
+            this.finish(application, future);
+            future.complete(agreement);
+        } catch (Throwable e) {
+            this.finish(application, future);
+            future.completeExceptionally(e);
+        }
+    }
+
+    private void finish(RentalApplication application, CompletableFuture<RentalAgreement> future) {
+        this.inFlight.remove(application, future);
+        this.permits.release();
+    }
+}
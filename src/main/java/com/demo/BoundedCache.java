@@ -0,0 +1,185 @@
+package com.demo;
+
+import java.io.Serial;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Thread-safe, size bounded cache with least recently used eviction and an optional time to live.
+ * Entries are spread over a fixed number of segments by key hash, each an access ordered LinkedHashMap with its own
+ * lock, so threads working with different keys rarely contend.  The maximum size covers the whole cache: a shared
+ * count of entries is kept, and a write that takes it past the maximum evicts the least recently used entries of the
+ * segment it wrote to, moving on to the following segments only when that segment holds nothing but the new entry.
+ * Eviction is therefore least recently used within a segment rather than across the whole cache, however the keys
+ * are spread.  Values are computed outside of the segment lock, so two threads missing on the same key at once may
+ * both compute it.
+ * @param <K> Key type, which must have value based equals() and hashCode()
+ * @param <V> Value type, which should be immutable since cached values are shared between callers
+ */
+public class BoundedCache<K, V> {
+    private static final int SEGMENTS = 16;
+
+    private final Segment<K, V>[] segments;
+    private final int maximumSize;
+    private final AtomicInteger size = new AtomicInteger();
+    private final long timeToLiveNanos;
+    private final LongSupplier nanoClock;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    /**
+     * @param maximumSize Maximum number of entries kept across all segments
+     * @param timeToLive How long an entry stays valid after it is stored, or NULL to keep entries until evicted
+     */
+    public BoundedCache(int maximumSize, Duration timeToLive) {
+        this(maximumSize, timeToLive, System::nanoTime);
+    }
+
+    /**
+     * @param maximumSize Maximum number of entries kept across all segments
+     * @param timeToLive How long an entry stays valid after it is stored, or NULL to keep entries until evicted
+     * @param nanoClock Source of the current time in nanoseconds, replaceable for testing
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public BoundedCache(int maximumSize, Duration timeToLive, LongSupplier nanoClock) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Cache size must be at least 1.");
+        }
+
+        this.segments = new Segment[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            this.segments[i] = new Segment<>();
+        }
+        this.maximumSize = maximumSize;
+        this.timeToLiveNanos = timeToLive == null ? Long.MAX_VALUE : timeToLive.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Returns the cached value for the key, computing and storing it first if it is missing or expired
+     * @param key Key to look up
+     * @param loader Function that computes the value for a missing key
+     * @return Cached or newly computed value
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        var segmentIndex = segmentIndexOf(key);
+        var segment = this.segments[segmentIndex];
+        var now = this.nanoClock.getAsLong();
+
+        synchronized (segment) {
+            var entry = segment.get(key);
+            if (entry != null) {
+                if (now - entry.storedAt < this.timeToLiveNanos) {
+                    this.hits.increment();
+                    return entry.value;
+                }
+                segment.remove(key);
+                this.size.decrementAndGet();
+                this.expirations.increment();
+            }
+        }
+
+        this.misses.increment();
+        var value = loader.apply(key);
+
+        synchronized (segment) {
+            if (segment.put(key, new Entry<>(value, now)) == null) {
+                this.size.incrementAndGet();
+            }
+        }
+        this.evictOverflow(segmentIndex);
+        return value;
+    }
+
+    /**
+     * Removes every entry from the cache, for example after the data the values were computed from changes.
+     * Counters are left as they are.
+     */
+    public void clear() {
+        for (var segment : this.segments) {
+            synchronized (segment) {
+                this.size.addAndGet(-segment.size());
+                segment.clear();
+            }
+        }
+    }
+
+    /**
+     * @return Number of entries currently stored, including any that have expired but not yet been removed
+     */
+    public int size() {
+        return this.size.get();
+    }
+
+    /**
+     * @return Snapshot of the cache counters
+     */
+    public Stats getStats() {
+        return new Stats(this.hits.sum(), this.misses.sum(), this.evictions.sum(), this.expirations.sum(), this.size());
+    }
+
+    /**
+     * Private helper function that evicts least recently used entries until the cache is back within its maximum
+     * size, starting with the segment just written to and keeping the entry just stored there
+     * @param writtenIndex Index of the segment just written to
+     */
+    private void evictOverflow(int writtenIndex) {
+        for (int i = 0; i < SEGMENTS && this.size.get() > this.maximumSize; i++) {
+            var segment = this.segments[(writtenIndex + i) & (SEGMENTS - 1)];
+            var keep = i == 0 ? 1 : 0;
+            synchronized (segment) {
+                while (this.size.get() > this.maximumSize && segment.size() > keep) {
+                    segment.removeEldest();
+                    this.size.decrementAndGet();
+                    this.evictions.increment();
+                }
+            }
+        }
+    }
+
+    private static int segmentIndexOf(Object key) {
+        var hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (SEGMENTS - 1);
+    }
+
+    /**
+     * Static record representing the cache counters at a point in time
+     * @param hits Lookups answered from the cache
+     * @param misses Lookups that had to compute the value
+     * @param evictions Entries removed to stay within the maximum size
+     * @param expirations Entries removed because they outlived the time to live
+     * @param size Entries currently stored
+     */
+    public record Stats(long hits, long misses, long evictions, long expirations, int size) {
+        public double hitRate() {
+            var lookups = this.hits + this.misses;
+            return lookups == 0 ? 0 : (double) this.hits / lookups;
+        }
+    }
+
+    private record Entry<V>(V value, long storedAt) { }
+
+    /**
+     * Access ordered map whose first entry is always the least recently used
+     */
+    private static class Segment<K, V> extends LinkedHashMap<K, Entry<V>> {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        Segment() {
+            super(16, 0.75f, true);
+        }
+
+        void removeEldest() {
+            var eldest = this.entrySet().iterator();
+            eldest.next();
+            eldest.remove();
+        }
+    }
+}
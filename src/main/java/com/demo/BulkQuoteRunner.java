@@ -0,0 +1,269 @@
+package com.demo;
+
+import com.demo.currency.ExchangeRates;
+import com.demo.datatypes.ChargeResult;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Prices every application in a CSV or NDJSON file and writes one result per application to an output file.
+ * The work runs as a pipeline: a reader thread reads the input in chunks of lines, a pool of pricing threads parses
+ * and prices each chunk, and the calling thread writes the priced chunks in input order.  The reader can only get a
+ * fixed number of chunks ahead of the writer, so memory use stays the same however large the input file is.
+ */
+public class BulkQuoteRunner {
+    private static final int CHUNK_LINES = 4096;
+    private static final int IO_BUFFER_SIZE = 1 << 20;
+    private static final String CSV_HEADER =
+            "line,toolCode,checkoutDate,dueDate,rentalDays,chargeDays,baseCharge,discountPercentage,discountAmount,finalCharge,currency,error";
+
+    private final AgreementManager agreementManager;
+    private final int pricingThreads;
+
+    /**
+     * @param agreementManager Agreement manager used to price every application
+     * @param pricingThreads Number of threads parsing and pricing chunks
+     */
+    public BulkQuoteRunner(AgreementManager agreementManager, int pricingThreads) {
+        if (pricingThreads < 1) {
+            throw new IllegalArgumentException("At least one pricing thread is required.");
+        }
+        this.agreementManager = agreementManager;
+        this.pricingThreads = pricingThreads;
+    }
+
+    /**
+     * File formats supported for input and output
+     */
+    public enum Format {
+        CSV,
+        NDJSON;
+
+        /**
+         * Picks the format from a file extension, treating .ndjson, .jsonl and .json as NDJSON and anything else as CSV
+         * @param path File to check
+         * @return Format of the file
+         */
+        public static Format fromPath(Path path) {
+            var name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+            return name.endsWith(".ndjson") || name.endsWith(".jsonl") || name.endsWith(".json") ? NDJSON : CSV;
+        }
+    }
+
+    /**
+     * Static record representing the outcome of a bulk run
+     * @param records Number of application records read
+     * @param rejected Number of records that couldn't be parsed or priced
+     * @param elapsed Wall clock time taken by the run
+     */
+    public record Summary(long records, long rejected, Duration elapsed) {
+        public double recordsPerSecond() {
+            var seconds = this.elapsed.toNanos() / 1e9;
+            return seconds == 0 ? 0 : this.records / seconds;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Priced %d records (%d rejected) in %.3f s, %.0f records/s",
+                    this.records, this.rejected, this.elapsed.toNanos() / 1e9, this.recordsPerSecond());
+        }
+    }
+
+    /**
+     * Prices every application in the input file, writing results in the same format and order as the input
+     * @param input File of applications
+     * @param output File the results are written to, replacing any existing file
+     * @param format Format of both files
+     * @return Record counts and timing for the run
+     */
+    public Summary run(Path input, Path output, Format format) {
+        var started = System.nanoTime();
+        var pool = Executors.newFixedThreadPool(this.pricingThreads);
+        BlockingQueue<Future<PricedChunk>> pending = new ArrayBlockingQueue<>(this.pricingThreads * 2);
+        var reader = new Thread(() -> this.readChunks(input, format, pool, pending), "bulk-quote-reader");
+        var records = 0L;
+        var rejected = 0L;
+
+        try (var channel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+             var writer = Channels.newWriter(channel, StandardCharsets.UTF_8)) {
+            reader.start();
+            if (format == Format.CSV) {
+                writer.write(CSV_HEADER);
+                writer.write('\n');
+            }
+
+            while (true) {
+                var chunk = pending.take().get();
+                if (chunk == null) {
+                    break;
+                }
+                writer.append(chunk.output());
+                records += chunk.records();
+                rejected += chunk.rejected();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write results to " + output, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Bulk quote run was interrupted.", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof UncheckedIOException io ? io : new IllegalStateException("Bulk quote run failed.", e.getCause());
+        } finally {
+            reader.interrupt();
+            pool.shutdownNow();
+        }
+
+        return new Summary(records, rejected, Duration.ofNanos(System.nanoTime() - started));
+    }
+
+    /**
+     * Reader stage.  Reads the input in chunks of lines and queues a pricing task for each chunk.  A completed NULL
+     * chunk marks the end of the input, and a failed future passes a read error on to the writer.
+     */
+    private void readChunks(Path input, Format format, ExecutorService pool, BlockingQueue<Future<PricedChunk>> pending) {
+        try {
+            try (var channel = FileChannel.open(input, StandardOpenOption.READ);
+                 var reader = new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8), IO_BUFFER_SIZE)) {
+                var lineNumber = 0L;
+                var chunk = new LineChunk();
+                String line;
+
+                while ((line = reader.readLine()) != null) {
+                    lineNumber++;
+                    if (line.isBlank() || (lineNumber == 1 && format == Format.CSV && ApplicationParser.isCsvHeader(line))) {
+                        continue;
+                    }
+
+                    chunk.add(line, lineNumber);
+                    if (chunk.size == CHUNK_LINES) {
+                        this.submitChunk(chunk, format, pool, pending);
+                        chunk = new LineChunk();
+                    }
+                }
+
+                if (chunk.size > 0) {
+                    this.submitChunk(chunk, format, pool, pending);
+                }
+            } catch (IOException e) {
+                pending.put(CompletableFuture.failedFuture(new UncheckedIOException("Unable to read applications from " + input, e)));
+                return;
+            }
+            pending.put(CompletableFuture.completedFuture(null));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void submitChunk(LineChunk chunk, Format format, ExecutorService pool,
+                             BlockingQueue<Future<PricedChunk>> pending) throws InterruptedException {
+        pending.put(pool.submit(() -> this.priceChunk(chunk, format)));
+    }
+
+    /**
+     * Pricing stage.  Parses and prices every line in a chunk and renders the results into one string, so the writer
+     * only has to copy it to the output.
+     */
+    private PricedChunk priceChunk(LineChunk chunk, Format format) {
+        var output = new StringBuilder(chunk.size * 96);
+        var charges = new ChargeResult();
+        var rejected = 0;
+
+        for (int i = 0; i < chunk.size; i++) {
+            var lineNumber = chunk.lineNumbers[i];
+            try {
+                var application = format == Format.CSV
+                        ? ApplicationParser.parseCsv(chunk.lines[i])
+                        : ApplicationParser.parseJson(chunk.lines[i]);
+                this.agreementManager.calculateCharges(application.getToolCode(), application.getCheckoutDate(),
+                        application.getRentalDays(), application.getDiscountPercentage(), ExchangeRates.getInstance(),
+                        application.getCurrency() == null ? ExchangeRates.BASE_CURRENCY : application.getCurrency(),
+                        charges);
+                this.appendResult(output, format, lineNumber, charges);
+            } catch (RuntimeException e) {
+                rejected++;
+                this.appendError(output, format, lineNumber, e.getMessage() != null ? e.getMessage() : e.toString());
+            }
+        }
+
+        return new PricedChunk(output, chunk.size, rejected);
+    }
+
+    private void appendResult(StringBuilder output, Format format, long lineNumber, ChargeResult charges) {
+        var checkoutDate = LocalDate.ofEpochDay(charges.getCheckoutEpochDay());
+        var dueDate = LocalDate.ofEpochDay(charges.getDueEpochDay());
+
+        if (format == Format.CSV) {
+            output.append(lineNumber).append(',').append(charges.getSelectedTool().code()).append(',')
+                    .append(checkoutDate).append(',').append(dueDate).append(',')
+                    .append(charges.getRentalDays()).append(',').append(charges.getChargeDays()).append(',');
+            appendCents(output, charges.getBaseChargeCents()).append(',').append(charges.getDiscountPercentage()).append(',');
+            appendCents(output, charges.getDiscountAmountCents()).append(',');
+            appendCents(output, charges.getFinalChargeCents()).append(',').append(charges.getCurrency().getCurrencyCode()).append(",\n");
+        } else {
+            output.append("{\"line\":").append(lineNumber).append(",\"toolCode\":");
+            AgreementRenderer.appendJsonString(charges.getSelectedTool().code(), output)
+                    .append(",\"checkoutDate\":\"").append(checkoutDate)
+                    .append("\",\"dueDate\":\"").append(dueDate)
+                    .append("\",\"rentalDays\":").append(charges.getRentalDays())
+                    .append(",\"chargeDays\":").append(charges.getChargeDays())
+                    .append(",\"baseCharge\":");
+            appendCents(output, charges.getBaseChargeCents()).append(",\"discountPercentage\":").append(charges.getDiscountPercentage())
+                    .append(",\"discountAmount\":");
+            appendCents(output, charges.getDiscountAmountCents()).append(",\"finalCharge\":");
+            appendCents(output, charges.getFinalChargeCents()).append(",\"currency\":\"")
+                    .append(charges.getCurrency().getCurrencyCode()).append("\"}\n");
+        }
+    }
+
+    private void appendError(StringBuilder output, Format format, long lineNumber, String error) {
+        if (format == Format.CSV) {
+            output.append(lineNumber).append(",,,,,,,,,,,\"").append(error.replace("\"", "\"\"")).append("\"\n");
+        } else {
+            output.append("{\"line\":").append(lineNumber).append(",\"error\":");
+            AgreementRenderer.appendJsonString(error, output).append("}\n");
+        }
+    }
+
+    /**
+     * Appends a non-negative amount in cents as a two decimal place number
+     */
+    private static StringBuilder appendCents(StringBuilder output, long cents) {
+        var remainder = cents % 100;
+        return output.append(cents / 100).append('.').append(remainder < 10 ? "0" : "").append(remainder);
+    }
+
+    /**
+     * Lines read from the input along with their line numbers, so results can point back to the input line
+     */
+    private static class LineChunk {
+        private final String[] lines = new String[CHUNK_LINES];
+        private final long[] lineNumbers = new long[CHUNK_LINES];
+        private int size;
+
+        void add(String line, long lineNumber) {
+            this.lines[this.size] = line;
+            this.lineNumbers[this.size] = lineNumber;
+            this.size++;
+        }
+    }
+
+    private record PricedChunk(CharSequence output, int records, int rejected) { }
+}
@@ -0,0 +1,139 @@
+package com.demo;
+
+import com.demo.holidays.HolidayRule;
+import com.demo.holidays.HolidayRules;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lazily filled, thread-safe cache of CalendarYear objects compiled from a set of holiday rules.  Each year is
+ * classified the first time it is used and shared by every caller after that, so the number of rules has no effect on
+ * the cost of checking a rental period.  Years from 1900 through 2299 are kept in an array so lookups don't need to box
+ * the year or take any locks; years outside that range fall back to a concurrent map.
+ */
+public class CalendarIndex {
+    private static final int FIRST_INDEXED_YEAR = 1900;
+    private static final int INDEXED_YEARS = 400;
+
+    private final List<HolidayRule> rules;
+    private final AtomicReferenceArray<CalendarYear> indexedYears = new AtomicReferenceArray<>(INDEXED_YEARS);
+    private final Map<Integer, CalendarYear> otherYears = new ConcurrentHashMap<>();
+
+    /**
+     * @param rules Holiday rules used to mark the holidays in each year
+     */
+    public CalendarIndex(Collection<HolidayRule> rules) {
+        this.rules = List.copyOf(rules);
+    }
+
+    public List<HolidayRule> getRules() {
+        return this.rules;
+    }
+
+    /**
+     * Returns the classification for the given year, building it if this is the first time the year is requested.
+     * Two threads may build the same year at the same time; both build identical objects and the first one stored wins.
+     * @param year Calendar year to look up
+     * @return Day classification for the year
+     */
+    public CalendarYear getYear(int year) {
+        var index = year - FIRST_INDEXED_YEAR;
+
+        if (index < 0 || index >= INDEXED_YEARS) {
+            return this.otherYears.computeIfAbsent(year, this::buildYear);
+        }
+
+        var calendarYear = this.indexedYears.get(index);
+        if (calendarYear == null) {
+            this.indexedYears.compareAndSet(index, null, this.buildYear(year));
+            calendarYear = this.indexedYears.get(index);
+        }
+        return calendarYear;
+    }
+
+    /**
+     * Returns the classification for the year containing the given day
+     * @param epochDay Day to look up, as a count of days since 1970-01-01
+     * @return Day classification for the year containing the day
+     */
+    public CalendarYear getYearOf(long epochDay) {
+        var calendarYear = this.getYear((int) (1970 + Math.floorDiv(epochDay * 400, 146097)));
+
+        while (epochDay < calendarYear.getFirstEpochDay()) {
+            calendarYear = this.getYear(calendarYear.getYear() - 1);
+        }
+        while (epochDay >= calendarYear.getFirstEpochDay() + calendarYear.getLength()) {
+            calendarYear = this.getYear(calendarYear.getYear() + 1);
+        }
+        return calendarYear;
+    }
+
+    /**
+     * @param epochDay Day to check, as a count of days since 1970-01-01
+     * @return TRUE if the day is a holiday, FALSE if not
+     */
+    public boolean isHoliday(long epochDay) {
+        return this.getYearOf(epochDay).isHoliday(epochDay);
+    }
+
+    /**
+     * @param epochDay Day to check, as a count of days since 1970-01-01
+     * @return TRUE if the day is a Saturday or Sunday, FALSE if not
+     */
+    public boolean isWeekend(long epochDay) {
+        return this.getYearOf(epochDay).isWeekend(epochDay);
+    }
+
+    /**
+     * Counts holidays in the given range
+     * @param epochDay First day of the range, as a count of days since 1970-01-01
+     * @param days Number of days in the range
+     * @return Number of holidays in the range
+     */
+    public int countHolidays(long epochDay, int days) {
+        return this.count(CalendarYear.HOLIDAY, epochDay, days);
+    }
+
+    /**
+     * Counts holidays that fall on a Saturday or Sunday in the given range
+     * @param epochDay First day of the range, as a count of days since 1970-01-01
+     * @param days Number of days in the range
+     * @return Number of weekend holidays in the range
+     */
+    public int countWeekendHolidays(long epochDay, int days) {
+        return this.count(CalendarYear.WEEKEND_HOLIDAY, epochDay, days);
+    }
+
+    /**
+     * Counts one classification of day across a range that may span several years
+     * @param classification Bitset to count within each year
+     * @param epochDay First day of the range, as a count of days since 1970-01-01
+     * @param days Number of days in the range
+     * @return Number of marked days in the range
+     */
+    private int count(int classification, long epochDay, int days) {
+        var endEpochDay = epochDay + days;
+        var count = 0;
+
+        while (epochDay < endEpochDay) {
+            var calendarYear = this.getYearOf(epochDay);
+            var yearEnd = calendarYear.getFirstEpochDay() + calendarYear.getLength();
+            var rangeEnd = Math.min(yearEnd, endEpochDay);
+
+            count += calendarYear.count(classification,
+                    (int) (epochDay - calendarYear.getFirstEpochDay()),
+                    (int) (rangeEnd - calendarYear.getFirstEpochDay()));
+            epochDay = rangeEnd;
+        }
+
+        return count;
+    }
+
+    private CalendarYear buildYear(int year) {
+        return new CalendarYear(year, HolidayRules.getDates(this.rules, year));
+    }
+}
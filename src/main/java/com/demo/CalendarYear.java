@@ -0,0 +1,120 @@
+package com.demo;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Collection;
+
+/**
+ * Immutable day classification for a single calendar year, stored as bitsets with one bit per day of the year.
+ * Bit N of each bitset represents the day that falls N days after January 1st.  Days that are not marked as
+ * weekend days are weekdays.
+ */
+public final class CalendarYear {
+    static final int WEEKEND = 0;
+    static final int HOLIDAY = 1;
+    static final int WEEKEND_HOLIDAY = 2;
+
+    private final int year;
+    private final long firstEpochDay;
+    private final int length;
+    private final long[][] bits;
+
+    /**
+     * Builds the bitsets for the given year.  Holidays outside the year are ignored.
+     * @param year Calendar year this object classifies
+     * @param holidays Dates that are celebrated as holidays
+     */
+    CalendarYear(int year, Collection<LocalDate> holidays) {
+        var firstDay = LocalDate.of(year, 1, 1);
+        this.year = year;
+        this.firstEpochDay = firstDay.toEpochDay();
+        this.length = firstDay.lengthOfYear();
+        this.bits = new long[3][(this.length + 63) >>> 6];
+
+        var dayOfWeek = firstDay.getDayOfWeek();
+        for (int day = 0; day < this.length; day++) {
+            if (dayOfWeek == DayOfWeek.SATURDAY || dayOfWeek == DayOfWeek.SUNDAY) {
+                this.set(WEEKEND, day);
+            }
+            dayOfWeek = dayOfWeek.plus(1);
+        }
+
+        for (var holiday : holidays) {
+            if (holiday.getYear() == year) {
+                var day = holiday.getDayOfYear() - 1;
+                this.set(HOLIDAY, day);
+                if (this.isSet(WEEKEND, day)) {
+                    this.set(WEEKEND_HOLIDAY, day);
+                }
+            }
+        }
+    }
+
+    public int getYear() {
+        return this.year;
+    }
+
+    public long getFirstEpochDay() {
+        return this.firstEpochDay;
+    }
+
+    public int getLength() {
+        return this.length;
+    }
+
+    /**
+     * Determine if the given day of this year falls on a Saturday or Sunday
+     * @param epochDay Day to check, as a count of days since 1970-01-01.  Must fall within this year.
+     * @return TRUE if the day is a weekend day, FALSE if it is a weekday
+     */
+    public boolean isWeekend(long epochDay) {
+        return this.isSet(WEEKEND, (int) (epochDay - this.firstEpochDay));
+    }
+
+    /**
+     * Determine if the given day of this year is a holiday
+     * @param epochDay Day to check, as a count of days since 1970-01-01.  Must fall within this year.
+     * @return TRUE if the day is a holiday, FALSE if not
+     */
+    public boolean isHoliday(long epochDay) {
+        return this.isSet(HOLIDAY, (int) (epochDay - this.firstEpochDay));
+    }
+
+    /**
+     * Counts the marked days of one classification between two days of this year using a popcount over the
+     * bitset words, masking off the bits outside the range in the first and last word.
+     * @param classification One of WEEKEND, HOLIDAY or WEEKEND_HOLIDAY
+     * @param fromDay First day of the year to include, where 0 is January 1st
+     * @param toDay First day of the year to exclude
+     * @return Number of marked days in the range
+     */
+    int count(int classification, int fromDay, int toDay) {
+        if (fromDay >= toDay) {
+            return 0;
+        }
+
+        var words = this.bits[classification];
+        var firstWord = fromDay >>> 6;
+        var lastWord = (toDay - 1) >>> 6;
+        var firstMask = -1L << fromDay;
+        var lastMask = -1L >>> (63 - ((toDay - 1) & 63));
+
+        if (firstWord == lastWord) {
+            return Long.bitCount(words[firstWord] & firstMask & lastMask);
+        }
+
+        var count = Long.bitCount(words[firstWord] & firstMask);
+        for (int word = firstWord + 1; word < lastWord; word++) {
+            count += Long.bitCount(words[word]);
+        }
+        return count + Long.bitCount(words[lastWord] & lastMask);
+    }
+
+    private boolean isSet(int classification, int day) {
+        return (this.bits[classification][day >>> 6] & (1L << day)) != 0;
+    }
+
+    private void set(int classification, int day) {
+        this.bits[classification][day >>> 6] |= 1L << day;
+    }
+}
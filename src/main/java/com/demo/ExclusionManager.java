@@ -1,6 +1,9 @@
 package com.demo;
 
 import com.demo.datatypes.RentalDays;
+import com.demo.datatypes.ToolType;
+import com.demo.holidays.HolidayRule;
+import com.demo.holidays.HolidayRules;
 
 import java.time.DayOfWeek;
 import java.time.LocalDate;
@@ -10,8 +13,43 @@ import java.util.Collection;
 /**
  * Class containing the functionality for identifying possible exclusionary days
  * defined by the specific tool type being rented.
+ * Holidays are looked up in a CalendarIndex compiled from a set of holiday rules, so the rules only run once per
+ * calendar year.  The default rules (the Fourth of July and Labor Day) are compiled once and shared by every instance
+ * created with the no-argument constructor.
  */
 public class ExclusionManager {
+    private static final CalendarIndex DEFAULT_CALENDAR_INDEX =
+            new CalendarIndex(HolidayRules.loadResource(HolidayRules.DEFAULT_RULES));
+
+    private final CalendarIndex calendarIndex;
+
+    /**
+     * Creates an exclusion manager that uses the default holiday rules
+     */
+    public ExclusionManager() {
+        this(DEFAULT_CALENDAR_INDEX);
+    }
+
+    /**
+     * Creates an exclusion manager for a specific set of holiday rules, such as the rules for a region
+     * @param rules Holiday rules to compile
+     */
+    public ExclusionManager(Collection<HolidayRule> rules) {
+        this(new CalendarIndex(rules));
+    }
+
+    /**
+     * Creates an exclusion manager that shares an already compiled calendar
+     * @param calendarIndex Compiled calendar to check rental days against
+     */
+    public ExclusionManager(CalendarIndex calendarIndex) {
+        this.calendarIndex = calendarIndex;
+    }
+
+    public CalendarIndex getCalendarIndex() {
+        return this.calendarIndex;
+    }
+
     /**
      * Compiles a collection that identifies each day in the given range as either a weekday or weekend,
      * and also denotes whether that date is considered a holiday.
@@ -43,44 +81,92 @@ public class ExclusionManager {
     }
 
     /**
-     * Given a specific date, determine if the date falls on a Saturday or Sunday
-     * @param date Specific date to check
-     * @return Boolean value that returns TRUE if date is a weekend, FALSE if date is a weekday
+     * Counts the days in the given range that are excluded from charging for the given tool type, without building
+     * a collection of individual days.  Weekend days are counted arithmetically from the day of week the range starts
+     * on, and holidays are counted with a popcount over the cached calendar bitsets for each year the range touches.
+     * A holiday is excluded only if the tool type doesn't charge for holidays; otherwise it is treated like any other
+     * day and excluded only if it falls on a non-chargeable weekend.
+     * @param toolType Object that represents the type of tool being rented, including its charge flags
+     * @param date The starting chargeable date of the rental period
+     * @param days The total amount of days in the rental period
+     * @return Total number of days within the range that should not be charged for this tool type
      */
-    private boolean isWeekendDay(LocalDate date) {
-        return date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY;
+    public int countExclusionDays(ToolType toolType, LocalDate date, int days) {
+        return this.countExclusionDays(toolType, date.toEpochDay(), days);
     }
 
     /**
-     * Method that determines if a given date matches when the Fourth of July is celebrated.
-     * If July 4th falls on a Saturday, it is celebrated on Friday, July 3rd.
-     * If July 4th falls on a Sunday, it is celebrated on Monday, July 5th.
-     * @param date Specific date to check
-     * @return Boolean value that returns TRUE if date is celebrated as the Fourth of July, FALSE if not
+     * Same as countExclusionDays(ToolType, LocalDate, int), with the starting date given as an epoch day
+     * @param toolType Object that represents the type of tool being rented, including its charge flags
+     * @param epochDay The starting chargeable date of the rental period, as a count of days since 1970-01-01
+     * @param days The total amount of days in the rental period
+     * @return Total number of days within the range that should not be charged for this tool type
      */
-    private boolean isJulyFourth(LocalDate date) {
-        return date.getMonthValue() == 7 &&
-                ((date.getDayOfMonth() == 3 && date.getDayOfWeek() == DayOfWeek.FRIDAY) ||
-                        (date.getDayOfMonth() == 5 && date.getDayOfWeek() == DayOfWeek.MONDAY) ||
-                        (date.getDayOfMonth() == 4 && date.getDayOfWeek() != DayOfWeek.SATURDAY && date.getDayOfWeek() != DayOfWeek.SUNDAY));
+    public int countExclusionDays(ToolType toolType, long epochDay, int days) {
+        var weekendDays = this.countWeekendDays(epochDay, days);
+
+        if (!toolType.holidayCharge()) {
+            var holidays = this.calendarIndex.countHolidays(epochDay, days);
+            if (toolType.weekendCharge()) {
+                return holidays;
+            }
+            return holidays + weekendDays - this.calendarIndex.countWeekendHolidays(epochDay, days);
+        }
+        return toolType.weekendCharge() ? 0 : weekendDays;
     }
 
     /**
-     * Method that determines if a given date is Labor Day.
-     * Labor Day is calculated as the first Monday in September.
+     * Determine if a single day is chargeable for the given tool type, using the same rules as countExclusionDays()
+     * @param toolType Object that represents the type of tool being rented, including its charge flags
+     * @param epochDay Date to check, as a count of days since 1970-01-01
+     * @return TRUE if the day is charged for this tool type, FALSE if it is excluded
+     */
+    public boolean isChargeDay(ToolType toolType, long epochDay) {
+        if (!toolType.holidayCharge() && this.calendarIndex.isHoliday(epochDay)) {
+            return false;
+        }
+        return toolType.weekendCharge() || !this.calendarIndex.isWeekend(epochDay);
+    }
+
+    /**
+     * Counts the Saturdays and Sundays in the given range in constant time.
+     * Days of the week are numbered from Monday = 0, and weekendDaysBefore() gives the number of weekend days between
+     * the Monday of the starting week and a given offset, so the range is the difference of its two end points.
+     * @param epochDay The first date in the range, as a count of days since 1970-01-01 (a Thursday)
+     * @param days The total amount of days in the range
+     * @return Number of weekend days within the range
+     */
+    private int countWeekendDays(long epochDay, int days) {
+        var startOffset = Math.floorMod(epochDay + 3, 7);
+        return this.weekendDaysBefore(startOffset + days) - this.weekendDaysBefore(startOffset);
+    }
+
+    /**
+     * Helper for countWeekendDays() that returns the number of weekend days in the first given number of days
+     * of a calendar that starts on a Monday.
+     * @param offset Number of days from the starting Monday
+     * @return Number of weekend days in the first offset days
+     */
+    private int weekendDaysBefore(int offset) {
+        return (offset / 7) * 2 + Math.max(0, offset % 7 - 5);
+    }
+
+    /**
+     * Given a specific date, determine if the date falls on a Saturday or Sunday
      * @param date Specific date to check
-     * @return Boolean value that returns TRUE if date is Labor Day, FALSE if not
+     * @return Boolean value that returns TRUE if date is a weekend, FALSE if date is a weekday
      */
-    private boolean isLaborDay(LocalDate date) {
-        return date.getMonthValue() == 9 && date.getDayOfMonth() <= 7 && date.getDayOfWeek() == DayOfWeek.MONDAY;
+    private boolean isWeekendDay(LocalDate date) {
+        var dayOfWeek = date.getDayOfWeek();
+        return dayOfWeek == DayOfWeek.SATURDAY || dayOfWeek == DayOfWeek.SUNDAY;
     }
 
     /**
-     * Wrapper function to determine if the given date is a Holiday
+     * Determine if the given date is a Holiday by checking the cached calendar for its year
      * @param date Specific date to check
-     * @return Boolean value that returns TRUE if date is either Labor Day or the Fourth of July, FALSE if not
+     * @return Boolean value that returns TRUE if date is celebrated as a holiday, FALSE if not
      */
     private boolean isHoliday(LocalDate date) {
-        return this.isJulyFourth(date) || this.isLaborDay(date);
+        return this.calendarIndex.isHoliday(date.toEpochDay());
     }
-}
\ No newline at end of file
+}
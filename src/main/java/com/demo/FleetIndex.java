@@ -0,0 +1,180 @@
+package com.demo;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory availability index for the physical units of each tool.  Every unit has a bitmap of the days it is
+ * booked, counted from the index's first date, and a booking covers the days from the checkout date up to but not
+ * including the due date, so a unit returned on its due date can go out again the same day.
+ * <p>
+ * Each tool code has its own fleet with its own lock, so bookings for different tools never contend and a booking
+ * for one tool only waits on other bookings for the same tool.  Finding a free unit and marking its days happen
+ * under that lock, so a unit can never be handed out twice for overlapping days.  Each unit also remembers the
+ * bookings made on it, so only a booking that is still held can be released.
+ */
+public class FleetIndex {
+    private final long firstEpochDay;
+    private final ConcurrentHashMap<String, Fleet> fleets = new ConcurrentHashMap<>();
+
+    /**
+     * @param firstDate Earliest date that can be booked, usually today
+     */
+    public FleetIndex(LocalDate firstDate) {
+        this.firstEpochDay = firstDate.toEpochDay();
+    }
+
+    /**
+     * Adds physical units to a tool's fleet.  New units are numbered after the existing ones and start out free.
+     * @param toolCode Code of the tool the units belong to
+     * @param count Number of units to add
+     */
+    public void addUnits(String toolCode, int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("At least one unit must be added.");
+        }
+        var fleet = this.fleets.computeIfAbsent(toolCode, code -> new Fleet());
+
+        synchronized (fleet) {
+            for (int i = 0; i < count; i++) {
+                fleet.units.add(new BitSet());
+                fleet.bookings.add(new HashMap<>());
+            }
+        }
+    }
+
+    /**
+     * @param toolCode Code of the tool
+     * @return Number of units in the tool's fleet
+     */
+    public int getUnitCount(String toolCode) {
+        var fleet = this.fleets.get(toolCode);
+        if (fleet == null) {
+            return 0;
+        }
+        synchronized (fleet) {
+            return fleet.units.size();
+        }
+    }
+
+    /**
+     * Books the first unit that is free for the whole rental period
+     * @param toolCode Code of the tool being rented
+     * @param checkoutDate Date the rental begins
+     * @param rentalDays Total number of rental days, which must be at least 1
+     * @return Number of the booked unit
+     * @throws IllegalStateException if every unit is already booked on at least one of the days
+     */
+    public int reserve(String toolCode, LocalDate checkoutDate, int rentalDays) {
+        var fleet = this.getFleet(toolCode);
+        var from = this.toDayIndex(checkoutDate, rentalDays);
+
+        synchronized (fleet) {
+            for (int unit = 0; unit < fleet.units.size(); unit++) {
+                var bookedDays = fleet.units.get(unit);
+                var nextBooked = bookedDays.nextSetBit(from);
+                if (nextBooked < 0 || nextBooked >= from + rentalDays) {
+                    bookedDays.set(from, from + rentalDays);
+                    fleet.bookings.get(unit).put(from, rentalDays);
+                    return unit;
+                }
+            }
+        }
+
+        throw new IllegalStateException("No " + toolCode + " units are available from " + checkoutDate
+                + " for " + rentalDays + " days.");
+    }
+
+    /**
+     * Frees the days booked by an earlier call to reserve()
+     * @param toolCode Code of the rented tool
+     * @param unit Number of the booked unit
+     * @param checkoutDate Date the rental began
+     * @param rentalDays Total number of rental days
+     * @throws IllegalStateException if the unit doesn't hold that booking, such as one that was already released
+     */
+    public void release(String toolCode, int unit, LocalDate checkoutDate, int rentalDays) {
+        var fleet = this.getFleet(toolCode);
+        var from = this.toDayIndex(checkoutDate, rentalDays);
+
+        synchronized (fleet) {
+            if (unit < 0 || unit >= fleet.units.size()) {
+                throw new IllegalArgumentException("Unit " + unit + " does not exist for tool code " + toolCode + ".");
+            }
+            var booking = fleet.bookings.get(unit);
+            var bookedDays = booking.get(from);
+            if (bookedDays == null || bookedDays != rentalDays) {
+                throw new IllegalStateException("Unit " + unit + " of tool code " + toolCode + " has no booking from "
+                        + checkoutDate + " for " + rentalDays + " days.");
+            }
+            booking.remove(from);
+            fleet.units.get(unit).clear(from, from + rentalDays);
+        }
+    }
+
+    /**
+     * Counts the units that are free for the whole rental period
+     * @param toolCode Code of the tool being rented
+     * @param checkoutDate Date the rental would begin
+     * @param rentalDays Total number of rental days, which must be at least 1
+     * @return Number of units that could be reserved for the period
+     */
+    public int countAvailableUnits(String toolCode, LocalDate checkoutDate, int rentalDays) {
+        var fleet = this.getFleet(toolCode);
+        var from = this.toDayIndex(checkoutDate, rentalDays);
+        var available = 0;
+
+        synchronized (fleet) {
+            for (var bookedDays : fleet.units) {
+                var nextBooked = bookedDays.nextSetBit(from);
+                if (nextBooked < 0 || nextBooked >= from + rentalDays) {
+                    available++;
+                }
+            }
+        }
+        return available;
+    }
+
+    private Fleet getFleet(String toolCode) {
+        var fleet = this.fleets.get(toolCode);
+        if (fleet == null) {
+            throw new IllegalArgumentException("Tool code " + toolCode + " has no units in the fleet.");
+        }
+        return fleet;
+    }
+
+    /**
+     * Private helper function that validates a rental period and converts its checkout date to a bitmap index
+     * @param checkoutDate Date the rental begins
+     * @param rentalDays Total number of rental days
+     * @return Index of the checkout date in each unit's bitmap
+     */
+    private int toDayIndex(LocalDate checkoutDate, int rentalDays) {
+        if (rentalDays < 1) {
+            throw new IllegalArgumentException("All rental agreements must be for at least 1 day.");
+        }
+
+        var dayIndex = checkoutDate.toEpochDay() - this.firstEpochDay;
+        if (dayIndex < 0) {
+            throw new IllegalArgumentException("Checkout date " + checkoutDate + " is before the first bookable date.");
+        }
+        if (dayIndex + rentalDays > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Rental period is too far in the future to book.");
+        }
+        return (int) dayIndex;
+    }
+
+    /**
+     * Booked days for every unit of one tool, and each unit's bookings as rental days by checkout day index.
+     * The fleet itself is the lock for its units.
+     */
+    private static class Fleet {
+        private final List<BitSet> units = new ArrayList<>();
+        private final List<Map<Integer, Integer>> bookings = new ArrayList<>();
+    }
+}
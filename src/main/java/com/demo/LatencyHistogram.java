@@ -0,0 +1,139 @@
+package com.demo;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with log-linear buckets, in the style of an HDR histogram.
+ * Values below 128 get their own bucket; above that every power of two range is split into 64 buckets, so any
+ * recorded value is reported within about 1.6% of its true value.  Recording is a few uncontended atomic updates, so
+ * many threads can record at once without locking.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_BUCKETS = SUB_BUCKETS * 2;
+    private static final int BUCKETS = LINEAR_BUCKETS + (63 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Records one value, usually a latency in nanoseconds.  Negative values are recorded as zero.
+     * @param value Value to record
+     */
+    public void record(long value) {
+        value = Math.max(0, value);
+        this.counts.incrementAndGet(bucketOf(value));
+        this.total.add(value);
+        this.max.accumulate(value);
+    }
+
+    /**
+     * Clears every recorded value.  Values recorded while the reset is running may or may not be kept.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            this.counts.set(i, 0);
+        }
+        this.total.reset();
+        this.max.reset();
+    }
+
+    /**
+     * Takes a point in time copy of the histogram, so several percentiles can be read from consistent counts
+     * @return Snapshot of the recorded values
+     */
+    public Snapshot snapshot() {
+        var copy = new long[BUCKETS];
+        var snapshotCount = 0L;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = this.counts.get(i);
+            snapshotCount += copy[i];
+        }
+        return new Snapshot(copy, snapshotCount, this.total.sum(), this.max.get());
+    }
+
+    /**
+     * @return Number of recorded values, summed from the buckets so recording doesn't keep a separate count
+     */
+    public long getCount() {
+        var count = 0L;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += this.counts.get(i);
+        }
+        return count;
+    }
+
+    private static int bucketOf(long value) {
+        if (value < LINEAR_BUCKETS) {
+            return (int) value;
+        }
+        var shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return LINEAR_BUCKETS + (shift - 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    /**
+     * @return Middle of the range of values that fall into the bucket
+     */
+    private static long valueOf(int bucket) {
+        if (bucket < LINEAR_BUCKETS) {
+            return bucket;
+        }
+        var shift = (bucket - LINEAR_BUCKETS) / SUB_BUCKETS + 1;
+        var subBucket = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((long) subBucket << shift) + (1L << (shift - 1));
+    }
+
+    /**
+     * Point in time copy of a histogram
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long total;
+        private final long max;
+
+        private Snapshot(long[] counts, long count, long total, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.total = total;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return this.count;
+        }
+
+        public long getMax() {
+            return this.max;
+        }
+
+        public double getMean() {
+            return this.count == 0 ? 0 : (double) this.total / this.count;
+        }
+
+        /**
+         * @param percentile Percentile to read, from 0 to 100
+         * @return Value at or below which the given percentage of recorded values fall, or 0 if nothing was recorded
+         */
+        public long getPercentile(double percentile) {
+            if (this.count == 0) {
+                return 0;
+            }
+
+            var rank = Math.max(1, (long) Math.ceil(percentile / 100 * this.count));
+            var seen = 0L;
+            for (int bucket = 0; bucket < this.counts.length; bucket++) {
+                seen += this.counts[bucket];
+                if (seen >= rank) {
+                    return Math.min(valueOf(bucket), this.max);
+                }
+            }
+            return this.max;
+        }
+    }
+}
@@ -1,7 +1,95 @@
 package com.demo;
 
+import com.demo.datatypes.Tool;
+import com.demo.load.SoakRunner;
+import com.demo.load.WorkloadGenerator;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Command line entry point.
+ * <pre>
+ * quote &lt;input&gt; &lt;output&gt; [threads]   Price every application in a CSV or NDJSON file
+ * serve [port] [max concurrent]       Run the HTTP quote service
+ * soak &lt;rate&gt; &lt;seconds&gt; &lt;result&gt; [threads] [tools]
+ *                                     Drive the quote engine at a fixed rate and save the measurements as JSON
+ * </pre>
+ */
 public class Main {
-    public static void main(String[] args) {
-        // Nothing here at the moment since no UI has been implemented.
+    public static void main(String[] args) throws IOException {
+        if (args.length >= 3 && args[0].equals("quote")) {
+            quote(args);
+        } else if (args.length >= 1 && args[0].equals("serve")) {
+            serve(args);
+        } else if (args.length >= 4 && args[0].equals("soak")) {
+            soak(args);
+        } else {
+            printUsage();
+        }
+    }
+
+    /**
+     * Runs a bulk quote over a file of applications and prints a throughput summary
+     * @param args Command line arguments: quote, input file, output file and optional pricing thread count
+     */
+    private static void quote(String[] args) {
+        var input = Path.of(args[1]);
+        var output = Path.of(args[2]);
+        var threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        var runner = new BulkQuoteRunner(new AgreementManager(), threads);
+
+        System.out.println(runner.run(input, output, BulkQuoteRunner.Format.fromPath(input)));
+    }
+
+    /**
+     * Starts the HTTP quote service, with quote metrics enabled and published over JMX, and keeps it running until
+     * the JVM is stopped
+     * @param args Command line arguments: serve, optional port (default 8080) and optional concurrent request limit
+     */
+    private static void serve(String[] args) throws IOException {
+        var port = args.length > 1 ? Integer.parseInt(args[1]) : 8080;
+        var maxConcurrentRequests = args.length > 2 ? Integer.parseInt(args[2]) : 1024;
+        var agreementManager = new AgreementManager();
+        var server = new QuoteServer(agreementManager, port, maxConcurrentRequests);
+
+        agreementManager.getMetrics().setEnabled(true);
+        agreementManager.getMetrics().register("quote-service");
+
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+        server.start();
+        System.out.println("Quote service listening on port " + server.getPort());
+    }
+
+    /**
+     * Runs an open-loop soak test against a catalog with generated tools, prints a summary and saves the full
+     * result as JSON
+     * @param args Command line arguments: soak, requests per second, seconds to run, result file, optional worker
+     * thread count and optional number of generated tools (default 10,000)
+     */
+    private static void soak(String[] args) {
+        var rate = Double.parseDouble(args[1]);
+        var duration = Duration.ofMillis((long) (Double.parseDouble(args[2]) * 1000));
+        var result = Path.of(args[3]);
+        var threads = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+        var generatedTools = args.length > 5 ? Integer.parseInt(args[5]) : 10_000;
+        var catalog = WorkloadGenerator.generateCatalog(generatedTools);
+        var toolCodes = catalog.getTools().stream().map(Tool::code).sorted().toList();
+
+        ToolCatalog.setInstance(catalog);
+        var generator = new WorkloadGenerator(toolCodes, 1.0, 2015, 10, 23);
+        var soakResult = new SoakRunner(new AgreementManager(), generator, threads).run(rate, duration);
+
+        soakResult.write(result);
+        System.out.println(soakResult);
+    }
+
+    private static void printUsage() {
+        System.out.println("Usage:");
+        System.out.println("  quote <input> <output> [threads]   Price every application in a CSV or NDJSON file");
+        System.out.println("  serve [port] [max concurrent]      Run the HTTP quote service");
+        System.out.println("  soak <rate> <seconds> <result> [threads] [tools]");
+        System.out.println("                                     Drive the quote engine at a fixed rate and save the results as JSON");
     }
-}
\ No newline at end of file
+}
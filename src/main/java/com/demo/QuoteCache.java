@@ -0,0 +1,95 @@
+package com.demo;
+
+import com.demo.datatypes.ToolType;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Optional cache placed in front of AgreementManager pricing.  Pricing is a pure function of the tool type,
+ * checkout date, rental days and discount, so repeated quotes can reuse earlier results.
+ * Charge day counts are cached separately by the tool type charge flags, so every tool type with the same flags
+ * shares entries for the same rental period.
+ */
+public class QuoteCache {
+    private final BoundedCache<QuoteKey, Charges> quotes;
+    private final BoundedCache<ChargeDaysKey, Integer> chargeDays;
+
+    /**
+     * @param maximumSize Maximum number of entries kept in each of the quote and charge day caches
+     * @param timeToLive How long an entry stays valid after it is stored, or NULL to keep entries until evicted
+     */
+    public QuoteCache(int maximumSize, Duration timeToLive) {
+        this.quotes = new BoundedCache<>(maximumSize, timeToLive);
+        this.chargeDays = new BoundedCache<>(maximumSize, timeToLive);
+    }
+
+    /**
+     * Returns the cached charges for a quote, calculating them with the loader if they aren't cached
+     * @param key Pricing inputs for the quote
+     * @param loader Function that calculates the charges for a missing key
+     * @return Charges for the quote
+     */
+    public Charges getCharges(QuoteKey key, Function<QuoteKey, Charges> loader) {
+        return this.quotes.get(key, loader);
+    }
+
+    /**
+     * Returns the cached charge day count for a rental period, calculating it with the loader if it isn't cached
+     * @param key Charge flags and rental period
+     * @param loader Function that counts the charge days for a missing key
+     * @return Number of chargeable days in the rental period
+     */
+    public int getChargeDays(ChargeDaysKey key, Function<ChargeDaysKey, Integer> loader) {
+        return this.chargeDays.get(key, loader);
+    }
+
+    /**
+     * Removes every cached entry, for example after holiday rules or daily charges change
+     */
+    public void clear() {
+        this.quotes.clear();
+        this.chargeDays.clear();
+    }
+
+    public BoundedCache.Stats getQuoteStats() {
+        return this.quotes.getStats();
+    }
+
+    public BoundedCache.Stats getChargeDaysStats() {
+        return this.chargeDays.getStats();
+    }
+
+    /**
+     * Static record representing the inputs a quote is priced from
+     * @param toolType Type of the tool being rented
+     * @param checkoutEpochDay Checkout date as a count of days since 1970-01-01
+     * @param rentalDays Total number of rental days
+     * @param discountPercentage Discount percentage as a whole number
+     */
+    public record QuoteKey(ToolType toolType, long checkoutEpochDay, int rentalDays, int discountPercentage) { }
+
+    /**
+     * Static record representing the inputs a charge day count depends on
+     * @param weekdayCharge Charge flag for weekdays
+     * @param weekendCharge Charge flag for weekends
+     * @param holidayCharge Charge flag for holidays
+     * @param startingChargeEpochDay First chargeable day of the rental as a count of days since 1970-01-01
+     * @param rentalDays Total number of rental days
+     */
+    public record ChargeDaysKey(boolean weekdayCharge, boolean weekendCharge, boolean holidayCharge,
+                                long startingChargeEpochDay, int rentalDays) {
+        public ChargeDaysKey(ToolType toolType, long startingChargeEpochDay, int rentalDays) {
+            this(toolType.weekdayCharge(), toolType.weekendCharge(), toolType.holidayCharge(), startingChargeEpochDay, rentalDays);
+        }
+    }
+
+    /**
+     * Static record representing the charges calculated for a quote, in cents
+     * @param chargeDays Number of chargeable days
+     * @param baseChargeCents Charge before discounts
+     * @param discountAmountCents Discount taken off the base charge
+     * @param finalChargeCents Charge after discounts
+     */
+    public record Charges(int chargeDays, long baseChargeCents, long discountAmountCents, long finalChargeCents) { }
+}
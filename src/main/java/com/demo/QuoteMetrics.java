@@ -0,0 +1,243 @@
+package com.demo;
+
+import com.demo.datatypes.ToolType;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms for the quote pricing path, recorded by AgreementManager.calculateCharges().
+ * Every stage of a quote and every tool type gets its own LatencyHistogram, and counts are kept in LongAdders, so
+ * recording never takes a lock.
+ * <p>
+ * Metrics start out disabled.  While disabled, the pricing path reads one volatile flag per quote and does nothing
+ * else, not even reading the clock.  While enabled, every quote is counted and, by default, every quote is timed;
+ * setSampleInterval() times one quote in N instead, for services where reading the clock is costly.  The same
+ * numbers are available as a text snapshot, from appendText(), and over JMX once register() has been called.
+ */
+public class QuoteMetrics implements QuoteMetricsMBean {
+    private static final double[] PERCENTILES = { 50, 90, 99 };
+
+    /**
+     * Timed parts of a quote
+     */
+    public enum Stage {
+        /**
+         * Finding the tool in the ToolCatalog
+         */
+        TOOL_LOOKUP,
+        /**
+         * Counting the chargeable days between the checkout and due dates
+         */
+        CHARGE_DAYS,
+        /**
+         * Base charge, discount and final charge math
+         */
+        CHARGE_MATH,
+        /**
+         * Charge days and charge math answered through the QuoteCache
+         */
+        CACHED_CHARGES,
+        /**
+         * The whole quote, from tool lookup to the filled in ChargeResult
+         */
+        QUOTE
+    }
+
+    private volatile boolean enabled;
+    private volatile int sampleInterval = 1;
+    private final LatencyHistogram[] stages = new LatencyHistogram[Stage.values().length];
+    private final Map<String, LatencyHistogram> toolTypes = new ConcurrentHashMap<>();
+    private final LongAdder quotes = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public QuoteMetrics() {
+        for (int i = 0; i < this.stages.length; i++) {
+            this.stages[i] = new LatencyHistogram();
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return Number of quotes per timed quote
+     */
+    @Override
+    public int getSampleInterval() {
+        return this.sampleInterval;
+    }
+
+    /**
+     * Times only some quotes, picked at random, to cut the cost of reading the clock on a busy service.
+     * Every quote is still counted, and percentiles from a sample stay representative of the whole.
+     * @param sampleInterval Average number of quotes per timed quote, 1 to time every quote
+     */
+    @Override
+    public void setSampleInterval(int sampleInterval) {
+        if (sampleInterval < 1) {
+            throw new IllegalArgumentException("The sample interval must be at least 1.");
+        }
+        this.sampleInterval = sampleInterval;
+    }
+
+    /**
+     * @return TRUE if the quote about to start should be timed, which is never while metrics are disabled
+     */
+    public boolean shouldTime() {
+        if (!this.enabled) {
+            return false;
+        }
+        var interval = this.sampleInterval;
+        return interval == 1 || ThreadLocalRandom.current().nextInt(interval) == 0;
+    }
+
+    /**
+     * Counts a completed quote that wasn't timed
+     */
+    public void countQuote() {
+        this.quotes.increment();
+    }
+
+    /**
+     * Counts a completed quote and records how long each of its stages took.  The stage boundaries are passed as
+     * System.nanoTime() readings so the pricing path reads the clock once per boundary.
+     * @param toolType Type of the tool that was quoted
+     * @param started When the quote started
+     * @param toolFound When the tool lookup and validation finished
+     * @param chargeDaysCounted When the charge days were counted, or 0 if the charges came from the QuoteCache
+     * @param finished When the charges were complete
+     */
+    public void recordQuote(ToolType toolType, long started, long toolFound, long chargeDaysCounted, long finished) {
+        this.quotes.increment();
+        this.stages[Stage.TOOL_LOOKUP.ordinal()].record(toolFound - started);
+        if (chargeDaysCounted == 0) {
+            this.stages[Stage.CACHED_CHARGES.ordinal()].record(finished - toolFound);
+        } else {
+            this.stages[Stage.CHARGE_DAYS.ordinal()].record(chargeDaysCounted - toolFound);
+            this.stages[Stage.CHARGE_MATH.ordinal()].record(finished - chargeDaysCounted);
+        }
+        this.stages[Stage.QUOTE.ordinal()].record(finished - started);
+
+        var histogram = this.toolTypes.get(toolType.label());
+        if (histogram == null) {
+            histogram = this.toolTypes.computeIfAbsent(toolType.label(), label -> new LatencyHistogram());
+        }
+        histogram.record(finished - started);
+    }
+
+    /**
+     * Counts a quote that was rejected because its application was invalid, if metrics are enabled
+     */
+    public void recordRejected() {
+        if (this.enabled) {
+            this.rejected.increment();
+        }
+    }
+
+    /**
+     * @param stage Stage to read
+     * @return Point in time copy of the stage's latency histogram
+     */
+    public LatencyHistogram.Snapshot getStage(Stage stage) {
+        return this.stages[stage.ordinal()].snapshot();
+    }
+
+    @Override
+    public long getQuoteCount() {
+        return this.quotes.sum();
+    }
+
+    @Override
+    public long getRejectedCount() {
+        return this.rejected.sum();
+    }
+
+    @Override
+    public long getQuoteP50Micros() {
+        return this.getStage(Stage.QUOTE).getPercentile(50) / 1000;
+    }
+
+    @Override
+    public long getQuoteP99Micros() {
+        return this.getStage(Stage.QUOTE).getPercentile(99) / 1000;
+    }
+
+    @Override
+    public long getQuoteMaxMicros() {
+        return this.getStage(Stage.QUOTE).getMax() / 1000;
+    }
+
+    @Override
+    public String getSnapshot() {
+        return this.appendText(new StringBuilder()).toString();
+    }
+
+    @Override
+    public void reset() {
+        for (var stage : this.stages) {
+            stage.reset();
+        }
+        this.toolTypes.values().forEach(LatencyHistogram::reset);
+        this.quotes.reset();
+        this.rejected.reset();
+    }
+
+    /**
+     * Appends every metric as one "name{labels} value" line, with latencies in nanoseconds
+     * @param output Buffer to append to
+     * @return The same buffer, for chaining
+     */
+    public StringBuilder appendText(StringBuilder output) {
+        output.append("quote_enabled ").append(this.enabled ? 1 : 0).append('\n')
+                .append("quote_sample_interval ").append(this.sampleInterval).append('\n')
+                .append("quote_total ").append(this.getQuoteCount()).append('\n')
+                .append("quote_rejected_total ").append(this.getRejectedCount()).append('\n');
+
+        for (var stage : Stage.values()) {
+            appendHistogram(output, "stage", stage.name().toLowerCase(Locale.ROOT), this.getStage(stage));
+        }
+        for (var toolType : new TreeMap<>(this.toolTypes).entrySet()) {
+            appendHistogram(output, "tool_type", toolType.getKey(), toolType.getValue().snapshot());
+        }
+        return output;
+    }
+
+    /**
+     * Registers these metrics with the platform MBean server, where JMX clients such as JConsole can read them
+     * @param name Name to tell several agreement managers apart, used as the name key of the object name
+     */
+    public void register(String name) {
+        try {
+            ManagementFactory.getPlatformMBeanServer()
+                    .registerMBean(this, new ObjectName("com.demo:type=QuoteMetrics,name=" + ObjectName.quote(name)));
+        } catch (JMException e) {
+            throw new IllegalStateException("Unable to register quote metrics " + name + ".", e);
+        }
+    }
+
+    private static void appendHistogram(StringBuilder output, String label, String value, LatencyHistogram.Snapshot snapshot) {
+        var labels = label + "=\"" + value + "\"";
+
+        output.append("quote_latency_nanos_count{").append(labels).append("} ").append(snapshot.getCount()).append('\n');
+        for (var percentile : PERCENTILES) {
+            output.append("quote_latency_nanos{").append(labels).append(",quantile=\"").append(percentile / 100)
+                    .append("\"} ").append(snapshot.getPercentile(percentile)).append('\n');
+        }
+        output.append("quote_latency_nanos_max{").append(labels).append("} ").append(snapshot.getMax()).append('\n');
+    }
+}
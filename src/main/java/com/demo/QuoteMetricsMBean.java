@@ -0,0 +1,31 @@
+package com.demo;
+
+/**
+ * JMX view of QuoteMetrics.  Latencies are in microseconds.
+ */
+public interface QuoteMetricsMBean {
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    int getSampleInterval();
+
+    void setSampleInterval(int sampleInterval);
+
+    long getQuoteCount();
+
+    long getRejectedCount();
+
+    long getQuoteP50Micros();
+
+    long getQuoteP99Micros();
+
+    long getQuoteMaxMicros();
+
+    /**
+     * @return Every metric in the text format served at /metrics
+     */
+    String getSnapshot();
+
+    void reset();
+}
@@ -0,0 +1,231 @@
+package com.demo;
+
+import com.demo.datatypes.Application;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Embedded HTTP quote service built on the JDK HTTP server, running each request on its own virtual thread.
+ * <pre>
+ * POST /quote    One JSON application in, one JSON agreement out
+ * POST /quotes   One JSON application per line in, one JSON agreement or error per line out, in the same order
+ * GET  /stats    Request count and p50/p90/p99/max latency in microseconds for each quote endpoint, counting only
+ *                requests that were priced, and the number of requests turned away with 405, 413 or 503
+ * GET  /metrics  The agreement manager's QuoteMetrics as text, one metric per line
+ * </pre>
+ * Requests are parsed with ApplicationParser rather than by reflection.  At most maxConcurrentRequests quote requests
+ * are priced at once; requests beyond that are turned away with 503 so the service degrades instead of queueing.
+ * A permit is only taken once the request body has been read, so slow clients don't hold permits while they upload,
+ * and a batch is priced on its request's own thread, so the limit covers all of the pricing work.  Unexpected
+ * failures are logged and answered with 500 and a fixed message, so exception details never reach clients.
+ */
+public class QuoteServer {
+    private static final System.Logger LOGGER = System.getLogger(QuoteServer.class.getName());
+    private static final int MAX_BODY_BYTES = 16 << 20;
+
+    private final AgreementManager agreementManager;
+    private final AgreementRenderer renderer = new AgreementRenderer();
+    private final int maxConcurrentRequests;
+    private final Semaphore permits;
+    private final LatencyHistogram quoteLatency = new LatencyHistogram();
+    private final LatencyHistogram batchLatency = new LatencyHistogram();
+    private final LongAdder rejected = new LongAdder();
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Creates the server bound to the given port.  Call start() to begin accepting requests.
+     * @param agreementManager Agreement manager used to price every quote
+     * @param port Port to listen on, or 0 to pick a free port
+     * @param maxConcurrentRequests Number of quote requests that may be priced at the same time
+     */
+    public QuoteServer(AgreementManager agreementManager, int port, int maxConcurrentRequests) throws IOException {
+        if (maxConcurrentRequests < 1) {
+            throw new IllegalArgumentException("At least one concurrent request must be allowed.");
+        }
+
+        this.agreementManager = agreementManager;
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        this.permits = new Semaphore(maxConcurrentRequests);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        this.server.setExecutor(this.executor);
+        this.server.createContext("/quote", exchange -> this.handleQuoteRequest(exchange, false));
+        this.server.createContext("/quotes", exchange -> this.handleQuoteRequest(exchange, true));
+        this.server.createContext("/stats", this::handleStats);
+        this.server.createContext("/metrics", this::handleMetrics);
+    }
+
+    public void start() {
+        this.server.start();
+    }
+
+    /**
+     * Stops accepting requests, giving requests in progress up to one second to finish
+     */
+    public void stop() {
+        this.server.stop(1);
+        this.executor.shutdown();
+    }
+
+    /**
+     * @return Port the server is listening on
+     */
+    public int getPort() {
+        return this.server.getAddress().getPort();
+    }
+
+    private void handleQuoteRequest(HttpExchange exchange, boolean batch) throws IOException {
+        var started = System.nanoTime();
+
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                this.reject(exchange, 405, "Use POST to request a quote.");
+                return;
+            }
+            var body = readBody(exchange.getRequestBody());
+            if (body == null) {
+                this.reject(exchange, 413, "Request body is larger than " + MAX_BODY_BYTES + " bytes.");
+                return;
+            }
+            if (!this.permits.tryAcquire()) {
+                this.reject(exchange, 503, "Too many quote requests in progress, please retry.");
+                return;
+            }
+
+            try {
+                if (batch) {
+                    this.send(exchange, 200, this.priceBatch(body));
+                } else {
+                    this.send(exchange, 200, this.priceOne(body));
+                }
+            } catch (IllegalArgumentException e) {
+                this.sendError(exchange, 400, String.valueOf(e.getMessage()));
+            } catch (RuntimeException e) {
+                LOGGER.log(System.Logger.Level.ERROR, "Unable to price a request to " + exchange.getRequestURI(), e);
+                this.sendError(exchange, 500, "Unable to price the quote.");
+            } finally {
+                this.permits.release();
+                (batch ? this.batchLatency : this.quoteLatency).record(System.nanoTime() - started);
+            }
+        }
+    }
+
+    private StringBuilder priceOne(String body) {
+        var agreement = this.agreementManager.generateAgreement(ApplicationParser.parseJson(body));
+        return this.renderer.render(agreement, AgreementRenderer.Format.JSON, new StringBuilder(320));
+    }
+
+    private StringBuilder priceBatch(String body) {
+        var applications = new ArrayList<Application>();
+        var output = new StringBuilder();
+        var lines = body.lines().filter(line -> !line.isBlank()).toList();
+        var parseErrors = new String[lines.size()];
+
+        for (int i = 0; i < lines.size(); i++) {
+            try {
+                applications.add(ApplicationParser.parseJson(lines.get(i)));
+            } catch (IllegalArgumentException e) {
+                parseErrors[i] = e.getMessage();
+                applications.add(null);
+            }
+        }
+
+        var valid = applications.stream().filter(Objects::nonNull).toList();
+        var results = this.agreementManager.generateAgreements(valid, Runnable::run).iterator();
+
+        for (int i = 0; i < lines.size(); i++) {
+            if (parseErrors[i] != null) {
+                appendError(output, parseErrors[i]);
+                continue;
+            }
+
+            var result = results.next();
+            if (result.isSuccessful()) {
+                this.renderer.render(result.agreement(), AgreementRenderer.Format.JSON, output);
+            } else {
+                appendError(output, result.error());
+            }
+        }
+        return output;
+    }
+
+    private void handleStats(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            var output = new StringBuilder("{\"quote\":");
+            appendStats(output, this.quoteLatency.snapshot());
+            output.append(",\"quotes\":");
+            appendStats(output, this.batchLatency.snapshot());
+            output.append(",\"rejected\":").append(this.rejected.sum())
+                    .append(",\"inFlight\":").append(this.inFlight()).append("}\n");
+            this.send(exchange, 200, output);
+        }
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            var bytes = this.agreementManager.getMetrics().getSnapshot().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+            exchange.sendResponseHeaders(200, bytes.length);
+            exchange.getResponseBody().write(bytes);
+        }
+    }
+
+    private int inFlight() {
+        return this.maxConcurrentRequests - this.permits.availablePermits();
+    }
+
+    private static void appendStats(StringBuilder output, LatencyHistogram.Snapshot snapshot) {
+        output.append("{\"count\":").append(snapshot.getCount())
+                .append(",\"p50Micros\":").append(snapshot.getPercentile(50) / 1000)
+                .append(",\"p90Micros\":").append(snapshot.getPercentile(90) / 1000)
+                .append(",\"p99Micros\":").append(snapshot.getPercentile(99) / 1000)
+                .append(",\"maxMicros\":").append(snapshot.getMax() / 1000)
+                .append('}');
+    }
+
+    private static void appendError(StringBuilder output, String error) {
+        output.append("{\"error\":");
+        AgreementRenderer.appendJsonString(error, output).append("}\n");
+    }
+
+    /**
+     * Private helper function that turns a request away before it is priced, counting it as rejected
+     */
+    private void reject(HttpExchange exchange, int status, String error) throws IOException {
+        this.rejected.increment();
+        this.sendError(exchange, status, error);
+    }
+
+    private void sendError(HttpExchange exchange, int status, String error) throws IOException {
+        var output = new StringBuilder();
+        appendError(output, error);
+        this.send(exchange, status, output);
+    }
+
+    private void send(HttpExchange exchange, int status, CharSequence body) throws IOException {
+        var bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    /**
+     * @return Request body as a string, or NULL if it is larger than the maximum body size
+     */
+    private static String readBody(InputStream body) throws IOException {
+        var bytes = body.readNBytes(MAX_BODY_BYTES + 1);
+        return bytes.length > MAX_BODY_BYTES ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+}
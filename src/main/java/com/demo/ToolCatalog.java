@@ -0,0 +1,132 @@
+package com.demo;
+
+import com.demo.datatypes.Tool;
+import com.demo.datatypes.ToolType;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Immutable catalog of rentable tools, indexed by tool code.
+ * A single shared catalog is built from ToolData at startup and can be read by any number of threads without locking.
+ * A new catalog can be loaded and swapped in with setInstance(); callers that already hold the previous catalog
+ * keep using it until they look it up again, so a quote in progress always sees one consistent catalog.
+ */
+public final class ToolCatalog {
+    private static volatile ToolCatalog instance = new ToolCatalog(ToolData.getDefaultTools());
+
+    private final Map<String, Tool> toolsByCode;
+
+    /**
+     * Indexes the given tools by code
+     * @param tools Tools to include in the catalog.  Tool codes must be unique.
+     */
+    public ToolCatalog(Collection<Tool> tools) {
+        var index = new HashMap<String, Tool>(tools.size() * 4 / 3 + 1);
+
+        for (var tool : tools) {
+            if (index.putIfAbsent(Objects.requireNonNull(tool.code()), tool) != null) {
+                throw new IllegalArgumentException("Tool code " + tool.code() + " appears more than once in the catalog.");
+            }
+        }
+
+        this.toolsByCode = Map.copyOf(index);
+    }
+
+    /**
+     * @return The catalog currently shared by the application
+     */
+    public static ToolCatalog getInstance() {
+        return instance;
+    }
+
+    /**
+     * Atomically replaces the shared catalog.  Readers are never blocked; they see either the old or the new catalog.
+     * @param catalog Fully built catalog to share from now on
+     */
+    public static void setInstance(ToolCatalog catalog) {
+        instance = Objects.requireNonNull(catalog);
+    }
+
+    /**
+     * Loads a catalog from a file where each non-blank line that doesn't start with # defines one tool as
+     * comma separated values:
+     * <pre>
+     * code, brand, type, daily charge, weekday charge, weekend charge, holiday charge
+     * JAKR, Ridgid, Jackhammer, 2.99, true, false, false
+     * </pre>
+     * Tools with the same type label share one ToolType, so every line for a type must have the same charge details.
+     * @param path Location of the catalog file
+     * @return Newly built catalog.  The shared catalog isn't changed until it is passed to setInstance().
+     */
+    public static ToolCatalog load(Path path) {
+        try (var reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return new ToolCatalog(parse(reader));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read tool catalog from " + path, e);
+        }
+    }
+
+    /**
+     * Returns a tool object based on the provided tool code
+     * @param code Tool code to lookup
+     * @return Tool object to return.  Returns NULL if given code is not found.
+     */
+    public Tool getTool(String code) {
+        return code == null ? null : this.toolsByCode.get(code);
+    }
+
+    /**
+     * @return Every tool in the catalog, in no particular order
+     */
+    public Collection<Tool> getTools() {
+        return this.toolsByCode.values();
+    }
+
+    public int size() {
+        return this.toolsByCode.size();
+    }
+
+    private static List<Tool> parse(BufferedReader reader) throws IOException {
+        var tools = new ArrayList<Tool>();
+        var toolTypes = new HashMap<String, ToolType>();
+        var lineNumber = 0;
+        String line;
+
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            var fields = line.split("\\s*,\\s*");
+            if (fields.length != 7) {
+                throw new IllegalArgumentException("Invalid tool on line " + lineNumber + ": " + line);
+            }
+
+            var toolType = new ToolType(fields[2], new BigDecimal(fields[3]), Boolean.parseBoolean(fields[4]),
+                    Boolean.parseBoolean(fields[5]), Boolean.parseBoolean(fields[6]));
+            var sharedType = toolTypes.putIfAbsent(toolType.label(), toolType);
+            if (sharedType != null && !sharedType.equals(toolType)) {
+                throw new IllegalArgumentException("Tool type " + toolType.label() + " on line " + lineNumber
+                        + " doesn't match its earlier definition.");
+            }
+
+            tools.add(new Tool(fields[0], fields[1], sharedType != null ? sharedType : toolType));
+        }
+
+        return tools;
+    }
+}
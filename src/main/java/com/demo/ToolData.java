@@ -4,14 +4,13 @@ import com.demo.datatypes.Tool;
 import com.demo.datatypes.ToolType;
 
 import java.math.BigDecimal;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Objects;
+import java.util.List;
 
 /**
  * Class that sets up the hard-coded data for this demo app.
  * In a more robust app with database integration, this would probably be replaced
  * with services to query the database for data instead.
+ * The default ToolCatalog is built from this data once at startup.
  */
 public class ToolData {
     public static final String BRAND_STIHL = "Stihl";
@@ -21,21 +20,30 @@ public class ToolData {
     public static final String TYPE_CHAINSAW = "Chainsaw";
     public static final String TYPE_LADDER = "Ladder";
     public static final String TYPE_JACKHAMMER = "Jackhammer";
-    private final Collection<Tool> tools = new ArrayList<>();
+    private final ToolCatalog catalog;
 
     /**
-     * Constructor initializes the test data into a collection of Tools when class is instantiated.
-     * Requested tool is selected from the collection using the getTool() method by providing a specific tool code.
+     * Constructor indexes the test data by tool code when class is instantiated.
+     * Requested tool is selected using the getTool() method by providing a specific tool code.
      */
     public ToolData() {
+        this.catalog = new ToolCatalog(getDefaultTools());
+    }
+
+    /**
+     * Builds the hard-coded tool data
+     * @return Every tool available for rental in this demo app
+     */
+    public static List<Tool> getDefaultTools() {
         var chainSaw = new ToolType(TYPE_CHAINSAW, new BigDecimal("1.49"), true, false, true);
         var ladder = new ToolType(TYPE_LADDER, new BigDecimal("1.99"), true, true, false);
         var jackhammer = new ToolType(TYPE_JACKHAMMER, new BigDecimal("2.99"), true, false, false);
 
-        this.tools.add(new Tool("CHNS", BRAND_STIHL, chainSaw));
-        this.tools.add(new Tool("LADW", BRAND_WERNER, ladder));
-        this.tools.add(new Tool("JAKD", BRAND_DEWALT, jackhammer));
-        this.tools.add(new Tool("JAKR", BRAND_RIDGID, jackhammer));
+        return List.of(
+                new Tool("CHNS", BRAND_STIHL, chainSaw),
+                new Tool("LADW", BRAND_WERNER, ladder),
+                new Tool("JAKD", BRAND_DEWALT, jackhammer),
+                new Tool("JAKR", BRAND_RIDGID, jackhammer));
     }
 
     /**
@@ -44,6 +52,6 @@ public class ToolData {
      * @return Tool object to return.  Returns NULL if given code is not found.
      */
     public Tool getTool(String code) {
-        return this.tools.stream().filter(x -> Objects.equals(x.code(), code)).findFirst().orElse(null);
+        return this.catalog.getTool(code);
     }
 }
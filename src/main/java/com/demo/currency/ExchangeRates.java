@@ -0,0 +1,202 @@
+package com.demo.currency;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Immutable table of exchange rates from the base currency, US dollars, which every tool's daily charge is set in.
+ * Rates are held as whole millionths, so converting an amount in cents is two integer operations with half up
+ * rounding.  Only currencies with two decimal places are supported, so every amount stays a whole number of cents.
+ * <p>
+ * A single shared table is loaded from DEFAULT_RATES at startup.  A new table can be loaded and swapped in with
+ * setInstance(); callers that already hold the previous table keep using it, like ToolCatalog.
+ */
+public final class ExchangeRates {
+    public static final Currency BASE_CURRENCY = Currency.getInstance("USD");
+    public static final String DEFAULT_RATES = "/currency/rates.csv";
+
+    private static final int RATE_SCALE = 6;
+    private static final long RATE_UNIT = 1_000_000L;
+
+    private static volatile ExchangeRates instance = loadResource(DEFAULT_RATES);
+
+    private final Map<Currency, Long> ratesInMillionths;
+
+    /**
+     * @param rates Units of each currency per US dollar, with at most six decimal places.  The base currency is
+     * always included at a rate of 1.
+     */
+    public ExchangeRates(Map<Currency, BigDecimal> rates) {
+        var index = new HashMap<Currency, Long>();
+        index.put(BASE_CURRENCY, RATE_UNIT);
+
+        for (var entry : rates.entrySet()) {
+            var currency = requireSupported(entry.getKey());
+            var rate = toMillionths(entry.getValue());
+            if (currency.equals(BASE_CURRENCY) && rate != RATE_UNIT) {
+                throw new IllegalArgumentException("The rate for " + BASE_CURRENCY + " must be 1.");
+            }
+            index.put(currency, rate);
+        }
+
+        this.ratesInMillionths = Map.copyOf(index);
+    }
+
+    /**
+     * @return The rate table currently shared by the application
+     */
+    public static ExchangeRates getInstance() {
+        return instance;
+    }
+
+    /**
+     * Atomically replaces the shared rate table
+     * @param rates Fully loaded rate table to share from now on
+     */
+    public static void setInstance(ExchangeRates rates) {
+        instance = Objects.requireNonNull(rates);
+    }
+
+    /**
+     * Loads a rate table from a file where each non-blank line that doesn't start with # gives a currency code and
+     * the units of that currency per US dollar:
+     * <pre>
+     * CAD, 1.365
+     * </pre>
+     * @param path Location of the rate file
+     * @return Newly loaded table.  The shared table isn't changed until it is passed to setInstance().
+     */
+    public static ExchangeRates load(Path path) {
+        try (var reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return parse(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read exchange rates from " + path, e);
+        }
+    }
+
+    /**
+     * Loads a rate table packaged on the classpath, in the same format as load()
+     * @param resource Absolute resource name, such as DEFAULT_RATES
+     * @return Newly loaded table
+     */
+    public static ExchangeRates loadResource(String resource) {
+        var stream = ExchangeRates.class.getResourceAsStream(resource);
+        if (stream == null) {
+            throw new IllegalArgumentException("Exchange rate resource " + resource + " was not found.");
+        }
+
+        try (var reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+            return parse(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read exchange rates from " + resource, e);
+        }
+    }
+
+    /**
+     * @return Every currency with a rate, including the base currency
+     */
+    public Set<Currency> getCurrencies() {
+        return this.ratesInMillionths.keySet();
+    }
+
+    /**
+     * @param currency Currency to look up
+     * @return Units of the currency per US dollar
+     */
+    public BigDecimal getRate(Currency currency) {
+        return BigDecimal.valueOf(this.getRateInMillionths(currency), RATE_SCALE).stripTrailingZeros();
+    }
+
+    /**
+     * Converts an amount from the base currency, rounding half up to the nearest cent
+     * @param baseCents Amount in US cents, which must not be negative
+     * @param currency Currency to convert to
+     * @return Amount in cents of the given currency
+     */
+    public long fromBaseCents(long baseCents, Currency currency) {
+        var rate = this.getRateInMillionths(currency);
+        return rate == RATE_UNIT ? baseCents : (Math.multiplyExact(baseCents, rate) + RATE_UNIT / 2) / RATE_UNIT;
+    }
+
+    /**
+     * Converts an amount back to the base currency, rounding half up to the nearest cent
+     * @param cents Amount in cents of the given currency, which must not be negative
+     * @param currency Currency the amount is in
+     * @return Amount in US cents
+     */
+    public long toBaseCents(long cents, Currency currency) {
+        var rate = this.getRateInMillionths(currency);
+        return rate == RATE_UNIT ? cents : (Math.multiplyExact(cents, RATE_UNIT) + rate / 2) / rate;
+    }
+
+    private long getRateInMillionths(Currency currency) {
+        var rate = this.ratesInMillionths.get(currency);
+        if (rate == null) {
+            throw new IllegalArgumentException("No exchange rate is available for " + currency + ".");
+        }
+        return rate;
+    }
+
+    /**
+     * @param currency Currency to check
+     * @return The same currency, if its amounts have two decimal places
+     */
+    public static Currency requireSupported(Currency currency) {
+        if (currency.getDefaultFractionDigits() != 2) {
+            throw new IllegalArgumentException("Currency " + currency + " is not supported; amounts must have 2 decimal places.");
+        }
+        return currency;
+    }
+
+    private static long toMillionths(BigDecimal rate) {
+        if (rate.signum() <= 0) {
+            throw new IllegalArgumentException("Exchange rates must be greater than zero.");
+        }
+        try {
+            return rate.movePointRight(RATE_SCALE).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Exchange rate " + rate + " has more than " + RATE_SCALE + " decimal places.", e);
+        }
+    }
+
+    private static ExchangeRates parse(BufferedReader reader) throws IOException {
+        var rates = new HashMap<Currency, BigDecimal>();
+        var lineNumber = 0;
+        String line;
+
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            var fields = line.split("\\s*,\\s*");
+            try {
+                if (fields.length != 2) {
+                    throw new IllegalArgumentException("Expected 2 fields but found " + fields.length + ".");
+                }
+                var currency = requireSupported(Currency.getInstance(fields[0].toUpperCase(Locale.ROOT)));
+                if (rates.put(currency, new BigDecimal(fields[1])) != null) {
+                    throw new IllegalArgumentException("Currency " + currency + " appears more than once.");
+                }
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid exchange rate on line " + lineNumber + ": " + line, e);
+            }
+        }
+
+        return new ExchangeRates(rates);
+    }
+}
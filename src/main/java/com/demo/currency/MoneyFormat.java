@@ -0,0 +1,135 @@
+package com.demo.currency;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+import java.text.NumberFormat;
+import java.util.Currency;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable currency formatter for one locale and currency.  The locale's currency pattern is read from a
+ * DecimalFormat once, then amounts are written straight into the caller's buffer from whole cents, so any number of
+ * threads can share one instance without locking and without creating a NumberFormat per amount.  The output
+ * matches NumberFormat.getCurrencyInstance() for the same locale and currency.
+ * <p>
+ * Instances are cached per locale and currency by of().
+ */
+public final class MoneyFormat {
+    private static final ConcurrentHashMap<Locale, ConcurrentHashMap<Currency, MoneyFormat>> CACHE = new ConcurrentHashMap<>();
+
+    private final Locale locale;
+    private final Currency currency;
+    private final String positivePrefix;
+    private final String positiveSuffix;
+    private final String negativePrefix;
+    private final String negativeSuffix;
+    private final char zeroDigit;
+    private final char decimalSeparator;
+    private final char groupingSeparator;
+    private final int groupingSize;
+
+    private MoneyFormat(Locale locale, Currency currency) {
+        if (!(NumberFormat.getCurrencyInstance(locale) instanceof DecimalFormat format)) {
+            throw new IllegalArgumentException("Locale " + locale + " has no decimal currency format.");
+        }
+        format.setCurrency(ExchangeRates.requireSupported(currency));
+        var symbols = format.getDecimalFormatSymbols();
+
+        this.locale = locale;
+        this.currency = currency;
+        this.positivePrefix = format.getPositivePrefix();
+        this.positiveSuffix = format.getPositiveSuffix();
+        this.negativePrefix = format.getNegativePrefix();
+        this.negativeSuffix = format.getNegativeSuffix();
+        this.zeroDigit = symbols.getZeroDigit();
+        this.decimalSeparator = symbols.getMonetaryDecimalSeparator();
+        this.groupingSeparator = symbols.getMonetaryGroupingSeparator();
+        this.groupingSize = format.isGroupingUsed() ? format.getGroupingSize() : 0;
+    }
+
+    /**
+     * @param locale Locale whose currency layout, separators and digits are used
+     * @param currency Currency to format, which must have two decimal places
+     * @return Shared formatter for the locale and currency
+     */
+    public static MoneyFormat of(Locale locale, Currency currency) {
+        var byCurrency = CACHE.computeIfAbsent(locale, key -> new ConcurrentHashMap<>());
+        var format = byCurrency.get(currency);
+        return format != null ? format : byCurrency.computeIfAbsent(currency, key -> new MoneyFormat(locale, key));
+    }
+
+    public Locale getLocale() {
+        return this.locale;
+    }
+
+    public Currency getCurrency() {
+        return this.currency;
+    }
+
+    /**
+     * @param amount Amount to format, rounded half even to two decimal places like NumberFormat
+     * @return Formatted amount
+     */
+    public String format(BigDecimal amount) {
+        return this.format(amount, new StringBuilder(16)).toString();
+    }
+
+    /**
+     * Appends an amount to a buffer
+     * @param amount Amount to format, rounded half even to two decimal places like NumberFormat
+     * @param output Buffer to append to
+     * @return The same buffer, for chaining
+     */
+    public StringBuilder format(BigDecimal amount, StringBuilder output) {
+        return this.formatCents(amount.setScale(2, RoundingMode.HALF_EVEN).unscaledValue().longValueExact(), output);
+    }
+
+    /**
+     * Appends an amount held in whole cents to a buffer
+     * @param cents Amount in cents of this formatter's currency
+     * @param output Buffer to append to
+     * @return The same buffer, for chaining
+     */
+    public StringBuilder formatCents(long cents, StringBuilder output) {
+        var negative = cents < 0;
+        var magnitude = negative ? Math.negateExact(cents) : cents;
+        var units = magnitude / 100;
+        var fraction = (int) (magnitude % 100);
+
+        output.append(negative ? this.negativePrefix : this.positivePrefix);
+        this.appendUnits(units, output);
+        output.append(this.decimalSeparator)
+                .append((char) (this.zeroDigit + fraction / 10))
+                .append((char) (this.zeroDigit + fraction % 10));
+        return output.append(negative ? this.negativeSuffix : this.positiveSuffix);
+    }
+
+    /**
+     * Private helper function that writes the whole currency units with the locale's digits and grouping
+     * @param units Whole units, not negative
+     * @param output Buffer to append to
+     */
+    private void appendUnits(long units, StringBuilder output) {
+        var digits = 1;
+        var divisor = 1L;
+        while (units / divisor >= 10) {
+            divisor *= 10;
+            digits++;
+        }
+
+        for (int remaining = digits; remaining > 0; remaining--) {
+            output.append((char) (this.zeroDigit + (int) (units / divisor % 10)));
+            if (this.groupingSize > 0 && remaining > 1 && (remaining - 1) % this.groupingSize == 0) {
+                output.append(this.groupingSeparator);
+            }
+            divisor /= 10;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "MoneyFormat[" + this.locale + ", " + this.currency + "]";
+    }
+}
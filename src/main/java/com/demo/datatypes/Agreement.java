@@ -1,7 +1,10 @@
 package com.demo.datatypes;
 
+import com.demo.currency.ExchangeRates;
+
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Currency;
 
 /**
  * Class to represent the final rental agreement.
@@ -12,11 +15,13 @@ public class Agreement {
     private int rentalDays;
     private LocalDate checkoutDate;
     private LocalDate dueDate;
+    private BigDecimal dailyCharge;
     private int chargeDays;
     private BigDecimal baseCharge;
     private int discountPercentage;
     private BigDecimal discountAmount;
     private BigDecimal finalCharge;
+    private Currency currency = ExchangeRates.BASE_CURRENCY;
 
     public Tool getSelectedTool() {
         return this.selectedTool;
@@ -50,6 +55,16 @@ public class Agreement {
         this.dueDate = dueDate;
     }
 
+    /**
+     * @return Charge for each charge day in the agreement's currency, or NULL to use the tool's daily charge
+     */
+    public BigDecimal getDailyCharge() {
+        return this.dailyCharge;
+    }
+    public void setDailyCharge(BigDecimal dailyCharge) {
+        this.dailyCharge = dailyCharge;
+    }
+
     public int getChargeDays() {
         return this.chargeDays;
     }
@@ -88,4 +103,14 @@ public class Agreement {
     public void setFinalCharge(BigDecimal finalCharge) {
         this.finalCharge = finalCharge;
     }
-}
\ No newline at end of file
+
+    /**
+     * @return Currency the charges are in, which is the base currency, US dollars, unless another is set
+     */
+    public Currency getCurrency() {
+        return this.currency;
+    }
+    public void setCurrency(Currency currency) {
+        this.currency = currency;
+    }
+}
@@ -0,0 +1,14 @@
+package com.demo.datatypes;
+
+/**
+ * Static record representing the outcome of generating one agreement within a batch.
+ * Exactly one of agreement or error is set.
+ * @param application Application the agreement was generated from
+ * @param agreement Completed rental agreement, or NULL if the application was invalid
+ * @param error Reason the application couldn't be turned into an agreement, or NULL if it succeeded
+ */
+public record AgreementResult(Application application, Agreement agreement, String error) {
+    public boolean isSuccessful() {
+        return this.agreement != null;
+    }
+}
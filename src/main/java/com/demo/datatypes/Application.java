@@ -1,6 +1,7 @@
 package com.demo.datatypes;
 
 import java.time.LocalDate;
+import java.util.Currency;
 
 /**
  * Class that represents the necessary rental information to complete the application.
@@ -11,6 +12,7 @@ public class Application {
     private int rentalDays;
     private int discountPercentage;
     private LocalDate checkoutDate;
+    private Currency currency;
 
     public String getToolCode() {
         return toolCode;
@@ -43,4 +45,15 @@ public class Application {
     public void setCheckoutDate(LocalDate checkoutDate) {
         this.checkoutDate = checkoutDate;
     }
+
+    /**
+     * @return Currency the agreement should be priced in, or NULL for the base currency, US dollars
+     */
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    public void setCurrency(Currency currency) {
+        this.currency = currency;
+    }
 }
@@ -0,0 +1,84 @@
+package com.demo.datatypes;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Static record representing a priced rental cart: one agreement per line plus the combined charges.
+ * The totals and currency are checked against the lines when the record is created, so they always agree with them.
+ * The constructor that takes only the lines sums them.
+ * @param lines Agreement for each line of the cart, in line order
+ * @param baseCharge Sum of the base charges of every line
+ * @param discountAmount Sum of the discount amounts of every line
+ * @param finalCharge Sum of the final charges of every line, which is the base charge minus the discount amount
+ * @param currency Currency every charge is in
+ */
+public record CartAgreement(List<RentalAgreement> lines, BigDecimal baseCharge, BigDecimal discountAmount,
+                            BigDecimal finalCharge, Currency currency) {
+    public CartAgreement {
+        if (lines == null || lines.isEmpty()) {
+            throw new IllegalArgumentException("A cart must have at least one tool.");
+        }
+        lines = List.copyOf(lines);
+        if (!currencyOf(lines).equals(currency)) {
+            throw new IllegalArgumentException("A cart must be in the currency its lines are priced in.");
+        }
+        if (baseCharge.compareTo(sum(lines, RentalAgreement::baseCharge)) != 0
+                || discountAmount.compareTo(sum(lines, RentalAgreement::discountAmount)) != 0
+                || finalCharge.compareTo(sum(lines, RentalAgreement::finalCharge)) != 0) {
+            throw new IllegalArgumentException("A cart's charges must be the totals of its lines.");
+        }
+    }
+
+    /**
+     * Totals the given lines, which must all be priced in the same currency
+     * @param lines Agreement for each line of the cart, in line order
+     */
+    public CartAgreement(List<RentalAgreement> lines) {
+        this(lines, sum(requireLines(lines), RentalAgreement::baseCharge), sum(lines, RentalAgreement::discountAmount),
+                sum(lines, RentalAgreement::finalCharge), currencyOf(lines));
+    }
+
+    /**
+     * @return New mutable Agreement bean for each line, in line order
+     */
+    public List<Agreement> getAgreements() {
+        return this.lines.stream().map(RentalAgreement::toAgreement).toList();
+    }
+
+    /**
+     * Private helper function that rejects a cart without lines before any totals are calculated
+     */
+    private static List<RentalAgreement> requireLines(List<RentalAgreement> lines) {
+        if (lines == null || lines.isEmpty()) {
+            throw new IllegalArgumentException("A cart must have at least one tool.");
+        }
+        return lines;
+    }
+
+    /**
+     * Private helper function that adds up one charge across every line
+     */
+    private static BigDecimal sum(List<RentalAgreement> lines, Function<RentalAgreement, BigDecimal> charge) {
+        var total = BigDecimal.ZERO.setScale(2);
+        for (var line : lines) {
+            total = total.add(charge.apply(line));
+        }
+        return total;
+    }
+
+    /**
+     * Private helper function that returns the currency shared by every line
+     */
+    private static Currency currencyOf(List<RentalAgreement> lines) {
+        var currency = lines.get(0).currency();
+        for (var line : lines) {
+            if (!line.currency().equals(currency)) {
+                throw new IllegalArgumentException("Every line of a cart must be priced in the same currency.");
+            }
+        }
+        return currency;
+    }
+}
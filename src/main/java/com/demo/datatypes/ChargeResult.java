@@ -0,0 +1,130 @@
+package com.demo.datatypes;
+
+import com.demo.currency.ExchangeRates;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Currency;
+
+/**
+ * Reusable holder for the charges calculated by the allocation-free pricing path.
+ * All amounts are whole cents.  A caller can keep one instance per thread and pass it to
+ * AgreementManager.calculateCharges() for every quote, so pricing doesn't allocate anything per call.
+ * Instances are not thread-safe.
+ */
+public class ChargeResult {
+    private Tool selectedTool;
+    private int rentalDays;
+    private long checkoutEpochDay;
+    private long dailyChargeCents;
+    private int chargeDays;
+    private long baseChargeCents;
+    private int discountPercentage;
+    private long discountAmountCents;
+    private long finalChargeCents;
+    private Currency currency = ExchangeRates.BASE_CURRENCY;
+
+    public Tool getSelectedTool() {
+        return this.selectedTool;
+    }
+    public void setSelectedTool(Tool selectedTool) {
+        this.selectedTool = selectedTool;
+    }
+
+    public int getRentalDays() {
+        return this.rentalDays;
+    }
+    public void setRentalDays(int rentalDays) {
+        this.rentalDays = rentalDays;
+    }
+
+    public long getCheckoutEpochDay() {
+        return this.checkoutEpochDay;
+    }
+    public void setCheckoutEpochDay(long checkoutEpochDay) {
+        this.checkoutEpochDay = checkoutEpochDay;
+    }
+
+    /**
+     * @return Due date as a count of days since 1970-01-01, calculated as the checkout date plus the rental days
+     */
+    public long getDueEpochDay() {
+        return this.checkoutEpochDay + this.rentalDays;
+    }
+
+    /**
+     * @return Charge for each charge day, in cents of the result's currency
+     */
+    public long getDailyChargeCents() {
+        return this.dailyChargeCents;
+    }
+    public void setDailyChargeCents(long dailyChargeCents) {
+        this.dailyChargeCents = dailyChargeCents;
+    }
+
+    public int getChargeDays() {
+        return this.chargeDays;
+    }
+    public void setChargeDays(int chargeDays) {
+        this.chargeDays = chargeDays;
+    }
+
+    public long getBaseChargeCents() {
+        return this.baseChargeCents;
+    }
+    public void setBaseChargeCents(long baseChargeCents) {
+        this.baseChargeCents = baseChargeCents;
+    }
+
+    public int getDiscountPercentage() {
+        return this.discountPercentage;
+    }
+    public void setDiscountPercentage(int discountPercentage) {
+        this.discountPercentage = discountPercentage;
+    }
+
+    public long getDiscountAmountCents() {
+        return this.discountAmountCents;
+    }
+    public void setDiscountAmountCents(long discountAmountCents) {
+        this.discountAmountCents = discountAmountCents;
+    }
+
+    public long getFinalChargeCents() {
+        return this.finalChargeCents;
+    }
+    public void setFinalChargeCents(long finalChargeCents) {
+        this.finalChargeCents = finalChargeCents;
+    }
+
+    /**
+     * @return Currency the amounts are in, which is the base currency, US dollars, unless calculateCharges() was
+     * given another currency to price in
+     */
+    public Currency getCurrency() {
+        return this.currency;
+    }
+    public void setCurrency(Currency currency) {
+        this.currency = currency;
+    }
+
+    /**
+     * Builds an immutable agreement from the calculated charges, converting cents to two decimal place amounts
+     * @return Completed rental agreement
+     */
+    public RentalAgreement toRentalAgreement() {
+        return RentalAgreement.builder()
+                .selectedTool(this.selectedTool)
+                .rentalDays(this.rentalDays)
+                .checkoutDate(LocalDate.ofEpochDay(this.checkoutEpochDay))
+                .dueDate(LocalDate.ofEpochDay(this.getDueEpochDay()))
+                .dailyCharge(BigDecimal.valueOf(this.dailyChargeCents, 2))
+                .chargeDays(this.chargeDays)
+                .baseCharge(BigDecimal.valueOf(this.baseChargeCents, 2))
+                .discountPercentage(this.discountPercentage)
+                .discountAmount(BigDecimal.valueOf(this.discountAmountCents, 2))
+                .finalCharge(BigDecimal.valueOf(this.finalChargeCents, 2))
+                .currency(this.currency)
+                .build();
+    }
+}
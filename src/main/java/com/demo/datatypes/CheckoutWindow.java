@@ -0,0 +1,17 @@
+package com.demo.datatypes;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Static record representing the price of renting a tool for a fixed number of days from one possible checkout date
+ * @param checkoutDate Date the rental would begin
+ * @param dueDate Date the tool would be due back
+ * @param chargeDays Number of chargeable rental days in the window
+ * @param baseCharge Charge before discounts
+ * @param discountAmount Discount taken off the base charge
+ * @param finalCharge Charge after discounts
+ */
+public record CheckoutWindow(LocalDate checkoutDate, LocalDate dueDate, int chargeDays, BigDecimal baseCharge,
+                             BigDecimal discountAmount, BigDecimal finalCharge) {
+}
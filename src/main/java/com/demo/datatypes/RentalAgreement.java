@@ -0,0 +1,181 @@
+package com.demo.datatypes;
+
+import com.demo.currency.ExchangeRates;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Currency;
+import java.util.Objects;
+
+/**
+ * Immutable version of Agreement.  Every field is validated together when the record is created, so a
+ * RentalAgreement is always complete and consistent, and can be cached or handed to other threads without copying.
+ * Instances are created with builder() or copied from an Agreement bean.
+ * @param selectedTool Tool being rented
+ * @param rentalDays Total number of rental days, at least 1
+ * @param checkoutDate Date the rental begins
+ * @param dueDate Date the tool is due back, which is the checkout date plus the rental days
+ * @param dailyCharge Charge for each charge day in the agreement's currency, converted once when the agreement was
+ *                    priced.  It defaults to the tool's daily charge for charges in US dollars.
+ * @param chargeDays Number of chargeable rental days, between 0 and the rental days
+ * @param baseCharge Charge before discounts
+ * @param discountPercentage Discount percentage as a whole number between 0-100
+ * @param discountAmount Discount taken off the base charge
+ * @param finalCharge Charge after discounts, which is the base charge minus the discount amount
+ * @param currency Currency every charge is in, which defaults to the base currency, US dollars
+ */
+public record RentalAgreement(Tool selectedTool, int rentalDays, LocalDate checkoutDate, LocalDate dueDate,
+                              BigDecimal dailyCharge, int chargeDays, BigDecimal baseCharge, int discountPercentage,
+                              BigDecimal discountAmount, BigDecimal finalCharge, Currency currency) {
+    public RentalAgreement {
+        Objects.requireNonNull(selectedTool, "Selected tool is required.");
+        Objects.requireNonNull(checkoutDate, "Checkout date is required.");
+        Objects.requireNonNull(baseCharge, "Base charge is required.");
+        Objects.requireNonNull(discountAmount, "Discount amount is required.");
+        Objects.requireNonNull(finalCharge, "Final charge is required.");
+
+        if (rentalDays < 1) {
+            throw new IllegalArgumentException("All rental agreements must be for at least 1 day.");
+        }
+        if (discountPercentage < 0 || discountPercentage > 100) {
+            throw new IllegalArgumentException("Please enter a valid discount percentage amount between 0-100 and try again.");
+        }
+        if (dueDate == null) {
+            dueDate = checkoutDate.plusDays(rentalDays);
+        } else if (!dueDate.equals(checkoutDate.plusDays(rentalDays))) {
+            throw new IllegalArgumentException("Due date must be " + rentalDays + " days after the checkout date.");
+        }
+        if (chargeDays < 0 || chargeDays > rentalDays) {
+            throw new IllegalArgumentException("Charge days must be between 0 and the number of rental days.");
+        }
+        if (finalCharge.compareTo(baseCharge.subtract(discountAmount)) != 0) {
+            throw new IllegalArgumentException("Final charge must be the base charge minus the discount amount.");
+        }
+        currency = currency == null ? ExchangeRates.BASE_CURRENCY : ExchangeRates.requireSupported(currency);
+        if (dailyCharge == null) {
+            if (!currency.equals(ExchangeRates.BASE_CURRENCY)) {
+                throw new IllegalArgumentException("Daily charge is required for charges in " + currency + ".");
+            }
+            dailyCharge = selectedTool.type().dailyCharge();
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Copies and validates a mutable agreement
+     * @param agreement Completed Agreement bean to copy
+     * @return Immutable copy of the agreement
+     */
+    public static RentalAgreement from(Agreement agreement) {
+        return new RentalAgreement(agreement.getSelectedTool(), agreement.getRentalDays(), agreement.getCheckoutDate(),
+                agreement.getDueDate(), agreement.getDailyCharge(), agreement.getChargeDays(), agreement.getBaseCharge(),
+                agreement.getDiscountPercentage(), agreement.getDiscountAmount(), agreement.getFinalCharge(),
+                agreement.getCurrency());
+    }
+
+    /**
+     * @return New mutable Agreement bean holding the same values
+     */
+    public Agreement toAgreement() {
+        var agreement = new Agreement();
+
+        agreement.setSelectedTool(this.selectedTool);
+        agreement.setRentalDays(this.rentalDays);
+        agreement.setCheckoutDate(this.checkoutDate);
+        agreement.setDueDate(this.dueDate);
+        agreement.setDailyCharge(this.dailyCharge);
+        agreement.setChargeDays(this.chargeDays);
+        agreement.setBaseCharge(this.baseCharge);
+        agreement.setDiscountPercentage(this.discountPercentage);
+        agreement.setDiscountAmount(this.discountAmount);
+        agreement.setFinalCharge(this.finalCharge);
+        agreement.setCurrency(this.currency);
+
+        return agreement;
+    }
+
+    /**
+     * Collects agreement fields in any order; build() validates them together.
+     * The due date may be left out, in which case it is calculated from the checkout date and rental days, and the
+     * daily charge and currency may be left out for charges in US dollars.
+     */
+    public static class Builder {
+        private Tool selectedTool;
+        private int rentalDays;
+        private LocalDate checkoutDate;
+        private LocalDate dueDate;
+        private BigDecimal dailyCharge;
+        private int chargeDays;
+        private BigDecimal baseCharge;
+        private int discountPercentage;
+        private BigDecimal discountAmount;
+        private BigDecimal finalCharge;
+        private Currency currency;
+
+        private Builder() { }
+
+        public Builder selectedTool(Tool selectedTool) {
+            this.selectedTool = selectedTool;
+            return this;
+        }
+
+        public Builder rentalDays(int rentalDays) {
+            this.rentalDays = rentalDays;
+            return this;
+        }
+
+        public Builder checkoutDate(LocalDate checkoutDate) {
+            this.checkoutDate = checkoutDate;
+            return this;
+        }
+
+        public Builder dueDate(LocalDate dueDate) {
+            this.dueDate = dueDate;
+            return this;
+        }
+
+        public Builder dailyCharge(BigDecimal dailyCharge) {
+            this.dailyCharge = dailyCharge;
+            return this;
+        }
+
+        public Builder chargeDays(int chargeDays) {
+            this.chargeDays = chargeDays;
+            return this;
+        }
+
+        public Builder baseCharge(BigDecimal baseCharge) {
+            this.baseCharge = baseCharge;
+            return this;
+        }
+
+        public Builder discountPercentage(int discountPercentage) {
+            this.discountPercentage = discountPercentage;
+            return this;
+        }
+
+        public Builder discountAmount(BigDecimal discountAmount) {
+            this.discountAmount = discountAmount;
+            return this;
+        }
+
+        public Builder finalCharge(BigDecimal finalCharge) {
+            this.finalCharge = finalCharge;
+            return this;
+        }
+
+        public Builder currency(Currency currency) {
+            this.currency = currency;
+            return this;
+        }
+
+        public RentalAgreement build() {
+            return new RentalAgreement(this.selectedTool, this.rentalDays, this.checkoutDate, this.dueDate,
+                    this.dailyCharge, this.chargeDays, this.baseCharge, this.discountPercentage, this.discountAmount, this.finalCharge,
+                    this.currency);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.demo.datatypes;
+
+import com.demo.currency.ExchangeRates;
+
+import java.time.LocalDate;
+import java.util.Currency;
+import java.util.Objects;
+
+/**
+ * Immutable version of Application, safe to share between threads and to use as a cache key.
+ * Instances are created with builder(), which validates every field at once, or copied from an Application bean.
+ * @param toolCode Code of the tool being rented
+ * @param checkoutDate Date the rental begins
+ * @param rentalDays Total number of rental days, at least 1
+ * @param discountPercentage Discount percentage as a whole number between 0-100
+ * @param currency Currency to price the agreement in, which defaults to the base currency, US dollars
+ */
+public record RentalApplication(String toolCode, LocalDate checkoutDate, int rentalDays, int discountPercentage,
+                                Currency currency) {
+    public RentalApplication {
+        if (toolCode == null || toolCode.isEmpty()) {
+            throw new IllegalArgumentException("Tool code is required.");
+        }
+        Objects.requireNonNull(checkoutDate, "Checkout date is required.");
+        if (rentalDays < 1) {
+            throw new IllegalArgumentException("All rental agreements must be for at least 1 day.");
+        }
+        if (discountPercentage < 0 || discountPercentage > 100) {
+            throw new IllegalArgumentException("Please enter a valid discount percentage amount between 0-100 and try again.");
+        }
+        currency = currency == null ? ExchangeRates.BASE_CURRENCY : ExchangeRates.requireSupported(currency);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Copies and validates a mutable application
+     * @param application Application bean to copy
+     * @return Immutable copy of the application
+     */
+    public static RentalApplication from(Application application) {
+        return new RentalApplication(application.getToolCode(), application.getCheckoutDate(),
+                application.getRentalDays(), application.getDiscountPercentage(), application.getCurrency());
+    }
+
+    /**
+     * @return New mutable Application bean holding the same values
+     */
+    public Application toApplication() {
+        var application = new Application();
+
+        application.setToolCode(this.toolCode);
+        application.setCheckoutDate(this.checkoutDate);
+        application.setRentalDays(this.rentalDays);
+        application.setDiscountPercentage(this.discountPercentage);
+        application.setCurrency(this.currency);
+
+        return application;
+    }
+
+    /**
+     * Collects application fields in any order; build() validates them together
+     */
+    public static class Builder {
+        private String toolCode;
+        private LocalDate checkoutDate;
+        private int rentalDays;
+        private int discountPercentage;
+        private Currency currency;
+
+        private Builder() { }
+
+        public Builder toolCode(String toolCode) {
+            this.toolCode = toolCode;
+            return this;
+        }
+
+        public Builder checkoutDate(LocalDate checkoutDate) {
+            this.checkoutDate = checkoutDate;
+            return this;
+        }
+
+        public Builder rentalDays(int rentalDays) {
+            this.rentalDays = rentalDays;
+            return this;
+        }
+
+        public Builder discountPercentage(int discountPercentage) {
+            this.discountPercentage = discountPercentage;
+            return this;
+        }
+
+        public Builder currency(Currency currency) {
+            this.currency = currency;
+            return this;
+        }
+
+        public RentalApplication build() {
+            return new RentalApplication(this.toolCode, this.checkoutDate, this.rentalDays, this.discountPercentage,
+                    this.currency);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.demo.datatypes;
+
+import com.demo.currency.ExchangeRates;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Currency;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Immutable order for several tools rented together over the same period, such as a crew's kit for a job.
+ * Every line shares the checkout date, rental days, discount and currency; the same tool code may appear more than
+ * once to rent several units of it.  Instances are created with builder(), which validates every field at once.
+ * @param checkoutDate Date the rental begins
+ * @param rentalDays Total number of rental days, at least 1
+ * @param discountPercentage Discount percentage as a whole number between 0-100, applied to every line
+ * @param currency Currency to price the cart in, which defaults to the base currency, US dollars
+ * @param toolCodes Code of the tool rented on each line, in line order, with at least one line
+ */
+public record RentalCart(LocalDate checkoutDate, int rentalDays, int discountPercentage, Currency currency,
+                         List<String> toolCodes) {
+    public RentalCart {
+        Objects.requireNonNull(checkoutDate, "Checkout date is required.");
+        if (rentalDays < 1) {
+            throw new IllegalArgumentException("All rental agreements must be for at least 1 day.");
+        }
+        if (discountPercentage < 0 || discountPercentage > 100) {
+            throw new IllegalArgumentException("Please enter a valid discount percentage amount between 0-100 and try again.");
+        }
+        if (toolCodes == null || toolCodes.isEmpty()) {
+            throw new IllegalArgumentException("A cart must have at least one tool.");
+        }
+        for (var toolCode : toolCodes) {
+            if (toolCode == null || toolCode.isEmpty()) {
+                throw new IllegalArgumentException("Tool code is required.");
+            }
+        }
+        currency = currency == null ? ExchangeRates.BASE_CURRENCY : ExchangeRates.requireSupported(currency);
+        toolCodes = List.copyOf(toolCodes);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Collects cart fields in any order, with one toolCode() call per line; build() validates them together
+     */
+    public static class Builder {
+        private final List<String> toolCodes = new ArrayList<>();
+        private LocalDate checkoutDate;
+        private int rentalDays;
+        private int discountPercentage;
+        private Currency currency;
+
+        private Builder() { }
+
+        public Builder toolCode(String toolCode) {
+            this.toolCodes.add(toolCode);
+            return this;
+        }
+
+        public Builder toolCodes(Collection<String> toolCodes) {
+            this.toolCodes.addAll(toolCodes);
+            return this;
+        }
+
+        public Builder checkoutDate(LocalDate checkoutDate) {
+            this.checkoutDate = checkoutDate;
+            return this;
+        }
+
+        public Builder rentalDays(int rentalDays) {
+            this.rentalDays = rentalDays;
+            return this;
+        }
+
+        public Builder discountPercentage(int discountPercentage) {
+            this.discountPercentage = discountPercentage;
+            return this;
+        }
+
+        public Builder currency(Currency currency) {
+            this.currency = currency;
+            return this;
+        }
+
+        public RentalCart build() {
+            return new RentalCart(this.checkoutDate, this.rentalDays, this.discountPercentage, this.currency,
+                    this.toolCodes);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.demo.datatypes;
+
+/**
+ * Static record representing a rental agreement along with the physical unit booked for it
+ * @param agreement Completed rental agreement
+ * @param unit Number of the unit booked for the rental period, within the tool's fleet
+ */
+public record Reservation(RentalAgreement agreement, int unit) {
+}
@@ -1,6 +1,8 @@
 package com.demo.datatypes;
 
 import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Static record representing a type of tool, which is fully constructed when instantiated
@@ -10,4 +12,34 @@ import java.math.BigDecimal;
  * @param weekendCharge Boolean value that represents if rental days during the weekend are chargeable for this tool type
  * @param holidayCharge Boolean value that represents if rental days that fall on specific holidays are chargeable for this tool type
  */
-public record ToolType(String label, BigDecimal dailyCharge, Boolean weekdayCharge, Boolean weekendCharge, Boolean holidayCharge) { }
\ No newline at end of file
+public record ToolType(String label, BigDecimal dailyCharge, Boolean weekdayCharge, Boolean weekendCharge, Boolean holidayCharge) {
+    /**
+     * Each distinct daily charge converted to cents.  A record can't hold a derived field, so the conversion is done
+     * once when a tool type is created and looked up by dailyChargeCents() without allocating.
+     */
+    private static final Map<BigDecimal, Long> DAILY_CHARGE_CENTS = new ConcurrentHashMap<>();
+
+    public ToolType {
+        DAILY_CHARGE_CENTS.computeIfAbsent(dailyCharge, ToolType::toCents);
+    }
+
+    /**
+     * @return The daily charge as a whole number of cents, used by the allocation-free pricing path
+     */
+    public long dailyChargeCents() {
+        return DAILY_CHARGE_CENTS.get(this.dailyCharge);
+    }
+
+    /**
+     * Converts a daily charge to cents.  Daily charges must be a whole number of cents.
+     * @param dailyCharge Daily charge amount
+     * @return Daily charge in cents
+     */
+    private static long toCents(BigDecimal dailyCharge) {
+        try {
+            return dailyCharge.movePointRight(2).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Daily charge " + dailyCharge + " must be a whole number of cents.", e);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.demo.demand;
+
+import com.demo.datatypes.ToolType;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Surge and discount pricing driven by how much of each tool type's fleet is already rented.  Utilization over a
+ * rental period is the number of rented days on the tool type across the period, read from UtilizationCounters,
+ * divided by the fleet capacity times the length of the period and held between 0 and 1.  A multiplier curve turns
+ * utilization into a multiplier on the base charge, interpolating linearly between its points and holding the end
+ * values beyond them.
+ * Tool types without a capacity are always charged a multiplier of 1.
+ * <p>
+ * Configuration files hold one setting per non-blank line that doesn't start with #, as comma separated values:
+ * <pre>
+ * capacity, Ladder, 40
+ * point, 0.80, 1.25
+ * </pre>
+ * Capacities give the tool type and the number of units in its fleet.  Points give a utilization, where 1 is the
+ * whole fleet, and the multiplier charged at that utilization.  Both are read to three decimal places, at least
+ * one point is required, and no two points may have the same utilization, however it is written.
+ */
+public class DemandPricing {
+    public static final String EXAMPLE_CONFIG = "/demand/example.csv";
+
+    private static final int SCALE = 1000;
+
+    private final Map<String, Integer> capacities;
+    private final int[] utilizations;
+    private final int[] multipliers;
+    private final UtilizationCounters counters;
+
+    /**
+     * @param capacities Number of units in the fleet for each tool type label
+     * @param curve Multiplier for each utilization point, where a utilization of 1 is the whole fleet
+     * @param counters Live rental counts to read utilization from
+     */
+    public DemandPricing(Map<String, Integer> capacities, Map<BigDecimal, BigDecimal> curve, UtilizationCounters counters) {
+        if (curve.isEmpty()) {
+            throw new IllegalArgumentException("The multiplier curve needs at least one point.");
+        }
+        for (var capacity : capacities.entrySet()) {
+            if (capacity.getValue() < 1) {
+                throw new IllegalArgumentException("The capacity for " + capacity.getKey() + " must be at least 1.");
+            }
+        }
+
+        var points = new TreeMap<Integer, Integer>();
+        for (var point : curve.entrySet()) {
+            var utilization = toThousandths(point.getKey());
+            var multiplier = toThousandths(point.getValue());
+            if (utilization < 0 || multiplier < 0) {
+                throw new IllegalArgumentException("Multiplier curve points must not be negative.");
+            }
+            if (points.put(utilization, multiplier) != null) {
+                throw new IllegalArgumentException("The multiplier curve has more than one point at " + point.getKey() + ".");
+            }
+        }
+
+        this.capacities = Map.copyOf(capacities);
+        this.utilizations = points.keySet().stream().mapToInt(Integer::intValue).toArray();
+        this.multipliers = points.values().stream().mapToInt(Integer::intValue).toArray();
+        this.counters = counters;
+    }
+
+    /**
+     * Loads demand pricing from a configuration file on disk
+     * @param path Location of the configuration file
+     * @param counters Live rental counts to read utilization from
+     * @return Demand pricing for the settings in the file
+     */
+    public static DemandPricing load(Path path, UtilizationCounters counters) {
+        try (var reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return parse(reader, counters);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read demand pricing from " + path, e);
+        }
+    }
+
+    /**
+     * Loads demand pricing from a configuration file packaged on the classpath
+     * @param resource Absolute resource name, such as EXAMPLE_CONFIG
+     * @param counters Live rental counts to read utilization from
+     * @return Demand pricing for the settings in the file
+     */
+    public static DemandPricing loadResource(String resource, UtilizationCounters counters) {
+        var stream = DemandPricing.class.getResourceAsStream(resource);
+        if (stream == null) {
+            throw new IllegalArgumentException("Demand pricing resource " + resource + " was not found.");
+        }
+
+        try (var reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+            return parse(reader, counters);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read demand pricing from " + resource, e);
+        }
+    }
+
+    public UtilizationCounters getCounters() {
+        return this.counters;
+    }
+
+    /**
+     * Counts a booked rental towards the utilization of its tool type.  Quotes that aren't booked must not be
+     * recorded, or they would raise the price of every later quote.
+     * @param toolType Tool type rented
+     * @param startingChargeEpochDay First day the rental covers, as a count of days since 1970-01-01
+     * @param rentalDays Number of days the rental covers
+     */
+    public void recordRental(ToolType toolType, long startingChargeEpochDay, int rentalDays) {
+        this.counters.addRental(toolType.label(), startingChargeEpochDay, rentalDays);
+    }
+
+    /**
+     * Takes a rental counted by recordRental() off the utilization of its tool type, such as one that was cancelled
+     * @param toolType Tool type rented
+     * @param startingChargeEpochDay First day the rental covers, as a count of days since 1970-01-01
+     * @param rentalDays Number of days the rental covers
+     */
+    public void removeRental(ToolType toolType, long startingChargeEpochDay, int rentalDays) {
+        this.counters.removeRental(toolType.label(), startingChargeEpochDay, rentalDays);
+    }
+
+    /**
+     * Reads the multiplier for renting a tool type over a period.  This only waits on rentals being recorded when
+     * they keep overlapping the read, or while the counters' range is being moved forward.
+     * @param toolType Tool type being rented
+     * @param startingChargeEpochDay First day of the period, as a count of days since 1970-01-01
+     * @param rentalDays Number of days in the period
+     * @return Multiplier in thousandths, so 1250 charges 25% more
+     */
+    public int getMultiplier(ToolType toolType, long startingChargeEpochDay, int rentalDays) {
+        var capacity = this.capacities.get(toolType.label());
+        if (capacity == null) {
+            return SCALE;
+        }
+
+        var capacityDays = (long) capacity * rentalDays;
+        var rentedDays = this.counters.getRentedDays(toolType.label(), startingChargeEpochDay, rentalDays);
+        var utilization = Math.clamp(rentedDays, 0, capacityDays) * SCALE / capacityDays;
+        return this.interpolate(utilization);
+    }
+
+    /**
+     * Applies the demand multiplier to a base charge, rounding half up to the nearest cent
+     * @param toolType Tool type being rented
+     * @param startingChargeEpochDay First day the rental covers, as a count of days since 1970-01-01
+     * @param rentalDays Number of days the rental covers
+     * @param baseChargeCents Base charge in cents before demand pricing
+     * @return Base charge in cents after demand pricing
+     */
+    public long adjustBaseCharge(ToolType toolType, long startingChargeEpochDay, int rentalDays, long baseChargeCents) {
+        var multiplier = this.getMultiplier(toolType, startingChargeEpochDay, rentalDays);
+        return multiplier == SCALE ? baseChargeCents : (baseChargeCents * multiplier + SCALE / 2) / SCALE;
+    }
+
+    /**
+     * Private helper function that reads the multiplier curve at a utilization
+     * @param utilization Utilization in thousandths
+     * @return Multiplier in thousandths
+     */
+    private int interpolate(long utilization) {
+        var last = this.utilizations.length - 1;
+        if (utilization <= this.utilizations[0]) {
+            return this.multipliers[0];
+        }
+        if (utilization >= this.utilizations[last]) {
+            return this.multipliers[last];
+        }
+
+        var upper = 1;
+        while (this.utilizations[upper] < utilization) {
+            upper++;
+        }
+        var lower = upper - 1;
+        var span = this.utilizations[upper] - this.utilizations[lower];
+        var rise = this.multipliers[upper] - this.multipliers[lower];
+        return this.multipliers[lower] + Math.toIntExact(Math.round((double) rise * (utilization - this.utilizations[lower]) / span));
+    }
+
+    private static DemandPricing parse(BufferedReader reader, UtilizationCounters counters) throws IOException {
+        var capacities = new HashMap<String, Integer>();
+        var curve = new TreeMap<BigDecimal, BigDecimal>();
+        var lineNumber = 0;
+        String line;
+
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            try {
+                var fields = line.split("\\s*,\\s*");
+                switch (fields[0].toLowerCase(Locale.ROOT)) {
+                    case "capacity" -> capacities.put(fields[1], Integer.parseInt(fields[2]));
+                    case "point" -> {
+                        var utilization = new BigDecimal(fields[1]);
+                        var multiplier = new BigDecimal(fields[2]);
+                        toThousandths(utilization);
+                        toThousandths(multiplier);
+                        if (curve.put(utilization, multiplier) != null) {
+                            throw new IllegalArgumentException("The multiplier curve has more than one point at " + utilization + ".");
+                        }
+                    }
+                    default -> throw new IllegalArgumentException("Unknown demand pricing setting " + fields[0]);
+                }
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid demand pricing setting on line " + lineNumber + ": " + line, e);
+            }
+        }
+
+        return new DemandPricing(capacities, curve, counters);
+    }
+
+    /**
+     * Private helper function that converts a utilization or multiplier to whole thousandths
+     */
+    private static int toThousandths(BigDecimal value) {
+        try {
+            return value.movePointRight(3).intValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Demand pricing value " + value + " must have at most three decimal places.", e);
+        }
+    }
+}
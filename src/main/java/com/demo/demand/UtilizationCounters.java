@@ -0,0 +1,295 @@
+package com.demo.demand;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Live count of rentals covering each day, kept for each tool type over a range of days that can be moved forward
+ * with advanceTo() as time passes.  Days before the range have passed and aren't counted, and a rental that runs past
+ * the last counted day is refused rather than counted in part, so moving the range never uncovers days with missing
+ * rentals.
+ * <p>
+ * Counts are held in Fenwick trees (binary indexed trees) on long arrays, using the two tree form that supports adding
+ * to a range of days and summing a range of days, each in O(log days) array operations.  Recording a 30 day
+ * rental or rolling up the rented days over a 30 day period touches a few dozen array slots rather than 30 counters.
+ * <p>
+ * A rental updates both trees at two positions, and a reader that saw only some of those slots could be off by far
+ * more than one rental, so each stripe of trees is guarded by a StampedLock.  Writers take the write lock for the
+ * whole rental.  Readers start without a lock: they read a stripe under an optimistic stamp and read it again if a
+ * write overlapped.  After a few overlapping writes in a row they take the stripe's read lock instead and wait for the
+ * writer to finish, so a busy stripe can't keep a reader spinning.  Either way every stripe's sum includes each rental
+ * completely or not at all.  Each tool type has a few stripes, chosen by thread, so writers on different threads
+ * rarely wait on each other; readers add the stripes together.  Moving the range rebuilds every tree, and readers and
+ * writers wait while it does.
+ */
+public class UtilizationCounters {
+    private static final int MAX_STRIPES = 8;
+    private static final int OPTIMISTIC_READS = 4;
+
+    private final int days;
+    private final int stripes;
+    private final ConcurrentHashMap<String, Stripe[]> counters = new ConcurrentHashMap<>();
+    private final StampedLock range = new StampedLock();
+    private volatile long firstEpochDay;
+
+    /**
+     * @param firstDate First day that is counted, usually today
+     * @param days Number of days counted from the first day, which must cover the furthest day a rental can be booked
+     */
+    public UtilizationCounters(LocalDate firstDate, int days) {
+        if (days < 1) {
+            throw new IllegalArgumentException("At least one day must be counted.");
+        }
+
+        this.firstEpochDay = firstDate.toEpochDay();
+        this.days = days;
+        this.stripes = Math.min(MAX_STRIPES, Integer.highestOneBit(Runtime.getRuntime().availableProcessors()));
+    }
+
+    public LocalDate getFirstDate() {
+        return LocalDate.ofEpochDay(this.firstEpochDay);
+    }
+
+    public int getDays() {
+        return this.days;
+    }
+
+    /**
+     * Moves the counted range forward to start on a later day, keeping its length.  Counts for the days still inside
+     * the range are kept, and the new days at the end start at zero, since no rental could reach them.
+     * @param firstDate New first day that is counted, usually today
+     * @throws IllegalArgumentException if the new first day is before the current one
+     */
+    public void advanceTo(LocalDate firstDate) {
+        var stamp = this.range.writeLock();
+        try {
+            var shift = firstDate.toEpochDay() - this.firstEpochDay;
+            if (shift < 0) {
+                throw new IllegalArgumentException("The counted days can't move back to " + firstDate + ".");
+            }
+            if (shift > 0) {
+                for (var stripes : this.counters.values()) {
+                    for (var stripe : stripes) {
+                        stripe.shift((int) Math.min(shift, this.days));
+                    }
+                }
+                this.firstEpochDay = firstDate.toEpochDay();
+            }
+        } finally {
+            this.range.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Adds one rental of a tool type covering a run of days
+     * @param toolType Label of the tool type rented
+     * @param epochDay First day of the rental, as a count of days since 1970-01-01
+     * @param days Number of days the rental covers
+     * @throws IllegalArgumentException if the rental runs past the last counted day
+     */
+    public void addRental(String toolType, long epochDay, int days) {
+        this.add(toolType, epochDay, days, 1);
+    }
+
+    /**
+     * Takes away a rental added with addRental(), such as one that was cancelled
+     * @param toolType Label of the tool type rented
+     * @param epochDay First day of the rental, as a count of days since 1970-01-01
+     * @param days Number of days the rental covers
+     * @throws IllegalArgumentException if the rental runs past the last counted day
+     */
+    public void removeRental(String toolType, long epochDay, int days) {
+        this.add(toolType, epochDay, days, -1);
+    }
+
+    /**
+     * @param toolType Label of the tool type
+     * @param epochDay Day to read, as a count of days since 1970-01-01
+     * @return Number of rentals of the tool type covering the day
+     */
+    public long getRentals(String toolType, long epochDay) {
+        return this.getRentedDays(toolType, epochDay, 1);
+    }
+
+    /**
+     * Rolls up the rentals of a tool type over a run of days.  Days outside the counted range have no rentals.
+     * @param toolType Label of the tool type
+     * @param epochDay First day of the run, as a count of days since 1970-01-01
+     * @param days Number of days in the run
+     * @return Sum over each day in the run of the number of rentals covering it
+     */
+    public long getRentedDays(String toolType, long epochDay, int days) {
+        var stripes = this.counters.get(toolType);
+        if (stripes == null) {
+            return 0;
+        }
+
+        var stamp = this.range.tryOptimisticRead();
+        var total = stamp == 0 ? 0 : this.sum(stripes, epochDay, days);
+        if (!this.range.validate(stamp)) {
+            stamp = this.range.readLock();
+            try {
+                total = this.sum(stripes, epochDay, days);
+            } finally {
+                this.range.unlockRead(stamp);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Private helper function that adds the stripes' counts over the days of a run that fall inside the counted range
+     */
+    private long sum(Stripe[] stripes, long epochDay, int days) {
+        var firstEpochDay = this.firstEpochDay;
+        var first = Math.max(epochDay, firstEpochDay) - firstEpochDay;
+        var last = Math.min(epochDay + days, firstEpochDay + this.days) - firstEpochDay;
+        if (first >= last) {
+            return 0;
+        }
+
+        var total = 0L;
+        for (var stripe : stripes) {
+            total += stripe.sum((int) first, (int) last);
+        }
+        return total;
+    }
+
+    /**
+     * Private helper function that adds to every day of a rental that hasn't passed
+     */
+    private void add(String toolType, long epochDay, int days, long delta) {
+        var stripes = this.counters.computeIfAbsent(toolType, type -> this.newStripes());
+        var stamp = this.range.readLock();
+        try {
+            var firstEpochDay = this.firstEpochDay;
+            if (epochDay + days > firstEpochDay + this.days) {
+                var lastDate = LocalDate.ofEpochDay(firstEpochDay + this.days - 1);
+                throw new IllegalArgumentException("A rental from " + LocalDate.ofEpochDay(epochDay) + " for " + days
+                        + " days runs past the last counted day, " + lastDate + ".");
+            }
+
+            var first = Math.max(epochDay, firstEpochDay) - firstEpochDay;
+            var last = epochDay + days - firstEpochDay;
+            if (first < last) {
+                var stripe = stripes[(int) Thread.currentThread().threadId() & (this.stripes - 1)];
+                stripe.add((int) first, (int) last, delta);
+            }
+        } finally {
+            this.range.unlockRead(stamp);
+        }
+    }
+
+    private Stripe[] newStripes() {
+        var stripes = new Stripe[this.stripes];
+        for (int stripe = 0; stripe < this.stripes; stripe++) {
+            stripes[stripe] = new Stripe(this.days);
+        }
+        return stripes;
+    }
+
+    /**
+     * One stripe of interleaved trees and the lock that guards them.  Even slots of the array hold the per-day
+     * deltas and odd slots hold the deltas weighted by the position before them, so prefix sums of the counts can be
+     * recovered from both.
+     */
+    private static final class Stripe {
+        private final StampedLock lock = new StampedLock();
+        private final int days;
+        private final long[] tree;
+
+        private Stripe(int days) {
+            this.days = days;
+            this.tree = new long[2 * (days + 2)];
+        }
+
+        /**
+         * Adds a delta to the count of every day from the first day up to but not including the last
+         */
+        private void add(int first, int last, long delta) {
+            var stamp = this.lock.writeLock();
+            try {
+                this.addFrom(first + 1, delta);
+                this.addFrom(last + 1, -delta);
+            } finally {
+                this.lock.unlockWrite(stamp);
+            }
+        }
+
+        /**
+         * Moves every count back by a number of days, dropping the counts that fall off the start of the range
+         */
+        private void shift(int days) {
+            var stamp = this.lock.writeLock();
+            try {
+                var counts = new long[this.days];
+                for (int day = days; day < this.days; day++) {
+                    counts[day - days] = this.prefixSum(day + 1) - this.prefixSum(day);
+                }
+
+                Arrays.fill(this.tree, 0);
+                var previous = 0L;
+                for (int day = 0; day < this.days; day++) {
+                    if (counts[day] != previous) {
+                        this.addFrom(day + 1, counts[day] - previous);
+                        previous = counts[day];
+                    }
+                }
+            } finally {
+                this.lock.unlockWrite(stamp);
+            }
+        }
+
+        /**
+         * Sums the counts from the first day up to but not including the last.  The read is retried a few times if a
+         * write overlaps it, and then made under the read lock.
+         */
+        private long sum(int first, int last) {
+            for (int attempt = 0; attempt < OPTIMISTIC_READS; attempt++) {
+                var stamp = this.lock.tryOptimisticRead();
+                if (stamp != 0) {
+                    var sum = this.prefixSum(last) - this.prefixSum(first);
+                    if (this.lock.validate(stamp)) {
+                        return sum;
+                    }
+                }
+                Thread.onSpinWait();
+            }
+
+            var stamp = this.lock.readLock();
+            try {
+                return this.prefixSum(last) - this.prefixSum(first);
+            } finally {
+                this.lock.unlockRead(stamp);
+            }
+        }
+
+        /**
+         * Private helper function that adds a delta to every day from a 1-based position to the end of the range
+         */
+        private void addFrom(int position, long delta) {
+            var weighted = delta * (position - 1);
+            for (int i = position; 2 * i < this.tree.length; i += i & -i) {
+                this.tree[2 * i] += delta;
+                this.tree[2 * i + 1] += weighted;
+            }
+        }
+
+        /**
+         * Private helper function that sums the counts of the first days of the range
+         * @param days Number of days from the start of the range to sum
+         * @return Sum of the counts of those days
+         */
+        private long prefixSum(int days) {
+            var deltas = 0L;
+            var weighted = 0L;
+            for (int i = days; i > 0; i -= i & -i) {
+                deltas += this.tree[2 * i];
+                weighted += this.tree[2 * i + 1];
+            }
+            return deltas * days - weighted;
+        }
+    }
+}
@@ -0,0 +1,537 @@
+package com.demo.history;
+
+import com.demo.ExclusionManager;
+import com.demo.currency.ExchangeRates;
+import com.demo.datatypes.RentalAgreement;
+import com.demo.datatypes.Tool;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.IntStream;
+
+/**
+ * Off-heap, column oriented store of agreement history for reporting.  Rows are held in fixed size segments, and
+ * each segment keeps one buffer per column outside the Java heap, either in direct memory or in memory-mapped files,
+ * so hundreds of millions of agreements don't weigh on the garbage collector.
+ * <pre>
+ * tool             short   index into the tool dictionary
+ * checkoutDate     int     days since 1970-01-01
+ * rentalDays       int
+ * chargeDays       int
+ * discount         byte    discount percentage
+ * holidayDays      int     holidays excluded from charging because the tool type doesn't charge for them
+ * currency         byte    index into the currency dictionary
+ * baseCharge       long    cents in the agreement's currency
+ * discountAmount   long    cents in the agreement's currency
+ * finalCharge      long    cents in the agreement's currency
+ * </pre>
+ * The due date is the checkout date plus the rental days and the daily charge comes from the tool, so neither is
+ * stored.  The tool dictionary holds each distinct tool rather than each tool code, so a tool repriced or moved to
+ * another type by a catalog change gets a new entry, and earlier rows keep the tool they were priced with.  Charges are kept exactly as the agreement was priced, in its own currency, rather than converted at
+ * whatever rates are current when it is appended.  Charge totals are summed one currency at a time, so they never mix
+ * currencies: the filter's currency, or US dollars if it has none, unless the rows are grouped by currency.
+ * aggregate() scans every segment in parallel, one tight loop over the columns it needs per segment, and merges the
+ * per-segment sums.
+ * <p>
+ * Appends are serialized, and may run while queries do; a query sees every row appended before it started.
+ * Mapped files are scratch space that lasts as long as the store.  Durable history belongs in the AgreementJournal,
+ * which can be loaded with journal.replay(store::append).
+ */
+public class AgreementColumnStore implements Closeable {
+    private static final int DEFAULT_SEGMENT_ROWS = 1 << 20;
+    private static final int MAX_TOOLS = Short.MAX_VALUE;
+    private static final int MAX_CURRENCIES = Byte.MAX_VALUE;
+
+    /**
+     * Values that can be summed by aggregate().  Money is summed in cents.
+     */
+    public enum Measure {
+        AGREEMENTS,
+        RENTAL_DAYS,
+        CHARGE_DAYS,
+        /**
+         * Base charge in the cents of one currency at a time
+         */
+        BASE_CHARGE,
+        /**
+         * Discount amount in the cents of one currency at a time
+         */
+        DISCOUNT_AMOUNT,
+        /**
+         * Final charge in the cents of one currency at a time
+         */
+        FINAL_CHARGE,
+        /**
+         * Holidays excluded from charging, counted as days
+         */
+        HOLIDAY_DAYS,
+        /**
+         * Revenue lost to holiday exclusions, as the holiday days multiplied by the daily charge, before discounts,
+         * in US cents
+         */
+        HOLIDAY_CHARGE;
+
+        private boolean isCharge() {
+            return this == BASE_CHARGE || this == DISCOUNT_AMOUNT || this == FINAL_CHARGE;
+        }
+    }
+
+    /**
+     * Ways rows can be grouped by aggregate()
+     */
+    public enum GroupBy {
+        TOOL_CODE,
+        TOOL_TYPE,
+        /**
+         * Month of the checkout date, as yyyy-MM
+         */
+        CHECKOUT_MONTH,
+        /**
+         * Currency the agreement was priced in, as its ISO 4217 code
+         */
+        CURRENCY
+    }
+
+    /**
+     * Static record representing which rows a query covers
+     * @param fromEpochDay First checkout date included, as days since 1970-01-01
+     * @param toEpochDay Last checkout date included, as days since 1970-01-01
+     * @param toolCodes Tool codes included, or NULL to include every tool
+     * @param currency Currency of the agreements included, or NULL to include every currency.  Charge totals
+     *                 without a currency are summed in US dollars unless the rows are grouped by currency.
+     */
+    public record Filter(long fromEpochDay, long toEpochDay, Set<String> toolCodes, Currency currency) {
+        public static Filter all() {
+            return new Filter(Long.MIN_VALUE, Long.MAX_VALUE, null, null);
+        }
+
+        public static Filter checkoutBetween(LocalDate first, LocalDate last) {
+            return new Filter(first.toEpochDay(), last.toEpochDay(), null, null);
+        }
+
+        public Filter withToolCodes(Set<String> toolCodes) {
+            return new Filter(this.fromEpochDay, this.toEpochDay, Set.copyOf(toolCodes), this.currency);
+        }
+
+        public Filter withCurrency(Currency currency) {
+            return new Filter(this.fromEpochDay, this.toEpochDay, this.toolCodes, currency);
+        }
+    }
+
+    private final ExclusionManager exclusionManager;
+    private final Path directory;
+    private final int segmentRows;
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+    private final Map<Tool, Integer> toolIds = new HashMap<>();
+    private volatile Tool[] tools = new Tool[0];
+    private final Map<Currency, Integer> currencyIds = new HashMap<>();
+    private volatile Currency[] currencies = new Currency[0];
+    private volatile int minMonth = Integer.MAX_VALUE;
+    private volatile int maxMonth = Integer.MIN_VALUE;
+
+    /**
+     * Creates a store held in direct memory that uses the default holiday rules
+     */
+    public AgreementColumnStore() {
+        this(new ExclusionManager(), null, DEFAULT_SEGMENT_ROWS);
+    }
+
+    /**
+     * @param exclusionManager Exclusion manager holding the holiday calendar the agreements were charged against
+     * @param directory Directory for the memory-mapped column files, or NULL to use direct memory
+     * @param segmentRows Number of rows in each segment
+     */
+    public AgreementColumnStore(ExclusionManager exclusionManager, Path directory, int segmentRows) {
+        if (segmentRows < 1) {
+            throw new IllegalArgumentException("Segments must hold at least one row.");
+        }
+        this.exclusionManager = exclusionManager;
+        this.directory = directory;
+        this.segmentRows = segmentRows;
+
+        if (directory != null) {
+            try {
+                Files.createDirectories(directory);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to create the column store directory " + directory, e);
+            }
+        }
+    }
+
+    /**
+     * Adds one agreement to the end of the store
+     * @param agreement Completed rental agreement
+     */
+    public synchronized void append(RentalAgreement agreement) {
+        var tool = agreement.selectedTool();
+        var toolId = this.toolIds.get(tool);
+        if (toolId == null) {
+            toolId = this.addTool(tool);
+        }
+        var currencyId = this.currencyIds.get(agreement.currency());
+        if (currencyId == null) {
+            currencyId = this.addCurrency(agreement.currency());
+        }
+
+        var segment = this.segments.isEmpty() ? null : this.segments.get(this.segments.size() - 1);
+        if (segment == null || segment.size == this.segmentRows) {
+            segment = this.addSegment();
+        }
+
+        var checkoutEpochDay = agreement.checkoutDate().toEpochDay();
+        var holidayDays = tool.type().holidayCharge() ? 0
+                : this.exclusionManager.getCalendarIndex().countHolidays(checkoutEpochDay + 1, agreement.rentalDays());
+        var month = monthIndexOf(checkoutEpochDay);
+        var row = segment.size;
+
+        segment.tool.putShort(row * 2, toolId.shortValue());
+        segment.checkoutDate.putInt(row * 4, (int) checkoutEpochDay);
+        segment.rentalDays.putInt(row * 4, agreement.rentalDays());
+        segment.chargeDays.putInt(row * 4, agreement.chargeDays());
+        segment.discount.put(row, (byte) agreement.discountPercentage());
+        segment.holidayDays.putInt(row * 4, holidayDays);
+        segment.currency.put(row, currencyId.byteValue());
+        segment.baseCharge.putLong(row * 8, toCents(agreement.baseCharge()));
+        segment.discountAmount.putLong(row * 8, toCents(agreement.discountAmount()));
+        segment.finalCharge.putLong(row * 8, toCents(agreement.finalCharge()));
+
+        if (month < this.minMonth) {
+            this.minMonth = month;
+        }
+        if (month > this.maxMonth) {
+            this.maxMonth = month;
+        }
+        segment.size = row + 1;
+    }
+
+    /**
+     * @return Number of agreements in the store
+     */
+    public long size() {
+        var size = 0L;
+        for (var segment : this.segments) {
+            size += segment.size;
+        }
+        return size;
+    }
+
+    /**
+     * Sums a measure over the rows matching a filter
+     * @param filter Rows to include
+     * @param measure Value to sum
+     * @return Total, in cents for money measures
+     */
+    public long sum(Filter filter, Measure measure) {
+        return this.aggregate(filter, null, measure).getOrDefault("all", 0L);
+    }
+
+    /**
+     * Sums a measure over the rows matching a filter, grouped by tool, tool type, checkout month or currency.
+     * Segments are scanned in parallel, each into its own array of group totals, and the arrays are added together at
+     * the end.  Charge measures only sum rows in one currency, the filter's or US dollars, unless grouped by currency.
+     * @param filter Rows to include
+     * @param groupBy How to group the rows, or NULL for a single total under the key "all"
+     * @param measure Value to sum
+     * @return Total for each group that has at least one matching row, ordered by key
+     */
+    public Map<String, Long> aggregate(Filter filter, GroupBy groupBy, Measure measure) {
+        // Row counts are read before the dictionaries and month range, which appends update before the row count
+        var segments = List.copyOf(this.segments);
+        var rows = segments.stream().mapToInt(segment -> segment.size).toArray();
+        var tools = this.tools;
+        var currencies = this.currencies;
+        var firstMonth = this.minMonth;
+        var lastMonth = this.maxMonth;
+
+        if (tools.length == 0) {
+            return new TreeMap<>();
+        }
+
+        var currency = filter.currency() == null && measure.isCharge() && groupBy != GroupBy.CURRENCY
+                ? ExchangeRates.BASE_CURRENCY
+                : filter.currency();
+        var currencyId = currency == null ? -1 : Arrays.asList(currencies).indexOf(currency);
+        if (currency != null && currencyId < 0) {
+            return new TreeMap<>();
+        }
+
+        var groupIds = groupIds(tools, groupBy);
+        var groupCount = switch (groupBy) {
+            case null -> 1;
+            case CHECKOUT_MONTH -> lastMonth - firstMonth + 1;
+            case CURRENCY -> currencies.length;
+            case TOOL_CODE, TOOL_TYPE -> Arrays.stream(groupIds).max().orElse(0) + 1;
+        };
+        var dailyCharges = new long[tools.length];
+        var included = new boolean[tools.length];
+
+        for (int i = 0; i < tools.length; i++) {
+            dailyCharges[i] = tools[i].type().dailyChargeCents();
+            included[i] = filter.toolCodes() == null || filter.toolCodes().contains(tools[i].code());
+        }
+
+        var scan = new Scan(filter, groupBy, measure, groupIds, groupCount, firstMonth, currencyId, dailyCharges, included);
+        var totals = IntStream.range(0, segments.size()).parallel()
+                .mapToObj(i -> segments.get(i).scan(scan, rows[i]))
+                .reduce(new long[groupCount * 2], AgreementColumnStore::add);
+
+        return toGroupMap(totals, groupCount, tools, currencies, groupBy, groupIds, firstMonth);
+    }
+
+    /**
+     * Deletes any mapped column files.  Buffers already handed out stay readable until they are garbage collected.
+     */
+    @Override
+    public synchronized void close() {
+        if (this.directory == null) {
+            return;
+        }
+        try (var files = Files.list(this.directory)) {
+            for (var file : files.filter(file -> file.getFileName().toString().startsWith("segment-")).toList()) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to delete the column store files in " + this.directory, e);
+        }
+    }
+
+    /**
+     * Converts days since 1970-01-01 to a month count (year * 12 + month - 1) using the civil from days algorithm,
+     * so the scan loop needs no LocalDate
+     * @param epochDay Date as a count of days since 1970-01-01
+     * @return Month count of the date
+     */
+    static int monthIndexOf(long epochDay) {
+        var shifted = epochDay + 719468;
+        var era = Math.floorDiv(shifted, 146097);
+        var dayOfEra = shifted - era * 146097;
+        var yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        var dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        var shiftedMonth = (5 * dayOfYear + 2) / 153;
+        var month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+        var year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return (int) (year * 12 + month - 1);
+    }
+
+    private int addTool(Tool tool) {
+        if (this.tools.length == MAX_TOOLS) {
+            throw new IllegalStateException("The column store can't hold more than " + MAX_TOOLS + " tools.");
+        }
+        var toolId = this.tools.length;
+        var tools = Arrays.copyOf(this.tools, toolId + 1);
+        tools[toolId] = tool;
+        this.toolIds.put(tool, toolId);
+        this.tools = tools;
+        return toolId;
+    }
+
+    private int addCurrency(Currency currency) {
+        if (this.currencies.length == MAX_CURRENCIES) {
+            throw new IllegalStateException("The column store can't hold more than " + MAX_CURRENCIES + " currencies.");
+        }
+        var currencyId = this.currencies.length;
+        var currencies = Arrays.copyOf(this.currencies, currencyId + 1);
+        currencies[currencyId] = currency;
+        this.currencyIds.put(currency, currencyId);
+        this.currencies = currencies;
+        return currencyId;
+    }
+
+    private Segment addSegment() {
+        var number = this.segments.size();
+        var segment = new Segment(
+                this.allocate(number, "tool", 2),
+                this.allocate(number, "checkoutDate", 4),
+                this.allocate(number, "rentalDays", 4),
+                this.allocate(number, "chargeDays", 4),
+                this.allocate(number, "discount", 1),
+                this.allocate(number, "holidayDays", 4),
+                this.allocate(number, "currency", 1),
+                this.allocate(number, "baseCharge", 8),
+                this.allocate(number, "discountAmount", 8),
+                this.allocate(number, "finalCharge", 8));
+        this.segments.add(segment);
+        return segment;
+    }
+
+    private ByteBuffer allocate(int segment, String column, int width) {
+        var bytes = (long) this.segmentRows * width;
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Segments are too large for a " + width + " byte column.");
+        }
+        if (this.directory == null) {
+            return ByteBuffer.allocateDirect((int) bytes);
+        }
+
+        var file = this.directory.resolve(String.format("segment-%05d.%s", segment, column));
+        try (var channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to map column file " + file, e);
+        }
+    }
+
+    /**
+     * @return Group number of each tool, for tool code or tool type grouping.  A code can appear in the dictionary
+     * more than once, so tools are grouped by name rather than by position.
+     */
+    private static int[] groupIds(Tool[] tools, GroupBy groupBy) {
+        var groupIds = new int[tools.length];
+        if (groupBy == GroupBy.TOOL_TYPE || groupBy == GroupBy.TOOL_CODE) {
+            var groups = new HashMap<String, Integer>();
+            for (int i = 0; i < tools.length; i++) {
+                var name = groupBy == GroupBy.TOOL_TYPE ? tools[i].type().label() : tools[i].code();
+                groupIds[i] = groups.computeIfAbsent(name, key -> groups.size());
+            }
+        }
+        return groupIds;
+    }
+
+    /**
+     * Names each group and keeps the groups that matched at least one row
+     * @param totals Group totals followed by group row counts
+     */
+    private static Map<String, Long> toGroupMap(long[] totals, int groupCount, Tool[] tools, Currency[] currencies,
+                                                GroupBy groupBy, int[] groupIds, int firstMonth) {
+        var names = new String[groupCount];
+        var groups = new TreeMap<String, Long>();
+
+        if (groupBy == null) {
+            names[0] = "all";
+        } else if (groupBy == GroupBy.CHECKOUT_MONTH) {
+            for (int i = 0; i < groupCount; i++) {
+                var month = firstMonth + i;
+                names[i] = YearMonth.of(Math.floorDiv(month, 12), Math.floorMod(month, 12) + 1).toString();
+            }
+        } else if (groupBy == GroupBy.CURRENCY) {
+            for (int i = 0; i < groupCount; i++) {
+                names[i] = currencies[i].getCurrencyCode();
+            }
+        } else {
+            for (int i = 0; i < tools.length; i++) {
+                names[groupIds[i]] = groupBy == GroupBy.TOOL_TYPE ? tools[i].type().label() : tools[i].code();
+            }
+        }
+
+        for (int i = 0; i < groupCount; i++) {
+            if (totals[groupCount + i] > 0) {
+                groups.put(names[i], totals[i]);
+            }
+        }
+        return groups;
+    }
+
+    private static long[] add(long[] left, long[] right) {
+        var sum = new long[left.length];
+        for (int i = 0; i < sum.length; i++) {
+            sum[i] = left[i] + right[i];
+        }
+        return sum;
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount.movePointRight(2).longValueExact();
+    }
+
+    /**
+     * Everything a segment needs to run one query, resolved once up front
+     */
+    private record Scan(Filter filter, GroupBy groupBy, Measure measure, int[] groupIds, int groupCount,
+                        int firstMonth, int currencyId, long[] dailyCharges, boolean[] included) { }
+
+    /**
+     * One block of rows, with a buffer per column.  The size is written last when a row is appended, so a reader
+     * that reads the size first sees complete rows.
+     */
+    private static final class Segment {
+        private final ByteBuffer tool;
+        private final ByteBuffer checkoutDate;
+        private final ByteBuffer rentalDays;
+        private final ByteBuffer chargeDays;
+        private final ByteBuffer discount;
+        private final ByteBuffer holidayDays;
+        private final ByteBuffer currency;
+        private final ByteBuffer baseCharge;
+        private final ByteBuffer discountAmount;
+        private final ByteBuffer finalCharge;
+        private volatile int size;
+
+        private Segment(ByteBuffer tool, ByteBuffer checkoutDate, ByteBuffer rentalDays, ByteBuffer chargeDays,
+                        ByteBuffer discount, ByteBuffer holidayDays, ByteBuffer currency, ByteBuffer baseCharge,
+                        ByteBuffer discountAmount, ByteBuffer finalCharge) {
+            this.tool = tool;
+            this.checkoutDate = checkoutDate;
+            this.rentalDays = rentalDays;
+            this.chargeDays = chargeDays;
+            this.discount = discount;
+            this.holidayDays = holidayDays;
+            this.currency = currency;
+            this.baseCharge = baseCharge;
+            this.discountAmount = discountAmount;
+            this.finalCharge = finalCharge;
+        }
+
+        /**
+         * Sums the measure for every matching row into an array of group totals, followed by the number of rows
+         * that matched each group
+         */
+        private long[] scan(Scan scan, int rows) {
+            var groupCount = scan.groupCount();
+            var totals = new long[groupCount * 2];
+            var from = scan.filter().fromEpochDay();
+            var to = scan.filter().toEpochDay();
+            var included = scan.included();
+            var currencyId = scan.currencyId();
+
+            for (int row = 0; row < rows; row++) {
+                var toolId = this.tool.getShort(row * 2);
+                var epochDay = this.checkoutDate.getInt(row * 4);
+                if (epochDay < from || epochDay > to || !included[toolId]
+                        || (currencyId >= 0 && this.currency.get(row) != currencyId)) {
+                    continue;
+                }
+
+                var group = switch (scan.groupBy()) {
+                    case null -> 0;
+                    case TOOL_CODE, TOOL_TYPE -> scan.groupIds()[toolId];
+                    case CHECKOUT_MONTH -> monthIndexOf(epochDay) - scan.firstMonth();
+                    case CURRENCY -> this.currency.get(row);
+                };
+                totals[group] += this.valueOf(scan, row, toolId);
+                totals[groupCount + group]++;
+            }
+            return totals;
+        }
+
+        private long valueOf(Scan scan, int row, int toolId) {
+            return switch (scan.measure()) {
+                case AGREEMENTS -> 1;
+                case RENTAL_DAYS -> this.rentalDays.getInt(row * 4);
+                case CHARGE_DAYS -> this.chargeDays.getInt(row * 4);
+                case BASE_CHARGE -> this.baseCharge.getLong(row * 8);
+                case DISCOUNT_AMOUNT -> this.discountAmount.getLong(row * 8);
+                case FINAL_CHARGE -> this.finalCharge.getLong(row * 8);
+                case HOLIDAY_DAYS -> this.holidayDays.getInt(row * 4);
+                case HOLIDAY_CHARGE -> this.holidayDays.getInt(row * 4) * scan.dailyCharges()[toolId];
+            };
+        }
+    }
+}
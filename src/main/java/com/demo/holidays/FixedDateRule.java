@@ -0,0 +1,30 @@
+package com.demo.holidays;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Month;
+
+/**
+ * Holiday that falls on the same date every year, such as the Fourth of July.
+ * When observed shifting is enabled, a holiday falling on a Saturday is celebrated on the Friday before,
+ * and a holiday falling on a Sunday is celebrated on the Monday after.
+ * @param name Display name of the holiday
+ * @param month Month the holiday falls in
+ * @param dayOfMonth Day of the month the holiday falls on
+ * @param observed Boolean value that represents if weekend occurrences move to the nearest weekday
+ */
+public record FixedDateRule(String name, Month month, int dayOfMonth, boolean observed) implements HolidayRule {
+    @Override
+    public LocalDate getDate(int year) {
+        var date = LocalDate.of(year, this.month, this.dayOfMonth);
+
+        if (this.observed) {
+            if (date.getDayOfWeek() == DayOfWeek.SATURDAY) {
+                return date.minusDays(1);
+            } else if (date.getDayOfWeek() == DayOfWeek.SUNDAY) {
+                return date.plusDays(1);
+            }
+        }
+        return date;
+    }
+}
@@ -0,0 +1,22 @@
+package com.demo.holidays;
+
+import java.time.LocalDate;
+
+/**
+ * Rule that defines when a holiday is celebrated.  Rules are evaluated once per calendar year when the
+ * CalendarIndex for a rule set is built, never per rental date.
+ */
+public interface HolidayRule {
+    /**
+     * @return Display name of the holiday
+     */
+    String name();
+
+    /**
+     * Returns the date the holiday is celebrated for the given year.  Observed dates may fall outside of the
+     * year itself, for example New Year's Day falling on a Saturday is celebrated on the previous December 31st.
+     * @param year Calendar year of the holiday occurrence
+     * @return Date the holiday is celebrated, or NULL if the holiday doesn't occur in that year
+     */
+    LocalDate getDate(int year);
+}
@@ -0,0 +1,126 @@
+package com.demo.holidays;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Loads holiday rules from a configuration file.  Each non-blank line that doesn't start with # defines one rule
+ * as comma separated values, starting with the rule type and the holiday name:
+ * <pre>
+ * fixed, Independence Day, 7, 4, observed
+ * nth-weekday, Labor Day, 9, MONDAY, 1
+ * last-weekday, Memorial Day, 5, MONDAY
+ * date, Grand Opening, 2024-08-16
+ * </pre>
+ * Months are given as numbers and days of the week by name.  The final "observed" value of a fixed date rule
+ * is optional and enables moving weekend occurrences to the nearest weekday.
+ */
+public class HolidayRules {
+    public static final String DEFAULT_RULES = "/holidays/default.csv";
+    public static final String US_FEDERAL_RULES = "/holidays/us-federal.csv";
+
+    private HolidayRules() { }
+
+    /**
+     * Loads the rules from a configuration file on disk
+     * @param path Location of the configuration file
+     * @return Rules defined in the file, in file order
+     */
+    public static List<HolidayRule> load(Path path) {
+        try (var reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return parse(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read holiday rules from " + path, e);
+        }
+    }
+
+    /**
+     * Loads the rules from a configuration file packaged on the classpath
+     * @param resource Absolute resource name, such as DEFAULT_RULES
+     * @return Rules defined in the file, in file order
+     */
+    public static List<HolidayRule> loadResource(String resource) {
+        var stream = HolidayRules.class.getResourceAsStream(resource);
+        if (stream == null) {
+            throw new IllegalArgumentException("Holiday rules resource " + resource + " was not found.");
+        }
+
+        try (var reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+            return parse(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read holiday rules from " + resource, e);
+        }
+    }
+
+    /**
+     * Returns the dates every rule is celebrated on within the given year.  Rules are evaluated for the years
+     * on either side as well, so an occurrence observed across a year boundary is still included.
+     * @param rules Rules to evaluate
+     * @param year Calendar year to get holidays for
+     * @return Dates within the year that are celebrated as holidays
+     */
+    public static Collection<LocalDate> getDates(Collection<HolidayRule> rules, int year) {
+        var dates = new ArrayList<LocalDate>();
+
+        for (var rule : rules) {
+            for (int ruleYear = year - 1; ruleYear <= year + 1; ruleYear++) {
+                var date = rule.getDate(ruleYear);
+                if (date != null && date.getYear() == year) {
+                    dates.add(date);
+                }
+            }
+        }
+
+        return dates;
+    }
+
+    private static List<HolidayRule> parse(BufferedReader reader) throws IOException {
+        var rules = new ArrayList<HolidayRule>();
+        var lineNumber = 0;
+        String line;
+
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            try {
+                rules.add(parseRule(line.split("\\s*,\\s*")));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid holiday rule on line " + lineNumber + ": " + line, e);
+            }
+        }
+
+        return List.copyOf(rules);
+    }
+
+    private static HolidayRule parseRule(String[] fields) {
+        var type = fields[0].toLowerCase(Locale.ROOT);
+        var name = fields[1];
+
+        return switch (type) {
+            case "fixed" -> new FixedDateRule(name, Month.of(Integer.parseInt(fields[2])), Integer.parseInt(fields[3]),
+                    fields.length > 4 && fields[4].equalsIgnoreCase("observed"));
+            case "nth-weekday" -> new NthWeekdayRule(name, Month.of(Integer.parseInt(fields[2])),
+                    DayOfWeek.valueOf(fields[3].toUpperCase(Locale.ROOT)), Integer.parseInt(fields[4]));
+            case "last-weekday" -> new LastWeekdayRule(name, Month.of(Integer.parseInt(fields[2])),
+                    DayOfWeek.valueOf(fields[3].toUpperCase(Locale.ROOT)));
+            case "date" -> new OneOffDateRule(name, LocalDate.parse(fields[2]));
+            default -> throw new IllegalArgumentException("Unknown holiday rule type " + fields[0]);
+        };
+    }
+}
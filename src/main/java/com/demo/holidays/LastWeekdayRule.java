@@ -0,0 +1,20 @@
+package com.demo.holidays;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Holiday that falls on the last occurrence of a day of the week in a month, such as Memorial Day
+ * (last Monday in May).
+ * @param name Display name of the holiday
+ * @param month Month the holiday falls in
+ * @param dayOfWeek Day of the week the holiday falls on
+ */
+public record LastWeekdayRule(String name, Month month, DayOfWeek dayOfWeek) implements HolidayRule {
+    @Override
+    public LocalDate getDate(int year) {
+        return LocalDate.of(year, this.month, 1).with(TemporalAdjusters.lastInMonth(this.dayOfWeek));
+    }
+}
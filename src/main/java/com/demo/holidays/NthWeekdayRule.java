@@ -0,0 +1,29 @@
+package com.demo.holidays;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Holiday that falls on the Nth occurrence of a day of the week in a month, such as Labor Day
+ * (first Monday in September) or Thanksgiving (fourth Thursday in November).
+ * @param name Display name of the holiday
+ * @param month Month the holiday falls in
+ * @param dayOfWeek Day of the week the holiday falls on
+ * @param occurrence Which occurrence of the day of week within the month, from 1 to 5
+ */
+public record NthWeekdayRule(String name, Month month, DayOfWeek dayOfWeek, int occurrence) implements HolidayRule {
+    public NthWeekdayRule {
+        if (occurrence < 1 || occurrence > 5) {
+            throw new IllegalArgumentException("Weekday occurrence for " + name + " must be between 1-5.");
+        }
+    }
+
+    @Override
+    public LocalDate getDate(int year) {
+        var date = LocalDate.of(year, this.month, 1).with(TemporalAdjusters.dayOfWeekInMonth(this.occurrence, this.dayOfWeek));
+
+        return date.getMonth() == this.month ? date : null;
+    }
+}
@@ -0,0 +1,15 @@
+package com.demo.holidays;
+
+import java.time.LocalDate;
+
+/**
+ * Holiday that only happens once, on a specific date, such as a local closure day
+ * @param name Display name of the holiday
+ * @param date Date the holiday is celebrated
+ */
+public record OneOffDateRule(String name, LocalDate date) implements HolidayRule {
+    @Override
+    public LocalDate getDate(int year) {
+        return this.date.getYear() == year ? this.date : null;
+    }
+}
@@ -0,0 +1,450 @@
+package com.demo.journal;
+
+import com.demo.AgreementRenderer;
+import com.demo.datatypes.RentalAgreement;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only, crash safe journal of completed agreements.
+ * <p>
+ * Appends are encoded on the calling thread and handed to a single writer thread, which gathers everything queued
+ * since its last write into one batch, writes the batch with one call and forces it to disk once (group commit).
+ * append() returns straight away with a future that completes with the record's sequence number once the record is
+ * durable, so pricing threads never wait on the disk unless they choose to.
+ * <p>
+ * The journal is a directory of log segments, each named after the first sequence number it holds, plus at most one
+ * snapshot named after the last sequence number it holds.  snapshot() starts a new segment and folds the previous
+ * snapshot and every older segment into a new snapshot, so startup reads one large sequential file and then replays
+ * only the segments written since.  Every record is
+ * <pre>
+ * int     length of the payload in bytes
+ * int     CRC-32C of the payload
+ * long    sequence number, the first part of the payload
+ * ...     agreement in the AgreementRenderer binary layout, the rest of the payload
+ * </pre>
+ * A record that is cut short or fails its checksum at the end of the newest segment is a write that never completed,
+ * so it is truncated away when the journal is opened.
+ */
+public class AgreementJournal implements Closeable {
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+    private static final int HEADER_SIZE = 4 + 4;
+    private static final int MAX_PAYLOAD_SIZE = 8 + AgreementRenderer.BINARY_FIXED_SIZE + 3 * Short.MAX_VALUE;
+    private static final int IO_BUFFER_SIZE = 4 << 20;
+    private static final int MAX_BATCH = 8192;
+    private static final int QUEUE_CAPACITY = 1 << 16;
+
+    private static final AgreementRenderer RENDERER = new AgreementRenderer();
+
+    private final Path directory;
+    private final BlockingQueue<PendingWrite> queue = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+    private final Thread writer;
+    private final ReentrantReadWriteLock closeLock = new ReentrantReadWriteLock();
+    private volatile boolean closed;
+    private volatile Throwable failure;
+
+    // Owned by the writer thread once it has started
+    private FileChannel segment;
+    private long nextSequence;
+
+    private AgreementJournal(Path directory, FileChannel segment, long nextSequence) {
+        this.directory = directory;
+        this.segment = segment;
+        this.nextSequence = nextSequence;
+        this.writer = new Thread(this::writeBatches, "agreement-journal-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Opens the journal in the given directory, creating the directory if it doesn't exist.  The newest segment is
+     * checked record by record and any incomplete record at its end is removed, so appends carry on from the last
+     * durable record.
+     * @param directory Directory holding the journal files
+     * @return Journal ready for appends
+     */
+    public static AgreementJournal open(Path directory) {
+        try {
+            Files.createDirectories(directory);
+            var segments = listFiles(directory, SEGMENT_PREFIX, SEGMENT_SUFFIX);
+            var snapshots = listFiles(directory, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+            var nextSequence = snapshots.isEmpty() ? 1 : sequenceOf(snapshots.get(snapshots.size() - 1)) + 1;
+
+            if (segments.isEmpty()) {
+                var channel = openSegment(directory, nextSequence);
+                return new AgreementJournal(directory, channel, nextSequence);
+            }
+
+            var newest = segments.get(segments.size() - 1);
+            var channel = FileChannel.open(newest, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            var scan = readRecords(channel, sequenceOf(newest), null);
+            channel.truncate(scan.validLength());
+            channel.position(scan.validLength());
+            return new AgreementJournal(directory, channel, Math.max(nextSequence, scan.nextSequence()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to open the agreement journal in " + directory, e);
+        }
+    }
+
+    /**
+     * Queues an agreement to be written.  Only blocks if the writer has fallen a full queue behind.
+     * @param agreement Completed rental agreement
+     * @return Future that completes with the record's sequence number once it has been forced to disk, or
+     * completes exceptionally if the journal couldn't write it
+     */
+    public CompletableFuture<Long> append(RentalAgreement agreement) {
+        var record = ByteBuffer.allocate(HEADER_SIZE + 8 + AgreementRenderer.maxBinarySize(agreement.selectedTool()));
+        record.position(HEADER_SIZE + 8);
+        RENDERER.encode(agreement, record);
+        return this.enqueue(new PendingWrite(record.flip(), new CompletableFuture<>()));
+    }
+
+    /**
+     * Replays every agreement in the journal, oldest first: the snapshot, then each segment written since.
+     * Agreements appended while the replay runs may or may not be included.
+     * @param consumer Receives each agreement
+     * @return Number of agreements replayed
+     */
+    public long replay(Consumer<RentalAgreement> consumer) {
+        try {
+            var count = 0L;
+            for (var file : this.getReplayFiles()) {
+                try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    var scan = readRecords(channel, 0, record -> consumer.accept(RENDERER.decode(record)));
+                    count += scan.records();
+                }
+            }
+            return count;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to replay the agreement journal in " + this.directory, e);
+        }
+    }
+
+    /**
+     * Starts a new segment and folds the previous snapshot and all older segments into a new snapshot, then deletes
+     * the files it replaced.  Appends carry on into the new segment while the snapshot is written.
+     * @return Sequence number of the last agreement in the new snapshot, or 0 if the journal is empty
+     */
+    public synchronized long snapshot() {
+        var rolled = this.enqueue(new PendingWrite(null, new CompletableFuture<>())).join();
+        var lastSequence = rolled - 1;
+
+        try {
+            var replaced = new ArrayList<Path>();
+            var segments = 0;
+            for (var file : this.getReplayFiles()) {
+                var isSegment = file.getFileName().toString().startsWith(SEGMENT_PREFIX);
+                if (!isSegment) {
+                    replaced.add(file);
+                } else if (sequenceOf(file) < rolled) {
+                    replaced.add(file);
+                    segments++;
+                }
+            }
+            if (segments == 0) {
+                return lastSequence;
+            }
+
+            var temporary = this.directory.resolve(SNAPSHOT_PREFIX + "tmp");
+            try (var output = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                for (var file : replaced) {
+                    try (var input = FileChannel.open(file, StandardOpenOption.READ)) {
+                        var length = input.size();
+                        for (long position = 0; position < length; ) {
+                            position += input.transferTo(position, length - position, output);
+                        }
+                    }
+                }
+                output.force(true);
+            }
+
+            Files.move(temporary, this.directory.resolve(fileName(SNAPSHOT_PREFIX, lastSequence, SNAPSHOT_SUFFIX)),
+                    StandardCopyOption.ATOMIC_MOVE);
+            for (var file : replaced) {
+                Files.deleteIfExists(file);
+            }
+            return lastSequence;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write an agreement journal snapshot in " + this.directory, e);
+        }
+    }
+
+    /**
+     * Writes everything already queued, then stops the writer and closes the current segment
+     */
+    @Override
+    public void close() {
+        this.closeLock.writeLock().lock();
+        try {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+            this.queue.put(PendingWrite.STOP);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            this.closeLock.writeLock().unlock();
+        }
+
+        try {
+            this.writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        var closedError = new IllegalStateException("The agreement journal is closed.");
+        this.queue.forEach(write -> write.future().completeExceptionally(closedError));
+    }
+
+    /**
+     * Private helper function that queues a write.  Queueing holds the read side of the close lock, so close() can't
+     * queue its stop marker while a write is being queued, and no write can land behind the marker.
+     */
+    private CompletableFuture<Long> enqueue(PendingWrite write) {
+        this.closeLock.readLock().lock();
+        try {
+            if (this.closed) {
+                throw new IllegalStateException("The agreement journal is closed.");
+            }
+            if (this.failure != null) {
+                return CompletableFuture.failedFuture(this.failure);
+            }
+
+            this.queue.put(write);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        } finally {
+            this.closeLock.readLock().unlock();
+        }
+        return write.future();
+    }
+
+    /**
+     * Writer thread.  Takes everything queued so far as one batch, writes it, forces it once and then completes the
+     * batch's futures.  A segment roll requested by snapshot() commits what came before it, so it lands between records.
+     */
+    private void writeBatches() {
+        var batch = new ArrayList<PendingWrite>(MAX_BATCH);
+        var written = new ArrayList<PendingWrite>(MAX_BATCH);
+        var sequences = new long[MAX_BATCH];
+        var buffer = ByteBuffer.allocateDirect(IO_BUFFER_SIZE);
+        var crc = new CRC32C();
+        var stopping = false;
+
+        try {
+            while (!stopping) {
+                batch.add(this.queue.take());
+                this.queue.drainTo(batch, MAX_BATCH - 1);
+
+                for (var write : batch) {
+                    if (stopping) {
+                        write.future().completeExceptionally(new IllegalStateException("The agreement journal is closed."));
+                        continue;
+                    }
+                    if (write == PendingWrite.STOP) {
+                        stopping = true;
+                        continue;
+                    }
+                    if (write.record() == null) {
+                        this.commit(buffer, written, sequences);
+                        write.future().complete(this.roll());
+                        continue;
+                    }
+
+                    var record = write.record();
+                    var payloadLength = record.remaining() - HEADER_SIZE;
+                    record.putLong(HEADER_SIZE, this.nextSequence);
+                    crc.reset();
+                    crc.update(record.slice(HEADER_SIZE, payloadLength));
+                    record.putInt(0, payloadLength).putInt(4, (int) crc.getValue());
+
+                    if (buffer.remaining() < record.remaining()) {
+                        this.flush(buffer);
+                    }
+                    buffer.put(record);
+                    sequences[written.size()] = this.nextSequence++;
+                    written.add(write);
+                }
+
+                this.commit(buffer, written, sequences);
+                batch.clear();
+            }
+            this.segment.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException e) {
+            this.failure = e;
+            written.forEach(write -> write.future().completeExceptionally(e));
+            batch.forEach(write -> write.future().completeExceptionally(e));
+            this.queue.forEach(write -> write.future().completeExceptionally(e));
+        }
+    }
+
+    /**
+     * Writes out the buffer, forces the segment once and completes the futures of every record written since the
+     * last commit with their sequence numbers
+     */
+    private void commit(ByteBuffer buffer, List<PendingWrite> written, long[] sequences) throws IOException {
+        if (written.isEmpty()) {
+            return;
+        }
+        this.flush(buffer);
+        this.segment.force(false);
+        for (int i = 0; i < written.size(); i++) {
+            written.get(i).future().complete(sequences[i]);
+        }
+        written.clear();
+    }
+
+    private void flush(ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            this.segment.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Closes the current segment and starts a new one at the next sequence number
+     * @return First sequence number of the new segment
+     */
+    private long roll() throws IOException {
+        this.segment.force(false);
+        this.segment.close();
+        this.segment = openSegment(this.directory, this.nextSequence);
+        return this.nextSequence;
+    }
+
+    /**
+     * Segments already folded into the newest snapshot are skipped, in case a snapshot was interrupted after it was
+     * written but before the files it replaced were deleted.
+     * @return Newest snapshot followed by every segment written since, oldest first
+     */
+    private List<Path> getReplayFiles() throws IOException {
+        var files = new ArrayList<Path>();
+        var snapshots = listFiles(this.directory, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+        var snapshotSequence = 0L;
+        if (!snapshots.isEmpty()) {
+            var newest = snapshots.get(snapshots.size() - 1);
+            snapshotSequence = sequenceOf(newest);
+            files.add(newest);
+        }
+        for (var segment : listFiles(this.directory, SEGMENT_PREFIX, SEGMENT_SUFFIX)) {
+            if (sequenceOf(segment) > snapshotSequence) {
+                files.add(segment);
+            }
+        }
+        return files;
+    }
+
+    private static FileChannel openSegment(Path directory, long firstSequence) throws IOException {
+        return FileChannel.open(directory.resolve(fileName(SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX)),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Reads records from the start of a file until the end of the file or the first incomplete or corrupt record
+     * @param channel File to read
+     * @param firstSequence Sequence number to report if the file holds no valid records
+     * @param consumer Receives a buffer positioned at each record's agreement, or NULL to only validate the file
+     * @return Number of valid records, the length of the file they take up and the sequence number after the last
+     */
+    private static Scan readRecords(FileChannel channel, long firstSequence, Consumer<ByteBuffer> consumer) throws IOException {
+        var buffer = ByteBuffer.allocateDirect(IO_BUFFER_SIZE);
+        var crc = new CRC32C();
+        var records = 0L;
+        var validLength = 0L;
+        var nextSequence = firstSequence;
+        var endOfFile = false;
+
+        channel.position(0);
+        buffer.flip();
+        while (true) {
+            if (buffer.remaining() >= HEADER_SIZE) {
+                var start = buffer.position();
+                var payloadLength = buffer.getInt(start);
+                if (payloadLength < 8 || payloadLength > MAX_PAYLOAD_SIZE) {
+                    break;
+                }
+
+                if (buffer.remaining() >= HEADER_SIZE + payloadLength) {
+                    crc.reset();
+                    crc.update(buffer.slice(start + HEADER_SIZE, payloadLength));
+                    if ((int) crc.getValue() != buffer.getInt(start + 4)) {
+                        break;
+                    }
+
+                    nextSequence = buffer.getLong(start + HEADER_SIZE) + 1;
+                    if (consumer != null) {
+                        consumer.accept(buffer.slice(start + HEADER_SIZE + 8, payloadLength - 8));
+                    }
+                    buffer.position(start + HEADER_SIZE + payloadLength);
+                    validLength += HEADER_SIZE + payloadLength;
+                    records++;
+                    continue;
+                }
+            }
+
+            if (endOfFile) {
+                break;
+            }
+            buffer.compact();
+            endOfFile = channel.read(buffer) < 0;
+            buffer.flip();
+        }
+
+        return new Scan(records, validLength, nextSequence);
+    }
+
+    private static List<Path> listFiles(Path directory, String prefix, String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                        var name = file.getFileName().toString();
+                        return name.startsWith(prefix) && name.endsWith(suffix);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static String fileName(String prefix, long sequence, String suffix) {
+        return String.format("%s%020d%s", prefix, sequence, suffix);
+    }
+
+    private static long sequenceOf(Path file) {
+        var name = file.getFileName().toString();
+        return Long.parseLong(name.substring(name.indexOf('-') + 1, name.lastIndexOf('.')));
+    }
+
+    private record Scan(long records, long validLength, long nextSequence) { }
+
+    /**
+     * Encoded record waiting for the writer.  A NULL record asks the writer to start a new segment.
+     */
+    private record PendingWrite(ByteBuffer record, CompletableFuture<Long> future) {
+        private static final PendingWrite STOP = new PendingWrite(null, new CompletableFuture<>());
+    }
+}
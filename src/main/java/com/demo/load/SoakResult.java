@@ -0,0 +1,127 @@
+package com.demo.load;
+
+import com.demo.AgreementRenderer;
+import com.demo.LatencyHistogram;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Static record representing the measurements from one soak test run.  Latencies are in nanoseconds.
+ * @param targetRate Requests per second the run was scheduled at
+ * @param duration How long requests were issued for
+ * @param threads Number of worker threads
+ * @param scheduled Number of requests scheduled
+ * @param completed Number of requests that produced an agreement
+ * @param errors Number of requests that were rejected
+ * @param elapsedNanos Time from the first request being due to the last request finishing
+ * @param latency Time from each request being due to it finishing, corrected for coordinated omission
+ * @param serviceTime Time each request spent being priced
+ * @param allocatedBytes Bytes allocated by the worker threads, or 0 if the JVM can't measure it
+ * @param gcCount Number of garbage collections during the run
+ * @param gcTimeMillis Total time reported by the garbage collectors during the run
+ * @param gcPauses Duration of each stop-the-world pause during the run
+ */
+public record SoakResult(double targetRate, Duration duration, int threads, long scheduled, long completed, long errors,
+                         long elapsedNanos, LatencyHistogram.Snapshot latency, LatencyHistogram.Snapshot serviceTime,
+                         long allocatedBytes, long gcCount, long gcTimeMillis, LatencyHistogram.Snapshot gcPauses) {
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+    private static final String[] PERCENTILE_NAMES = {"p50", "p90", "p99", "p999", "p9999"};
+
+    /**
+     * @return Requests finished per second, counting errors
+     */
+    public double getThroughput() {
+        return this.elapsedNanos == 0 ? 0 : (this.completed + this.errors) * 1e9 / this.elapsedNanos;
+    }
+
+    /**
+     * @return Bytes allocated by the worker threads per second
+     */
+    public double getAllocationRate() {
+        return this.elapsedNanos == 0 ? 0 : this.allocatedBytes * 1e9 / this.elapsedNanos;
+    }
+
+    /**
+     * @return Bytes allocated per request
+     */
+    public double getAllocatedBytesPerRequest() {
+        var requests = this.completed + this.errors;
+        return requests == 0 ? 0 : (double) this.allocatedBytes / requests;
+    }
+
+    /**
+     * Renders the result as one JSON object, so runs can be compared by scripts
+     * @return JSON text ending with a newline
+     */
+    public String toJson() {
+        var output = new StringBuilder(1024)
+                .append("{\"targetRate\":").append(format(this.targetRate))
+                .append(",\"durationMillis\":").append(this.duration.toMillis())
+                .append(",\"threads\":").append(this.threads)
+                .append(",\"javaVersion\":");
+        AgreementRenderer.appendJsonString(System.getProperty("java.version"), output)
+                .append(",\"processors\":").append(Runtime.getRuntime().availableProcessors())
+                .append(",\"scheduled\":").append(this.scheduled)
+                .append(",\"completed\":").append(this.completed)
+                .append(",\"errors\":").append(this.errors)
+                .append(",\"elapsedMillis\":").append(this.elapsedNanos / 1_000_000)
+                .append(",\"throughput\":").append(format(this.getThroughput()))
+                .append(",\"latencyNanos\":");
+        appendHistogram(output, this.latency);
+        output.append(",\"serviceTimeNanos\":");
+        appendHistogram(output, this.serviceTime);
+        output.append(",\"allocatedBytes\":").append(this.allocatedBytes)
+                .append(",\"allocationBytesPerSecond\":").append(format(this.getAllocationRate()))
+                .append(",\"allocatedBytesPerRequest\":").append(format(this.getAllocatedBytesPerRequest()))
+                .append(",\"gcCount\":").append(this.gcCount)
+                .append(",\"gcTimeMillis\":").append(this.gcTimeMillis)
+                .append(",\"gcPauseNanos\":");
+        appendHistogram(output, this.gcPauses);
+        return output.append("}\n").toString();
+    }
+
+    /**
+     * Writes the JSON result to a file, replacing it if it exists
+     * @param path Location of the result file
+     */
+    public void write(Path path) {
+        try {
+            Files.writeString(path, this.toJson(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write soak test results to " + path, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%,d of %,d requests in %.1f s (%,.0f/s, %d errors)%n"
+                        + "latency p50 %,d us, p99 %,d us, p99.9 %,d us, max %,d us%n"
+                        + "service p50 %,d us, p99 %,d us, max %,d us%n"
+                        + "allocation %,.1f MB/s (%,.0f bytes/request), %d GCs, max pause %,d us",
+                this.completed + this.errors, this.scheduled, this.elapsedNanos / 1e9, this.getThroughput(), this.errors,
+                this.latency.getPercentile(50) / 1000, this.latency.getPercentile(99) / 1000,
+                this.latency.getPercentile(99.9) / 1000, this.latency.getMax() / 1000,
+                this.serviceTime.getPercentile(50) / 1000, this.serviceTime.getPercentile(99) / 1000,
+                this.serviceTime.getMax() / 1000, this.getAllocationRate() / 1e6, this.getAllocatedBytesPerRequest(),
+                this.gcCount, this.gcPauses.getMax() / 1000);
+    }
+
+    private static void appendHistogram(StringBuilder output, LatencyHistogram.Snapshot snapshot) {
+        output.append("{\"count\":").append(snapshot.getCount())
+                .append(",\"mean\":").append(format(snapshot.getMean()));
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            output.append(",\"").append(PERCENTILE_NAMES[i]).append("\":").append(snapshot.getPercentile(PERCENTILES[i]));
+        }
+        output.append(",\"max\":").append(snapshot.getMax()).append('}');
+    }
+
+    private static String format(double value) {
+        return value == Math.rint(value) ? Long.toString((long) value) : String.format(Locale.ROOT, "%.2f", value);
+    }
+}
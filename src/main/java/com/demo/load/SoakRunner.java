@@ -0,0 +1,191 @@
+package com.demo.load;
+
+import com.demo.AgreementManager;
+import com.demo.LatencyHistogram;
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives an AgreementManager open-loop: requests are scheduled at a fixed target rate whether or not earlier
+ * requests have finished, the way independent customers arrive.  Request i is due at start + i / rate, and worker
+ * thread k takes every request i where i % threads == k.  When the engine falls behind, workers start late requests
+ * straight away, and each request's latency is measured from when it was due rather than when it started, so a
+ * stall shows up in the latency of every request it delayed.  This corrects for coordinated omission; the time each
+ * request actually spent being priced is reported separately as service time.
+ * <p>
+ * The run also reports the bytes allocated by the worker threads and every garbage collection during the run.
+ */
+public class SoakRunner {
+    private static final long SPIN_THRESHOLD_NANOS = 50_000;
+
+    private final AgreementManager agreementManager;
+    private final WorkloadGenerator generator;
+    private final int threads;
+
+    /**
+     * @param agreementManager Agreement manager to drive
+     * @param generator Source of applications; each worker thread uses its own split of it
+     * @param threads Number of worker threads issuing requests
+     */
+    public SoakRunner(AgreementManager agreementManager, WorkloadGenerator generator, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one worker thread is required.");
+        }
+
+        this.agreementManager = agreementManager;
+        this.generator = generator;
+        this.threads = threads;
+    }
+
+    /**
+     * Runs the workload and waits for it to finish
+     * @param requestsPerSecond Target request rate
+     * @param duration How long to keep issuing requests
+     * @return Measurements for the run
+     */
+    public SoakResult run(double requestsPerSecond, Duration duration) {
+        if (requestsPerSecond <= 0) {
+            throw new IllegalArgumentException("The target rate must be greater than zero.");
+        }
+
+        var intervalNanos = 1e9 / requestsPerSecond;
+        var scheduled = (long) (duration.toNanos() / intervalNanos);
+        var latency = new LatencyHistogram();
+        var serviceTime = new LatencyHistogram();
+        var completed = new LongAdder();
+        var errors = new LongAdder();
+        var allocatedBytes = new AtomicLong();
+        var gcPauses = new LatencyHistogram();
+        var gcListener = listenForGarbageCollections(gcPauses);
+        var gcBefore = garbageCollectionTotals();
+        var workers = new ArrayList<Thread>();
+        var start = System.nanoTime() + 10_000_000;
+
+        for (int k = 0; k < this.threads; k++) {
+            var first = k;
+            var generator = this.generator.split();
+            workers.add(Thread.ofPlatform().name("soak-worker-" + k).start(() -> {
+                var allocatedBefore = currentThreadAllocatedBytes();
+
+                for (long i = first; i < scheduled; i += this.threads) {
+                    var due = start + (long) (i * intervalNanos);
+                    var application = generator.next();
+                    waitUntil(due);
+
+                    var started = System.nanoTime();
+                    try {
+                        this.agreementManager.generateAgreement(application);
+                        completed.increment();
+                    } catch (RuntimeException e) {
+                        errors.increment();
+                    }
+                    var finished = System.nanoTime();
+                    latency.record(finished - due);
+                    serviceTime.record(finished - started);
+                }
+
+                allocatedBytes.addAndGet(currentThreadAllocatedBytes() - allocatedBefore);
+            }));
+        }
+
+        for (var worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the soak test to finish.", e);
+            }
+        }
+
+        var elapsedNanos = System.nanoTime() - start;
+        var gcAfter = garbageCollectionTotals();
+        removeListener(gcListener);
+
+        return new SoakResult(requestsPerSecond, duration, this.threads, scheduled, completed.sum(), errors.sum(),
+                elapsedNanos, latency.snapshot(), serviceTime.snapshot(), allocatedBytes.get(),
+                gcAfter[0] - gcBefore[0], gcAfter[1] - gcBefore[1], gcPauses.snapshot());
+    }
+
+    /**
+     * Private helper function that sleeps until shortly before a request is due, then spins for the rest, since
+     * sleeping alone can overshoot by tens of microseconds
+     */
+    private static void waitUntil(long due) {
+        long remaining;
+        while ((remaining = due - System.nanoTime()) > 0) {
+            if (remaining > SPIN_THRESHOLD_NANOS) {
+                LockSupport.parkNanos(remaining - SPIN_THRESHOLD_NANOS);
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    private static long currentThreadAllocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                && threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+            return threads.getCurrentThreadAllocatedBytes();
+        }
+        return 0;
+    }
+
+    /**
+     * @return Total collection count and collection time in milliseconds across every collector
+     */
+    private static long[] garbageCollectionTotals() {
+        var totals = new long[2];
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            totals[0] += Math.max(0, collector.getCollectionCount());
+            totals[1] += Math.max(0, collector.getCollectionTime());
+        }
+        return totals;
+    }
+
+    /**
+     * Private helper function that records the duration of every stop-the-world collection.  Concurrent cycles,
+     * such as G1's concurrent marking or ZGC's cycles, run alongside the application and aren't recorded as pauses.
+     * @param pauses Histogram that receives pause durations in nanoseconds
+     * @return Listener to pass to removeListener() once the run is over
+     */
+    private static NotificationListener listenForGarbageCollections(LatencyHistogram pauses) {
+        NotificationListener listener = (notification, handback) -> {
+            if (!notification.getType().equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION)) {
+                return;
+            }
+            var info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+            if (!info.getGcName().contains("Concurrent") && !info.getGcName().contains("Cycles")) {
+                pauses.record(info.getGcInfo().getDuration() * 1_000_000);
+            }
+        };
+
+        for (var collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (collector instanceof NotificationEmitter emitter) {
+                emitter.addNotificationListener(listener, null, null);
+            }
+        }
+        return listener;
+    }
+
+    private static void removeListener(NotificationListener listener) {
+        for (var collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (collector instanceof NotificationEmitter emitter) {
+                try {
+                    emitter.removeNotificationListener(listener);
+                } catch (ListenerNotFoundException e) {
+                    // Nothing to remove from this collector
+                }
+            }
+        }
+    }
+}
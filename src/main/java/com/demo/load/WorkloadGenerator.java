@@ -0,0 +1,157 @@
+package com.demo.load;
+
+import com.demo.ToolCatalog;
+import com.demo.ToolData;
+import com.demo.datatypes.Application;
+import com.demo.datatypes.Tool;
+import com.demo.datatypes.ToolType;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Generates streams of rental applications with the skew seen in production:
+ * <ul>
+ * <li>Tool codes follow a Zipf distribution, so a few tools get most of the requests</li>
+ * <li>About a quarter of checkouts fall within three days of the Fourth of July or Labor Day, a third are on a
+ * Thursday, Friday or Saturday, and the rest are spread across the year</li>
+ * <li>Most rentals are a few days long, with a long tail of rentals up to two months</li>
+ * <li>Most applications have no discount</li>
+ * </ul>
+ * A generator isn't thread-safe; give each thread its own with split().  The same seed always produces the same
+ * applications.
+ */
+public class WorkloadGenerator {
+    private static final String[] BRANDS = {"Stihl", "Werner", "DeWalt", "Ridgid", "Makita", "Husqvarna", "Bosch", "Milwaukee"};
+    private static final int[] DISCOUNTS = {5, 10, 15, 20, 25, 50};
+
+    private final String[] toolCodes;
+    private final double[] cumulativeWeights;
+    private final int firstYear;
+    private final int years;
+    private final SplittableRandom random;
+
+    /**
+     * @param toolCodes Tool codes to request, from most to least popular
+     * @param zipfExponent Skew of tool popularity.  0 requests every tool equally; 1 is the classic Zipf skew.
+     * @param firstYear First checkout year
+     * @param years Number of checkout years, at least 1
+     * @param seed Seed for the random sequence
+     */
+    public WorkloadGenerator(List<String> toolCodes, double zipfExponent, int firstYear, int years, long seed) {
+        if (toolCodes.isEmpty()) {
+            throw new IllegalArgumentException("At least one tool code is required.");
+        }
+        if (zipfExponent < 0) {
+            throw new IllegalArgumentException("The Zipf exponent must not be negative.");
+        }
+        if (years < 1) {
+            throw new IllegalArgumentException("At least one checkout year is required.");
+        }
+
+        this.toolCodes = toolCodes.toArray(String[]::new);
+        this.cumulativeWeights = new double[this.toolCodes.length];
+        this.firstYear = firstYear;
+        this.years = years;
+        this.random = new SplittableRandom(seed);
+
+        var total = 0.0;
+        for (int rank = 0; rank < this.toolCodes.length; rank++) {
+            total += 1 / Math.pow(rank + 1, zipfExponent);
+            this.cumulativeWeights[rank] = total;
+        }
+        for (int rank = 0; rank < this.cumulativeWeights.length; rank++) {
+            this.cumulativeWeights[rank] /= total;
+        }
+    }
+
+    private WorkloadGenerator(WorkloadGenerator parent) {
+        this.toolCodes = parent.toolCodes;
+        this.cumulativeWeights = parent.cumulativeWeights;
+        this.firstYear = parent.firstYear;
+        this.years = parent.years;
+        this.random = parent.random.split();
+    }
+
+    /**
+     * Builds a catalog holding the default tools followed by generated tools of the same tool types, with codes
+     * G00001, G00002 and so on
+     * @param generatedTools Number of tools to generate
+     * @return New catalog.  AgreementManager prices from the shared catalog, so install it with
+     * ToolCatalog.setInstance() before pricing generated applications.
+     */
+    public static ToolCatalog generateCatalog(int generatedTools) {
+        var defaults = ToolData.getDefaultTools();
+        var types = defaults.stream().map(Tool::type).distinct().toArray(ToolType[]::new);
+        var tools = new ArrayList<>(defaults);
+
+        for (int i = 1; i <= generatedTools; i++) {
+            tools.add(new Tool(String.format("G%05d", i), BRANDS[i % BRANDS.length], types[i % types.length]));
+        }
+        return new ToolCatalog(tools);
+    }
+
+    /**
+     * @return A new generator with its own independent random sequence, for use by another thread
+     */
+    public WorkloadGenerator split() {
+        return new WorkloadGenerator(this);
+    }
+
+    /**
+     * @return Next application in the sequence
+     */
+    public Application next() {
+        var application = new Application();
+
+        application.setToolCode(this.nextToolCode());
+        application.setCheckoutDate(this.nextCheckoutDate());
+        application.setRentalDays(this.nextRentalDays());
+        application.setDiscountPercentage(this.random.nextInt(10) < 7 ? 0 : DISCOUNTS[this.random.nextInt(DISCOUNTS.length)]);
+
+        return application;
+    }
+
+    private String nextToolCode() {
+        var rank = Arrays.binarySearch(this.cumulativeWeights, this.random.nextDouble());
+        rank = rank >= 0 ? rank : -rank - 1;
+        return this.toolCodes[Math.min(rank, this.toolCodes.length - 1)];
+    }
+
+    private LocalDate nextCheckoutDate() {
+        var year = this.firstYear + this.random.nextInt(this.years);
+        var roll = this.random.nextInt(100);
+
+        if (roll < 25) {
+            var holiday = this.random.nextBoolean()
+                    ? LocalDate.of(year, Month.JULY, 4)
+                    : LocalDate.of(year, Month.SEPTEMBER, 1).with(TemporalAdjusters.firstInMonth(DayOfWeek.MONDAY));
+            return holiday.plusDays(this.random.nextInt(7) - 3);
+        }
+
+        var day = LocalDate.ofYearDay(year, 1 + this.random.nextInt(LocalDate.of(year, 1, 1).lengthOfYear()));
+        if (roll < 60) {
+            return day.with(TemporalAdjusters.nextOrSame(DayOfWeek.of(4 + this.random.nextInt(3))));
+        }
+        return day;
+    }
+
+    private int nextRentalDays() {
+        var roll = this.random.nextInt(100);
+
+        if (roll < 50) {
+            return 1 + this.random.nextInt(3);
+        } else if (roll < 80) {
+            return 4 + this.random.nextInt(4);
+        } else if (roll < 95) {
+            return 8 + this.random.nextInt(7);
+        }
+        return 15 + this.random.nextInt(46);
+    }
+}
@@ -0,0 +1,14 @@
+package com.demo.pricing;
+
+/**
+ * Static record representing a surcharge on every tool of a brand, added to the base charge after tiers and caps
+ * @param brand Brand the surcharge applies to
+ * @param percentage Surcharge as a whole number percentage of the base charge
+ */
+public record BrandSurchargeRule(String brand, int percentage) implements PricingRule {
+    public BrandSurchargeRule {
+        if (percentage < 0) {
+            throw new IllegalArgumentException("Brand surcharges must not be negative.");
+        }
+    }
+}
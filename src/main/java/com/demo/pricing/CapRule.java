@@ -0,0 +1,24 @@
+package com.demo.pricing;
+
+import java.math.BigDecimal;
+
+/**
+ * Static record representing a rate cap, such as a weekly or monthly rate.  Any run of up to chargeDays charge days
+ * costs no more than the maximum charge, and the cheapest mix of daily charges and caps is used for each rental.
+ * @param toolType Label of the tool type the cap applies to
+ * @param chargeDays Number of charge days the cap covers, such as 7 for a weekly rate, up to MAX_CHARGE_DAYS
+ * @param maximumCharge Most that many charge days can cost, in whole cents
+ */
+public record CapRule(String toolType, int chargeDays, BigDecimal maximumCharge) implements PricingRule {
+    public CapRule {
+        if (chargeDays < 1) {
+            throw new IllegalArgumentException("A rate cap must cover at least one charge day.");
+        }
+        if (chargeDays > MAX_CHARGE_DAYS) {
+            throw new IllegalArgumentException("A rate cap can cover at most " + MAX_CHARGE_DAYS + " charge days.");
+        }
+        if (maximumCharge.signum() < 0) {
+            throw new IllegalArgumentException("Rate caps must not be negative.");
+        }
+    }
+}
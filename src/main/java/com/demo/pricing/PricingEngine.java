@@ -0,0 +1,75 @@
+package com.demo.pricing;
+
+import com.demo.ToolCatalog;
+import com.demo.datatypes.Tool;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compiles a set of pricing rules into one PricingPlan per tool.  Plans for every tool in the shared ToolCatalog are
+ * compiled up front; a tool that isn't in it, or that changed because a new catalog was swapped in, gets its plan
+ * compiled the first time it is quoted.  Engines are immutable apart from that plan cache and can be shared by any
+ * number of threads.
+ */
+public class PricingEngine {
+    private final List<PricingRule> rules;
+    private final ConcurrentHashMap<String, PricingPlan> plans = new ConcurrentHashMap<>();
+
+    /**
+     * @param rules Rules to price with, in the order promotions stack.  An empty collection prices exactly like
+     * AgreementManager without an engine.
+     */
+    public PricingEngine(Collection<? extends PricingRule> rules) {
+        this.rules = List.copyOf(rules);
+
+        for (var tool : ToolCatalog.getInstance().getTools()) {
+            this.plans.put(tool.code(), this.compile(tool));
+        }
+    }
+
+    public List<PricingRule> getRules() {
+        return this.rules;
+    }
+
+    /**
+     * @param tool Tool being quoted
+     * @return Compiled plan for the tool
+     */
+    public PricingPlan getPlan(Tool tool) {
+        var plan = this.plans.get(tool.code());
+        if (plan == null || plan.getTool() != tool && !plan.getTool().equals(tool)) {
+            plan = this.compile(tool);
+            this.plans.put(tool.code(), plan);
+        }
+        return plan;
+    }
+
+    /**
+     * Picks out the rules that apply to a tool and builds its plan
+     * @param tool Tool to compile a plan for
+     * @return Compiled plan
+     */
+    private PricingPlan compile(Tool tool) {
+        var toolType = tool.type().label();
+        var tiers = new ArrayList<TierRule>();
+        var caps = new ArrayList<CapRule>();
+        var promotions = new ArrayList<PromotionRule>();
+        var surchargePercentage = 0;
+
+        for (var rule : this.rules) {
+            switch (rule) {
+                case TierRule tier when tier.toolType().equals(toolType) -> tiers.add(tier);
+                case CapRule cap when cap.toolType().equals(toolType) -> caps.add(cap);
+                case BrandSurchargeRule surcharge when surcharge.brand().equals(tool.brand()) ->
+                        surchargePercentage += surcharge.percentage();
+                case PromotionRule promotion when promotion.appliesTo(toolType) -> promotions.add(promotion);
+                default -> { }
+            }
+        }
+
+        return new PricingPlan(tool, tiers, caps, surchargePercentage, promotions);
+    }
+}
@@ -0,0 +1,185 @@
+package com.demo.pricing;
+
+import com.demo.datatypes.Tool;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Pricing rules for one tool, compiled into the form quotes are priced from.  Tiers and caps are folded into a table
+ * of charges indexed by charge days, built once and grown on demand, so pricing a quote is a table lookup followed by
+ * a few integer operations for the surcharge, the discount and any promotions.  All amounts are whole cents and every
+ * percentage is rounded half up, like AgreementManager.calculateDiscountAmount().
+ * <p>
+ * The table never grows past a limit set by the rules.  Past the last tier the cheapest charges repeat: once a rental
+ * is long enough, the cheapest mix for it is the cheapest mix for a shorter rental plus one more of the best value
+ * cap, or one more day at the last tier's rate if no cap beats it.  Longer rentals are priced by stepping back into
+ * the table that way, so memory stays bounded however many charge days are asked for.
+ * <p>
+ * A plan for a tool with no tiers, caps or surcharge charges the daily charge for every charge day, which is exactly
+ * the result of AgreementManager's own charge math.
+ */
+public final class PricingPlan {
+    private static final int INITIAL_TABLE_DAYS = 400;
+
+    private final Tool tool;
+    private final long dailyChargeCents;
+    private final int[] tierFirstDays;
+    private final long[] tierCents;
+    private final int[] capDays;
+    private final long[] capCents;
+    private final int surchargePercentage;
+    private final long[] promotionFirstDays;
+    private final long[] promotionLastDays;
+    private final int[] promotionPercentages;
+    private final boolean flat;
+    private final int bestDays;
+    private final long bestCents;
+    private final int tableLimit;
+    private volatile long[] charges;
+
+    /**
+     * @param tool Tool the plan prices
+     * @param tiers Tier rules for the tool's type
+     * @param caps Cap rules for the tool's type
+     * @param surchargePercentage Total brand surcharge percentage for the tool's brand
+     * @param promotions Promotions for the tool's type, in the order they stack
+     */
+    PricingPlan(Tool tool, List<TierRule> tiers, List<CapRule> caps, int surchargePercentage, List<PromotionRule> promotions) {
+        var sortedTiers = tiers.stream().sorted(Comparator.comparingInt(TierRule::firstChargeDay)).toList();
+
+        this.tool = tool;
+        this.dailyChargeCents = tool.type().dailyChargeCents();
+        this.tierFirstDays = sortedTiers.stream().mapToInt(TierRule::firstChargeDay).toArray();
+        this.tierCents = sortedTiers.stream().mapToLong(tier -> toCents(tier.dailyCharge())).toArray();
+        this.capDays = caps.stream().mapToInt(CapRule::chargeDays).toArray();
+        this.capCents = caps.stream().mapToLong(cap -> toCents(cap.maximumCharge())).toArray();
+        this.surchargePercentage = surchargePercentage;
+        this.promotionFirstDays = promotions.stream().mapToLong(promotion -> promotion.firstCheckoutDate().toEpochDay()).toArray();
+        this.promotionLastDays = promotions.stream().mapToLong(promotion -> promotion.lastCheckoutDate().toEpochDay()).toArray();
+        this.promotionPercentages = promotions.stream().mapToInt(PromotionRule::percentage).toArray();
+        this.flat = tiers.isEmpty() && caps.isEmpty() && surchargePercentage == 0;
+
+        var lastTierDay = this.tierFirstDays.length == 0 ? 0 : this.tierFirstDays[this.tierFirstDays.length - 1];
+        var bestDays = 1;
+        var bestCents = this.tierCents.length == 0 ? this.dailyChargeCents : this.tierCents[this.tierCents.length - 1];
+        var longestDays = 1;
+        for (int cap = 0; cap < this.capDays.length; cap++) {
+            if (this.capCents[cap] * bestDays < bestCents * this.capDays[cap]) {
+                bestDays = this.capDays[cap];
+                bestCents = this.capCents[cap];
+            }
+            longestDays = Math.max(longestDays, this.capDays[cap]);
+        }
+        this.bestDays = bestDays;
+        this.bestCents = bestCents;
+        this.tableLimit = lastTierDay + bestDays * (longestDays + 1) + bestDays;
+        this.charges = this.flat ? new long[0] : this.buildTable(Math.min(INITIAL_TABLE_DAYS, this.tableLimit));
+    }
+
+    public Tool getTool() {
+        return this.tool;
+    }
+
+    /**
+     * @param chargeDays Number of chargeable days
+     * @return Base charge in cents after tiers, caps and brand surcharge
+     */
+    public long getBaseCharge(int chargeDays) {
+        if (this.flat) {
+            return this.dailyChargeCents * chargeDays;
+        }
+
+        var charge = 0L;
+        if (chargeDays >= this.tableLimit) {
+            var steps = (chargeDays - this.tableLimit) / this.bestDays + 1;
+            chargeDays -= steps * this.bestDays;
+            charge = steps * this.bestCents;
+        }
+
+        var table = this.charges;
+        if (chargeDays >= table.length) {
+            table = this.growTable(chargeDays);
+        }
+        charge += table[chargeDays];
+        return charge + (charge * this.surchargePercentage + 50) / 100;
+    }
+
+    /**
+     * Applies the customer's discount, then each promotion running on the checkout date in turn to what remains
+     * @param baseChargeCents Base charge in cents from getBaseCharge()
+     * @param discountPercentage Customer discount as a whole number between 0-100
+     * @param checkoutEpochDay Checkout date as a count of days since 1970-01-01
+     * @return Total discount in cents
+     */
+    public long getDiscountAmount(long baseChargeCents, int discountPercentage, long checkoutEpochDay) {
+        var discount = (baseChargeCents * discountPercentage + 50) / 100;
+
+        for (int i = 0; i < this.promotionPercentages.length; i++) {
+            if (checkoutEpochDay >= this.promotionFirstDays[i] && checkoutEpochDay <= this.promotionLastDays[i]) {
+                discount += ((baseChargeCents - discount) * this.promotionPercentages[i] + 50) / 100;
+            }
+        }
+        return discount;
+    }
+
+    /**
+     * Private helper function that grows the table to cover a number of charge days, never past the table limit
+     * @param chargeDays Number of charge days, less than the table limit
+     * @return Table covering the charge days
+     */
+    private synchronized long[] growTable(int chargeDays) {
+        var table = this.charges;
+        if (chargeDays >= table.length) {
+            table = this.buildTable((int) Math.min(this.tableLimit, Math.max(chargeDays + 1L, table.length * 2L)));
+            this.charges = table;
+        }
+        return table;
+    }
+
+    /**
+     * Finds the cheapest charge for every number of charge days up to the given size, before the brand surcharge.
+     * The charge for n days is the cheaper of the charge for n - 1 days plus day n at its tier rate, or the charge for
+     * n - d days plus a cap covering d days.
+     * <p>
+     * The charges repeat from the last tier's first day plus the best value cap's days times one more than the longest
+     * cap's days.  Past the last tier, any best value caps in the cheapest mix for a rental can be moved to its end.
+     * Among any d other caps or days, where d is the best value cap's days, some of them add up to a whole number of
+     * best value caps that cost no more, so a cheapest mix needs fewer than d of them.  A rental of at least that many
+     * days therefore ends with a best value cap.
+     */
+    private long[] buildTable(int size) {
+        var costs = new long[size];
+        var tier = -1;
+
+        for (int day = 1; day < size; day++) {
+            while (tier + 1 < this.tierFirstDays.length && this.tierFirstDays[tier + 1] <= day) {
+                tier++;
+            }
+
+            var cost = costs[day - 1] + (tier < 0 ? this.dailyChargeCents : this.tierCents[tier]);
+            for (int cap = 0; cap < this.capDays.length; cap++) {
+                cost = Math.min(cost, costs[Math.max(0, day - this.capDays[cap])] + this.capCents[cap]);
+            }
+            costs[day] = cost;
+        }
+        return costs;
+    }
+
+    private static long toCents(BigDecimal amount) {
+        try {
+            return amount.movePointRight(2).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Pricing amount " + amount + " is not a whole number of cents.", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "PricingPlan[" + this.tool.code() + ", tiers=" + Arrays.toString(this.tierFirstDays)
+                + ", caps=" + Arrays.toString(this.capDays) + ", surcharge=" + this.surchargePercentage
+                + "%, promotions=" + this.promotionPercentages.length + "]";
+    }
+}
@@ -0,0 +1,13 @@
+package com.demo.pricing;
+
+/**
+ * A single pricing rule loaded from configuration.  Rules are plain data; PricingEngine compiles the rules that
+ * apply to each tool into a PricingPlan once, so quotes never look at rules directly.
+ */
+public sealed interface PricingRule permits TierRule, CapRule, BrandSurchargeRule, PromotionRule {
+    /**
+     * Most charge days a cap can cover, and the latest charge day a tier can start on.  This bounds the table of
+     * charges a PricingPlan keeps for a tool.
+     */
+    int MAX_CHARGE_DAYS = 366;
+}
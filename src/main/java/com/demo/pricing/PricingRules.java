@@ -0,0 +1,98 @@
+package com.demo.pricing;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Loads pricing rules from a configuration file.  Each non-blank line that doesn't start with # defines one rule
+ * as comma separated values, starting with the rule type:
+ * <pre>
+ * tier, Ladder, 8, 1.49
+ * cap, Jackhammer, 7, 14.95
+ * surcharge, Ridgid, 5
+ * promotion, Summer Sale, *, 10, 2015-06-01, 2015-08-31
+ * </pre>
+ * Tiers give the tool type, the first charge day of the tier and its daily charge.  Caps give the tool type, the
+ * number of charge days covered and the most those days can cost.  Surcharges give a brand and a whole number
+ * percentage.  Promotions give a name, a tool type or * for all, a whole number percentage and the first and last
+ * checkout dates in ISO yyyy-MM-dd format.  Amounts must be whole cents.
+ */
+public class PricingRules {
+    public static final String EXAMPLE_RULES = "/pricing/example.csv";
+
+    private PricingRules() { }
+
+    /**
+     * Loads the rules from a configuration file on disk
+     * @param path Location of the configuration file
+     * @return Rules defined in the file, in file order
+     */
+    public static List<PricingRule> load(Path path) {
+        try (var reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return parse(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read pricing rules from " + path, e);
+        }
+    }
+
+    /**
+     * Loads the rules from a configuration file packaged on the classpath
+     * @param resource Absolute resource name, such as EXAMPLE_RULES
+     * @return Rules defined in the file, in file order
+     */
+    public static List<PricingRule> loadResource(String resource) {
+        var stream = PricingRules.class.getResourceAsStream(resource);
+        if (stream == null) {
+            throw new IllegalArgumentException("Pricing rules resource " + resource + " was not found.");
+        }
+
+        try (var reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+            return parse(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read pricing rules from " + resource, e);
+        }
+    }
+
+    private static List<PricingRule> parse(BufferedReader reader) throws IOException {
+        var rules = new ArrayList<PricingRule>();
+        var lineNumber = 0;
+        String line;
+
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            try {
+                rules.add(parseRule(line.split("\\s*,\\s*")));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid pricing rule on line " + lineNumber + ": " + line, e);
+            }
+        }
+
+        return List.copyOf(rules);
+    }
+
+    private static PricingRule parseRule(String[] fields) {
+        return switch (fields[0].toLowerCase(Locale.ROOT)) {
+            case "tier" -> new TierRule(fields[1], Integer.parseInt(fields[2]), new BigDecimal(fields[3]));
+            case "cap" -> new CapRule(fields[1], Integer.parseInt(fields[2]), new BigDecimal(fields[3]));
+            case "surcharge" -> new BrandSurchargeRule(fields[1], Integer.parseInt(fields[2]));
+            case "promotion" -> new PromotionRule(fields[1], fields[2], Integer.parseInt(fields[3]),
+                    LocalDate.parse(fields[4]), LocalDate.parse(fields[5]));
+            default -> throw new IllegalArgumentException("Unknown pricing rule type " + fields[0]);
+        };
+    }
+}
@@ -0,0 +1,34 @@
+package com.demo.pricing;
+
+import java.time.LocalDate;
+
+/**
+ * Static record representing a promotional discount for checkouts within a date range.  Promotions stack: each one
+ * that applies takes its percentage off whatever is left after the customer's discount and any earlier promotions.
+ * @param name Name of the promotion
+ * @param toolType Label of the tool type the promotion applies to, or * for every tool type
+ * @param percentage Discount as a whole number percentage between 0-100
+ * @param firstCheckoutDate First checkout date the promotion applies to
+ * @param lastCheckoutDate Last checkout date the promotion applies to
+ */
+public record PromotionRule(String name, String toolType, int percentage, LocalDate firstCheckoutDate,
+                            LocalDate lastCheckoutDate) implements PricingRule {
+    public static final String ALL_TOOL_TYPES = "*";
+
+    public PromotionRule {
+        if (percentage < 0 || percentage > 100) {
+            throw new IllegalArgumentException("Promotion percentages must be between 0-100.");
+        }
+        if (lastCheckoutDate.isBefore(firstCheckoutDate)) {
+            throw new IllegalArgumentException("Promotion " + name + " ends before it starts.");
+        }
+    }
+
+    /**
+     * @param toolType Label of a tool type
+     * @return TRUE if the promotion applies to the tool type
+     */
+    public boolean appliesTo(String toolType) {
+        return this.toolType.equals(ALL_TOOL_TYPES) || this.toolType.equals(toolType);
+    }
+}
@@ -0,0 +1,24 @@
+package com.demo.pricing;
+
+import java.math.BigDecimal;
+
+/**
+ * Static record representing a reduced daily charge for long rentals.  Every charge day from the first charge day
+ * on is charged at this rate, until a later tier for the same tool type takes over.
+ * @param toolType Label of the tool type the tier applies to
+ * @param firstChargeDay First charge day, counting from 1 up to MAX_CHARGE_DAYS, charged at this rate
+ * @param dailyCharge Daily charge from that day on, in whole cents
+ */
+public record TierRule(String toolType, int firstChargeDay, BigDecimal dailyCharge) implements PricingRule {
+    public TierRule {
+        if (firstChargeDay < 1) {
+            throw new IllegalArgumentException("Tier charge days are counted from 1.");
+        }
+        if (firstChargeDay > MAX_CHARGE_DAYS) {
+            throw new IllegalArgumentException("A tier must start by charge day " + MAX_CHARGE_DAYS + ".");
+        }
+        if (dailyCharge.signum() < 0) {
+            throw new IllegalArgumentException("Tier daily charges must not be negative.");
+        }
+    }
+}
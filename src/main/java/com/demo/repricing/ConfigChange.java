@@ -0,0 +1,36 @@
+package com.demo.repricing;
+
+import com.demo.AgreementManager;
+
+import java.util.List;
+
+/**
+ * A change to the configuration agreements are priced from.  Each kind of change knows which open agreements it can
+ * affect, so RepricingEngine only reprices those.
+ */
+public sealed interface ConfigChange permits HolidayChange, RateChange {
+    /**
+     * Finds the open agreements whose price may differ under the new configuration.  May include agreements whose
+     * price turns out not to change, but never leaves out one that does.
+     * @param index Open agreements to search
+     * @return Each affected agreement once
+     */
+    List<OpenAgreement> findAffected(OpenAgreementIndex index);
+
+    /**
+     * Checks the new configuration is the one the agreement manager will reprice with.  A manager with a QuoteCache
+     * is always rejected, since the cache may still hold charges worked out under the old configuration, and so is a
+     * manager with DemandPricing, since live utilization has moved on since the agreements were priced and already
+     * counts the reserved agreements being repriced.
+     * @param agreementManager Agreement manager that will reprice the affected agreements
+     * @throws IllegalStateException if the manager wouldn't price with the new configuration
+     */
+    default void checkInstalled(AgreementManager agreementManager) {
+        if (agreementManager.getQuoteCache() != null) {
+            throw new IllegalStateException("Agreements can't be repriced with a quote cache, which may hold charges from before the change.");
+        }
+        if (agreementManager.getDemandPricing() != null) {
+            throw new IllegalStateException("Agreements can't be repriced with demand pricing, which reads utilization from after they were priced.");
+        }
+    }
+}
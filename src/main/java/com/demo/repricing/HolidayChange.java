@@ -0,0 +1,105 @@
+package com.demo.repricing;
+
+import com.demo.AgreementManager;
+import com.demo.ExclusionManager;
+import com.demo.datatypes.ToolType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Static record representing a change to the holiday calendar, such as a new one-off holiday or a changed rule.
+ * The days whose holiday status differs are found by comparing the two calendars over the days the open agreements
+ * charge for.  An agreement is affected only if one of those days falls in its rental period and the change flips
+ * whether that day is charged for its tool type, so tool types that charge for holidays are never repriced.
+ * @param before Exclusion manager agreements were priced with
+ * @param after Exclusion manager holding the new calendar, which the repricing AgreementManager must use
+ */
+public record HolidayChange(ExclusionManager before, ExclusionManager after) implements ConfigChange {
+    @Override
+    public void checkInstalled(AgreementManager agreementManager) {
+        ConfigChange.super.checkInstalled(agreementManager);
+        if (agreementManager.getExclusionManager() != this.after) {
+            throw new IllegalStateException("Agreements must be repriced with an agreement manager that uses the new exclusion manager.");
+        }
+    }
+
+    @Override
+    public List<OpenAgreement> findAffected(OpenAgreementIndex index) {
+        var changedDays = this.findChangedDays(index.getFirstCoveredDay(), index.getLastCoveredDay());
+        var affected = new ArrayList<OpenAgreement>();
+
+        if (changedDays.length == 0) {
+            return affected;
+        }
+
+        for (var toolType : index.getToolTypes()) {
+            var runStart = 0;
+            for (int i = 1; i <= changedDays.length; i++) {
+                if (i < changedDays.length && changedDays[i] == changedDays[i - 1] + 1) {
+                    continue;
+                }
+                for (var candidate : index.findCovering(toolType, changedDays[runStart], changedDays[i - 1])) {
+                    if (this.isAffected(candidate, changedDays, runStart, i - 1)) {
+                        affected.add(candidate);
+                    }
+                }
+                runStart = i;
+            }
+        }
+        return affected;
+    }
+
+    /**
+     * Private helper function that compares the two calendars one day at a time
+     * @param firstEpochDay First day to compare
+     * @param lastEpochDay Last day to compare, inclusive
+     * @return Days whose holiday status differs, in ascending order
+     */
+    private long[] findChangedDays(long firstEpochDay, long lastEpochDay) {
+        var beforeCalendar = this.before.getCalendarIndex();
+        var afterCalendar = this.after.getCalendarIndex();
+        var changed = new long[16];
+        var count = 0;
+
+        for (long day = firstEpochDay; day <= lastEpochDay; day++) {
+            if (beforeCalendar.isHoliday(day) != afterCalendar.isHoliday(day)) {
+                if (count == changed.length) {
+                    changed = Arrays.copyOf(changed, count * 2);
+                }
+                changed[count++] = day;
+            }
+        }
+        return Arrays.copyOf(changed, count);
+    }
+
+    /**
+     * Private helper function that determines if an agreement is affected, reporting it only from the run of
+     * consecutive changed days holding its first day whose charge status flipped, so it is reported once
+     * @param candidate Agreement covering at least one day of the run
+     * @param changedDays Every changed day, in ascending order
+     * @param runStart Index of the first day of the run the candidate was found for
+     * @param runEnd Index of the last day of the run
+     * @return TRUE if the candidate should be reported for this run
+     */
+    private boolean isAffected(OpenAgreement candidate, long[] changedDays, int runStart, int runEnd) {
+        var agreement = candidate.agreement();
+        var toolType = agreement.selectedTool().type();
+        var firstDay = agreement.checkoutDate().toEpochDay() + 1;
+        var lastDay = firstDay + agreement.rentalDays() - 1;
+        var first = Arrays.binarySearch(changedDays, firstDay);
+        first = first >= 0 ? first : -first - 1;
+
+        for (int i = first; i < changedDays.length && changedDays[i] <= lastDay; i++) {
+            if (this.chargeFlipped(toolType, changedDays[i])) {
+                return i >= runStart && i <= runEnd;
+            }
+        }
+        return false;
+    }
+
+    private boolean chargeFlipped(ToolType toolType, long epochDay) {
+        return this.before.isChargeDay(toolType, epochDay) != this.after.isChargeDay(toolType, epochDay);
+    }
+}
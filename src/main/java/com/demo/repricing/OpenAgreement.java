@@ -0,0 +1,11 @@
+package com.demo.repricing;
+
+import com.demo.datatypes.RentalAgreement;
+
+/**
+ * Static record representing an agreement held in an OpenAgreementIndex
+ * @param id Caller's identifier for the agreement, such as its journal sequence number
+ * @param agreement Agreement as it was last priced
+ */
+public record OpenAgreement(long id, RentalAgreement agreement) {
+}
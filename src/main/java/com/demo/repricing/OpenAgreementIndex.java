@@ -0,0 +1,166 @@
+package com.demo.repricing;
+
+import com.demo.datatypes.RentalAgreement;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Index of open agreements by tool type and by the days they charge for, from the day after checkout through the due
+ * date.  Each tool type keeps its agreements in buckets of 32 days, and an agreement is listed in every bucket its
+ * days touch, so finding the agreements that cover a date range only visits the buckets for that range.  A query
+ * reports each agreement once, from the first bucket where it overlaps the range, so no duplicate check is needed.
+ * <p>
+ * Removed agreements are dropped from their buckets lazily, once a bucket is mostly removed entries.  The index is
+ * guarded by its own monitor, so it can be shared between threads.
+ */
+public class OpenAgreementIndex {
+    private static final int BUCKET_BITS = 5;
+
+    private final HashMap<Long, Entry> entries = new HashMap<>();
+    private final HashMap<String, TreeMap<Long, Bucket>> bucketsByToolType = new HashMap<>();
+    private long firstCoveredDay = Long.MAX_VALUE;
+    private long lastCoveredDay = Long.MIN_VALUE;
+
+    /**
+     * Adds an open agreement, replacing any agreement already held under the same id
+     * @param id Caller's identifier for the agreement
+     * @param agreement Agreement as it was priced
+     */
+    public synchronized void add(long id, RentalAgreement agreement) {
+        this.remove(id);
+
+        var checkoutEpochDay = agreement.checkoutDate().toEpochDay();
+        var entry = new Entry(id, agreement, checkoutEpochDay + 1, checkoutEpochDay + agreement.rentalDays());
+        var buckets = this.bucketsByToolType.computeIfAbsent(agreement.selectedTool().type().label(), label -> new TreeMap<>());
+
+        for (long bucket = bucketOf(entry.firstDay); bucket <= bucketOf(entry.lastDay); bucket++) {
+            buckets.computeIfAbsent(bucket, key -> new Bucket()).entries.add(entry);
+        }
+        this.entries.put(id, entry);
+        this.firstCoveredDay = Math.min(this.firstCoveredDay, entry.firstDay);
+        this.lastCoveredDay = Math.max(this.lastCoveredDay, entry.lastDay);
+    }
+
+    /**
+     * Removes an agreement, for example once the tool has been returned
+     * @param id Identifier the agreement was added with
+     * @return Removed agreement, or NULL if no open agreement has the id
+     */
+    public synchronized RentalAgreement remove(long id) {
+        var entry = this.entries.remove(id);
+        if (entry == null) {
+            return null;
+        }
+
+        entry.open = false;
+        var buckets = this.bucketsByToolType.get(entry.agreement.selectedTool().type().label());
+        for (long key = bucketOf(entry.firstDay); key <= bucketOf(entry.lastDay); key++) {
+            var bucket = buckets.get(key);
+            if (++bucket.removed * 2 > bucket.entries.size()) {
+                bucket.entries.removeIf(candidate -> !candidate.open);
+                bucket.removed = 0;
+                if (bucket.entries.isEmpty()) {
+                    buckets.remove(key);
+                }
+            }
+        }
+        return entry.agreement;
+    }
+
+    /**
+     * @param id Identifier the agreement was added with
+     * @return Open agreement, or NULL if no open agreement has the id
+     */
+    public synchronized RentalAgreement get(long id) {
+        var entry = this.entries.get(id);
+        return entry == null ? null : entry.agreement;
+    }
+
+    public synchronized int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * @return Labels of the tool types that have had open agreements
+     */
+    public synchronized Set<String> getToolTypes() {
+        return Set.copyOf(this.bucketsByToolType.keySet());
+    }
+
+    /**
+     * @return Earliest charged day of any agreement added, as a count of days since 1970-01-01, or Long.MAX_VALUE
+     * if nothing has been added
+     */
+    public synchronized long getFirstCoveredDay() {
+        return this.firstCoveredDay;
+    }
+
+    /**
+     * @return Latest charged day of any agreement added, as a count of days since 1970-01-01, or Long.MIN_VALUE
+     * if nothing has been added
+     */
+    public synchronized long getLastCoveredDay() {
+        return this.lastCoveredDay;
+    }
+
+    /**
+     * Finds the open agreements of a tool type that charge for any day in a range
+     * @param toolType Label of the tool type
+     * @param firstEpochDay First day of the range, as a count of days since 1970-01-01
+     * @param lastEpochDay Last day of the range, inclusive
+     * @return Each matching agreement once, in no particular order
+     */
+    public synchronized List<OpenAgreement> findCovering(String toolType, long firstEpochDay, long lastEpochDay) {
+        var results = new ArrayList<OpenAgreement>();
+        var buckets = this.bucketsByToolType.get(toolType);
+        if (buckets == null || lastEpochDay < firstEpochDay) {
+            return results;
+        }
+
+        for (var bucket : buckets.subMap(bucketOf(firstEpochDay), true, bucketOf(lastEpochDay), true).entrySet()) {
+            for (var entry : bucket.getValue().entries) {
+                if (entry.open && entry.firstDay <= lastEpochDay && entry.lastDay >= firstEpochDay
+                        && bucketOf(Math.max(entry.firstDay, firstEpochDay)) == bucket.getKey()) {
+                    results.add(new OpenAgreement(entry.id, entry.agreement));
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * @param toolType Label of the tool type
+     * @return Every open agreement of the tool type, in no particular order
+     */
+    public List<OpenAgreement> findAll(String toolType) {
+        return this.findCovering(toolType, Long.MIN_VALUE >> 1, Long.MAX_VALUE >> 1);
+    }
+
+    private static long bucketOf(long epochDay) {
+        return epochDay >> BUCKET_BITS;
+    }
+
+    private static final class Entry {
+        private final long id;
+        private final RentalAgreement agreement;
+        private final long firstDay;
+        private final long lastDay;
+        private boolean open = true;
+
+        private Entry(long id, RentalAgreement agreement, long firstDay, long lastDay) {
+            this.id = id;
+            this.agreement = agreement;
+            this.firstDay = firstDay;
+            this.lastDay = lastDay;
+        }
+    }
+
+    private static final class Bucket {
+        private final List<Entry> entries = new ArrayList<>();
+        private int removed;
+    }
+}
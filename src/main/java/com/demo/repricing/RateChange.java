@@ -0,0 +1,49 @@
+package com.demo.repricing;
+
+import com.demo.AgreementManager;
+import com.demo.ToolCatalog;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Static record representing a change to the tool catalog, such as a new daily charge for a tool type.  Only open
+ * agreements for tools whose entry changed are affected, and they are found through the tool types those tools had.
+ * AgreementManager prices from the shared catalog, so the new catalog must be installed with
+ * ToolCatalog.setInstance() before repricing.
+ * @param before Catalog agreements were priced with
+ * @param after New catalog
+ */
+public record RateChange(ToolCatalog before, ToolCatalog after) implements ConfigChange {
+    @Override
+    public List<OpenAgreement> findAffected(OpenAgreementIndex index) {
+        var changedCodes = new HashSet<String>();
+        var toolTypes = new HashSet<String>();
+        var affected = new ArrayList<OpenAgreement>();
+
+        for (var tool : this.before.getTools()) {
+            if (!tool.equals(this.after.getTool(tool.code()))) {
+                changedCodes.add(tool.code());
+                toolTypes.add(tool.type().label());
+            }
+        }
+
+        for (var toolType : toolTypes) {
+            for (var candidate : index.findAll(toolType)) {
+                if (changedCodes.contains(candidate.agreement().selectedTool().code())) {
+                    affected.add(candidate);
+                }
+            }
+        }
+        return affected;
+    }
+
+    @Override
+    public void checkInstalled(AgreementManager agreementManager) {
+        ConfigChange.super.checkInstalled(agreementManager);
+        if (ToolCatalog.getInstance() != this.after) {
+            throw new IllegalStateException("The new tool catalog must be installed with ToolCatalog.setInstance() before repricing.");
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.demo.repricing;
+
+import com.demo.datatypes.RentalAgreement;
+
+import java.math.BigDecimal;
+
+/**
+ * Static record representing one agreement whose price changed
+ * @param id Identifier of the agreement in the OpenAgreementIndex
+ * @param before Agreement as it was priced before the change
+ * @param after Agreement as priced under the new configuration
+ */
+public record RepricedAgreement(long id, RentalAgreement before, RentalAgreement after) {
+    /**
+     * @return New final charge minus the old one, in the agreement's currency
+     */
+    public BigDecimal getFinalChargeDifference() {
+        return this.after.finalCharge().subtract(this.before.finalCharge());
+    }
+}
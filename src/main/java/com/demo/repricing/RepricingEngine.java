@@ -0,0 +1,117 @@
+package com.demo.repricing;
+
+import com.demo.AgreementManager;
+import com.demo.currency.ExchangeRates;
+import com.demo.datatypes.RentalAgreement;
+import com.demo.datatypes.RentalApplication;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.TreeMap;
+
+/**
+ * Reprices only the open agreements a configuration change can affect.  The change finds its candidates through the
+ * OpenAgreementIndex, each candidate is priced again by an AgreementManager using the new configuration, and the
+ * repriced agreements replace the old ones in the index.  Those whose charges changed are listed in the report.
+ * A one day holiday change reprices the agreements covering that day rather than every open agreement.
+ * <p>
+ * Agreements in other currencies are converted again with the exchange rates they were first priced with, not the
+ * shared table, so a rate table swapped in since then isn't reported as a change to the configuration.
+ */
+public class RepricingEngine {
+    private final OpenAgreementIndex index;
+    private final ExchangeRates rates;
+
+    /**
+     * Creates an engine for agreements priced with the exchange rates shared when it is created
+     * @param index Open agreements to keep priced, which is updated as changes are applied
+     */
+    public RepricingEngine(OpenAgreementIndex index) {
+        this(index, ExchangeRates.getInstance());
+    }
+
+    /**
+     * @param index Open agreements to keep priced, which is updated as changes are applied
+     * @param rates Exchange rates the open agreements were priced with
+     */
+    public RepricingEngine(OpenAgreementIndex index, ExchangeRates rates) {
+        this.index = index;
+        this.rates = rates;
+    }
+
+    public OpenAgreementIndex getIndex() {
+        return this.index;
+    }
+
+    public ExchangeRates getRates() {
+        return this.rates;
+    }
+
+    /**
+     * Reprices the agreements affected by a change.  Candidates are priced in parallel on the common fork-join pool.
+     * @param change Configuration change that has been made
+     * @param agreementManager Agreement manager that prices with the new configuration
+     * @return Agreements that changed, along with the number examined and any that could no longer be priced
+     * @throws IllegalStateException if the agreement manager doesn't price with the new configuration, or has a
+     * QuoteCache or DemandPricing
+     */
+    public RepricingReport apply(ConfigChange change, AgreementManager agreementManager) {
+        change.checkInstalled(agreementManager);
+
+        var candidates = change.findAffected(this.index);
+        var repriced = candidates.parallelStream()
+                .map(candidate -> this.reprice(candidate, agreementManager))
+                .toList();
+        var changes = new ArrayList<RepricedAgreement>();
+        var failures = new TreeMap<Long, String>();
+
+        for (int i = 0; i < candidates.size(); i++) {
+            var candidate = candidates.get(i);
+            var outcome = repriced.get(i);
+
+            if (outcome.agreement() == null) {
+                failures.put(candidate.id(), outcome.error());
+            } else if (!outcome.agreement().equals(candidate.agreement())) {
+                if (chargesDiffer(candidate.agreement(), outcome.agreement())) {
+                    changes.add(new RepricedAgreement(candidate.id(), candidate.agreement(), outcome.agreement()));
+                }
+                this.index.add(candidate.id(), outcome.agreement());
+            }
+        }
+
+        changes.sort(Comparator.comparingLong(RepricedAgreement::id));
+        return new RepricingReport(candidates.size(), changes, Collections.unmodifiableSortedMap(failures));
+    }
+
+    /**
+     * Private helper function that prices an agreement again from its original application, with the exchange
+     * rates it was first priced with
+     * @param candidate Agreement to reprice
+     * @param agreementManager Agreement manager that prices with the new configuration
+     * @return Repriced agreement, or the reason it couldn't be priced
+     */
+    private Outcome reprice(OpenAgreement candidate, AgreementManager agreementManager) {
+        var agreement = candidate.agreement();
+        var application = new RentalApplication(agreement.selectedTool().code(), agreement.checkoutDate(),
+                agreement.rentalDays(), agreement.discountPercentage(), agreement.currency());
+        try {
+            return new Outcome(agreementManager.generateRentalAgreement(application, this.rates), null);
+        } catch (RuntimeException e) {
+            return new Outcome(null, e.getMessage() != null ? e.getMessage() : e.toString());
+        }
+    }
+
+    /**
+     * Private helper function that compares the priced fields of two agreements.  An agreement can be replaced
+     * without a price change, for example when it now refers to a rebuilt Tool, and that isn't reported.
+     */
+    private static boolean chargesDiffer(RentalAgreement before, RentalAgreement after) {
+        return before.chargeDays() != after.chargeDays()
+                || before.baseCharge().compareTo(after.baseCharge()) != 0
+                || before.discountAmount().compareTo(after.discountAmount()) != 0
+                || before.finalCharge().compareTo(after.finalCharge()) != 0;
+    }
+
+    private record Outcome(RentalAgreement agreement, String error) { }
+}
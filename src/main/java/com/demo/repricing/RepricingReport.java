@@ -0,0 +1,28 @@
+package com.demo.repricing;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Static record representing the outcome of repricing open agreements after a configuration change
+ * @param examined Number of agreements the change could affect, which were repriced
+ * @param changes Agreements whose price changed, ordered by id
+ * @param failures Reason each agreement that could no longer be priced was rejected, by id.  Those agreements are
+ * left in the index unchanged.
+ */
+public record RepricingReport(int examined, List<RepricedAgreement> changes, Map<Long, String> failures) {
+    /**
+     * @return Total change in final charges for each currency that had a change
+     */
+    public Map<Currency, BigDecimal> getFinalChargeDifferences() {
+        var totals = new TreeMap<Currency, BigDecimal>((a, b) -> a.getCurrencyCode().compareTo(b.getCurrencyCode()));
+
+        for (var change : this.changes) {
+            totals.merge(change.after().currency(), change.getFinalChargeDifference(), BigDecimal::add);
+        }
+        return totals;
+    }
+}
@@ -0,0 +1,20 @@
+package com.demo.returns;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+
+/**
+ * Static record representing one run of the overdue accrual job
+ * @param asOf Date fees were accrued through
+ * @param chunks Number of ledger chunks the run covered
+ * @param resumedChunks Number of chunks an earlier run had finished, restored from the checkpoint rather than accrued
+ *                      again; the counts and fees below leave them out
+ * @param agreementsAccrued Number of overdue agreements that accrued fees in this run
+ * @param chargeDays Number of chargeable overdue days accrued in this run
+ * @param feesAccrued Late fees accrued in this run, in US dollars
+ * @param elapsed Time the run took
+ */
+public record AccrualReport(LocalDate asOf, int chunks, int resumedChunks, long agreementsAccrued, long chargeDays,
+                            BigDecimal feesAccrued, Duration elapsed) {
+}
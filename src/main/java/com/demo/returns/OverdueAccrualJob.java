@@ -0,0 +1,226 @@
+package com.demo.returns;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * Nightly job that accrues late fees on every overdue agreement in an OverdueLedger.  The ledger's chunks are
+ * accrued in parallel on the common fork-join pool.  As each chunk finishes, the state of the slots it accrued is
+ * appended to a state file beside the checkpoint, named after it with a .state suffix, and forced to disk.  Only then
+ * is the chunk's line, giving where its state starts and how many bytes it takes, appended to the checkpoint and
+ * forced to disk, so every chunk the checkpoint lists can be restored even if the ledger was rebuilt after a crash.
+ * A run for the same date that finds the checkpoint restores the chunks it lists from the state file and accrues
+ * only the rest.
+ * <pre>
+ * 2020-07-10, 153     Date being accrued through and the number of chunks in the run
+ * 0, 0, 1048576       One line for each finished chunk, in the order they finished: chunk, state position and length
+ * 2, 1048576, 1048560
+ * </pre>
+ */
+public class OverdueAccrualJob {
+    private final OverdueLedger ledger;
+    private final Path checkpoint;
+    private final Path state;
+
+    /**
+     * @param ledger Ledger of open agreements to accrue
+     * @param checkpoint File that records finished chunks, created if it doesn't exist
+     */
+    public OverdueAccrualJob(OverdueLedger ledger, Path checkpoint) {
+        this.ledger = ledger;
+        this.checkpoint = checkpoint;
+        this.state = checkpoint.resolveSibling(checkpoint.getFileName() + ".state");
+    }
+
+    /**
+     * Accrues late fees through the given date, carrying on the checkpoint if an earlier run for the same date
+     * didn't finish.  A checkpoint for any other date is replaced.
+     * @param asOf Date to accrue through, normally the date of the nightly run
+     * @return Counts and fees for the chunks accrued in this run
+     */
+    public AccrualReport run(LocalDate asOf) {
+        var started = System.nanoTime();
+        var chunks = this.ledger.getChunkCount();
+        var finished = this.readCheckpoint(asOf);
+        var asOfEpochDay = asOf.toEpochDay();
+        var resumed = new LongAdder();
+        var agreements = new LongAdder();
+        var chargeDays = new LongAdder();
+        var feeCents = new LongAdder();
+
+        try (var output = this.openCheckpoint(asOf, chunks, !finished.isEmpty());
+             var state = this.openState(!finished.isEmpty())) {
+            IntStream.range(0, chunks)
+                    .parallel()
+                    .forEach(chunk -> {
+                        if (this.restoreChunk(state, chunk, finished.get(chunk), asOfEpochDay)) {
+                            resumed.increment();
+                            return;
+                        }
+                        var accrued = this.ledger.accrueChunk(chunk, asOfEpochDay, agreements, chargeDays, feeCents);
+                        this.writeChunk(output, state, chunk, accrued);
+                    });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write the accrual checkpoint " + this.checkpoint, e);
+        }
+
+        return new AccrualReport(asOf, chunks, resumed.intValue(), agreements.sum(), chargeDays.sum(),
+                BigDecimal.valueOf(feeCents.sum(), 2), Duration.ofNanos(System.nanoTime() - started));
+    }
+
+    /**
+     * Private helper function that reads the chunks already finished for a date.  A missing checkpoint, or one for a
+     * different date, means nothing has finished.  A line that can't be read, such as one cut short by a crash, is
+     * ignored, so its chunk is accrued again.
+     * @param asOf Date being accrued through
+     * @return Position and length in the state file of each finished chunk's state, by chunk number
+     */
+    private Map<Integer, long[]> readCheckpoint(LocalDate asOf) {
+        var finished = new HashMap<Integer, long[]>();
+        if (!Files.exists(this.checkpoint)) {
+            return finished;
+        }
+
+        try {
+            var lines = Files.readAllLines(this.checkpoint, StandardCharsets.UTF_8);
+            if (lines.isEmpty() || !asOf.equals(parseDate(lines.get(0).split("\\s*,\\s*")[0].trim()))) {
+                return finished;
+            }
+            for (var line : lines.subList(1, lines.size())) {
+                try {
+                    var fields = line.trim().split("\\s*,\\s*");
+                    finished.put(Integer.parseInt(fields[0]), new long[] {Long.parseLong(fields[1]),
+                            Integer.parseInt(fields[2])});
+                } catch (NumberFormatException | IndexOutOfBoundsException e) {
+                    // Partly written line; the chunk will be accrued again
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read the accrual checkpoint " + this.checkpoint, e);
+        }
+        return finished;
+    }
+
+    /**
+     * Private helper function that opens the checkpoint for appending, starting a new one unless the run is resuming.
+     * When resuming, a partly written last line is ended first so the next chunk goes on a line of its own.
+     * @param asOf Date being accrued through
+     * @param chunks Number of chunks in the run
+     * @param resuming TRUE to keep the chunks already listed
+     * @return Open checkpoint file
+     */
+    private FileChannel openCheckpoint(LocalDate asOf, int chunks, boolean resuming) throws IOException {
+        if (resuming) {
+            var output = FileChannel.open(this.checkpoint, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            var last = ByteBuffer.allocate(1);
+            output.read(last, output.size() - 1);
+            output.position(output.size());
+            if (last.get(0) != '\n') {
+                writeFully(output, ByteBuffer.wrap("\n".getBytes(StandardCharsets.UTF_8)));
+            }
+            return output;
+        }
+
+        var output = FileChannel.open(this.checkpoint, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        writeFully(output, ByteBuffer.wrap((asOf + ", " + chunks + "\n").getBytes(StandardCharsets.UTF_8)));
+        output.force(false);
+        return output;
+    }
+
+    /**
+     * Private helper function that opens the state file for appending, starting a new one unless the run is resuming
+     * @param resuming TRUE to keep the state of the chunks already listed
+     * @return Open state file
+     */
+    private FileChannel openState(boolean resuming) throws IOException {
+        var state = resuming
+                ? FileChannel.open(this.state, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                        StandardOpenOption.WRITE)
+                : FileChannel.open(this.state, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        return state.position(state.size());
+    }
+
+    /**
+     * Private helper function that puts back a finished chunk's state from the state file
+     * @param state Open state file
+     * @param chunk Chunk number
+     * @param location Position and length of the chunk's state, or NULL if the chunk hasn't finished
+     * @param asOfEpochDay Day being accrued through, as a count of days since 1970-01-01
+     * @return TRUE if the chunk was restored, or FALSE if it still needs to be accrued
+     */
+    private boolean restoreChunk(FileChannel state, int chunk, long[] location, long asOfEpochDay) {
+        if (location == null) {
+            return false;
+        }
+
+        try {
+            var accrued = ByteBuffer.allocate(Math.toIntExact(location[1]));
+            while (accrued.hasRemaining()) {
+                if (state.read(accrued, location[0] + accrued.position()) < 0) {
+                    return false;
+                }
+            }
+            this.ledger.restoreChunk(chunk, asOfEpochDay, accrued.flip());
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read the accrual state " + this.state, e);
+        }
+    }
+
+    /**
+     * Private helper function that appends a finished chunk's state to the state file and then its line to the
+     * checkpoint, forcing each to disk
+     */
+    private void writeChunk(FileChannel output, FileChannel state, int chunk, ByteBuffer accrued) {
+        try {
+            synchronized (output) {
+                var position = state.position();
+                var length = accrued.remaining();
+                writeFully(state, accrued);
+                state.force(false);
+                writeFully(output, ByteBuffer.wrap((chunk + ", " + position + ", " + length + "\n")
+                        .getBytes(StandardCharsets.UTF_8)));
+                output.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write the accrual checkpoint " + this.checkpoint, e);
+        }
+    }
+
+    /**
+     * Private helper function that writes the whole of a buffer at a file's current position
+     */
+    private static void writeFully(FileChannel output, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            output.write(buffer);
+        }
+    }
+
+    /**
+     * Private helper function that reads the date on the first line of a checkpoint
+     * @return Date, or NULL if it can't be read
+     */
+    private static LocalDate parseDate(String text) {
+        try {
+            return LocalDate.parse(text);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
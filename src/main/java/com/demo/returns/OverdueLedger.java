@@ -0,0 +1,304 @@
+package com.demo.returns;
+
+import com.demo.ExclusionManager;
+import com.demo.datatypes.RentalAgreement;
+import com.demo.datatypes.ToolType;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ledger of rented tools waiting to come back, sized for millions of agreements.  Each agreement gets a slot number
+ * when it is added, and its fields are kept in primitive arrays split into fixed size chunks, so the ledger holds no
+ * object per agreement and the nightly accrual job can work through it one chunk at a time.
+ * Overdue days are charged at the tool type's daily charge using the same weekend and holiday rules as a rental,
+ * counted from the day after the due date.  Every slot remembers the day its fees have been accrued through, so
+ * accruing the same day twice charges nothing the second time.  Each chunk is locked while it is changed, so returns
+ * can be recorded while the accrual job runs.
+ */
+public class OverdueLedger {
+    static final int CHUNK_SIZE = 1 << 16;
+    static final int ACCRUED_SLOT_BYTES = 16;
+
+    private final ExclusionManager exclusionManager;
+    private final List<ToolType> toolTypes = new CopyOnWriteArrayList<>();
+    private volatile Chunk[] chunks = new Chunk[0];
+    private volatile int size;
+
+    /**
+     * @param exclusionManager Calendar used to decide which overdue days are chargeable
+     */
+    public OverdueLedger(ExclusionManager exclusionManager) {
+        this.exclusionManager = exclusionManager;
+    }
+
+    public ExclusionManager getExclusionManager() {
+        return this.exclusionManager;
+    }
+
+    /**
+     * Adds an open agreement to the ledger
+     * @param agreementId Identifier of the agreement, reported back when the tool is returned
+     * @param agreement Agreement whose tool hasn't come back yet
+     * @return Slot number used to record the return
+     */
+    public synchronized int add(long agreementId, RentalAgreement agreement) {
+        var type = this.toolTypes.indexOf(agreement.selectedTool().type());
+        if (type < 0) {
+            if (this.toolTypes.size() > Short.MAX_VALUE) {
+                throw new IllegalStateException("The overdue ledger can't hold more than " + Short.MAX_VALUE + " tool types.");
+            }
+            type = this.toolTypes.size();
+            this.toolTypes.add(agreement.selectedTool().type());
+        }
+
+        var slot = this.size;
+        if (slot == Integer.MAX_VALUE) {
+            throw new IllegalStateException("The overdue ledger is full.");
+        }
+        if (slot / CHUNK_SIZE == this.chunks.length) {
+            var grown = Arrays.copyOf(this.chunks, this.chunks.length + 1);
+            grown[this.chunks.length] = new Chunk();
+            this.chunks = grown;
+        }
+
+        var chunk = this.chunks[slot / CHUNK_SIZE];
+        var offset = slot % CHUNK_SIZE;
+        var dueEpochDay = Math.toIntExact(agreement.dueDate().toEpochDay());
+        synchronized (chunk) {
+            chunk.agreementIds[offset] = agreementId;
+            chunk.toolTypes[offset] = (short) type;
+            chunk.dueEpochDays[offset] = dueEpochDay;
+            chunk.accruedThroughEpochDays[offset] = dueEpochDay;
+            chunk.count = offset + 1;
+        }
+        this.size = slot + 1;
+        return slot;
+    }
+
+    /**
+     * Records a tool coming back and closes its slot.  The late fee is calculated from the due date to the return
+     * date, replacing whatever the accrual job had accrued, so a backdated return is charged correctly.
+     * @param slot Slot number returned by add()
+     * @param returnDate Date the tool came back
+     * @return Overdue days and late fee for the return
+     * @throws IllegalStateException if the return has already been recorded
+     */
+    public ReturnResult recordReturn(int slot, LocalDate returnDate) {
+        if (returnDate == null) {
+            throw new IllegalArgumentException("Return date is required.");
+        }
+
+        var chunk = this.getChunk(slot);
+        var offset = slot % CHUNK_SIZE;
+        synchronized (chunk) {
+            if (chunk.returned[offset]) {
+                throw new IllegalStateException("The return for agreement " + chunk.agreementIds[offset] + " has already been recorded.");
+            }
+
+            var dueEpochDay = chunk.dueEpochDays[offset];
+            var overdueDays = (int) Math.max(0, returnDate.toEpochDay() - dueEpochDay);
+            var type = this.toolTypes.get(chunk.toolTypes[offset]);
+            var chargeDays = this.countChargeDays(type, dueEpochDay, overdueDays);
+
+            chunk.overdueChargeDays[offset] = chargeDays;
+            chunk.lateFeeCents[offset] = chargeDays * type.dailyChargeCents();
+            chunk.accruedThroughEpochDays[offset] = dueEpochDay + overdueDays;
+            chunk.returned[offset] = true;
+
+            return new ReturnResult(chunk.agreementIds[offset], LocalDate.ofEpochDay(dueEpochDay), returnDate,
+                    overdueDays, chargeDays, BigDecimal.valueOf(chunk.lateFeeCents[offset], 2));
+        }
+    }
+
+    /**
+     * @return Number of slots in the ledger, including those whose tools have been returned
+     */
+    public int size() {
+        return this.size;
+    }
+
+    public long getAgreementId(int slot) {
+        return this.getChunk(slot).agreementIds[slot % CHUNK_SIZE];
+    }
+
+    public LocalDate getDueDate(int slot) {
+        return LocalDate.ofEpochDay(this.getChunk(slot).dueEpochDays[slot % CHUNK_SIZE]);
+    }
+
+    /**
+     * @return Date the slot's late fee has been accrued through, which is the due date until it becomes overdue
+     */
+    public LocalDate getAccruedThrough(int slot) {
+        var chunk = this.getChunk(slot);
+        synchronized (chunk) {
+            return LocalDate.ofEpochDay(chunk.accruedThroughEpochDays[slot % CHUNK_SIZE]);
+        }
+    }
+
+    public boolean isReturned(int slot) {
+        var chunk = this.getChunk(slot);
+        synchronized (chunk) {
+            return chunk.returned[slot % CHUNK_SIZE];
+        }
+    }
+
+    public int getOverdueChargeDays(int slot) {
+        var chunk = this.getChunk(slot);
+        synchronized (chunk) {
+            return chunk.overdueChargeDays[slot % CHUNK_SIZE];
+        }
+    }
+
+    /**
+     * @return Late fee accrued so far for the slot, in cents
+     */
+    public long getLateFeeCents(int slot) {
+        var chunk = this.getChunk(slot);
+        synchronized (chunk) {
+            return chunk.lateFeeCents[slot % CHUNK_SIZE];
+        }
+    }
+
+    /**
+     * @return Late fees accrued across every slot, returned or not, in cents
+     */
+    public long getTotalLateFeeCents() {
+        var total = 0L;
+        for (var chunk : this.chunks) {
+            synchronized (chunk) {
+                for (int offset = 0; offset < chunk.count; offset++) {
+                    total += chunk.lateFeeCents[offset];
+                }
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @return Number of chunks currently in the ledger
+     */
+    int getChunkCount() {
+        return this.chunks.length;
+    }
+
+    /**
+     * Accrues late fees through the given day for every open, overdue slot in one chunk.  Slots already accrued
+     * through that day are left alone, so a chunk can safely be accrued again after an interrupted run.
+     * @param chunkIndex Chunk to accrue
+     * @param asOfEpochDay Day to accrue through, as a count of days since 1970-01-01
+     * @param agreements Counter for the number of slots that accrued fees
+     * @param chargeDays Counter for the number of chargeable days accrued
+     * @param feeCents Counter for the fees accrued, in cents
+     * @return Accrued state of the slots that accrued fees, in the form restoreChunk() reads
+     */
+    ByteBuffer accrueChunk(int chunkIndex, long asOfEpochDay, LongAdder agreements, LongAdder chargeDays,
+                           LongAdder feeCents) {
+        var chunk = this.chunks[chunkIndex];
+        var chunkAgreements = 0L;
+        var chunkChargeDays = 0L;
+        var chunkFeeCents = 0L;
+        ByteBuffer accrued;
+
+        synchronized (chunk) {
+            accrued = ByteBuffer.allocate(chunk.count * ACCRUED_SLOT_BYTES);
+            for (int offset = 0; offset < chunk.count; offset++) {
+                var accruedThrough = chunk.accruedThroughEpochDays[offset];
+                if (accruedThrough >= asOfEpochDay || chunk.returned[offset]) {
+                    continue;
+                }
+
+                var type = this.toolTypes.get(chunk.toolTypes[offset]);
+                var days = this.countChargeDays(type, accruedThrough, (int) (asOfEpochDay - accruedThrough));
+                var fee = days * type.dailyChargeCents();
+
+                chunk.overdueChargeDays[offset] += days;
+                chunk.lateFeeCents[offset] += fee;
+                chunk.accruedThroughEpochDays[offset] = (int) asOfEpochDay;
+                accrued.putInt(offset).putInt(chunk.overdueChargeDays[offset]).putLong(chunk.lateFeeCents[offset]);
+                chunkAgreements++;
+                chunkChargeDays += days;
+                chunkFeeCents += fee;
+            }
+        }
+
+        agreements.add(chunkAgreements);
+        chargeDays.add(chunkChargeDays);
+        feeCents.add(chunkFeeCents);
+        return accrued.flip();
+    }
+
+    /**
+     * Puts back the accrued state that accrueChunk() returned for a chunk, such as after the ledger was rebuilt
+     * following an interrupted run.  Slots that have since been returned or accrued through the day are left alone,
+     * as are slots the ledger no longer holds.
+     * @param chunkIndex Chunk the state was accrued for
+     * @param asOfEpochDay Day the state was accrued through, as a count of days since 1970-01-01
+     * @param accrued State returned by accrueChunk()
+     */
+    void restoreChunk(int chunkIndex, long asOfEpochDay, ByteBuffer accrued) {
+        if (chunkIndex >= this.chunks.length) {
+            return;
+        }
+
+        var chunk = this.chunks[chunkIndex];
+        synchronized (chunk) {
+            while (accrued.remaining() >= ACCRUED_SLOT_BYTES) {
+                var offset = accrued.getInt();
+                var chargeDays = accrued.getInt();
+                var feeCents = accrued.getLong();
+                if (offset < 0 || offset >= chunk.count || chunk.returned[offset]
+                        || chunk.accruedThroughEpochDays[offset] >= asOfEpochDay) {
+                    continue;
+                }
+
+                chunk.overdueChargeDays[offset] = chargeDays;
+                chunk.lateFeeCents[offset] = feeCents;
+                chunk.accruedThroughEpochDays[offset] = (int) asOfEpochDay;
+            }
+        }
+    }
+
+    /**
+     * Private helper function that counts the chargeable days after a given day, using the rental charge rules
+     * @param toolType Tool type being charged
+     * @param epochDay Day before the first day to count, as a count of days since 1970-01-01
+     * @param days Number of days to count
+     * @return Number of chargeable days
+     */
+    private int countChargeDays(ToolType toolType, long epochDay, int days) {
+        if (days == 0) {
+            return 0;
+        }
+        return days - this.exclusionManager.countExclusionDays(toolType, epochDay + 1, days);
+    }
+
+    /**
+     * Private helper function that finds the chunk holding a slot
+     */
+    private Chunk getChunk(int slot) {
+        if (slot < 0 || slot >= this.size) {
+            throw new IllegalArgumentException("Slot " + slot + " is not in the overdue ledger.");
+        }
+        return this.chunks[slot / CHUNK_SIZE];
+    }
+
+    /**
+     * Fixed size block of slots, stored one primitive array per field
+     */
+    private static final class Chunk {
+        private final long[] agreementIds = new long[CHUNK_SIZE];
+        private final short[] toolTypes = new short[CHUNK_SIZE];
+        private final int[] dueEpochDays = new int[CHUNK_SIZE];
+        private final int[] accruedThroughEpochDays = new int[CHUNK_SIZE];
+        private final int[] overdueChargeDays = new int[CHUNK_SIZE];
+        private final long[] lateFeeCents = new long[CHUNK_SIZE];
+        private final boolean[] returned = new boolean[CHUNK_SIZE];
+        private int count;
+    }
+}
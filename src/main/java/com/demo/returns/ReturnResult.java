@@ -0,0 +1,20 @@
+package com.demo.returns;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Static record representing a tool coming back, along with any late fee owed for keeping it past its due date
+ * @param agreementId Identifier of the agreement the tool was rented on
+ * @param dueDate Date the tool was due back
+ * @param returnDate Date the tool came back
+ * @param overdueDays Number of days after the due date up to and including the return date, or 0 if it wasn't late
+ * @param overdueChargeDays Number of overdue days that are chargeable for the tool type
+ * @param lateFee Daily charge for each chargeable overdue day, in US dollars
+ */
+public record ReturnResult(long agreementId, LocalDate dueDate, LocalDate returnDate, int overdueDays,
+                           int overdueChargeDays, BigDecimal lateFee) {
+    public boolean isLate() {
+        return this.overdueDays > 0;
+    }
+}
@@ -0,0 +1,119 @@
+package com.demo;
+
+import com.demo.datatypes.Agreement;
+import com.demo.datatypes.Application;
+import com.demo.datatypes.ChargeResult;
+import com.demo.datatypes.RentalDays;
+import com.demo.datatypes.Tool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks for the agreement pricing hot path.  Each benchmark runs for every combination of rental length
+ * (1 day to 3 years) and checkout date, where the checkout dates are chosen so that short rentals either span the
+ * Fourth of July, span Labor Day, or span no holiday at all.
+ * Run with the benchmark profile described in pom.xml; the profile adds the GC profiler for allocation rates.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AgreementManagerBenchmark {
+    @Param({"1", "5", "30", "365", "1095"})
+    int rentalDays;
+
+    /**
+     * Charging starts the day after checkout, so at every rental length 2015-07-02 spans the Fourth of July
+     * (observed 7/3) and 2015-09-06 spans Labor Day (9/7), while 2015-02-02 spans no holiday for rentals under five
+     * months
+     */
+    @Param({"2015-07-02", "2015-09-06", "2015-02-02"})
+    String checkoutDate;
+
+    private AgreementManager agreementManager;
+    private ExclusionManager exclusionManager;
+    private ToolData toolData;
+    private Application application;
+    private LocalDate startingChargeDate;
+    private BigDecimal dailyCharge;
+    private long dailyChargeCents;
+    private int chargeDays;
+    private ChargeResult chargeResult;
+
+    @Setup
+    public void setup() {
+        this.agreementManager = new AgreementManager();
+        this.exclusionManager = new ExclusionManager();
+        this.toolData = new ToolData();
+
+        this.application = new Application();
+        this.application.setToolCode("JAKR");
+        this.application.setCheckoutDate(LocalDate.parse(this.checkoutDate));
+        this.application.setRentalDays(this.rentalDays);
+        this.application.setDiscountPercentage(15);
+
+        var agreement = this.agreementManager.generateAgreement(this.application);
+        this.startingChargeDate = agreement.getCheckoutDate().plusDays(1);
+        this.dailyCharge = agreement.getSelectedTool().type().dailyCharge();
+        this.dailyChargeCents = agreement.getSelectedTool().type().dailyChargeCents();
+        this.chargeDays = agreement.getChargeDays();
+        this.chargeResult = new ChargeResult();
+    }
+
+    @Benchmark
+    public Agreement generateAgreement() {
+        return this.agreementManager.generateAgreement(this.application);
+    }
+
+    @Benchmark
+    public ChargeResult calculateCharges() {
+        this.agreementManager.calculateCharges(this.application.getToolCode(), this.application.getCheckoutDate(),
+                this.rentalDays, this.application.getDiscountPercentage(), this.chargeResult);
+        return this.chargeResult;
+    }
+
+    @Benchmark
+    public Collection<RentalDays> getRentalDays() {
+        return this.exclusionManager.getRentalDays(this.startingChargeDate, this.rentalDays);
+    }
+
+    @Benchmark
+    public Tool getTool() {
+        return this.toolData.getTool(this.application.getToolCode());
+    }
+
+    @Benchmark
+    public long chargeMath() {
+        var baseCharge = this.agreementManager.calculateBaseCharge(this.chargeDays, this.dailyChargeCents);
+        var discountAmount = this.agreementManager.calculateDiscountAmount(baseCharge, this.application.getDiscountPercentage());
+        return this.agreementManager.calculateFinalCharge(baseCharge, discountAmount);
+    }
+
+    /**
+     * The BigDecimal charge math used before pricing moved to whole cents, kept as a baseline for chargeMath()
+     */
+    @Benchmark
+    public BigDecimal bigDecimalChargeMath() {
+        var baseCharge = this.dailyCharge.multiply(BigDecimal.valueOf(this.chargeDays)).setScale(2, RoundingMode.HALF_UP);
+        var discountAmount = baseCharge.multiply(BigDecimal.valueOf(this.application.getDiscountPercentage()))
+                .divide(BigDecimal.valueOf(100), RoundingMode.HALF_UP);
+        return baseCharge.subtract(discountAmount);
+    }
+}
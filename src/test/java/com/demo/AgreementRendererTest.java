@@ -0,0 +1,139 @@
+package com.demo;
+
+import com.demo.datatypes.Application;
+import com.demo.datatypes.RentalAgreement;
+import com.demo.datatypes.Tool;
+import com.demo.datatypes.ToolType;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.text.NumberFormat;
+import java.time.LocalDate;
+import java.util.Currency;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AgreementRendererTest {
+    private final AgreementRenderer renderer = new AgreementRenderer();
+    private final AgreementManager agreementManager = new AgreementManager();
+
+    /**
+     * The text layout must match the console layout line for line, including currency formatting
+     */
+    @Test
+    void textMatchesConsoleLayout() {
+        var agreement = this.agreementManager.generateAgreement(this.generateApplication("LADW", LocalDate.of(2020, 7, 2), 3, 10));
+        var currency = NumberFormat.getCurrencyInstance();
+        currency.setCurrency(Currency.getInstance("USD"));
+        var output = new StringBuilder();
+
+        this.renderer.write(agreement, AgreementRenderer.Format.TEXT, output);
+
+        assertEquals("Tool code: LADW\n"
+                + "Tool type: Ladder\n"
+                + "Tool brand: Werner\n"
+                + "Rental days: 3\n"
+                + "Checkout date: 07/02/20\n"
+                + "Due date: 07/05/20\n"
+                + "Daily rental charge: " + currency.format(1.99) + "\n"
+                + "Charge days: 2\n"
+                + "Pre-discount charge: " + currency.format(3.98) + "\n"
+                + "Discount percent: 10%\n"
+                + "Discount amount: " + currency.format(0.40) + "\n"
+                + "Final charge: " + currency.format(3.58) + "\n", output.toString());
+    }
+
+    /**
+     * A batch written to a channel must hold one JSON object per agreement, in order
+     */
+    @Test
+    void jsonBatchWritesOneObjectPerLine() {
+        var agreements = List.of(
+                this.agreementManager.generateAgreement(this.generateApplication("LADW", LocalDate.of(2020, 7, 2), 3, 10)),
+                this.agreementManager.generateAgreement(this.generateApplication("JAKR", LocalDate.of(2015, 7, 2), 9, 0)));
+        var bytes = new ByteArrayOutputStream();
+
+        this.renderer.write(agreements, AgreementRenderer.Format.JSON, Channels.newChannel(bytes));
+        var lines = bytes.toString(StandardCharsets.UTF_8).split("\n");
+
+        assertAll(
+                () -> assertEquals(2, lines.length),
+                () -> assertTrue(lines[0].startsWith("{\"toolCode\":\"LADW\",\"toolType\":\"Ladder\"")),
+                () -> assertTrue(lines[0].endsWith("\"discountAmount\":0.40,\"finalCharge\":3.58}")),
+                () -> assertTrue(lines[1].contains("\"dueDate\":\"2015-07-11\",\"dailyCharge\":2.99,\"chargeDays\":5,\"currency\":\"USD\""))
+        );
+    }
+
+    /**
+     * Quotes, backslashes and control characters in tool fields must be escaped so every JSON line stays valid
+     */
+    @Test
+    void jsonEscapesToolFields() {
+        var type = new ToolType("Saw\tBlade", new BigDecimal("1.00"), true, true, true);
+        var agreement = RentalAgreement.builder()
+                .selectedTool(new Tool("Q\"1", "Acme \\ \"Pro\"\n\u0001", type))
+                .rentalDays(1).checkoutDate(LocalDate.of(2020, 7, 2)).chargeDays(1)
+                .baseCharge(new BigDecimal("1.00")).discountAmount(new BigDecimal("0.00")).finalCharge(new BigDecimal("1.00"))
+                .build().toAgreement();
+        var output = new StringBuilder();
+
+        this.renderer.write(agreement, AgreementRenderer.Format.JSON, output);
+
+        assertTrue(output.toString().startsWith("{\"toolCode\":\"Q\\\"1\",\"toolType\":\"Saw\\tBlade\","
+                + "\"toolBrand\":\"Acme \\\\ \\\"Pro\\\"\\n\\u0001\",\"rentalDays\":1,"), output.toString());
+    }
+
+    /**
+     * Binary records must use the documented layout, holding the whole tool
+     */
+    @Test
+    void binaryRecordsUseFixedLayout() {
+        var agreement = this.agreementManager.generateAgreement(this.generateApplication("CHNS", LocalDate.of(2015, 7, 2), 5, 25));
+        var bytes = new ByteArrayOutputStream();
+
+        this.renderer.writeBinary(List.of(agreement, agreement), Channels.newChannel(bytes));
+        var buffer = ByteBuffer.wrap(bytes.toByteArray());
+
+        assertEquals(2 * (AgreementRenderer.BINARY_FIXED_SIZE + 4 + 5 + 8), buffer.remaining());
+        assertAll(
+                () -> assertEquals("CHNS", readString(buffer)),
+                () -> assertEquals("Stihl", readString(buffer)),
+                () -> assertEquals("Chainsaw", readString(buffer)),
+                () -> assertEquals(1 | 4, buffer.get()),
+                () -> assertEquals(LocalDate.of(2015, 7, 2).toEpochDay(), buffer.getInt()),
+                () -> assertEquals(5, buffer.getInt()),
+                () -> assertEquals(3, buffer.getInt()),
+                () -> assertEquals(25, buffer.get()),
+                () -> assertEquals('U', buffer.get()),
+                () -> assertEquals('S', buffer.get()),
+                () -> assertEquals('D', buffer.get()),
+                () -> assertEquals(149, buffer.getLong()),
+                () -> assertEquals(149, buffer.getLong()),
+                () -> assertEquals(447, buffer.getLong()),
+                () -> assertEquals(112, buffer.getLong()),
+                () -> assertEquals(335, buffer.getLong())
+        );
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        var bytes = new byte[buffer.getShort()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    Application generateApplication(String toolCode, LocalDate checkoutDate, int rentalDays, int discountPercentage) {
+        var application = new Application();
+
+        application.setToolCode(toolCode);
+        application.setCheckoutDate(checkoutDate);
+        application.setRentalDays(rentalDays);
+        application.setDiscountPercentage(discountPercentage);
+
+        return application;
+    }
+}
@@ -1,10 +1,18 @@
 package com.demo;
 
 import com.demo.datatypes.Application;
+import com.demo.datatypes.CheckoutWindow;
+import com.demo.datatypes.RentalAgreement;
+import com.demo.datatypes.RentalApplication;
 import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -235,6 +243,187 @@ class AgreementTest {
         );
     }
 
+    /**
+     * Batch generation
+     * Applications - test cases one through six, plus an unknown tool code
+     * Success criteria - every valid application produces the same agreement as generating it on its own,
+     * invalid applications report an error without stopping the batch, and results keep the input order
+     */
+    @Test
+    void generateAgreementsBatch() {
+        var applications = List.of(
+                this.generateApplication("JAKR", LocalDate.of(2015, 9, 3), 5, 101),
+                this.generateApplication("LADW", LocalDate.of(2020, 7, 2), 3, 10),
+                this.generateApplication("CHNS", LocalDate.of(2015, 7, 2), 5, 25),
+                this.generateApplication("JAKD", LocalDate.of(2015, 9, 3), 6, 0),
+                this.generateApplication("XXXX", LocalDate.of(2015, 9, 3), 6, 0),
+                this.generateApplication("JAKR", LocalDate.of(2015, 7, 2), 9, 0),
+                this.generateApplication("JAKR", LocalDate.of(2020, 7, 2), 4, 50));
+        var expectedFinalCharges = Arrays.asList(null, "3.58", "3.35", "8.97", null, "14.95", "1.49");
+
+        var agreementManager = new AgreementManager();
+        var executor = Executors.newFixedThreadPool(3);
+        try {
+            for (var results : List.of(agreementManager.generateAgreements(applications),
+                    agreementManager.generateAgreements(applications, executor),
+                    agreementManager.generateAgreements(applications.stream()).toList())) {
+                assertEquals(applications.size(), results.size());
+
+                for (int i = 0; i < results.size(); i++) {
+                    var result = results.get(i);
+                    assertSame(applications.get(i), result.application());
+
+                    if (expectedFinalCharges.get(i) == null) {
+                        assertFalse(result.isSuccessful());
+                        assertNotNull(result.error());
+                    } else {
+                        assertEquals(new BigDecimal(expectedFinalCharges.get(i)), result.agreement().getFinalCharge());
+                    }
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Quote cache
+     * Applications - test cases two through six, each quoted twice
+     * Success criteria - a manager with a quote cache produces the same agreements as one without, and the second
+     * quote of each application is answered from the cache
+     */
+    @Test
+    void cachedAgreementsMatchUncached() {
+        var applications = List.of(
+                this.generateApplication("LADW", LocalDate.of(2020, 7, 2), 3, 10),
+                this.generateApplication("CHNS", LocalDate.of(2015, 7, 2), 5, 25),
+                this.generateApplication("JAKD", LocalDate.of(2015, 9, 3), 6, 0),
+                this.generateApplication("JAKR", LocalDate.of(2015, 7, 2), 9, 0),
+                this.generateApplication("JAKR", LocalDate.of(2020, 7, 2), 4, 50));
+        var quoteCache = new QuoteCache(100, Duration.ofMinutes(5));
+        var cachedManager = new AgreementManager(new ExclusionManager(), quoteCache);
+        var uncachedManager = new AgreementManager();
+
+        for (int pass = 0; pass < 2; pass++) {
+            for (var application : applications) {
+                var cached = cachedManager.generateAgreement(application);
+                var uncached = uncachedManager.generateAgreement(application);
+
+                assertAll(
+                        () -> assertEquals(uncached.getSelectedTool(), cached.getSelectedTool()),
+                        () -> assertEquals(uncached.getChargeDays(), cached.getChargeDays()),
+                        () -> assertEquals(uncached.getBaseCharge(), cached.getBaseCharge()),
+                        () -> assertEquals(uncached.getDiscountAmount(), cached.getDiscountAmount()),
+                        () -> assertEquals(uncached.getFinalCharge(), cached.getFinalCharge())
+                );
+            }
+        }
+
+        assertEquals(applications.size(), quoteCache.getQuoteStats().hits());
+        assertEquals(applications.size(), quoteCache.getQuoteStats().misses());
+    }
+
+    /**
+     * Immutable agreements
+     * Application - test case four built with the RentalApplication builder
+     * Success criteria - the record agreement matches the bean agreement, converts back and forth without loss,
+     * and the builders reject invalid or inconsistent values when build() is called
+     */
+    @Test
+    void rentalAgreementMatchesBeanAgreement() {
+        var agreementManager = new AgreementManager();
+        var application = RentalApplication.builder()
+                .toolCode("JAKD")
+                .checkoutDate(LocalDate.of(2015, 9, 3))
+                .rentalDays(6)
+                .build();
+        var agreement = agreementManager.generateRentalAgreement(application);
+        var beanAgreement = agreementManager.generateAgreement(application.toApplication());
+
+        assertAll(
+                () -> assertEquals(LocalDate.of(2015, 9, 9), agreement.dueDate()),
+                () -> assertEquals(3, agreement.chargeDays()),
+                () -> assertEquals(new BigDecimal("8.97"), agreement.finalCharge()),
+                () -> assertEquals(agreement, RentalAgreement.from(beanAgreement)),
+                () -> assertEquals(agreement, RentalAgreement.from(agreement.toAgreement())),
+                () -> assertEquals(application, RentalApplication.from(application.toApplication()))
+        );
+
+        assertThrows(IllegalArgumentException.class, () -> RentalApplication.builder()
+                .toolCode("JAKR").checkoutDate(LocalDate.of(2015, 9, 3)).rentalDays(5).discountPercentage(101).build());
+        assertThrows(IllegalArgumentException.class, () -> RentalApplication.builder()
+                .toolCode("JAKR").checkoutDate(LocalDate.of(2015, 9, 3)).build());
+        assertThrows(IllegalArgumentException.class, () -> RentalAgreement.builder()
+                .selectedTool(agreement.selectedTool()).rentalDays(6).checkoutDate(agreement.checkoutDate())
+                .chargeDays(3).baseCharge(agreement.baseCharge()).discountAmount(BigDecimal.ONE)
+                .finalCharge(agreement.finalCharge()).build());
+    }
+
+    /**
+     * Checkout window search
+     * Tools - every tool in the catalog, rented for 1, 5 and 40 days from each date in June-September 2015
+     * Success criteria - every sliding window matches a separately generated agreement, and the cheapest windows
+     * are returned in price order
+     */
+    @Test
+    void checkoutWindowsMatchAgreements() {
+        var agreementManager = new AgreementManager();
+        var first = LocalDate.of(2015, 6, 1);
+        var last = LocalDate.of(2015, 9, 30);
+
+        for (var tool : ToolCatalog.getInstance().getTools()) {
+            for (var rentalDays : new int[] { 1, 5, 40 }) {
+                var windows = agreementManager.findCheckoutWindows(tool.code(), rentalDays, 10, first, last);
+                assertEquals(122, windows.size());
+
+                for (var window : windows) {
+                    var agreement = agreementManager.generateAgreement(
+                            this.generateApplication(tool.code(), window.checkoutDate(), rentalDays, 10));
+                    assertEquals(agreement.getDueDate(), window.dueDate());
+                    assertEquals(agreement.getChargeDays(), window.chargeDays());
+                    assertEquals(agreement.getFinalCharge(), window.finalCharge());
+                }
+            }
+        }
+
+        var cheapest = agreementManager.findCheapestCheckoutWindows("JAKR", 5, 0,
+                LocalDate.of(2015, 6, 29), LocalDate.of(2015, 7, 5), 3);
+        assertEquals(List.of(LocalDate.of(2015, 6, 30), LocalDate.of(2015, 7, 1), LocalDate.of(2015, 7, 2)),
+                cheapest.stream().map(CheckoutWindow::checkoutDate).toList());
+        assertEquals(2, cheapest.get(2).chargeDays());
+    }
+
+    /**
+     * Cents arithmetic
+     * Success criteria - the whole cent charge math must round exactly like the BigDecimal math it replaced,
+     * for every discount percentage and a range of daily charges and charge days
+     */
+    @Test
+    void centsChargeMathMatchesBigDecimalMath() {
+        var agreementManager = new AgreementManager();
+
+        for (var dailyCharge : new String[] { "0.01", "1.49", "1.99", "2.99", "13.37", "250.05" }) {
+            var dailyChargeDecimal = new BigDecimal(dailyCharge);
+            var dailyChargeCents = dailyChargeDecimal.movePointRight(2).longValueExact();
+
+            for (int chargeDays = 0; chargeDays <= 1100; chargeDays += 7) {
+                var baseCharge = dailyChargeDecimal.multiply(BigDecimal.valueOf(chargeDays)).setScale(2, RoundingMode.HALF_UP);
+                var baseChargeCents = agreementManager.calculateBaseCharge(chargeDays, dailyChargeCents);
+                assertEquals(baseCharge, BigDecimal.valueOf(baseChargeCents, 2));
+
+                for (int discountPercentage = 0; discountPercentage <= 100; discountPercentage++) {
+                    var discountAmount = baseCharge.multiply(BigDecimal.valueOf(discountPercentage))
+                            .divide(BigDecimal.valueOf(100), RoundingMode.HALF_UP);
+                    var discountAmountCents = agreementManager.calculateDiscountAmount(baseChargeCents, discountPercentage);
+
+                    assertEquals(discountAmount, BigDecimal.valueOf(discountAmountCents, 2));
+                    assertEquals(baseCharge.subtract(discountAmount),
+                            BigDecimal.valueOf(agreementManager.calculateFinalCharge(baseChargeCents, discountAmountCents), 2));
+                }
+            }
+        }
+    }
+
     /**
      * Helper function that generates a new application based on the test scenario.
      * Used for testing rental agreement output
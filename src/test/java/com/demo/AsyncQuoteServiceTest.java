@@ -0,0 +1,123 @@
+package com.demo;
+
+import com.demo.datatypes.RentalAgreement;
+import com.demo.datatypes.RentalApplication;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncQuoteServiceTest {
+    private static final RentalApplication APPLICATION = RentalApplication.builder()
+            .toolCode("JAKR").checkoutDate(LocalDate.of(2015, 7, 2)).rentalDays(9).build();
+
+    /**
+     * Test Case - Many threads request the same quote while it is being priced
+     * Success criteria - The quote is calculated exactly once and every caller gets the same agreement
+     */
+    @Test
+    void duplicateRequestsShareOneCalculation() throws Exception {
+        var requests = 64;
+        var agreementManager = new GatedAgreementManager();
+        var callers = Executors.newFixedThreadPool(8);
+        var started = new CountDownLatch(requests);
+        var futures = new ArrayList<CompletableFuture<RentalAgreement>>();
+
+        try (var service = new AsyncQuoteService(agreementManager, 4)) {
+            for (int i = 0; i < requests; i++) {
+                futures.add(CompletableFuture.supplyAsync(() -> {
+                    var future = service.quoteAsync(APPLICATION);
+                    started.countDown();
+                    return future;
+                }, callers).thenCompose(future -> future));
+            }
+
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            agreementManager.gate.countDown();
+            var expected = new AgreementManager().generateRentalAgreement(APPLICATION);
+
+            for (var future : futures) {
+                assertEquals(expected, future.get(10, TimeUnit.SECONDS));
+            }
+            assertAll(
+                    () -> assertEquals(1, agreementManager.calculations.get()),
+                    () -> assertEquals(1, service.getCalculatedCount()),
+                    () -> assertEquals(requests - 1, service.getCoalescedCount()),
+                    () -> assertEquals(0, service.getPendingCount())
+            );
+        } finally {
+            callers.shutdown();
+        }
+    }
+
+    /**
+     * Test Case - More distinct quotes are requested than may be in progress, and a quote is requested again after
+     * it completes
+     * Success criteria - The extra quote is rejected without being priced, and a completed quote is priced again
+     */
+    @Test
+    void excessQuotesAreRejected() throws Exception {
+        var agreementManager = new GatedAgreementManager();
+
+        try (var service = new AsyncQuoteService(agreementManager, 1)) {
+            var first = service.quoteAsync(APPLICATION);
+            var other = service.quoteAsync(RentalApplication.builder()
+                    .toolCode("LADW").checkoutDate(LocalDate.of(2015, 7, 2)).rentalDays(3).build());
+
+            var error = assertThrows(ExecutionException.class, () -> other.get(10, TimeUnit.SECONDS));
+            agreementManager.gate.countDown();
+            first.get(10, TimeUnit.SECONDS);
+            service.quoteAsync(APPLICATION).get(10, TimeUnit.SECONDS);
+
+            assertAll(
+                    () -> assertInstanceOf(RejectedExecutionException.class, error.getCause()),
+                    () -> assertEquals(1, service.getRejectedCount()),
+                    () -> assertEquals(2, agreementManager.calculations.get())
+            );
+        }
+    }
+
+    /**
+     * Test Case - A quote is requested for a tool code that isn't in the catalog
+     * Success criteria - The future completes exceptionally with the validation error
+     */
+    @Test
+    void invalidQuoteFails() {
+        var application = RentalApplication.builder()
+                .toolCode("XXXX").checkoutDate(LocalDate.of(2015, 7, 2)).rentalDays(3).build();
+
+        try (var service = new AsyncQuoteService(new AgreementManager(), 1)) {
+            var error = assertThrows(ExecutionException.class, () -> service.quoteAsync(application).get(10, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalArgumentException.class, error.getCause());
+        }
+    }
+
+    /**
+     * Agreement manager that counts its calculations and holds each one until the gate opens
+     */
+    private static class GatedAgreementManager extends AgreementManager {
+        private final CountDownLatch gate = new CountDownLatch(1);
+        private final AtomicInteger calculations = new AtomicInteger();
+
+        @Override
+        public RentalAgreement generateRentalAgreement(RentalApplication application) {
+            this.calculations.incrementAndGet();
+            try {
+                this.gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+            return super.generateRentalAgreement(application);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.demo;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedCacheTest {
+    /**
+     * Repeated lookups must be answered from the cache without calling the loader again
+     */
+    @Test
+    void repeatedLookupsHitCache() {
+        var cache = new BoundedCache<Integer, String>(100, null);
+        var loads = new AtomicInteger();
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals("7", cache.get(7, key -> {
+                loads.incrementAndGet();
+                return key.toString();
+            }));
+        }
+
+        var stats = cache.getStats();
+        assertAll(
+                () -> assertEquals(1, loads.get()),
+                () -> assertEquals(9, stats.hits()),
+                () -> assertEquals(1, stats.misses()),
+                () -> assertEquals(0.9, stats.hitRate())
+        );
+    }
+
+    /**
+     * The cache must never hold more than its maximum size, counting each entry it drops as an eviction
+     */
+    @Test
+    void sizeIsBoundedByEviction() {
+        var cache = new BoundedCache<Integer, Integer>(64, null);
+
+        for (int i = 0; i < 10_000; i++) {
+            cache.get(i, key -> key);
+        }
+
+        var stats = cache.getStats();
+        assertAll(
+                () -> assertTrue(stats.size() <= 64),
+                () -> assertEquals(10_000 - stats.size(), stats.evictions())
+        );
+    }
+
+    /**
+     * Test Case - Caches with sizes that don't divide evenly between segments are filled past their maximum size,
+     * and another is filled with keys that all land in the same segment
+     * Success criteria - Each cache holds exactly its maximum size, and the most recently stored key is kept
+     */
+    @Test
+    void maximumSizeCoversTheWholeCache() {
+        var single = new BoundedCache<Integer, Integer>(1, null);
+        var uneven = new BoundedCache<Integer, Integer>(17, null);
+        var skewed = new BoundedCache<Integer, Integer>(64, null);
+        var loads = new AtomicInteger();
+
+        for (int i = 0; i < 1_000; i++) {
+            single.get(i, key -> key);
+            uneven.get(i, key -> key);
+            skewed.get(i * 16, key -> key);
+        }
+        single.get(999, key -> loads.incrementAndGet());
+
+        assertAll(
+                () -> assertEquals(1, single.size()),
+                () -> assertEquals(0, loads.get()),
+                () -> assertEquals(17, uneven.size()),
+                () -> assertEquals(1_000 - 17, uneven.getStats().evictions()),
+                () -> assertEquals(64, skewed.size())
+        );
+    }
+
+    /**
+     * Entries older than the time to live must be recalculated
+     */
+    @Test
+    void expiredEntriesAreReloaded() {
+        var clock = new AtomicLong();
+        var cache = new BoundedCache<String, Long>(10, Duration.ofSeconds(30), clock::get);
+
+        assertEquals(0L, cache.get("quote", key -> clock.get()));
+        clock.set(Duration.ofSeconds(29).toNanos());
+        assertEquals(0L, cache.get("quote", key -> clock.get()));
+        clock.set(Duration.ofSeconds(31).toNanos());
+        assertEquals(Duration.ofSeconds(31).toNanos(), cache.get("quote", key -> clock.get()));
+
+        assertEquals(1, cache.getStats().expirations());
+    }
+}
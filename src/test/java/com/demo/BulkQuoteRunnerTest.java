@@ -0,0 +1,57 @@
+package com.demo;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkQuoteRunnerTest {
+    /**
+     * Every input line must produce one output line in input order, with invalid lines reported as errors
+     * instead of stopping the run.  The input is larger than one chunk so several chunks are priced in parallel.
+     */
+    @Test
+    void csvRunKeepsInputOrderAndReportsErrors(@TempDir Path directory) throws IOException {
+        var input = directory.resolve("applications.csv");
+        var output = directory.resolve("results.csv");
+        var lines = new StringBuilder("toolCode,checkoutDate,rentalDays,discountPercentage\n");
+        for (int i = 0; i < 10_000; i++) {
+            lines.append(i % 1000 == 999 ? "JAKR,2015-09-03,5,101\n" : "LADW,2020-07-02,3,10\n");
+        }
+        Files.writeString(input, lines);
+
+        var summary = new BulkQuoteRunner(new AgreementManager(), 4).run(input, output, BulkQuoteRunner.Format.CSV);
+        var results = Files.readAllLines(output);
+
+        assertAll(
+                () -> assertEquals(10_000, summary.records()),
+                () -> assertEquals(10, summary.rejected()),
+                () -> assertEquals(10_001, results.size()),
+                () -> assertEquals("2,LADW,2020-07-02,2020-07-05,3,2,3.98,10,0.40,3.58,USD,", results.get(1)),
+                () -> assertTrue(results.get(1000).startsWith("1001,,")),
+                () -> assertTrue(results.get(10_000).startsWith("10001,,"))
+        );
+    }
+
+    /**
+     * JSON records may have whitespace and fields in any order, and missing required fields are rejected
+     */
+    @Test
+    void parseJsonReadsFlatObjects() {
+        var application = ApplicationParser.parseJson(
+                " { \"rentalDays\" : 4, \"toolCode\":\"JAKR\", \"discountPercentage\":50, \"checkoutDate\":\"2020-07-02\" } ");
+
+        assertAll(
+                () -> assertEquals("JAKR", application.getToolCode()),
+                () -> assertEquals(4, application.getRentalDays()),
+                () -> assertEquals(50, application.getDiscountPercentage()),
+                () -> assertEquals("2020-07-02", application.getCheckoutDate().toString()),
+                () -> assertThrows(IllegalArgumentException.class, () -> ApplicationParser.parseJson("{\"toolCode\":\"JAKR\"}")),
+                () -> assertThrows(IllegalArgumentException.class, () -> ApplicationParser.parseJson("{\"toolCode\":\"JAKR\""))
+        );
+    }
+}
@@ -0,0 +1,77 @@
+package com.demo;
+
+import com.demo.datatypes.ToolType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ExclusionManagerTest {
+    /**
+     * Counted exclusion days must match the result of walking the day-by-day collection from getRentalDays()
+     * for every combination of charge flags, across start dates that cover both holidays on weekdays and weekends,
+     * and for rental lengths up to several years.
+     */
+    @Test
+    void countExclusionDaysMatchesDailyWalk() {
+        var exclusionManager = new ExclusionManager();
+        var startDate = LocalDate.of(2014, 6, 20);
+
+        for (int flags = 0; flags < 8; flags++) {
+            var toolType = new ToolType("Test", BigDecimal.ONE, (flags & 1) != 0, (flags & 2) != 0, (flags & 4) != 0);
+
+            for (int offset = 0; offset < 800; offset += 3) {
+                var date = startDate.plusDays(offset);
+
+                for (int days : new int[] { 1, 2, 3, 5, 6, 7, 8, 13, 30, 64, 365, 366, 900 }) {
+                    assertEquals(this.countByWalking(exclusionManager, toolType, date, days),
+                            exclusionManager.countExclusionDays(toolType, date, days),
+                            "Mismatch for flags " + flags + " starting " + date + " for " + days + " days");
+                }
+            }
+        }
+    }
+
+    /**
+     * Observed holidays must be flagged on the correct dates, including July 4th shifting off of a weekend
+     */
+    @Test
+    void getRentalDaysFlagsObservedHolidays() {
+        var exclusionManager = new ExclusionManager();
+        var expectedHolidays = Set.of(
+                LocalDate.of(2015, 7, 3), LocalDate.of(2015, 9, 7),
+                LocalDate.of(2020, 7, 3), LocalDate.of(2020, 9, 7),
+                LocalDate.of(2021, 7, 5), LocalDate.of(2021, 9, 6));
+
+        for (var year : new int[] { 2015, 2020, 2021 }) {
+            for (var day : exclusionManager.getRentalDays(LocalDate.of(year, 1, 1), 365)) {
+                assertEquals(expectedHolidays.contains(day.getDate()), day.isHoliday(), "Holiday flag for " + day.getDate());
+            }
+        }
+    }
+
+    /**
+     * Reference implementation of the exclusion count using one entry per rental day
+     * @param exclusionManager Exclusion manager used to build the day collection
+     * @param toolType Tool type providing the charge flags
+     * @param date Starting chargeable date
+     * @param days Number of days in the range
+     * @return Number of excluded days
+     */
+    int countByWalking(ExclusionManager exclusionManager, ToolType toolType, LocalDate date, int days) {
+        var exclusionDays = 0;
+
+        for (var day : exclusionManager.getRentalDays(date, days)) {
+            if (!toolType.holidayCharge() && day.isHoliday()) {
+                exclusionDays++;
+            } else if (!toolType.weekendCharge() && day.isWeekend()) {
+                exclusionDays++;
+            }
+        }
+
+        return exclusionDays;
+    }
+}
@@ -0,0 +1,105 @@
+package com.demo;
+
+import com.demo.datatypes.RentalApplication;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FleetIndexTest {
+    private static final LocalDate FIRST_DATE = LocalDate.of(2015, 7, 1);
+
+    /**
+     * Bookings may share a unit only when their periods don't overlap, and released days can be booked again
+     */
+    @Test
+    void overlappingBookingsUseSeparateUnits() {
+        var fleetIndex = new FleetIndex(FIRST_DATE);
+        fleetIndex.addUnits("JAKR", 2);
+
+        assertAll(
+                () -> assertEquals(0, fleetIndex.reserve("JAKR", LocalDate.of(2015, 7, 2), 5)),
+                () -> assertEquals(1, fleetIndex.reserve("JAKR", LocalDate.of(2015, 7, 6), 3)),
+                () -> assertEquals(0, fleetIndex.reserve("JAKR", LocalDate.of(2015, 7, 7), 2)),
+                () -> assertThrows(IllegalStateException.class, () -> fleetIndex.reserve("JAKR", LocalDate.of(2015, 7, 8), 1)),
+                () -> assertEquals(2, fleetIndex.countAvailableUnits("JAKR", LocalDate.of(2015, 7, 9), 1)),
+                () -> assertThrows(IllegalArgumentException.class, () -> fleetIndex.reserve("JAKR", LocalDate.of(2015, 6, 30), 1)),
+                () -> assertThrows(IllegalArgumentException.class, () -> fleetIndex.reserve("LADW", LocalDate.of(2015, 7, 2), 1))
+        );
+
+        fleetIndex.release("JAKR", 1, LocalDate.of(2015, 7, 6), 3);
+        assertEquals(1, fleetIndex.reserve("JAKR", LocalDate.of(2015, 7, 8), 1));
+    }
+
+    /**
+     * Only a booking the unit still holds can be released: cancelling a reservation twice, or releasing days that
+     * belong to another booking on the unit, must fail without freeing the other booking's days
+     */
+    @Test
+    void releaseOnlyFreesHeldBookings() {
+        var fleetIndex = new FleetIndex(FIRST_DATE);
+        var agreementManager = new AgreementManager(new ExclusionManager(), null, fleetIndex);
+        fleetIndex.addUnits("LADW", 1);
+
+        var first = agreementManager.reserveAgreement(RentalApplication.builder()
+                .toolCode("LADW").checkoutDate(LocalDate.of(2015, 7, 2)).rentalDays(3).build());
+        agreementManager.cancelReservation(first);
+        var second = agreementManager.reserveAgreement(RentalApplication.builder()
+                .toolCode("LADW").checkoutDate(LocalDate.of(2015, 7, 2)).rentalDays(5).build());
+
+        assertAll(
+                () -> assertEquals(second.unit(), first.unit()),
+                () -> assertThrows(IllegalStateException.class, () -> agreementManager.cancelReservation(first)),
+                () -> assertThrows(IllegalStateException.class, () -> fleetIndex.release("LADW", 0, LocalDate.of(2015, 7, 3), 2)),
+                () -> assertEquals(0, fleetIndex.countAvailableUnits("LADW", LocalDate.of(2015, 7, 6), 1))
+        );
+    }
+
+    /**
+     * Many threads booking the same period at once must never book more units than the fleet holds
+     */
+    @Test
+    void concurrentBookingsNeverOverbook() throws Exception {
+        var fleetIndex = new FleetIndex(FIRST_DATE);
+        var agreementManager = new AgreementManager(new ExclusionManager(), null, fleetIndex);
+        var application = RentalApplication.builder()
+                .toolCode("CHNS").checkoutDate(LocalDate.of(2015, 7, 2)).rentalDays(5).build();
+        var booked = new AtomicInteger();
+        var rejected = new AtomicInteger();
+        var tasks = new ArrayList<Callable<Void>>();
+        fleetIndex.addUnits("CHNS", 25);
+
+        for (int i = 0; i < 200; i++) {
+            tasks.add(() -> {
+                try {
+                    agreementManager.reserveAgreement(application);
+                    booked.incrementAndGet();
+                } catch (IllegalStateException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            });
+        }
+
+        var executor = Executors.newFixedThreadPool(8);
+        try {
+            for (var future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertAll(
+                () -> assertEquals(25, booked.get()),
+                () -> assertEquals(175, rejected.get()),
+                () -> assertEquals(0, fleetIndex.countAvailableUnits("CHNS", LocalDate.of(2015, 7, 6), 1)),
+                () -> assertEquals(25, fleetIndex.countAvailableUnits("CHNS", LocalDate.of(2015, 7, 7), 10))
+        );
+    }
+}
@@ -0,0 +1,46 @@
+package com.demo;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+    /**
+     * Percentiles of a uniform spread of values must be reported within the histogram's bucket precision
+     */
+    @Test
+    void percentilesAreWithinBucketPrecision() {
+        var histogram = new LatencyHistogram();
+        for (long value = 1; value <= 1_000_000; value++) {
+            histogram.record(value);
+        }
+
+        var snapshot = histogram.snapshot();
+        assertAll(
+                () -> assertEquals(1_000_000, snapshot.getCount()),
+                () -> assertEquals(1_000_000, snapshot.getMax()),
+                () -> assertEquals(500_000.5, snapshot.getMean()),
+                () -> assertEquals(500_000, snapshot.getPercentile(50), 500_000 * 0.016),
+                () -> assertEquals(990_000, snapshot.getPercentile(99), 990_000 * 0.016),
+                () -> assertEquals(1, snapshot.getPercentile(0))
+        );
+    }
+
+    /**
+     * An empty or reset histogram must report zero everywhere
+     */
+    @Test
+    void resetClearsValues() {
+        var histogram = new LatencyHistogram();
+        histogram.record(Long.MAX_VALUE);
+        histogram.record(42);
+        histogram.reset();
+
+        var snapshot = histogram.snapshot();
+        assertAll(
+                () -> assertEquals(0, snapshot.getCount()),
+                () -> assertEquals(0, snapshot.getPercentile(99)),
+                () -> assertEquals(0, snapshot.getMax())
+        );
+    }
+}
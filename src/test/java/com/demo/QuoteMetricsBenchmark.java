@@ -0,0 +1,67 @@
+package com.demo;
+
+import com.demo.datatypes.ChargeResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark for the cost of QuoteMetrics on the pricing hot path.  calculateCharges runs with metrics disabled
+ * and enabled, timing every quote or one in sixteen, on one thread and on several threads recording into the same
+ * histograms.  The disabled score is the number to compare against calculateCharges in AgreementManagerBenchmark.
+ * Most of the enabled cost is System.nanoTime(), so it depends heavily on the machine's clock source.
+ * Run with the benchmark profile described in pom.xml, for example -Djmh.args="QuoteMetricsBenchmark".
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QuoteMetricsBenchmark {
+    @Param({"false", "true"})
+    boolean metricsEnabled;
+
+    @Param({"1", "16"})
+    int sampleInterval;
+
+    private final LocalDate checkoutDate = LocalDate.of(2015, 7, 1);
+    private AgreementManager agreementManager;
+
+    @State(Scope.Thread)
+    public static class Result {
+        final ChargeResult charges = new ChargeResult();
+    }
+
+    @Setup
+    public void setup() {
+        this.agreementManager = new AgreementManager();
+        this.agreementManager.getMetrics().setEnabled(this.metricsEnabled);
+        this.agreementManager.getMetrics().setSampleInterval(this.sampleInterval);
+    }
+
+    @Benchmark
+    public ChargeResult calculateCharges(Result result) {
+        this.agreementManager.calculateCharges("JAKR", this.checkoutDate, 5, 15, result.charges);
+        return result.charges;
+    }
+
+    @Benchmark
+    @Threads(8)
+    public ChargeResult calculateChargesContended(Result result) {
+        this.agreementManager.calculateCharges("JAKR", this.checkoutDate, 5, 15, result.charges);
+        return result.charges;
+    }
+}
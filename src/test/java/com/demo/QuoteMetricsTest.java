@@ -0,0 +1,46 @@
+package com.demo;
+
+import com.demo.datatypes.ChargeResult;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuoteMetricsTest {
+    /**
+     * Disabled metrics must record nothing, and enabled metrics must count every quote once in each stage and in
+     * its tool type, along with any rejected applications
+     */
+    @Test
+    void recordsOnlyWhileEnabled() {
+        var agreementManager = new AgreementManager();
+        var metrics = agreementManager.getMetrics();
+        var charges = new ChargeResult();
+
+        agreementManager.calculateCharges("JAKR", LocalDate.of(2015, 7, 2), 9, 0, charges);
+        assertEquals(0, metrics.getQuoteCount());
+
+        metrics.setEnabled(true);
+        for (int i = 0; i < 10; i++) {
+            agreementManager.calculateCharges(i % 2 == 0 ? "JAKR" : "LADW", LocalDate.of(2015, 7, 2), 9, 0, charges);
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> agreementManager.calculateCharges("JAKR", LocalDate.of(2015, 7, 2), 0, 0, charges));
+
+        var text = metrics.getSnapshot();
+        assertAll(
+                () -> assertEquals(10, metrics.getQuoteCount()),
+                () -> assertEquals(1, metrics.getRejectedCount()),
+                () -> assertEquals(10, metrics.getStage(QuoteMetrics.Stage.TOOL_LOOKUP).getCount()),
+                () -> assertEquals(10, metrics.getStage(QuoteMetrics.Stage.CHARGE_DAYS).getCount()),
+                () -> assertEquals(10, metrics.getStage(QuoteMetrics.Stage.CHARGE_MATH).getCount()),
+                () -> assertEquals(0, metrics.getStage(QuoteMetrics.Stage.CACHED_CHARGES).getCount()),
+                () -> assertTrue(text.contains("quote_latency_nanos_count{tool_type=\"Jackhammer\"} 5\n")),
+                () -> assertTrue(text.contains("quote_latency_nanos_count{tool_type=\"Ladder\"} 5\n"))
+        );
+
+        metrics.reset();
+        assertEquals(0, metrics.getQuoteCount());
+    }
+}
@@ -0,0 +1,149 @@
+package com.demo;
+
+import com.demo.datatypes.Agreement;
+import com.demo.datatypes.Application;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuoteServerTest {
+    private static final String LADDER = "{\"toolCode\":\"LADW\",\"checkoutDate\":\"2020-07-02\",\"rentalDays\":3,\"discountPercentage\":10}";
+    private static final String CHAINSAW = "{\"toolCode\":\"CHNS\",\"checkoutDate\":\"2015-07-02\",\"rentalDays\":5,\"discountPercentage\":25}";
+    private static final String GATED = "{\"toolCode\":\"LADW\",\"checkoutDate\":\"2020-07-02\",\"rentalDays\":50,\"discountPercentage\":0}";
+    private static final String FAILING = "{\"toolCode\":\"LADW\",\"checkoutDate\":\"2020-07-02\",\"rentalDays\":99,\"discountPercentage\":0}";
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    /**
+     * Test Case - A single quote, a batch with good and bad lines, an invalid application, a GET to a quote endpoint
+     * and an oversized body are sent to a server on an ephemeral port, followed by requests for its stats and metrics
+     * Success criteria - Quotes are answered with 200 and the priced agreement, with batch results in input order
+     * and each bad line reported in its place.  The invalid application gets 400, the GET 405 and the oversized
+     * body 413.  Stats count only the requests that were priced and list the other two as rejected.
+     */
+    @Test
+    void quoteEndpointsAnswerEachRequest() throws Exception {
+        var server = new QuoteServer(new AgreementManager(), 0, 4);
+        server.start();
+
+        try {
+            var quote = this.post(server, "/quote", LADDER);
+            var batch = this.post(server, "/quotes", LADDER + "\n{\"toolCode\":\"JAKR\"}\n\n"
+                    + LADDER.replace("LADW", "NONE") + "\n" + CHAINSAW + "\n");
+            var invalid = this.post(server, "/quote", LADDER.replace("10}", "101}"));
+            var get = this.client.send(HttpRequest.newBuilder(uri(server, "/quote")).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            var oversized = this.client.send(HttpRequest.newBuilder(uri(server, "/quote"))
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(new byte[(16 << 20) + 1])).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            var stats = this.client.send(HttpRequest.newBuilder(uri(server, "/stats")).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            var metrics = this.client.send(HttpRequest.newBuilder(uri(server, "/metrics")).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            var lines = batch.body().split("\n");
+
+            assertAll(
+                    () -> assertEquals(200, quote.statusCode()),
+                    () -> assertTrue(quote.body().startsWith("{\"toolCode\":\"LADW\""), quote.body()),
+                    () -> assertTrue(quote.body().contains("\"finalCharge\":3.58}"), quote.body()),
+                    () -> assertEquals(200, batch.statusCode()),
+                    () -> assertEquals(4, lines.length, batch.body()),
+                    () -> assertTrue(lines[0].contains("\"finalCharge\":3.58}"), lines[0]),
+                    () -> assertTrue(lines[1].startsWith("{\"error\":"), lines[1]),
+                    () -> assertEquals("{\"error\":\"Tool code NONE was not found.\"}", lines[2]),
+                    () -> assertTrue(lines[3].startsWith("{\"toolCode\":\"CHNS\""), lines[3]),
+                    () -> assertTrue(lines[3].contains("\"finalCharge\":3.35}"), lines[3]),
+                    () -> assertEquals(400, invalid.statusCode()),
+                    () -> assertTrue(invalid.body().contains("discount percentage"), invalid.body()),
+                    () -> assertEquals(405, get.statusCode()),
+                    () -> assertEquals(413, oversized.statusCode()),
+                    () -> assertEquals(200, stats.statusCode()),
+                    () -> assertTrue(stats.body().startsWith("{\"quote\":{\"count\":2,"), stats.body()),
+                    () -> assertTrue(stats.body().contains("\"quotes\":{\"count\":1,"), stats.body()),
+                    () -> assertTrue(stats.body().contains("\"rejected\":2,\"inFlight\":0}"), stats.body()),
+                    () -> assertEquals(200, metrics.statusCode()),
+                    () -> assertTrue(metrics.body().startsWith("quote_enabled 0\n"), metrics.body())
+            );
+        } finally {
+            server.stop();
+        }
+    }
+
+    /**
+     * Test Case - A server allowing one request at a time is pricing a quote that waits on a gate when another quote
+     * and a batch arrive, and then a quote fails with an unexpected exception
+     * Success criteria - Both requests that arrive while the permit is held get 503, the waiting quote still gets
+     * 200 once the gate opens, and the failure gets 500 with a fixed message that doesn't give away the exception
+     */
+    @Test
+    void busyAndFailingRequestsAreTurnedAway() throws Exception {
+        var agreementManager = new GatedAgreementManager();
+        var server = new QuoteServer(agreementManager, 0, 1);
+        server.start();
+
+        try {
+            var gated = this.client.sendAsync(HttpRequest.newBuilder(uri(server, "/quote"))
+                    .POST(HttpRequest.BodyPublishers.ofString(GATED)).build(), HttpResponse.BodyHandlers.ofString());
+            assertTrue(agreementManager.entered.await(10, TimeUnit.SECONDS));
+
+            var busyQuote = this.post(server, "/quote", LADDER);
+            var busyBatch = this.post(server, "/quotes", LADDER + "\n");
+            agreementManager.gate.countDown();
+            var gatedResponse = gated.get(10, TimeUnit.SECONDS);
+            var failed = this.post(server, "/quote", FAILING);
+
+            assertAll(
+                    () -> assertEquals(503, busyQuote.statusCode()),
+                    () -> assertEquals(503, busyBatch.statusCode()),
+                    () -> assertEquals(200, gatedResponse.statusCode()),
+                    () -> assertEquals(500, failed.statusCode()),
+                    () -> assertEquals("{\"error\":\"Unable to price the quote.\"}\n", failed.body())
+            );
+        } finally {
+            agreementManager.gate.countDown();
+            server.stop();
+        }
+    }
+
+    private HttpResponse<String> post(QuoteServer server, String path, String body) throws IOException, InterruptedException {
+        return this.client.send(HttpRequest.newBuilder(uri(server, path)).POST(HttpRequest.BodyPublishers.ofString(body)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static URI uri(QuoteServer server, String path) {
+        return URI.create("http://localhost:" + server.getPort() + path);
+    }
+
+    /**
+     * Agreement manager that holds 50 day quotes until its gate opens and fails 99 day quotes with an internal error
+     */
+    private static class GatedAgreementManager extends AgreementManager {
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch gate = new CountDownLatch(1);
+
+        @Override
+        public Agreement generateAgreement(Application application) {
+            if (application.getRentalDays() == 99) {
+                throw new IllegalStateException("Internal pricing detail");
+            }
+            if (application.getRentalDays() == 50) {
+                this.entered.countDown();
+                try {
+                    this.gate.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(e);
+                }
+            }
+            return super.generateAgreement(application);
+        }
+    }
+}
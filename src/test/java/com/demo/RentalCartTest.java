@@ -0,0 +1,104 @@
+package com.demo;
+
+import com.demo.datatypes.CartAgreement;
+import com.demo.datatypes.RentalApplication;
+import com.demo.datatypes.RentalCart;
+import com.demo.datatypes.ToolType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Currency;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RentalCartTest {
+    private static final List<String> TOOL_CODES = List.of("CHNS", "LADW", "JAKD", "JAKR", "LADW", "CHNS", "JAKR");
+    private static final LocalDate CHECKOUT_DATE = LocalDate.of(2020, 7, 2);
+
+    /**
+     * Test Case - A crew rents seven tools of three tool types over the July 4th weekend
+     * Success criteria - Each line matches the agreement for the same tool priced on its own, the totals are the sums
+     * of the lines, and the calendar is counted once for each of the three charge profiles
+     */
+    @Test
+    void cartLinesMatchSingleAgreements() {
+        var exclusionManager = new CountingExclusionManager();
+        var agreementManager = new AgreementManager(exclusionManager);
+        var cart = RentalCart.builder()
+                .toolCodes(TOOL_CODES).checkoutDate(CHECKOUT_DATE).rentalDays(9).discountPercentage(10).build();
+
+        var cartAgreement = agreementManager.generateCartAgreement(cart);
+        assertEquals(3, exclusionManager.counts.get());
+
+        var single = new AgreementManager();
+        var baseCharge = BigDecimal.ZERO;
+        var finalCharge = BigDecimal.ZERO;
+        for (int line = 0; line < TOOL_CODES.size(); line++) {
+            var expected = single.generateRentalAgreement(RentalApplication.builder()
+                    .toolCode(TOOL_CODES.get(line)).checkoutDate(CHECKOUT_DATE).rentalDays(9).discountPercentage(10).build());
+            assertEquals(expected, cartAgreement.lines().get(line));
+            baseCharge = baseCharge.add(expected.baseCharge());
+            finalCharge = finalCharge.add(expected.finalCharge());
+        }
+
+        var expectedBaseCharge = baseCharge;
+        var expectedFinalCharge = finalCharge;
+        assertAll(
+                () -> assertEquals(TOOL_CODES.size(), cartAgreement.getAgreements().size()),
+                () -> assertEquals(expectedBaseCharge, cartAgreement.baseCharge()),
+                () -> assertEquals(expectedFinalCharge, cartAgreement.finalCharge()),
+                () -> assertEquals(expectedBaseCharge.subtract(expectedFinalCharge), cartAgreement.discountAmount()),
+                () -> assertEquals(Currency.getInstance("USD"), cartAgreement.currency())
+        );
+    }
+
+    /**
+     * Test Case - Carts priced in Canadian dollars, with an unknown tool, and with no tools, and cart agreements built
+     * with totals or a currency that don't match their lines
+     * Success criteria - Every line is converted like a single agreement, and invalid carts and cart agreements are
+     * rejected
+     */
+    @Test
+    void cartCurrencyAndValidation() {
+        var agreementManager = new AgreementManager();
+        var cad = Currency.getInstance("CAD");
+        var cart = RentalCart.builder()
+                .toolCode("LADW").toolCode("JAKD").checkoutDate(CHECKOUT_DATE).rentalDays(5).currency(cad).build();
+        var cartAgreement = agreementManager.generateCartAgreement(cart);
+        var expected = agreementManager.generateRentalAgreement(RentalApplication.builder()
+                .toolCode("JAKD").checkoutDate(CHECKOUT_DATE).rentalDays(5).currency(cad).build());
+
+        assertAll(
+                () -> assertEquals(cad, cartAgreement.currency()),
+                () -> assertEquals(expected, cartAgreement.lines().get(1)),
+                () -> assertThrows(IllegalArgumentException.class, () -> agreementManager.generateCartAgreement(
+                        RentalCart.builder().toolCode("LADW").toolCode("XXXX").checkoutDate(CHECKOUT_DATE).rentalDays(5).build())),
+                () -> assertThrows(IllegalArgumentException.class,
+                        () -> RentalCart.builder().checkoutDate(CHECKOUT_DATE).rentalDays(5).build()),
+                () -> assertThrows(IllegalArgumentException.class, () -> new CartAgreement(cartAgreement.lines(),
+                        cartAgreement.baseCharge(), cartAgreement.discountAmount(), cartAgreement.finalCharge(),
+                        Currency.getInstance("USD"))),
+                () -> assertThrows(IllegalArgumentException.class, () -> new CartAgreement(cartAgreement.lines(),
+                        cartAgreement.baseCharge().add(BigDecimal.ONE), cartAgreement.discountAmount(),
+                        cartAgreement.finalCharge(), cad)),
+                () -> assertEquals(cartAgreement, new CartAgreement(cartAgreement.lines(), cartAgreement.baseCharge(),
+                        cartAgreement.discountAmount(), cartAgreement.finalCharge(), cad))
+        );
+    }
+
+    /**
+     * Exclusion manager that counts how many times a rental period is counted
+     */
+    private static class CountingExclusionManager extends ExclusionManager {
+        private final AtomicInteger counts = new AtomicInteger();
+
+        @Override
+        public int countExclusionDays(ToolType toolType, long epochDay, int days) {
+            this.counts.incrementAndGet();
+            return super.countExclusionDays(toolType, epochDay, days);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.demo;
+
+import com.demo.datatypes.Tool;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ToolCatalogTest {
+    /**
+     * Tools loaded from a file must be indexed by code, with tools of the same type sharing one ToolType
+     */
+    @Test
+    void loadIndexesToolsAndSharesTypes(@TempDir Path directory) throws IOException {
+        var file = directory.resolve("catalog.csv");
+        Files.writeString(file, """
+                # code, brand, type, daily charge, weekday, weekend, holiday
+                JAKD, DeWalt, Jackhammer, 2.99, true, false, false
+                JAKR, Ridgid, Jackhammer, 2.99, true, false, false
+
+                LADW, Werner, Ladder, 1.99, true, true, false
+                """);
+
+        var catalog = ToolCatalog.load(file);
+
+        assertAll(
+                () -> assertEquals(3, catalog.size()),
+                () -> assertEquals("Ridgid", catalog.getTool("JAKR").brand()),
+                () -> assertSame(catalog.getTool("JAKD").type(), catalog.getTool("JAKR").type()),
+                () -> assertEquals(new BigDecimal("1.99"), catalog.getTool("LADW").type().dailyCharge()),
+                () -> assertNull(catalog.getTool("CHNS")),
+                () -> assertNull(catalog.getTool(null))
+        );
+    }
+
+    /**
+     * Duplicate tool codes would make lookups ambiguous, so building the catalog must fail
+     */
+    @Test
+    void duplicateToolCodesAreRejected() {
+        var tool = ToolData.getDefaultTools().get(0);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new ToolCatalog(List.of(tool, new Tool(tool.code(), "Other", tool.type()))));
+    }
+}
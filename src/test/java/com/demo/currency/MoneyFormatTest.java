@@ -0,0 +1,120 @@
+package com.demo.currency;
+
+import com.demo.AgreementManager;
+import com.demo.AgreementRenderer;
+import com.demo.datatypes.RentalApplication;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.NumberFormat;
+import java.time.LocalDate;
+import java.util.Currency;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyFormatTest {
+    private static final Currency USD = Currency.getInstance("USD");
+    private static final Currency CAD = Currency.getInstance("CAD");
+    private static final Currency EUR = Currency.getInstance("EUR");
+
+    /**
+     * Test Case - Cached formatters produce the same text as a NumberFormat for the same locale and currency
+     * Success criteria - Every amount matches across locales with different symbols, separators and layouts
+     */
+    @Test
+    void matchesNumberFormat() {
+        var locales = List.of(Locale.US, Locale.CANADA, Locale.CANADA_FRENCH, Locale.GERMANY, Locale.FRANCE,
+                Locale.ITALY, Locale.UK, Locale.of("de", "CH"), Locale.of("ar", "EG"), Locale.ROOT);
+        var amounts = List.of(0L, 1L, 99L, 100L, 1_234L, 99_999L, 100_000L, 123_456_789L, 1_000_000_000_00L, -4_995L);
+
+        for (var locale : locales) {
+            for (var currency : List.of(USD, CAD, EUR)) {
+                var expected = NumberFormat.getCurrencyInstance(locale);
+                expected.setCurrency(currency);
+                var format = MoneyFormat.of(locale, currency);
+
+                for (var cents : amounts) {
+                    var amount = BigDecimal.valueOf(cents, 2);
+                    assertEquals(expected.format(amount), format.format(amount), locale + " " + currency + " " + amount);
+                }
+                assertSame(format, MoneyFormat.of(locale, currency));
+            }
+        }
+    }
+
+    /**
+     * Test Case - Applications priced in another currency, including a half price ladder for one day and a chainsaw
+     * for seven charge days, and the rendered agreement
+     * Success criteria - The $1.99 ladder rate at 1.365 CAD per USD is CA$2.72, so three charge days are CA$8.16 and
+     * the 25% discount is CA$2.04, worked out in Canadian dollars.  Half of CA$2.72 is CA$1.36, and seven days of the
+     * CA$2.03 chainsaw rate are CA$14.21.  The rendered agreement shows the daily charge it was priced with, even
+     * after a new rate table is shared.
+     */
+    @Test
+    void agreementsCarryTheirCurrency() {
+        var agreementManager = new AgreementManager();
+        var application = RentalApplication.builder().toolCode("LADW").checkoutDate(LocalDate.of(2020, 7, 2))
+                .rentalDays(4).discountPercentage(25).currency(CAD).build();
+        var agreement = agreementManager.generateRentalAgreement(application);
+        var halfPrice = agreementManager.generateRentalAgreement(RentalApplication.builder().toolCode("LADW")
+                .checkoutDate(LocalDate.of(2020, 7, 6)).rentalDays(1).discountPercentage(50).currency(CAD).build());
+        var chainsaw = agreementManager.generateRentalAgreement(RentalApplication.builder().toolCode("CHNS")
+                .checkoutDate(LocalDate.of(2020, 7, 6)).rentalDays(9).currency(CAD).build());
+        var json = new StringBuilder();
+        var rates = ExchangeRates.getInstance();
+        try {
+            ExchangeRates.setInstance(new ExchangeRates(Map.of(CAD, new BigDecimal("2"))));
+            new AgreementRenderer(Locale.CANADA).render(agreement.toAgreement(), AgreementRenderer.Format.JSON, json);
+        } finally {
+            ExchangeRates.setInstance(rates);
+        }
+
+        assertAll(
+                () -> assertEquals(CAD, agreement.currency()),
+                () -> assertEquals(new BigDecimal("2.72"), agreement.dailyCharge()),
+                () -> assertEquals(new BigDecimal("8.16"), agreement.baseCharge()),
+                () -> assertEquals(new BigDecimal("2.04"), agreement.discountAmount()),
+                () -> assertEquals(new BigDecimal("6.12"), agreement.finalCharge()),
+                () -> assertEquals(new BigDecimal("2.72"), halfPrice.baseCharge()),
+                () -> assertEquals(new BigDecimal("1.36"), halfPrice.discountAmount()),
+                () -> assertEquals(7, chainsaw.chargeDays()),
+                () -> assertEquals(new BigDecimal("2.03"), chainsaw.dailyCharge()),
+                () -> assertEquals(new BigDecimal("14.21"), chainsaw.baseCharge()),
+                () -> assertTrue(json.toString().contains("\"dailyCharge\":2.72,\"chargeDays\":3,\"currency\":\"CAD\"")),
+                () -> assertThrows(IllegalArgumentException.class, () -> RentalApplication.builder().toolCode("LADW")
+                        .checkoutDate(LocalDate.of(2020, 7, 2)).rentalDays(4).currency(Currency.getInstance("JPY")).build()),
+                () -> assertThrows(IllegalArgumentException.class, () -> agreementManager.generateRentalAgreement(
+                        RentalApplication.builder().toolCode("LADW").checkoutDate(LocalDate.of(2020, 7, 2))
+                                .rentalDays(4).currency(Currency.getInstance("AUD")).build()))
+        );
+    }
+
+    /**
+     * Test Case - Rate files are parsed line by line, and amounts convert to and from the base currency
+     * Success criteria - Conversions round half up, and a bad line is reported with its line number
+     */
+    @Test
+    void ratesAreLoadedAndApplied(@TempDir Path directory) throws Exception {
+        var file = directory.resolve("rates.csv");
+        Files.writeString(file, "# rates\nEUR, 0.5\nCAD, 1.25\n");
+        var rates = ExchangeRates.load(file);
+        Files.writeString(file, "EUR, 0.5\nJPY, 150\n");
+        var error = assertThrows(IllegalArgumentException.class, () -> ExchangeRates.load(file));
+
+        assertAll(
+                () -> assertEquals(3, rates.getCurrencies().size()),
+                () -> assertEquals(new BigDecimal("1.25"), rates.getRate(CAD)),
+                () -> assertEquals(63, rates.fromBaseCents(125, EUR)),
+                () -> assertEquals(250, rates.toBaseCents(125, EUR)),
+                () -> assertEquals(100, rates.toBaseCents(125, CAD)),
+                () -> assertTrue(error.getMessage().startsWith("Invalid exchange rate on line 2")),
+                () -> assertThrows(IllegalArgumentException.class, () -> new ExchangeRates(Map.of(USD, new BigDecimal("2"))))
+        );
+    }
+}
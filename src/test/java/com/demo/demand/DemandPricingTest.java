@@ -0,0 +1,236 @@
+package com.demo.demand;
+
+import com.demo.AgreementManager;
+import com.demo.ExclusionManager;
+import com.demo.FleetIndex;
+import com.demo.datatypes.ChargeResult;
+import com.demo.datatypes.RentalApplication;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DemandPricingTest {
+    private static final LocalDate FIRST_DATE = LocalDate.of(2015, 1, 1);
+    private static final int DAYS = 730;
+
+    /**
+     * Test Case - Several threads add and remove random rentals, some starting before the counted range, while
+     * the same rentals are counted day by day in a plain array
+     * Success criteria - Every daily count and every rolled up period matches the plain array
+     */
+    @Test
+    void countersMatchDailyCounts() throws InterruptedException {
+        var counters = new UtilizationCounters(FIRST_DATE, DAYS);
+        var expected = new AtomicLongArray(DAYS);
+        var threads = new ArrayList<Thread>();
+
+        for (int t = 0; t < 4; t++) {
+            var random = new Random(t);
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    var first = random.nextInt(DAYS + 20) - 20;
+                    var days = 1 + random.nextInt(Math.min(30, DAYS - first));
+                    var remove = i % 5 == 4;
+                    if (remove) {
+                        counters.removeRental("Ladder", FIRST_DATE.toEpochDay() + first, days);
+                    } else {
+                        counters.addRental("Ladder", FIRST_DATE.toEpochDay() + first, days);
+                    }
+                    for (int day = Math.max(0, first); day < Math.min(DAYS, first + days); day++) {
+                        expected.addAndGet(day, remove ? -1 : 1);
+                    }
+                }
+            }));
+        }
+        for (var thread : threads) {
+            thread.join();
+        }
+
+        for (int day = 0; day < DAYS; day++) {
+            assertEquals(expected.get(day), counters.getRentals("Ladder", FIRST_DATE.toEpochDay() + day), "Day " + day);
+        }
+
+        var random = new Random(99);
+        for (int i = 0; i < 1_000; i++) {
+            var first = random.nextInt(DAYS + 40) - 20;
+            var days = 1 + random.nextInt(60);
+            var sum = 0L;
+            for (int day = Math.max(0, first); day < Math.min(DAYS, first + days); day++) {
+                sum += expected.get(day);
+            }
+            assertEquals(sum, counters.getRentedDays("Ladder", FIRST_DATE.toEpochDay() + first, days));
+        }
+        assertEquals(0, counters.getRentedDays("Chainsaw", FIRST_DATE.toEpochDay(), DAYS));
+    }
+
+    /**
+     * Test Case - One thread books and cancels the same 30 day rental over and over while another reads the rented
+     * days across it
+     * Success criteria - Every read sees the rental either whole or not at all
+     */
+    @Test
+    void readersSeeWholeRentals() throws InterruptedException {
+        var counters = new UtilizationCounters(FIRST_DATE, DAYS);
+        var epochDay = FIRST_DATE.toEpochDay() + 100;
+        var writer = Thread.ofPlatform().start(() -> {
+            for (int i = 0; i < 200_000; i++) {
+                counters.addRental("Ladder", epochDay, 30);
+                counters.removeRental("Ladder", epochDay, 30);
+            }
+        });
+
+        while (writer.isAlive()) {
+            var rentedDays = counters.getRentedDays("Ladder", epochDay - 10, 50);
+            assertTrue(rentedDays == 0 || rentedDays == 30, "Read " + rentedDays + " rented days");
+        }
+        writer.join();
+    }
+
+    /**
+     * Test Case - A rental is counted, the range is moved forward past its first days, and rentals reaching past the
+     * end of the range are added before and after the move
+     * Success criteria - The rental's remaining days keep their counts and the passed days are dropped.  A rental
+     * past the end is refused until the range covers it, cancelling the first rental only takes off its remaining
+     * days, and the range can't move back.
+     */
+    @Test
+    void countedDaysMoveForward() {
+        var counters = new UtilizationCounters(FIRST_DATE, 10);
+        var firstDay = FIRST_DATE.toEpochDay();
+        counters.addRental("Ladder", firstDay + 2, 5);
+
+        assertThrows(IllegalArgumentException.class, () -> counters.addRental("Ladder", firstDay + 8, 5));
+        counters.advanceTo(FIRST_DATE.plusDays(4));
+        var kept = counters.getRentedDays("Ladder", firstDay, 20);
+        var passed = counters.getRentals("Ladder", firstDay + 3);
+        counters.addRental("Ladder", firstDay + 8, 5);
+        var added = counters.getRentedDays("Ladder", firstDay + 4, 10);
+        counters.removeRental("Ladder", firstDay + 2, 5);
+
+        assertAll(
+                () -> assertEquals(FIRST_DATE.plusDays(4), counters.getFirstDate()),
+                () -> assertEquals(3, kept),
+                () -> assertEquals(0, passed),
+                () -> assertEquals(8, added),
+                () -> assertEquals(5, counters.getRentedDays("Ladder", firstDay + 4, 10)),
+                () -> assertEquals(0, counters.getRentals("Ladder", firstDay + 6)),
+                () -> assertThrows(IllegalArgumentException.class, () -> counters.advanceTo(FIRST_DATE))
+        );
+
+        counters.advanceTo(FIRST_DATE.plusDays(100));
+        assertEquals(0, counters.getRentedDays("Ladder", firstDay, 200));
+    }
+
+    /**
+     * Test Case - A fleet of one ladder is overbooked, and a chainsaw fleet has a rental taken away that was never
+     * counted
+     * Success criteria - Utilization is held between 0 and 1, so the multipliers are the ends of the curve
+     */
+    @Test
+    void utilizationStaysWithinTheFleet() {
+        var counters = new UtilizationCounters(FIRST_DATE, DAYS);
+        var demandPricing = new DemandPricing(Map.of("Ladder", 1, "Chainsaw", 1),
+                Map.of(new BigDecimal("0.5"), BigDecimal.ONE, BigDecimal.ONE, new BigDecimal("1.5")), counters);
+        var toolTypes = new AgreementManager();
+        var ladderType = toolTypes.generateRentalAgreement(RentalApplication.builder()
+                .toolCode("LADW").checkoutDate(FIRST_DATE).rentalDays(1).build()).selectedTool().type();
+        var chainsawType = toolTypes.generateRentalAgreement(RentalApplication.builder()
+                .toolCode("CHNS").checkoutDate(FIRST_DATE).rentalDays(1).build()).selectedTool().type();
+
+        for (int i = 0; i < 3; i++) {
+            demandPricing.recordRental(ladderType, FIRST_DATE.toEpochDay(), 7);
+        }
+        demandPricing.removeRental(chainsawType, FIRST_DATE.toEpochDay(), 7);
+
+        assertAll(
+                () -> assertEquals(1500, demandPricing.getMultiplier(ladderType, FIRST_DATE.toEpochDay(), 7)),
+                () -> assertEquals(1000, demandPricing.getMultiplier(chainsawType, FIRST_DATE.toEpochDay(), 7))
+        );
+    }
+
+    /**
+     * Test Case - Three ladders are booked from a fleet of two for the same four days, then the same ladder and a
+     * chainsaw are quoted, and the last booking is cancelled
+     * Success criteria - Each booking is priced from the utilization before it: 0.90 when the fleet is idle,
+     * 1.00 at half use and 1.50 when fully rented.  A period overlapping half of those rentals interpolates to 1.25,
+     * quotes and generated agreements don't change utilization, tool types without a capacity keep their fixed
+     * price, and the cancelled booking stops counting.
+     */
+    @Test
+    void bookingsFollowTheMultiplierCurve() {
+        var demandPricing = new DemandPricing(Map.of("Ladder", 2),
+                Map.of(BigDecimal.ZERO, new BigDecimal("0.90"), new BigDecimal("0.5"), BigDecimal.ONE,
+                        BigDecimal.ONE, new BigDecimal("1.5")),
+                new UtilizationCounters(FIRST_DATE, DAYS));
+        var fleetIndex = new FleetIndex(FIRST_DATE);
+        fleetIndex.addUnits("LADW", 3);
+        var agreementManager = new AgreementManager(new ExclusionManager(), null, fleetIndex, null, demandPricing);
+        var ladder = RentalApplication.builder().toolCode("LADW").checkoutDate(LocalDate.of(2015, 9, 14)).rentalDays(4).build();
+        var counters = demandPricing.getCounters();
+        var firstChargeDay = LocalDate.of(2015, 9, 15).toEpochDay();
+
+        var idle = agreementManager.reserveAgreement(ladder).agreement();
+        var halfUsed = agreementManager.reserveAgreement(ladder).agreement();
+        var fullyUsed = agreementManager.reserveAgreement(ladder);
+        var quote = new ChargeResult();
+        agreementManager.calculateCharges("LADW", LocalDate.of(2015, 9, 16), 4, 10, quote);
+        var quoted = agreementManager.generateRentalAgreement(ladder);
+        var chainsaw = agreementManager.generateRentalAgreement(RentalApplication.builder()
+                .toolCode("CHNS").checkoutDate(LocalDate.of(2015, 9, 14)).rentalDays(4).build());
+        var bookedDays = counters.getRentedDays("Ladder", firstChargeDay, 4);
+        agreementManager.cancelReservation(fullyUsed);
+
+        assertAll(
+                () -> assertEquals(new BigDecimal("7.16"), idle.baseCharge()),
+                () -> assertEquals(new BigDecimal("7.96"), halfUsed.baseCharge()),
+                () -> assertEquals(new BigDecimal("11.94"), fullyUsed.agreement().baseCharge()),
+                () -> assertEquals(995, quote.getBaseChargeCents()),
+                () -> assertEquals(100, quote.getDiscountAmountCents()),
+                () -> assertEquals(new BigDecimal("11.94"), quoted.baseCharge()),
+                () -> assertEquals(new BigDecimal("5.96"), chainsaw.baseCharge()),
+                () -> assertEquals(12, bookedDays),
+                () -> assertEquals(8, counters.getRentedDays("Ladder", firstChargeDay, 4)),
+                () -> assertEquals(1500, demandPricing.getMultiplier(idle.selectedTool().type(), firstChargeDay, 4))
+        );
+    }
+
+    /**
+     * Test Case - Load the example configuration, a configuration with an invalid curve point, and one that writes
+     * the same point two ways
+     * Success criteria - The example prices an idle fleet at 0.90, and the invalid and repeated points are reported
+     * with their lines
+     */
+    @Test
+    void loadConfiguration() throws IOException {
+        var example = DemandPricing.loadResource(DemandPricing.EXAMPLE_CONFIG, new UtilizationCounters(FIRST_DATE, DAYS));
+        var ladderType = new AgreementManager().generateRentalAgreement(RentalApplication.builder()
+                .toolCode("LADW").checkoutDate(FIRST_DATE).rentalDays(1).build()).selectedTool().type();
+        var file = Files.createTempFile("demand", ".csv");
+
+        try {
+            Files.writeString(file, "capacity, Ladder, 4\npoint, 0.5, 1.0001\n");
+            var error = assertThrows(IllegalArgumentException.class,
+                    () -> DemandPricing.load(file, new UtilizationCounters(FIRST_DATE, DAYS)));
+            Files.writeString(file, "capacity, Ladder, 4\npoint, 0.8, 1\npoint, 0.80, 1.25\n");
+            var repeated = assertThrows(IllegalArgumentException.class,
+                    () -> DemandPricing.load(file, new UtilizationCounters(FIRST_DATE, DAYS)));
+            assertAll(
+                    () -> assertEquals(900, example.getMultiplier(ladderType, FIRST_DATE.toEpochDay(), 7)),
+                    () -> assertEquals(900, example.adjustBaseCharge(ladderType, FIRST_DATE.toEpochDay(), 7, 1000)),
+                    () -> assertTrue(error.getMessage().contains("line 2"), error.getMessage()),
+                    () -> assertTrue(repeated.getMessage().contains("line 3"), repeated.getMessage())
+            );
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.demo.history;
+
+import com.demo.AgreementManager;
+import com.demo.ExclusionManager;
+import com.demo.ToolCatalog;
+import com.demo.currency.ExchangeRates;
+import com.demo.datatypes.RentalAgreement;
+import com.demo.datatypes.RentalApplication;
+import com.demo.datatypes.Tool;
+import com.demo.datatypes.ToolType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AgreementColumnStoreTest {
+    private static final String[] TOOL_CODES = { "CHNS", "LADW", "JAKD", "JAKR" };
+
+    /**
+     * Grouped totals scanned from mapped column files, split over many segments, must match the same totals
+     * calculated from the agreement objects
+     */
+    @Test
+    void aggregatesMatchAgreements(@TempDir Path directory) {
+        var agreements = generateAgreements(20_000);
+        var store = new AgreementColumnStore(new ExclusionManager(), directory, 1024);
+        agreements.forEach(store::append);
+
+        var summer = AgreementColumnStore.Filter.checkoutBetween(LocalDate.of(2015, 6, 1), LocalDate.of(2015, 8, 31));
+        var jackhammers = AgreementColumnStore.Filter.all().withToolCodes(Set.of("JAKD", "JAKR"));
+
+        try (store) {
+            assertAll(
+                    () -> assertEquals(20_000, store.size()),
+                    () -> assertEquals(expected(agreements, agreement -> "all", RentalAgreement::finalCharge),
+                            store.aggregate(AgreementColumnStore.Filter.all(), null, AgreementColumnStore.Measure.FINAL_CHARGE)),
+                    () -> assertEquals(expected(agreements, agreement -> agreement.selectedTool().type().label(), RentalAgreement::baseCharge),
+                            store.aggregate(AgreementColumnStore.Filter.all(), AgreementColumnStore.GroupBy.TOOL_TYPE,
+                                    AgreementColumnStore.Measure.BASE_CHARGE)),
+                    () -> assertEquals(expected(agreements.stream().filter(agreement -> !agreement.checkoutDate().isBefore(LocalDate.of(2015, 6, 1))
+                                            && !agreement.checkoutDate().isAfter(LocalDate.of(2015, 8, 31))).toList(),
+                                    agreement -> YearMonth.from(agreement.checkoutDate()).toString(), RentalAgreement::discountAmount),
+                            store.aggregate(summer, AgreementColumnStore.GroupBy.CHECKOUT_MONTH, AgreementColumnStore.Measure.DISCOUNT_AMOUNT)),
+                    () -> assertEquals(Set.of("JAKD", "JAKR"),
+                            store.aggregate(jackhammers, AgreementColumnStore.GroupBy.TOOL_CODE, AgreementColumnStore.Measure.AGREEMENTS).keySet()),
+                    () -> assertEquals(0, store.sum(AgreementColumnStore.Filter.all().withToolCodes(Set.of("CHNS")),
+                            AgreementColumnStore.Measure.HOLIDAY_DAYS))
+            );
+        }
+    }
+
+    /**
+     * Revenue lost to holidays must be the holiday days excluded by tools that don't charge holidays, times their
+     * daily charge
+     */
+    @Test
+    void countsHolidayExclusions() {
+        var agreementManager = new AgreementManager();
+        var store = new AgreementColumnStore();
+
+        // Checkout 7/2/15 for 9 days covers the observed Fourth of July (7/3)
+        store.append(agreementManager.generateRentalAgreement(RentalApplication.builder()
+                .toolCode("JAKR").checkoutDate(LocalDate.of(2015, 7, 2)).rentalDays(9).build()));
+        // Checkout 9/3/15 for 6 days covers Labor Day (9/7)
+        store.append(agreementManager.generateRentalAgreement(RentalApplication.builder()
+                .toolCode("CHNS").checkoutDate(LocalDate.of(2015, 9, 3)).rentalDays(6).build()));
+
+        assertAll(
+                () -> assertEquals(1, store.sum(AgreementColumnStore.Filter.all(), AgreementColumnStore.Measure.HOLIDAY_DAYS)),
+                () -> assertEquals(299, store.sum(AgreementColumnStore.Filter.all(), AgreementColumnStore.Measure.HOLIDAY_CHARGE))
+        );
+    }
+
+    /**
+     * Rows appended after the catalog moves a tool to a new type and daily charge must be reported with the new
+     * tool, while earlier rows keep the tool they were priced with
+     */
+    @Test
+    void keepsEachRowsTool() {
+        var agreementManager = new AgreementManager();
+        var store = new AgreementColumnStore();
+        var application = RentalApplication.builder().toolCode("JAKR").checkoutDate(LocalDate.of(2015, 7, 2)).rentalDays(9).build();
+        var before = ToolCatalog.getInstance();
+        var breaker = new ToolType("Breaker", new BigDecimal("3.49"), true, false, false);
+        var after = new ToolCatalog(before.getTools().stream()
+                .map(tool -> tool.code().equals("JAKR") ? new Tool(tool.code(), tool.brand(), breaker) : tool)
+                .toList());
+
+        // Checkout 7/2/15 for 9 days covers the observed Fourth of July (7/3) under both catalogs
+        store.append(agreementManager.generateRentalAgreement(application));
+        try {
+            ToolCatalog.setInstance(after);
+            store.append(agreementManager.generateRentalAgreement(application));
+        } finally {
+            ToolCatalog.setInstance(before);
+        }
+
+        assertAll(
+                () -> assertEquals(299 + 349, store.sum(AgreementColumnStore.Filter.all(), AgreementColumnStore.Measure.HOLIDAY_CHARGE)),
+                () -> assertEquals(Map.of("Breaker", 1L, "Jackhammer", 1L), store.aggregate(AgreementColumnStore.Filter.all(),
+                        AgreementColumnStore.GroupBy.TOOL_TYPE, AgreementColumnStore.Measure.AGREEMENTS)),
+                () -> assertEquals(Map.of("JAKR", 2L), store.aggregate(AgreementColumnStore.Filter.all().withToolCodes(Set.of("JAKR")),
+                        AgreementColumnStore.GroupBy.TOOL_CODE, AgreementColumnStore.Measure.AGREEMENTS))
+        );
+    }
+
+    /**
+     * Charges in another currency must be kept exactly as priced, whatever the exchange rates are later, and summed
+     * apart from US dollar charges
+     */
+    @Test
+    void keepsChargesInTheirOwnCurrency() {
+        var euro = Currency.getInstance("EUR");
+        var agreementManager = new AgreementManager();
+        var store = new AgreementColumnStore();
+        var dollars = agreementManager.generateRentalAgreement(RentalApplication.builder()
+                .toolCode("JAKR").checkoutDate(LocalDate.of(2015, 7, 2)).rentalDays(9).build());
+        var euros = agreementManager.generateRentalAgreement(RentalApplication.builder()
+                .toolCode("LADW").checkoutDate(LocalDate.of(2015, 7, 2)).rentalDays(5).discountPercentage(10).currency(euro).build());
+        var rates = ExchangeRates.getInstance();
+
+        store.append(dollars);
+        try {
+            ExchangeRates.setInstance(new ExchangeRates(Map.of(euro, new BigDecimal("2"))));
+            store.append(euros);
+        } finally {
+            ExchangeRates.setInstance(rates);
+        }
+
+        var dollarCents = dollars.finalCharge().movePointRight(2).longValueExact();
+        var euroCents = euros.finalCharge().movePointRight(2).longValueExact();
+        assertAll(
+                () -> assertEquals(dollarCents, store.sum(AgreementColumnStore.Filter.all(), AgreementColumnStore.Measure.FINAL_CHARGE)),
+                () -> assertEquals(euroCents, store.sum(AgreementColumnStore.Filter.all().withCurrency(euro),
+                        AgreementColumnStore.Measure.FINAL_CHARGE)),
+                () -> assertEquals(Map.of("EUR", euroCents, "USD", dollarCents), store.aggregate(AgreementColumnStore.Filter.all(),
+                        AgreementColumnStore.GroupBy.CURRENCY, AgreementColumnStore.Measure.FINAL_CHARGE)),
+                () -> assertEquals(2, store.sum(AgreementColumnStore.Filter.all(), AgreementColumnStore.Measure.AGREEMENTS)),
+                () -> assertEquals(0, store.sum(AgreementColumnStore.Filter.all().withCurrency(Currency.getInstance("CAD")),
+                        AgreementColumnStore.Measure.AGREEMENTS))
+        );
+    }
+
+    /**
+     * The civil from days month calculation must agree with java.time across leap years and century boundaries
+     */
+    @Test
+    void monthIndexMatchesJavaTime() {
+        for (long epochDay = LocalDate.of(1899, 1, 1).toEpochDay(); epochDay <= LocalDate.of(2401, 12, 31).toEpochDay(); epochDay++) {
+            var date = LocalDate.ofEpochDay(epochDay);
+            assertEquals(date.getYear() * 12 + date.getMonthValue() - 1, AgreementColumnStore.monthIndexOf(epochDay));
+        }
+    }
+
+    private static TreeMap<String, Long> expected(List<RentalAgreement> agreements, Function<RentalAgreement, String> key,
+                                                  Function<RentalAgreement, BigDecimal> amount) {
+        return agreements.stream().collect(Collectors.groupingBy(key,
+                TreeMap::new, Collectors.summingLong(agreement -> amount.apply(agreement).movePointRight(2).longValueExact())));
+    }
+
+    private static List<RentalAgreement> generateAgreements(int count) {
+        var agreementManager = new AgreementManager();
+        var agreements = new ArrayList<RentalAgreement>(count);
+
+        for (int i = 0; i < count; i++) {
+            agreements.add(agreementManager.generateRentalAgreement(RentalApplication.builder()
+                    .toolCode(TOOL_CODES[i % TOOL_CODES.length])
+                    .checkoutDate(LocalDate.of(2014, 12, 1).plusDays(i % 500))
+                    .rentalDays(1 + i % 45)
+                    .discountPercentage(i % 101)
+                    .build()));
+        }
+        return agreements;
+    }
+}
@@ -0,0 +1,57 @@
+package com.demo.holidays;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HolidayRulesTest {
+    /**
+     * Each rule type in the US federal rule file must produce the expected observed dates
+     */
+    @Test
+    void usFederalRulesProduceObservedDates() {
+        var rules = HolidayRules.loadResource(HolidayRules.US_FEDERAL_RULES);
+
+        assertAll(
+                () -> assertEquals(6, rules.size()),
+                () -> assertTrue(HolidayRules.getDates(rules, 2024).contains(LocalDate.of(2024, 5, 27))),
+                () -> assertTrue(HolidayRules.getDates(rules, 2023).contains(LocalDate.of(2023, 11, 23))),
+                () -> assertTrue(HolidayRules.getDates(rules, 2021).contains(LocalDate.of(2021, 12, 24))),
+                () -> assertTrue(HolidayRules.getDates(rules, 2022).contains(LocalDate.of(2022, 12, 26)))
+        );
+    }
+
+    /**
+     * A fixed date observed on the previous Friday must be counted in the year it is celebrated in
+     */
+    @Test
+    void observedDateCrossingYearBoundaryBelongsToCelebratedYear() {
+        List<HolidayRule> rules = List.of(new FixedDateRule("New Year's Day", Month.JANUARY, 1, true));
+
+        assertAll(
+                () -> assertTrue(HolidayRules.getDates(rules, 2021).contains(LocalDate.of(2021, 12, 31))),
+                () -> assertFalse(HolidayRules.getDates(rules, 2022).contains(LocalDate.of(2022, 1, 1)))
+        );
+    }
+
+    /**
+     * A fifth weekday occurrence only exists in some months, and one-off dates only apply to their own year
+     */
+    @Test
+    void rulesWithoutOccurrenceReturnNull() {
+        var fifthMonday = new NthWeekdayRule("Fifth Monday", Month.FEBRUARY, DayOfWeek.MONDAY, 5);
+        var oneOff = new OneOffDateRule("Grand Opening", LocalDate.of(2024, 8, 16));
+
+        assertAll(
+                () -> assertNull(fifthMonday.getDate(2023)),
+                () -> assertEquals(LocalDate.of(2016, 2, 29), fifthMonday.getDate(2016)),
+                () -> assertNull(oneOff.getDate(2025)),
+                () -> assertEquals(LocalDate.of(2024, 8, 16), oneOff.getDate(2024))
+        );
+    }
+}
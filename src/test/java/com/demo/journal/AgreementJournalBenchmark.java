@@ -0,0 +1,133 @@
+package com.demo.journal;
+
+import com.demo.datatypes.RentalAgreement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * JMH benchmarks for the agreement journal, run against a temporary directory on the local disk.
+ * append measures durable appends from several pricing threads at once, each waiting for its own record, so the
+ * score shows how well group commit shares one force() between threads.  appendAsync measures fire and forget appends
+ * from a single thread.  recover measures a full replay of a journal holding a snapshot plus a tail segment.
+ * Run with the benchmark profile described in pom.xml, for example -Djmh.args="AgreementJournalBenchmark".
+ */
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class AgreementJournalBenchmark {
+    private static final List<RentalAgreement> AGREEMENTS = AgreementJournalTest.generateAgreements(10_000);
+
+    @State(Scope.Benchmark)
+    public static class AppendState {
+        Path directory;
+        AgreementJournal journal;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            this.directory = Files.createTempDirectory("journal-append");
+            this.journal = AgreementJournal.open(this.directory);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            this.journal.close();
+            deleteDirectory(this.directory);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+
+        RentalAgreement nextAgreement() {
+            this.next = (this.next + 1) % AGREEMENTS.size();
+            return AGREEMENTS.get(this.next);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class RecoveryState {
+        @Param({"1000000"})
+        int agreements;
+
+        Path directory;
+        AgreementJournal journal;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            this.directory = Files.createTempDirectory("journal-recover");
+            this.journal = AgreementJournal.open(this.directory);
+
+            var futures = new CompletableFuture<?>[this.agreements];
+            for (int i = 0; i < this.agreements; i++) {
+                futures[i] = this.journal.append(AGREEMENTS.get(i % AGREEMENTS.size()));
+                if (i == this.agreements * 9 / 10) {
+                    CompletableFuture.allOf(Arrays.copyOf(futures, i + 1)).join();
+                    this.journal.snapshot();
+                }
+            }
+            CompletableFuture.allOf(futures).join();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            this.journal.close();
+            deleteDirectory(this.directory);
+        }
+    }
+
+    @Benchmark
+    @Threads(16)
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public long append(AppendState state, Cursor cursor) {
+        return state.journal.append(cursor.nextAgreement()).join();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public CompletableFuture<Long> appendAsync(AppendState state, Cursor cursor) {
+        return state.journal.append(cursor.nextAgreement());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public long recover(RecoveryState state, Blackhole blackhole) {
+        return state.journal.replay(blackhole::consume);
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (var file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+}
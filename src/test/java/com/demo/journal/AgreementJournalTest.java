@@ -0,0 +1,155 @@
+package com.demo.journal;
+
+import com.demo.AgreementManager;
+import com.demo.ToolCatalog;
+import com.demo.datatypes.RentalAgreement;
+import com.demo.datatypes.RentalApplication;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AgreementJournalTest {
+    private static final String[] TOOL_CODES = { "CHNS", "LADW", "JAKD", "JAKR" };
+
+    /**
+     * Agreements written before and after a snapshot must all be replayed in order after the journal is reopened,
+     * and sequence numbers must carry on from where they stopped
+     */
+    @Test
+    void replaysSnapshotAndTail(@TempDir Path directory) {
+        var agreements = generateAgreements(5000);
+
+        try (var journal = AgreementJournal.open(directory)) {
+            appendAll(journal, agreements.subList(0, 3000));
+            assertEquals(3000, journal.snapshot());
+            appendAll(journal, agreements.subList(3000, 4000));
+        }
+
+        try (var journal = AgreementJournal.open(directory)) {
+            assertEquals(4001, journal.append(agreements.get(4000)).join());
+            appendAll(journal, agreements.subList(4001, 5000));
+
+            var replayed = new ArrayList<RentalAgreement>();
+            assertEquals(5000, journal.replay(replayed::add));
+            assertEquals(agreements, replayed);
+        }
+    }
+
+    /**
+     * A record cut short by a crash must be dropped when the journal is reopened, without losing earlier records
+     */
+    @Test
+    void truncatesTornRecord(@TempDir Path directory) throws IOException {
+        var agreements = generateAgreements(10);
+
+        try (var journal = AgreementJournal.open(directory)) {
+            appendAll(journal, agreements);
+        }
+
+        try (var segments = Files.list(directory)) {
+            var segment = segments.filter(file -> file.toString().endsWith(".log")).findFirst().orElseThrow();
+            Files.write(segment, new byte[] { 0, 0, 0, 60, 1, 2, 3 }, StandardOpenOption.APPEND);
+        }
+
+        try (var journal = AgreementJournal.open(directory)) {
+            assertEquals(11, journal.append(agreements.get(0)).join());
+
+            var replayed = new ArrayList<RentalAgreement>();
+            assertEquals(11, journal.replay(replayed::add));
+            assertEquals(agreements, replayed.subList(0, 10));
+        }
+    }
+
+    /**
+     * Agreements must replay exactly as written after their tools' rates change or the tools leave the catalog
+     */
+    @Test
+    void replaysWithoutToolCatalog(@TempDir Path directory) {
+        var agreements = generateAgreements(100);
+        var before = ToolCatalog.getInstance();
+
+        try (var journal = AgreementJournal.open(directory)) {
+            appendAll(journal, agreements);
+            ToolCatalog.setInstance(new ToolCatalog(Set.of()));
+
+            var replayed = new ArrayList<RentalAgreement>();
+            assertEquals(100, journal.replay(replayed::add));
+            assertEquals(agreements, replayed);
+        } finally {
+            ToolCatalog.setInstance(before);
+        }
+    }
+
+    /**
+     * Appends racing a close must each either be written or fail, never be left waiting, and every write that
+     * completed must be replayed after the journal is reopened
+     */
+    @Test
+    void closeSettlesEveryAppend(@TempDir Path directory) throws InterruptedException {
+        var agreements = generateAgreements(200);
+        var futures = new ConcurrentLinkedQueue<CompletableFuture<Long>>();
+        var journal = AgreementJournal.open(directory);
+        var writers = new ArrayList<Thread>();
+
+        for (int t = 0; t < 4; t++) {
+            writers.add(Thread.ofPlatform().start(() -> {
+                try {
+                    for (var agreement : agreements) {
+                        futures.add(journal.append(agreement));
+                    }
+                } catch (IllegalStateException e) {
+                    // Closed while appending
+                }
+            }));
+        }
+        journal.close();
+        for (var writer : writers) {
+            writer.join();
+        }
+
+        var written = futures.stream()
+                .filter(future -> future.handle((sequence, error) -> error == null).orTimeout(10, TimeUnit.SECONDS).join())
+                .count();
+        try (var reopened = AgreementJournal.open(directory)) {
+            assertEquals(written, reopened.replay(agreement -> { }));
+        }
+    }
+
+    private static void appendAll(AgreementJournal journal, List<RentalAgreement> agreements) {
+        var futures = agreements.stream().map(journal::append).toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(futures).join();
+    }
+
+    /**
+     * Helper function that generates a spread of agreements across every tool, date and discount
+     * @param count Number of agreements to generate
+     * @return Generated agreements
+     */
+    static List<RentalAgreement> generateAgreements(int count) {
+        var agreementManager = new AgreementManager();
+        var agreements = new ArrayList<RentalAgreement>(count);
+
+        for (int i = 0; i < count; i++) {
+            agreements.add(agreementManager.generateRentalAgreement(RentalApplication.builder()
+                    .toolCode(TOOL_CODES[i % TOOL_CODES.length])
+                    .checkoutDate(LocalDate.of(2015, 1, 1).plusDays(i % 730))
+                    .rentalDays(1 + i % 30)
+                    .discountPercentage(i % 101)
+                    .build()));
+        }
+        return agreements;
+    }
+}
@@ -0,0 +1,88 @@
+package com.demo.load;
+
+import com.demo.AgreementManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Month;
+import java.util.HashMap;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SoakRunnerTest {
+    private static final List<String> DEFAULT_TOOL_CODES = List.of("LADW", "CHNS", "JAKR", "JAKD");
+
+    /**
+     * Test Case - Generate a large workload over a thousand tool codes
+     * Success criteria - The most popular tool is requested far more than the hundredth, checkouts cluster around
+     * the holidays and weekends, rental lengths stay in range, and the same seed gives the same applications
+     */
+    @Test
+    void generatorProducesSkewedWorkload() {
+        var toolCodes = IntStream.rangeClosed(1, 1000).mapToObj(i -> String.format("G%05d", i)).toList();
+        var generator = new WorkloadGenerator(toolCodes, 1.0, 2015, 1, 22);
+        var counts = new HashMap<String, Integer>();
+        var holidayWindow = 0;
+        var lateWeek = 0;
+        var requests = 100_000;
+
+        for (int i = 0; i < requests; i++) {
+            var application = generator.next();
+            var date = application.getCheckoutDate();
+            counts.merge(application.getToolCode(), 1, Integer::sum);
+            assertTrue(application.getRentalDays() >= 1 && application.getRentalDays() <= 60);
+            if (date.getMonth() == Month.JULY && Math.abs(date.getDayOfMonth() - 4) <= 3
+                    || date.getMonth() == Month.SEPTEMBER && Math.abs(date.getDayOfMonth() - 7) <= 3) {
+                holidayWindow++;
+            }
+            if (date.getDayOfWeek().compareTo(DayOfWeek.THURSDAY) >= 0 && date.getDayOfWeek() != DayOfWeek.SUNDAY) {
+                lateWeek++;
+            }
+        }
+
+        var first = new WorkloadGenerator(toolCodes, 1.0, 2015, 1, 22).next();
+        var again = new WorkloadGenerator(toolCodes, 1.0, 2015, 1, 22).next();
+        var topCount = counts.get("G00001");
+        var hundredthCount = counts.get("G00100");
+        var holidayShare = (double) holidayWindow / requests;
+        var lateWeekShare = (double) lateWeek / requests;
+
+        assertAll(
+                () -> assertTrue(topCount > 50 * hundredthCount, topCount + " vs " + hundredthCount),
+                () -> assertTrue(holidayShare > 0.2, "Holiday share " + holidayShare),
+                () -> assertTrue(lateWeekShare > 0.5, "Thursday to Saturday share " + lateWeekShare),
+                () -> assertEquals(first.getToolCode(), again.getToolCode()),
+                () -> assertEquals(first.getCheckoutDate(), again.getCheckoutDate())
+        );
+    }
+
+    /**
+     * Test Case - Run a short soak test at a fixed rate and save the result
+     * Success criteria - Every scheduled request is priced and measured, and the result file holds the counts
+     */
+    @Test
+    void soakTestRunsAtTargetRate(@TempDir Path directory) throws Exception {
+        var generator = new WorkloadGenerator(DEFAULT_TOOL_CODES, 1.0, 2015, 2, 22);
+        var result = new SoakRunner(new AgreementManager(), generator, 2).run(5000, Duration.ofMillis(300));
+        var file = directory.resolve("soak.json");
+        result.write(file);
+        var json = Files.readString(file);
+
+        assertAll(
+                () -> assertEquals(1500, result.scheduled()),
+                () -> assertEquals(1500, result.completed()),
+                () -> assertEquals(0, result.errors()),
+                () -> assertEquals(1500, result.latency().getCount()),
+                () -> assertTrue(result.latency().getMax() >= result.serviceTime().getPercentile(50)),
+                () -> assertTrue(result.elapsedNanos() >= Duration.ofMillis(290).toNanos()),
+                () -> assertTrue(json.startsWith("{\"targetRate\":5000,\"durationMillis\":300,\"threads\":2")),
+                () -> assertTrue(json.contains("\"scheduled\":1500,\"completed\":1500,\"errors\":0"))
+        );
+    }
+}
@@ -0,0 +1,185 @@
+package com.demo.pricing;
+
+import com.demo.AgreementManager;
+import com.demo.ExclusionManager;
+import com.demo.QuoteCache;
+import com.demo.ToolCatalog;
+import com.demo.datatypes.RentalApplication;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PricingEngineTest {
+    private static final LocalDate JUNE_FIRST = LocalDate.of(2015, 6, 1);
+
+    /**
+     * Test Case - An engine with no rules prices every quote exactly like a manager without an engine
+     * Success criteria - Every agreement matches for every tool, across holidays, weekends and discounts
+     */
+    @Test
+    void noRulesMatchesDefaultPricing() {
+        var defaultManager = new AgreementManager();
+        var engineManager = new AgreementManager(new ExclusionManager(), null, null, new PricingEngine(List.of()));
+
+        for (var toolCode : List.of("CHNS", "LADW", "JAKD", "JAKR")) {
+            for (int day = 0; day < 120; day += 3) {
+                for (int rentalDays = 1; rentalDays <= 40; rentalDays += 7) {
+                    var application = RentalApplication.builder().toolCode(toolCode)
+                            .checkoutDate(JUNE_FIRST.plusDays(day)).rentalDays(rentalDays)
+                            .discountPercentage(day % 101).build();
+                    assertEquals(defaultManager.generateRentalAgreement(application),
+                            engineManager.generateRentalAgreement(application));
+                }
+            }
+        }
+    }
+
+    /**
+     * Test Case - Tiers lower the daily charge from their first charge day, and a cap limits the charge for a
+     * run of charge days when that is cheaper than the daily charges
+     * Success criteria - Ladder: 7 days at $1.99 plus 3 at $1.49.  Jackhammer: 10 charge days cost one 7 day cap
+     * plus 3 days at $2.99.
+     */
+    @Test
+    void tiersAndCapsLowerTheBaseCharge() {
+        var manager = managerWith(List.of(
+                new TierRule("Ladder", 8, new BigDecimal("1.49")),
+                new CapRule("Jackhammer", 7, new BigDecimal("14.95"))));
+
+        var ladder = manager.generateRentalAgreement(application("LADW", JUNE_FIRST, 10, 0));
+        var jackhammer = manager.generateRentalAgreement(application("JAKD", JUNE_FIRST, 14, 0));
+        var shortJackhammer = manager.generateRentalAgreement(application("JAKD", JUNE_FIRST, 5, 0));
+
+        assertAll(
+                () -> assertEquals(10, ladder.chargeDays()),
+                () -> assertEquals(new BigDecimal("18.40"), ladder.finalCharge()),
+                () -> assertEquals(10, jackhammer.chargeDays()),
+                () -> assertEquals(new BigDecimal("23.92"), jackhammer.baseCharge()),
+                () -> assertEquals(new BigDecimal("11.96"), shortJackhammer.baseCharge())
+        );
+    }
+
+    /**
+     * Test Case - Jackhammers priced with tiers, two caps that both beat the last tier's rate, and a surcharge, for
+     * rentals far past the table limit up to the longest possible rental
+     * Success criteria - Every rental up to 5,000 charge days matches a full table of the cheapest charges, and the
+     * longest rental steps back by whole best value caps without overflowing
+     */
+    @Test
+    void longRentalsRepeatTheBestCap() {
+        var plan = new PricingEngine(List.of(
+                new TierRule("Jackhammer", 5, new BigDecimal("2.49")),
+                new TierRule("Jackhammer", 20, new BigDecimal("1.99")),
+                new CapRule("Jackhammer", 7, new BigDecimal("12.95")),
+                new CapRule("Jackhammer", 30, new BigDecimal("49.99")),
+                new BrandSurchargeRule("Ridgid", 5))).getPlan(ToolCatalog.getInstance().getTool("JAKR"));
+        var costs = new long[5001];
+
+        for (int day = 1; day < costs.length; day++) {
+            costs[day] = costs[day - 1] + (day >= 20 ? 199 : day >= 5 ? 249 : 299);
+            costs[day] = Math.min(costs[day], costs[Math.max(0, day - 7)] + 1295);
+            costs[day] = Math.min(costs[day], costs[Math.max(0, day - 30)] + 4999);
+            assertEquals(costs[day] + (costs[day] * 5 + 50) / 100, plan.getBaseCharge(day), "Day " + day);
+        }
+
+        var steps = (Integer.MAX_VALUE - 4000) / 30;
+        var longest = costs[Integer.MAX_VALUE - steps * 30] + steps * 4999L;
+        assertEquals(longest + (longest * 5 + 50) / 100, plan.getBaseCharge(Integer.MAX_VALUE));
+    }
+
+    /**
+     * Test Case - A brand surcharge is added to the base charge of that brand's tools only
+     * Success criteria - Ridgid jackhammer costs 5% more than the DeWalt jackhammer of the same type
+     */
+    @Test
+    void brandSurchargeAppliesToItsBrandOnly() {
+        var manager = managerWith(List.of(new BrandSurchargeRule("Ridgid", 5)));
+
+        var ridgid = manager.generateRentalAgreement(application("JAKR", JUNE_FIRST, 5, 0));
+        var dewalt = manager.generateRentalAgreement(application("JAKD", JUNE_FIRST, 5, 0));
+
+        assertAll(
+                () -> assertEquals(new BigDecimal("12.56"), ridgid.baseCharge()),
+                () -> assertEquals(new BigDecimal("11.96"), dewalt.baseCharge())
+        );
+    }
+
+    /**
+     * Test Case - Promotions running on the checkout date stack on top of the customer's discount
+     * Success criteria - $5.96 less 10% ($0.60), less 10% of $5.36 ($0.54), less 20% of $4.82 ($0.96).  Promotions
+     * for another tool type or another date range don't apply.
+     */
+    @Test
+    void promotionsStackAfterTheCustomerDiscount() {
+        var manager = managerWith(List.of(
+                new PromotionRule("Summer Sale", PromotionRule.ALL_TOOL_TYPES, 10, JUNE_FIRST, LocalDate.of(2015, 8, 31)),
+                new PromotionRule("Ladder Days", "Ladder", 50, JUNE_FIRST, LocalDate.of(2015, 8, 31)),
+                new PromotionRule("Chainsaw Week", "Chainsaw", 20, JUNE_FIRST, LocalDate.of(2015, 6, 7)),
+                new PromotionRule("Spring Sale", PromotionRule.ALL_TOOL_TYPES, 30, LocalDate.of(2015, 4, 1), LocalDate.of(2015, 5, 31))));
+
+        var agreement = manager.generateRentalAgreement(application("CHNS", JUNE_FIRST, 5, 10));
+        var later = manager.generateRentalAgreement(application("CHNS", LocalDate.of(2015, 6, 8), 5, 10));
+
+        assertAll(
+                () -> assertEquals(new BigDecimal("5.96"), agreement.baseCharge()),
+                () -> assertEquals(new BigDecimal("2.10"), agreement.discountAmount()),
+                () -> assertEquals(new BigDecimal("3.86"), agreement.finalCharge()),
+                () -> assertEquals(new BigDecimal("1.14"), later.discountAmount())
+        );
+    }
+
+    /**
+     * Test Case - Checkout windows and cached charge day counts are priced with the rules as well
+     * Success criteria - Each window matches the agreement for the same checkout date
+     */
+    @Test
+    void checkoutWindowsUseTheRules() {
+        var engine = new PricingEngine(PricingRules.loadResource(PricingRules.EXAMPLE_RULES));
+        var manager = new AgreementManager(new ExclusionManager(), new QuoteCache(1000, Duration.ofMinutes(5)), null, engine);
+        var windows = manager.findCheckoutWindows("JAKR", 9, 15, LocalDate.of(2015, 5, 25), LocalDate.of(2015, 7, 10));
+
+        for (var window : windows) {
+            var agreement = manager.generateRentalAgreement(application("JAKR", window.checkoutDate(), 9, 15));
+            assertAll(
+                    () -> assertEquals(agreement.chargeDays(), window.chargeDays()),
+                    () -> assertEquals(agreement.baseCharge(), window.baseCharge()),
+                    () -> assertEquals(agreement.finalCharge(), window.finalCharge())
+            );
+        }
+    }
+
+    /**
+     * Test Case - Rules files are parsed line by line, skipping comments
+     * Success criteria - The example file loads, and a bad line is reported with its line number
+     */
+    @Test
+    void rulesFileIsParsed(@TempDir Path directory) throws Exception {
+        var rules = PricingRules.loadResource(PricingRules.EXAMPLE_RULES);
+        var file = directory.resolve("rules.csv");
+        Files.writeString(file, "# rules\ncap, Chainsaw, 7, 8.99\ntier, Ladder, 0, 1.49\n");
+        var error = assertThrows(IllegalArgumentException.class, () -> PricingRules.load(file));
+
+        assertAll(
+                () -> assertEquals(8, rules.size()),
+                () -> assertEquals(new TierRule("Ladder", 8, new BigDecimal("1.49")), rules.get(0)),
+                () -> assertTrue(error.getMessage().startsWith("Invalid pricing rule on line 3"))
+        );
+    }
+
+    private static AgreementManager managerWith(List<PricingRule> rules) {
+        return new AgreementManager(new ExclusionManager(), null, null, new PricingEngine(rules));
+    }
+
+    private static RentalApplication application(String toolCode, LocalDate checkoutDate, int rentalDays, int discountPercentage) {
+        return RentalApplication.builder().toolCode(toolCode).checkoutDate(checkoutDate)
+                .rentalDays(rentalDays).discountPercentage(discountPercentage).build();
+    }
+}
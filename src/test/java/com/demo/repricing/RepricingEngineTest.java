@@ -0,0 +1,232 @@
+package com.demo.repricing;
+
+import com.demo.AgreementManager;
+import com.demo.ExclusionManager;
+import com.demo.QuoteCache;
+import com.demo.ToolCatalog;
+import com.demo.ToolData;
+import com.demo.currency.ExchangeRates;
+import com.demo.datatypes.RentalAgreement;
+import com.demo.datatypes.RentalApplication;
+import com.demo.datatypes.Tool;
+import com.demo.datatypes.ToolType;
+import com.demo.demand.DemandPricing;
+import com.demo.demand.UtilizationCounters;
+import com.demo.holidays.HolidayRule;
+import com.demo.holidays.HolidayRules;
+import com.demo.holidays.OneOffDateRule;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RepricingEngineTest {
+    private static final List<String> TOOL_CODES = List.of("CHNS", "LADW", "JAKD", "JAKR");
+    private static final int AGREEMENTS = 20_000;
+
+    /**
+     * Test Case - A new one day holiday is added to the calendar
+     * Success criteria - Managers on the old calendar or with a quote cache are refused.  Exactly the agreements a
+     * full repricing would change are reported, after examining only the agreements that cover the new holiday.
+     */
+    @Test
+    void holidayChangeRepricesOnlyAffectedAgreements() {
+        var agreements = generateAgreements(new AgreementManager());
+        var index = indexOf(agreements);
+        var rules = new ArrayList<HolidayRule>(HolidayRules.loadResource(HolidayRules.DEFAULT_RULES));
+        rules.add(new OneOffDateRule("Company Day", LocalDate.of(2015, 8, 14)));
+        var newManager = new AgreementManager(new ExclusionManager(rules));
+        var holidayChange = new HolidayChange(new ExclusionManager(), newManager.getExclusionManager());
+        var engine = new RepricingEngine(index);
+
+        assertThrows(IllegalStateException.class, () -> engine.apply(holidayChange, new AgreementManager()));
+        assertThrows(IllegalStateException.class, () -> engine.apply(holidayChange, new AgreementManager(newManager.getExclusionManager(),
+                new QuoteCache(1000, Duration.ofMinutes(5)))));
+
+        var report = engine.apply(holidayChange, newManager);
+        var expected = changedIds(agreements, newManager);
+        var reported = report.changes().stream().map(RepricedAgreement::id).collect(Collectors.toCollection(TreeSet::new));
+
+        assertAll(
+                () -> assertFalse(expected.isEmpty()),
+                () -> assertEquals(expected, reported),
+                () -> assertTrue(report.examined() < AGREEMENTS / 10, "Examined " + report.examined()),
+                () -> assertTrue(report.changes().stream().allMatch(change -> change.getFinalChargeDifference().signum() <= 0)),
+                () -> assertTrue(report.failures().isEmpty()),
+                () -> assertEquals(report.changes().get(0).after(), index.get(report.changes().get(0).id()))
+        );
+    }
+
+    /**
+     * Test Case - The daily charge for jackhammers goes up
+     * Success criteria - Every jackhammer agreement with a charge day is repriced, and no other agreement is
+     */
+    @Test
+    void rateChangeRepricesOnlyChangedTools() {
+        var agreements = generateAgreements(new AgreementManager());
+        var index = indexOf(agreements);
+        var before = ToolCatalog.getInstance();
+        var jackhammer = new ToolType(ToolData.TYPE_JACKHAMMER, new BigDecimal("3.49"), true, false, false);
+        var tools = before.getTools().stream()
+                .map(tool -> tool.type().label().equals(ToolData.TYPE_JACKHAMMER) ? new Tool(tool.code(), tool.brand(), jackhammer) : tool)
+                .toList();
+        var after = new ToolCatalog(tools);
+        var engine = new RepricingEngine(index);
+        var agreementManager = new AgreementManager();
+
+        assertThrows(IllegalStateException.class, () -> engine.apply(new RateChange(before, after), agreementManager));
+
+        ToolCatalog.setInstance(after);
+        try {
+            var report = engine.apply(new RateChange(before, after), agreementManager);
+            var expected = new TreeSet<Long>();
+            for (int i = 0; i < agreements.size(); i++) {
+                var agreement = agreements.get(i);
+                if (agreement.selectedTool().code().startsWith("JAK") && agreement.chargeDays() > 0) {
+                    expected.add((long) i);
+                }
+            }
+
+            assertAll(
+                    () -> assertEquals(expected, report.changes().stream().map(RepricedAgreement::id).collect(Collectors.toCollection(TreeSet::new))),
+                    () -> assertTrue(report.getFinalChargeDifferences().values().stream().allMatch(total -> total.signum() > 0))
+            );
+        } finally {
+            ToolCatalog.setInstance(before);
+        }
+    }
+
+    /**
+     * Test Case - A Canadian dollar agreement covers a new holiday, and the shared exchange rates have been swapped
+     * since it was priced
+     * Success criteria - A manager with demand pricing is refused.  The agreement loses the holiday's charge day and
+     * is repriced at the daily charge it was converted to at the old rate, not the current one.
+     */
+    @Test
+    void holidayChangeKeepsTheRatesAgreementsWerePricedWith() {
+        var canadianDollar = Currency.getInstance("CAD");
+        var rates = ExchangeRates.getInstance();
+        var rules = new ArrayList<HolidayRule>(HolidayRules.loadResource(HolidayRules.DEFAULT_RULES));
+        rules.add(new OneOffDateRule("Company Day", LocalDate.of(2015, 8, 14)));
+        var newManager = new AgreementManager(new ExclusionManager(rules));
+        var holidayChange = new HolidayChange(new ExclusionManager(), newManager.getExclusionManager());
+        var demandPricing = new DemandPricing(Map.of(ToolData.TYPE_LADDER, 1), Map.of(BigDecimal.ZERO, BigDecimal.ONE),
+                new UtilizationCounters(LocalDate.of(2015, 1, 1), 365));
+
+        try {
+            ExchangeRates.setInstance(new ExchangeRates(Map.of(canadianDollar, new BigDecimal("1.25"))));
+            // Checkout Wednesday 8/12/15 for 5 days charges 8/13 to 8/17, with a ladder at 2.49 CAD a day
+            var agreement = new AgreementManager().generateRentalAgreement(RentalApplication.builder()
+                    .toolCode("LADW").checkoutDate(LocalDate.of(2015, 8, 12)).rentalDays(5).currency(canadianDollar).build());
+            var index = new OpenAgreementIndex();
+            index.add(1, agreement);
+            var engine = new RepricingEngine(index);
+
+            ExchangeRates.setInstance(new ExchangeRates(Map.of(canadianDollar, new BigDecimal("2"))));
+            assertThrows(IllegalStateException.class, () -> engine.apply(holidayChange, new AgreementManager(
+                    newManager.getExclusionManager(), null, null, null, demandPricing)));
+
+            var report = engine.apply(holidayChange, newManager);
+            var repriced = index.get(1);
+
+            assertAll(
+                    () -> assertEquals(new BigDecimal("12.45"), agreement.baseCharge()),
+                    () -> assertEquals(1, report.changes().size()),
+                    () -> assertEquals(canadianDollar, repriced.currency()),
+                    () -> assertEquals(4, repriced.chargeDays()),
+                    () -> assertEquals(new BigDecimal("2.49"), repriced.dailyCharge()),
+                    () -> assertEquals(new BigDecimal("9.96"), repriced.baseCharge()),
+                    () -> assertEquals(new BigDecimal("9.96"), repriced.finalCharge())
+            );
+        } finally {
+            ExchangeRates.setInstance(rates);
+        }
+    }
+
+    /**
+     * Test Case - Agreements are added, replaced and removed
+     * Success criteria - Range queries return each covering agreement once and skip removed agreements
+     */
+    @Test
+    void indexFindsCoveringAgreements() {
+        var agreementManager = new AgreementManager();
+        var index = new OpenAgreementIndex();
+        index.add(1, agreementManager.generateRentalAgreement(application("LADW", LocalDate.of(2015, 7, 1), 90)));
+        index.add(2, agreementManager.generateRentalAgreement(application("LADW", LocalDate.of(2015, 7, 20), 2)));
+        index.add(3, agreementManager.generateRentalAgreement(application("CHNS", LocalDate.of(2015, 7, 20), 2)));
+        index.add(4, agreementManager.generateRentalAgreement(application("LADW", LocalDate.of(2015, 9, 1), 5)));
+        index.remove(4);
+
+        assertAll(
+                () -> assertEquals(Set.of(1L, 2L), idsOf(index.findCovering(ToolData.TYPE_LADDER,
+                        LocalDate.of(2015, 7, 1).toEpochDay(), LocalDate.of(2015, 12, 31).toEpochDay()))),
+                () -> assertEquals(Set.of(1L), idsOf(index.findCovering(ToolData.TYPE_LADDER,
+                        LocalDate.of(2015, 7, 2).toEpochDay(), LocalDate.of(2015, 7, 2).toEpochDay()))),
+                () -> assertEquals(Set.of(), idsOf(index.findCovering(ToolData.TYPE_LADDER,
+                        LocalDate.of(2015, 7, 1).toEpochDay(), LocalDate.of(2015, 7, 1).toEpochDay()))),
+                () -> assertEquals(Set.of(3L), idsOf(index.findAll(ToolData.TYPE_CHAINSAW))),
+                () -> assertEquals(3, index.size()),
+                () -> assertNull(index.get(4))
+        );
+    }
+
+    private static List<RentalAgreement> generateAgreements(AgreementManager agreementManager) {
+        var random = new Random(20);
+        var agreements = new ArrayList<RentalAgreement>(AGREEMENTS);
+
+        for (int i = 0; i < AGREEMENTS; i++) {
+            agreements.add(agreementManager.generateRentalAgreement(RentalApplication.builder()
+                    .toolCode(TOOL_CODES.get(random.nextInt(TOOL_CODES.size())))
+                    .checkoutDate(LocalDate.of(2014, 1, 1).plusDays(random.nextInt(3 * 365)))
+                    .rentalDays(1 + random.nextInt(14))
+                    .discountPercentage(random.nextInt(4) * 10)
+                    .build()));
+        }
+        return agreements;
+    }
+
+    private static OpenAgreementIndex indexOf(List<RentalAgreement> agreements) {
+        var index = new OpenAgreementIndex();
+        for (int i = 0; i < agreements.size(); i++) {
+            index.add(i, agreements.get(i));
+        }
+        return index;
+    }
+
+    private static TreeSet<Long> changedIds(List<RentalAgreement> agreements, AgreementManager agreementManager) {
+        var changed = new TreeSet<Long>();
+        for (int i = 0; i < agreements.size(); i++) {
+            var agreement = agreements.get(i);
+            var repriced = agreementManager.generateRentalAgreement(application(agreement.selectedTool().code(),
+                    agreement.checkoutDate(), agreement.rentalDays(), agreement.discountPercentage()));
+            if (!repriced.equals(agreement)) {
+                changed.add((long) i);
+            }
+        }
+        return changed;
+    }
+
+    private static Set<Long> idsOf(List<OpenAgreement> agreements) {
+        return agreements.stream().map(OpenAgreement::id).collect(Collectors.toSet());
+    }
+
+    private static RentalApplication application(String toolCode, LocalDate checkoutDate, int rentalDays) {
+        return application(toolCode, checkoutDate, rentalDays, 0);
+    }
+
+    private static RentalApplication application(String toolCode, LocalDate checkoutDate, int rentalDays, int discountPercentage) {
+        return RentalApplication.builder().toolCode(toolCode).checkoutDate(checkoutDate)
+                .rentalDays(rentalDays).discountPercentage(discountPercentage).build();
+    }
+}
@@ -0,0 +1,98 @@
+package com.demo.returns;
+
+import com.demo.AgreementManager;
+import com.demo.ExclusionManager;
+import com.demo.datatypes.RentalAgreement;
+import com.demo.datatypes.RentalApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark for the nightly overdue accrual job over a ledger of 10 million open agreements, due across the
+ * 60 days before the first night so most of them are overdue.  Each invocation is one night: it accrues the day after
+ * the previous invocation, so every invocation does a full night's work rather than finding everything accrued.
+ * The checkpoint and its state file are written to temporary files on the local disk.
+ * Run with the benchmark profile described in pom.xml, for example -Djmh.args="OverdueAccrualBenchmark".
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class OverdueAccrualBenchmark {
+    private static final LocalDate FIRST_NIGHT = LocalDate.of(2020, 7, 1);
+
+    @State(Scope.Benchmark)
+    public static class LedgerState {
+        @Param({"10000000"})
+        int agreements;
+
+        Path checkpoint;
+        OverdueAccrualJob job;
+        LocalDate night = FIRST_NIGHT;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            var ledger = new OverdueLedger(new ExclusionManager());
+            var rentals = generateAgreements();
+
+            for (int i = 0; i < this.agreements; i++) {
+                ledger.add(i, rentals.get(i % rentals.size()));
+            }
+            this.checkpoint = Files.createTempFile("accrual", ".checkpoint");
+            this.job = new OverdueAccrualJob(ledger, this.checkpoint);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            Files.deleteIfExists(this.checkpoint);
+            Files.deleteIfExists(this.checkpoint.resolveSibling(this.checkpoint.getFileName() + ".state"));
+        }
+    }
+
+    @Benchmark
+    public AccrualReport accrueNight(LedgerState state) {
+        state.night = state.night.plusDays(1);
+        return state.job.run(state.night);
+    }
+
+    /**
+     * @return Agreements for every tool type with due dates spread over the 60 days before the first night
+     */
+    private static List<RentalAgreement> generateAgreements() {
+        var agreementManager = new AgreementManager();
+        var random = new Random(42);
+        var toolCodes = List.of("CHNS", "LADW", "JAKD", "JAKR");
+        var agreements = new ArrayList<RentalAgreement>();
+
+        for (int i = 0; i < 997; i++) {
+            var rentalDays = 1 + random.nextInt(14);
+            agreements.add(agreementManager.generateRentalAgreement(RentalApplication.builder()
+                    .toolCode(toolCodes.get(i % toolCodes.size()))
+                    .checkoutDate(FIRST_NIGHT.minusDays(rentalDays + random.nextInt(60)))
+                    .rentalDays(rentalDays)
+                    .build()));
+        }
+        return agreements;
+    }
+}
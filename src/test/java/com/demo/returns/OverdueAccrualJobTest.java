@@ -0,0 +1,153 @@
+package com.demo.returns;
+
+import com.demo.AgreementManager;
+import com.demo.ExclusionManager;
+import com.demo.datatypes.RentalAgreement;
+import com.demo.datatypes.RentalApplication;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OverdueAccrualJobTest {
+    private static final LocalDate CHECKOUT_DATE = LocalDate.of(2020, 6, 29);
+    private static final LocalDate DUE_DATE = LocalDate.of(2020, 7, 2);
+
+    /**
+     * Test Case - A chainsaw, ladder and jackhammer due 7/2/20 come back on 7/7/20, past the July 4th weekend, and a
+     * second ladder comes back on time
+     * Success criteria - Each late fee charges only the overdue days the tool type charges for: chainsaws skip the
+     * weekend, ladders skip the observed holiday on 7/3, and jackhammers skip both.  The on time return has no fee.
+     */
+    @Test
+    void lateReturnsUseRentalChargeRules() {
+        var ledger = new OverdueLedger(new ExclusionManager());
+        var chainsaw = ledger.add(1, rent("CHNS"));
+        var ladder = ledger.add(2, rent("LADW"));
+        var jackhammer = ledger.add(3, rent("JAKR"));
+        var onTime = ledger.add(4, rent("LADW"));
+
+        var chainsawReturn = ledger.recordReturn(chainsaw, LocalDate.of(2020, 7, 7));
+        var ladderReturn = ledger.recordReturn(ladder, LocalDate.of(2020, 7, 7));
+        var jackhammerReturn = ledger.recordReturn(jackhammer, LocalDate.of(2020, 7, 7));
+        var onTimeReturn = ledger.recordReturn(onTime, DUE_DATE);
+
+        assertAll(
+                () -> assertEquals(5, chainsawReturn.overdueDays()),
+                () -> assertEquals(3, chainsawReturn.overdueChargeDays()),
+                () -> assertEquals(new BigDecimal("4.47"), chainsawReturn.lateFee()),
+                () -> assertEquals(4, ladderReturn.overdueChargeDays()),
+                () -> assertEquals(new BigDecimal("7.96"), ladderReturn.lateFee()),
+                () -> assertEquals(2, jackhammerReturn.overdueChargeDays()),
+                () -> assertEquals(new BigDecimal("5.98"), jackhammerReturn.lateFee()),
+                () -> assertEquals(3, jackhammerReturn.agreementId()),
+                () -> assertFalse(onTimeReturn.isLate()),
+                () -> assertEquals(new BigDecimal("0.00"), onTimeReturn.lateFee()),
+                () -> assertThrows(IllegalStateException.class, () -> ledger.recordReturn(onTime, DUE_DATE))
+        );
+    }
+
+    /**
+     * Test Case - The accrual job runs every night from 7/1/20 to 7/7/20, then the tools come back on 7/7/20
+     * Success criteria - The fees accrued night by night add up to the late fees calculated at return, running the
+     * same night twice accrues nothing, and returned tools stop accruing
+     */
+    @Test
+    void nightlyAccrualMatchesReturnFees(@TempDir Path directory) {
+        var ledger = new OverdueLedger(new ExclusionManager());
+        var job = new OverdueAccrualJob(ledger, directory.resolve("accrual.checkpoint"));
+        var slots = List.of(ledger.add(1, rent("CHNS")), ledger.add(2, rent("LADW")), ledger.add(3, rent("JAKR")));
+
+        var accrued = 0L;
+        for (var night = LocalDate.of(2020, 7, 1); !night.isAfter(LocalDate.of(2020, 7, 7)); night = night.plusDays(1)) {
+            accrued += job.run(night).feesAccrued().movePointRight(2).longValueExact();
+        }
+        var repeat = job.run(LocalDate.of(2020, 7, 7));
+        var accruedFees = accrued;
+        var accruedLadderFee = ledger.getLateFeeCents(slots.get(1));
+
+        var returnedFees = 0L;
+        for (var slot : slots) {
+            returnedFees += ledger.recordReturn(slot, LocalDate.of(2020, 7, 7)).lateFee().movePointRight(2).longValueExact();
+        }
+        var totalReturnedFees = returnedFees;
+        var afterReturn = job.run(LocalDate.of(2020, 7, 8));
+
+        assertAll(
+                () -> assertEquals(1841, accruedFees),
+                () -> assertEquals(totalReturnedFees, accruedFees),
+                () -> assertEquals(796, accruedLadderFee),
+                () -> assertEquals(LocalDate.of(2020, 7, 7), ledger.getAccruedThrough(slots.get(0))),
+                () -> assertEquals(0, repeat.agreementsAccrued()),
+                () -> assertEquals(0, afterReturn.agreementsAccrued()),
+                () -> assertEquals(accruedFees, ledger.getTotalLateFeeCents())
+        );
+    }
+
+    /**
+     * Test Case - A run over three chunks of jackhammers due 7/2/20 is interrupted after finishing the first chunk,
+     * leaving a checkpoint with a partly written line.  It is run again on a ledger rebuilt without any fees, using
+     * a calendar without holidays, so a chunk accrued by the second run would charge the observed holiday on 7/3/20.
+     * Success criteria - The second run restores the finished chunk from the checkpoint instead of accruing it, so
+     * its slots keep the first run's fees and aren't counted in the report, while the other chunks are accrued.  A
+     * third run for the same date accrues nothing, and a run for the next date starts over.
+     */
+    @Test
+    void interruptedRunResumesFromCheckpoint(@TempDir Path directory) throws IOException {
+        var agreement = rent("JAKR");
+        var agreements = OverdueLedger.CHUNK_SIZE * 2 + 10;
+        var checkpoint = directory.resolve("accrual.checkpoint");
+        var interruptedLedger = new OverdueLedger(new ExclusionManager());
+        for (int i = 0; i < agreements; i++) {
+            interruptedLedger.add(i, agreement);
+        }
+        new OverdueAccrualJob(interruptedLedger, checkpoint).run(LocalDate.of(2020, 7, 7));
+        var lines = Files.readAllLines(checkpoint);
+        var firstChunkLine = lines.stream().filter(line -> line.startsWith("0,")).findFirst().orElseThrow();
+        Files.writeString(checkpoint, lines.get(0) + "\n" + firstChunkLine + "\n2x");
+
+        var ledger = new OverdueLedger(new ExclusionManager(List.of()));
+        for (int i = 0; i < agreements; i++) {
+            ledger.add(i, agreement);
+        }
+        var job = new OverdueAccrualJob(ledger, checkpoint);
+        var resumed = job.run(LocalDate.of(2020, 7, 7));
+        var firstChunkFee = ledger.getLateFeeCents(0);
+        var firstChunkChargeDays = ledger.getOverdueChargeDays(OverdueLedger.CHUNK_SIZE - 1);
+        var firstChunkAccruedThrough = ledger.getAccruedThrough(0);
+        var lastChunkFee = ledger.getLateFeeCents(agreements - 1);
+        var accruedAgreements = agreements - OverdueLedger.CHUNK_SIZE;
+        var repeat = job.run(LocalDate.of(2020, 7, 7));
+        var nextNight = job.run(LocalDate.of(2020, 7, 8));
+
+        assertAll(
+                () -> assertEquals(3, resumed.chunks()),
+                () -> assertEquals(1, resumed.resumedChunks()),
+                () -> assertEquals(accruedAgreements, resumed.agreementsAccrued()),
+                () -> assertEquals(3L * accruedAgreements, resumed.chargeDays()),
+                () -> assertEquals(new BigDecimal("8.97").multiply(BigDecimal.valueOf(accruedAgreements)),
+                        resumed.feesAccrued()),
+                () -> assertEquals(598, firstChunkFee),
+                () -> assertEquals(2, firstChunkChargeDays),
+                () -> assertEquals(LocalDate.of(2020, 7, 7), firstChunkAccruedThrough),
+                () -> assertEquals(897, lastChunkFee),
+                () -> assertEquals(3, repeat.resumedChunks()),
+                () -> assertEquals(0, repeat.agreementsAccrued()),
+                () -> assertEquals(0, nextNight.resumedChunks()),
+                () -> assertEquals(agreements, nextNight.agreementsAccrued()),
+                () -> assertEquals(LocalDate.of(2020, 7, 8), ledger.getAccruedThrough(0))
+        );
+    }
+
+    private static RentalAgreement rent(String toolCode) {
+        return new AgreementManager().generateRentalAgreement(RentalApplication.builder()
+                .toolCode(toolCode).checkoutDate(CHECKOUT_DATE).rentalDays(3).build());
+    }
+}